@@ -0,0 +1,52 @@
+package com.dnobretech.jarvistradutorbackend.bench;
+
+import com.dnobretech.jarvistradutorbackend.util.PgBinaryCopyWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Codificação de uma linha do COPY de staging (src,tgt,lang_src,lang_tgt,quality) no formato
+ * binário, escrevendo num stream descartável; mede só o custo do encoder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CopyRowBenchmark {
+
+    private String[] src;
+    private String[] tgt;
+    private PgBinaryCopyWriter out;
+    private int i;
+
+    @Setup
+    public void setup() throws IOException {
+        List<String> lines = CorpusSample.lines();
+        src = CorpusSample.column(lines, 0);
+        tgt = CorpusSample.column(lines, 1);
+        out = new PgBinaryCopyWriter(OutputStream.nullOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        out.close();
+    }
+
+    @Benchmark
+    public void writePairRow() throws IOException {
+        int k = i;
+        i = (i + 1) % src.length;
+        out.startRow(5);
+        out.text(src[k]);
+        out.text(tgt[k]);
+        out.text("en");
+        out.text("pt");
+        out.float8(0.85);
+    }
+}
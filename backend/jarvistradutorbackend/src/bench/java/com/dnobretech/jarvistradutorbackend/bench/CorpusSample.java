@@ -0,0 +1,49 @@
+package com.dnobretech.jarvistradutorbackend.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Amostra EN/PT (diálogo de romance + strings de UI com placeholders) usada pelos benchmarks.
+ * Linhas no formato do import: src \t tgt \t lang_src \t lang_tgt.
+ */
+final class CorpusSample {
+
+    static final String RESOURCE = "/bench/corpus-en-pt.tsv";
+
+    private CorpusSample() {}
+
+    static List<String> lines() {
+        try (InputStream in = CorpusSample.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) throw new IllegalStateException("Amostra não encontrada: " + RESOURCE);
+            List<String> out = new ArrayList<>();
+            BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (!line.isBlank()) out.add(line);
+            }
+            return out;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String[] column(List<String> lines, int col) {
+        return lines.stream().map(l -> l.split("\t", -1)[col]).toArray(String[]::new);
+    }
+
+    /** Arquivo sintético de ~{@code targetBytes} repetindo a amostra (para os leitores de linha). */
+    static byte[] repeated(List<String> lines, int targetBytes) {
+        StringBuilder sb = new StringBuilder(targetBytes + 256);
+        int i = 0;
+        while (sb.length() < targetBytes) {
+            sb.append(lines.get(i++ % lines.size())).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
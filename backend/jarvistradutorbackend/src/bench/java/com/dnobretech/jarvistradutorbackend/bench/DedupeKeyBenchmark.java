@@ -0,0 +1,73 @@
+package com.dnobretech.jarvistradutorbackend.bench;
+
+import com.dnobretech.jarvistradutorbackend.tmimport.FingerprintSet;
+import com.dnobretech.jarvistradutorbackend.tmimport.PairFingerprint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chave de dedupe por par: fingerprint de 64 bits num set de longs (atual) contra a chave
+ * concatenada em String num HashSet (como era antes). Os sets são recriados a cada iteração
+ * para não medir só o caminho "já visto".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DedupeKeyBenchmark {
+
+    private String[] src;
+    private String[] tgt;
+    private int i;
+    private long salt;
+
+    private FingerprintSet fingerprints;
+    private Set<String> stringKeys;
+
+    @Setup
+    public void setup() {
+        List<String> lines = CorpusSample.lines();
+        src = CorpusSample.column(lines, 0);
+        tgt = CorpusSample.column(lines, 1);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetSets() {
+        fingerprints = new FingerprintSet(1 << 14);
+        stringKeys = new HashSet<>(1 << 14);
+    }
+
+    @Benchmark
+    public long fingerprintOnly() {
+        int k = next();
+        return PairFingerprint.of(src[k], tgt[k], "en", "pt");
+    }
+
+    @Benchmark
+    public boolean fingerprintSetAdd() {
+        int k = next();
+        return fingerprints.add(PairFingerprint.of(src[k], tgt[k], "en", "pt") ^ salt);
+    }
+
+    @Benchmark
+    public boolean stringKeyHashSetAdd() {
+        int k = next();
+        return stringKeys.add(src[k] + '\u0001' + tgt[k] + '\u0001' + "en" + '\u0001' + "pt" + salt);
+    }
+
+    /** Varia o salt a cada volta na amostra para que as inserções continuem sendo novas. */
+    private int next() {
+        int k = i;
+        if (++i == src.length) {
+            i = 0;
+            salt++;
+        }
+        return k;
+    }
+}
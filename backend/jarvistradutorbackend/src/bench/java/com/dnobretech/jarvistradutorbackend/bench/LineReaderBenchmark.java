@@ -0,0 +1,73 @@
+package com.dnobretech.jarvistradutorbackend.bench;
+
+import com.dnobretech.jarvistradutorbackend.util.DelimitedRecordParser;
+import com.dnobretech.jarvistradutorbackend.util.Utf8LineReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura + split de um arquivo TSV em memória (~8 MB): o leitor do import resumível
+ * ({@link Utf8LineReader}), com String por linha + split e com o parser sobre o buffer,
+ * contra o BufferedReader que o upload usava.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineReaderBenchmark {
+
+    private static final int BUFFER = Utf8LineReader.DEFAULT_BUFFER;
+
+    @Param({"8388608"})
+    public int fileBytes;
+
+    private byte[] file;
+
+    @Setup
+    public void setup() {
+        file = CorpusSample.repeated(CorpusSample.lines(), fileBytes);
+    }
+
+    @Benchmark
+    public void bufferedReaderSplit(Blackhole bh) throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(file), StandardCharsets.UTF_8), 1 << 16);
+        String line;
+        while ((line = br.readLine()) != null) {
+            String[] cols = line.split("\t", -1);
+            bh.consume(cols[0]);
+            bh.consume(cols[1]);
+        }
+    }
+
+    @Benchmark
+    public void utf8ReadLineSplit(Blackhole bh) throws IOException {
+        Utf8LineReader r = new Utf8LineReader(Channels.newChannel(new ByteArrayInputStream(file)), 0, BUFFER);
+        String line;
+        while ((line = r.readLine()) != null) {
+            String[] cols = line.split("\t", -1);
+            bh.consume(cols[0]);
+            bh.consume(cols[1]);
+        }
+    }
+
+    @Benchmark
+    public void utf8ReadRecord(Blackhole bh) throws IOException {
+        Utf8LineReader r = new Utf8LineReader(Channels.newChannel(new ByteArrayInputStream(file)), 0, BUFFER);
+        DelimitedRecordParser rec = new DelimitedRecordParser("\t", false);
+        while (r.readRecord(rec)) {
+            bh.consume(rec.text(0));
+            bh.consume(rec.text(1));
+        }
+    }
+}
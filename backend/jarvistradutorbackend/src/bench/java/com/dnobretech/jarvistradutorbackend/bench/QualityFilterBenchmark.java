@@ -0,0 +1,45 @@
+package com.dnobretech.jarvistradutorbackend.bench;
+
+import com.dnobretech.jarvistradutorbackend.epubimport.QualityFilter;
+import com.dnobretech.jarvistradutorbackend.util.TextNormalizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Filtros baratos por par: placeholders preservados e nota de qualidade. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QualityFilterBenchmark {
+
+    private final QualityFilter filter = new QualityFilter(new TextNormalizer());
+    private String[] src;
+    private String[] tgt;
+    private int i;
+
+    @Setup
+    public void setup() {
+        List<String> lines = CorpusSample.lines();
+        src = CorpusSample.column(lines, 0);
+        tgt = CorpusSample.column(lines, 1);
+    }
+
+    @Benchmark
+    public boolean placeholdersPreserved() {
+        int k = i;
+        i = (i + 1) % src.length;
+        return filter.placeholdersPreserved(src[k], tgt[k]);
+    }
+
+    @Benchmark
+    public double qualityScore() {
+        int k = i;
+        i = (i + 1) % src.length;
+        double r = filter.lengthRatio(src[k], tgt[k]);
+        return filter.qualityScore(r, true, 0.5, 2.0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.dnobretech.jarvistradutorbackend.bench;
+
+import com.dnobretech.jarvistradutorbackend.util.TextNormalizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalização por segmento (roda duas vezes por linha em todo import).
+ * Rodar: {@code ./mvnw -Pbench test-compile exec:exec -Dbench.args="TextNormalizer"}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextNormalizerBenchmark {
+
+    private final TextNormalizer norm = new TextNormalizer();
+    private String[] segments;
+    private int i;
+
+    @Setup
+    public void setup() {
+        List<String> lines = CorpusSample.lines();
+        String[] src = CorpusSample.column(lines, 0);
+        String[] tgt = CorpusSample.column(lines, 1);
+        segments = new String[src.length + tgt.length];
+        System.arraycopy(src, 0, segments, 0, src.length);
+        System.arraycopy(tgt, 0, segments, src.length, tgt.length);
+    }
+
+    private String next() {
+        String s = segments[i];
+        i = (i + 1) % segments.length;
+        return s;
+    }
+
+    @Benchmark
+    public String normalize() {
+        return norm.normalize(next());
+    }
+
+    @Benchmark
+    public String normalizeDialogue() {
+        return norm.normalizeDialogue(next());
+    }
+}
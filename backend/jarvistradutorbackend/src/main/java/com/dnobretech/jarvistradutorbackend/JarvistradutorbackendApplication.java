@@ -2,12 +2,15 @@
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class JarvistradutorbackendApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(JarvistradutorbackendApplication.class, args);
+        ConfigurableApplicationContext ctx = SpringApplication.run(JarvistradutorbackendApplication.class, args);
+        // perfil "cli" (ImportCliRunner): jobs já rodaram; fecha o contexto e sai com o código dos jobs
+        if (ctx.getEnvironment().matchesProfiles("cli")) System.exit(SpringApplication.exit(ctx));
     }
 
 }
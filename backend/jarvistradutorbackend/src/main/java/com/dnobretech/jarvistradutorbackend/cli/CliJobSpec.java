@@ -0,0 +1,53 @@
+package com.dnobretech.jarvistradutorbackend.cli;
+
+import java.util.List;
+
+/**
+ * Arquivo de jobs do perfil "cli" (YAML ou JSON). Campos ausentes usam os mesmos defaults dos
+ * endpoints HTTP correspondentes.
+ *
+ * @param stopOnError true (default) = o primeiro job com erro encerra a execução
+ */
+public record CliJobSpec(Boolean stopOnError, List<Job> jobs) {
+
+    /**
+     * Um import. {@code type} = tm-resume | tm-dir | tmx | epub-pair | glossary.
+     * <ul>
+     *   <li>tm-resume: path, fileKey (default = path), delimiter, batchLines, examples, embed, workers</li>
+     *   <li>tm-dir: dir, glob, keyPrefix, delimiter, batchLines, embed, workers, parallelFiles</li>
+     *   <li>tmx: path, fileKey (default = path), srcLang, tgtLang, batchTus</li>
+     *   <li>epub-pair: fileEn, filePt, level, mode, srcLang, tgtLang, minQuality, seriesId, bookId, sourceTag</li>
+     *   <li>glossary: path (JSON com a lista de termos, como no POST /api/glossary/bulk), seriesId</li>
+     * </ul>
+     */
+    public record Job(
+            String type,
+            String name,                        // só para os logs
+            String path,
+            String fileKey,
+            String delimiter,
+            Integer batchLines,
+            Integer examples,
+            String embed,
+            Integer workers,
+            String dir,
+            String glob,
+            String keyPrefix,
+            Integer parallelFiles,
+            String srcLang,
+            String tgtLang,
+            Integer batchTus,
+            String fileEn,
+            String filePt,
+            String level,
+            String mode,
+            Double minQuality,
+            Long seriesId,
+            Long bookId,
+            String sourceTag
+    ) {
+        String label() {
+            return name != null ? name : type + ":" + (path != null ? path : dir != null ? dir : fileEn);
+        }
+    }
+}
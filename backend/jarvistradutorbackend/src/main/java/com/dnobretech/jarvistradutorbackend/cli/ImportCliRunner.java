@@ -0,0 +1,216 @@
+package com.dnobretech.jarvistradutorbackend.cli;
+
+import com.dnobretech.jarvistradutorbackend.domain.Glossary;
+import com.dnobretech.jarvistradutorbackend.dto.DirectoryImportResult;
+import com.dnobretech.jarvistradutorbackend.service.EPUBPairImportService;
+import com.dnobretech.jarvistradutorbackend.service.GlossaryService;
+import com.dnobretech.jarvistradutorbackend.service.TMDirectoryImportService;
+import com.dnobretech.jarvistradutorbackend.service.TMImportService;
+import com.dnobretech.jarvistradutorbackend.service.TMXImportService;
+import com.dnobretech.jarvistradutorbackend.util.ImportProgress;
+import com.dnobretech.jarvistradutorbackend.util.StoredMultipartFile;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Imports em lote sem a pilha web (perfil "cli", ver application-cli.yaml): lê o arquivo de jobs,
+ * roda cada um na thread principal, na ordem, e o processo termina com o código de saída
+ * (0 = tudo ok, 1 = algum job falhou, 2 = arquivo de jobs ausente/inválido).
+ *
+ * <pre>
+ * java -jar jarvistradutorbackend.jar --spring.profiles.active=cli --spec=/etc/jarvis/nightly.yaml
+ *
+ * stopOnError: true
+ * jobs:
+ *   - type: tm-dir
+ *     dir: /data/opus/en-pt
+ *     glob: "*.tsv.gz"
+ *     workers: 4
+ *   - type: tmx
+ *     path: /data/dgt/en-pt.tmx.gz
+ *     fileKey: dgt-en-pt
+ * </pre>
+ *
+ * Os serviços vêm por {@link ObjectProvider}: com lazy-initialization só sobe o que os jobs usam
+ * (um arquivo só de TSV não instancia o import de EPUB nem os clients dele). Os imports resumíveis
+ * usam os mesmos checkpoints do servidor: repetir a execução continua de onde parou.
+ */
+@Slf4j
+@Component
+@Profile("cli")
+@RequiredArgsConstructor
+public class ImportCliRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private final ObjectProvider<TMImportService> tmImport;
+    private final ObjectProvider<TMDirectoryImportService> dirImport;
+    private final ObjectProvider<TMXImportService> tmxImport;
+    private final ObjectProvider<EPUBPairImportService> epubImport;
+    private final ObjectProvider<GlossaryService> glossary;
+    private final ObjectMapper mapper;
+
+    private volatile int exitCode = 0;
+
+    @Override
+    public int getExitCode() { return exitCode; }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String specPath = args.containsOption("spec") ? args.getOptionValues("spec").get(0)
+                : args.getNonOptionArgs().isEmpty() ? null : args.getNonOptionArgs().get(0);
+        if (specPath == null) {
+            log.error("[cli] informe o arquivo de jobs: --spec=<arquivo.yaml>");
+            exitCode = EXIT_USAGE;
+            return;
+        }
+
+        CliJobSpec spec;
+        try {
+            spec = readSpec(Path.of(specPath));
+        } catch (Exception e) {
+            log.error("[cli] arquivo de jobs inválido '{}': {}", specPath, e.getMessage());
+            exitCode = EXIT_USAGE;
+            return;
+        }
+
+        final List<CliJobSpec.Job> jobs = spec.jobs();
+        final boolean stopOnError = spec.stopOnError() == null || spec.stopOnError();
+        log.info("[cli] {} job(s) em '{}' (stopOnError={})", jobs.size(), specPath, stopOnError);
+
+        int done = 0, failed = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            CliJobSpec.Job job = jobs.get(i);
+            ImportProgress progress = new ImportProgress();
+            progress.markStarted();
+            ImportProgress.bind(progress);
+            try {
+                log.info("[cli] job {}/{} '{}' iniciado", i + 1, jobs.size(), job.label());
+                Object result = runJob(job);
+                done++;
+                log.info("[cli] job {}/{} '{}' concluído em {}s: linhas={} aceitas={} rejeitadas={} resultado={}",
+                        i + 1, jobs.size(), job.label(), String.format("%.1f", progress.elapsedSeconds()),
+                        progress.lines(), progress.accepted(), progress.rejected(), mapper.writeValueAsString(result));
+            } catch (Exception e) {
+                failed++;
+                log.error("[cli] job {}/{} '{}' falhou", i + 1, jobs.size(), job.label(), e);
+                if (stopOnError) break;
+            } finally {
+                ImportProgress.unbind();
+            }
+        }
+
+        if (failed > 0) exitCode = EXIT_FAILED;
+        log.info("[cli] fim: {} ok, {} com erro, {} não executado(s)", done, failed, jobs.size() - done - failed);
+    }
+
+    /** YAML (ou JSON, que também é YAML) → {@link CliJobSpec}; campo desconhecido é erro (typo não vira default). */
+    CliJobSpec readSpec(Path file) throws Exception {
+        Object raw;
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            raw = new Yaml().load(r);
+        }
+        if (raw == null) throw new IllegalArgumentException("arquivo vazio");
+        CliJobSpec spec = mapper.readerFor(CliJobSpec.class)
+                .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValue((JsonNode) mapper.valueToTree(raw));
+        if (spec.jobs() == null || spec.jobs().isEmpty()) throw new IllegalArgumentException("nenhum job em 'jobs'");
+        for (int i = 0; i < spec.jobs().size(); i++) {
+            try {
+                validate(spec.jobs().get(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("job " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return spec;
+    }
+
+    /** Antes de rodar qualquer job: um erro no 5º job não deve aparecer só depois de horas de import. */
+    private static void validate(CliJobSpec.Job j) {
+        switch (type(j)) {
+            case "tm-resume", "tmx" -> require(j.path(), "path");
+            case "tm-dir" -> require(j.dir(), "dir");
+            case "epub-pair" -> {
+                require(j.fileEn(), "fileEn");
+                require(j.filePt(), "filePt");
+            }
+            case "glossary" -> require(j.path(), "path");
+            default -> throw new IllegalArgumentException(
+                    "type '" + j.type() + "' desconhecido (tm-resume, tm-dir, tmx, epub-pair, glossary)");
+        }
+    }
+
+    private Object runJob(CliJobSpec.Job j) throws Exception {
+        return switch (type(j)) {
+            case "tm-resume" -> tmImport.getObject().importTxtResumeToEnd(
+                    j.path(), or(j.delimiter(), "\t"), or(j.fileKey(), j.path()), or(j.batchLines(), 100_000),
+                    or(j.examples(), 0), or(j.embed(), "none"), or(j.workers(), 1));
+
+            case "tm-dir" -> {
+                DirectoryImportResult r = dirImport.getObject().importDirectory(
+                        j.dir(), or(j.glob(), "*.{tsv,csv,txt,gz,zst,xz}"), j.keyPrefix(), or(j.delimiter(), "\t"),
+                        or(j.batchLines(), 100_000), or(j.embed(), "none"), or(j.workers(), 1), or(j.parallelFiles(), 0));
+                if (r.failed() > 0) {
+                    throw new IllegalStateException(r.failed() + " de " + r.files() + " arquivo(s) com erro: "
+                            + mapper.writeValueAsString(r.results().stream().filter(f -> "failed".equals(f.status())).toList()));
+                }
+                yield r;
+            }
+
+            case "tmx" -> tmxImport.getObject().importTmxResumeToEnd(
+                    j.path(), or(j.fileKey(), j.path()), or(j.srcLang(), "en"), or(j.tgtLang(), "pt"),
+                    or(j.batchTus(), 100_000));
+
+            case "epub-pair" -> epubImport.getObject().importParallelEPUB(
+                    existing(j.fileEn()), existing(j.filePt()), or(j.level(), "paragraph"), or(j.mode(), "length"),
+                    or(j.srcLang(), "en"), or(j.tgtLang(), "pt"), or(j.minQuality(), 0.55),
+                    j.seriesId(), j.bookId(), j.sourceTag());
+
+            case "glossary" -> {
+                List<Glossary> items = mapper.readValue(Path.of(j.path()).toFile(), new TypeReference<List<Glossary>>() {});
+                GlossaryService svc = glossary.getObject();
+                int n = j.seriesId() != null ? svc.bulkUpsertWithSeries(items, j.seriesId()) : svc.bulkUpsert(items);
+                yield java.util.Map.of("items", items.size(), "upserted", n);
+            }
+
+            default -> throw new IllegalArgumentException("type '" + j.type() + "' desconhecido");
+        };
+    }
+
+    private static String type(CliJobSpec.Job j) {
+        require(j.type(), "type");
+        return j.type().trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void require(String v, String field) {
+        if (v == null || v.isBlank()) throw new IllegalArgumentException("'" + field + "' é obrigatório");
+    }
+
+    private static StoredMultipartFile existing(String path) throws Exception {
+        Path p = Path.of(path);
+        if (!Files.isRegularFile(p)) throw new java.io.FileNotFoundException("Arquivo não encontrado: " + path);
+        return StoredMultipartFile.of(p, "application/epub+zip");
+    }
+
+    private static <T> T or(T v, T def) { return Objects.requireNonNullElse(v, def); }
+}
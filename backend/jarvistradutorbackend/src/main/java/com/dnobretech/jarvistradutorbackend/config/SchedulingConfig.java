@@ -0,0 +1,16 @@
+package com.dnobretech.jarvistradutorbackend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Tarefas agendadas (flush do progresso dos jobs em import_job) só no servidor. No perfil "cli" o
+ * Spring Boot tiraria do lazy-init todo bean com @Scheduled: o ImportJobService subiria e marcaria
+ * como INTERRUPTED os jobs em andamento no servidor.
+ */
+@Configuration
+@EnableScheduling
+@Profile("!cli")
+public class SchedulingConfig {
+}
@@ -1,7 +1,10 @@
 package com.dnobretech.jarvistradutorbackend.controller;
 
+import com.dnobretech.jarvistradutorbackend.dto.ImportJobDTO;
 import com.dnobretech.jarvistradutorbackend.dto.Result;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
 import com.dnobretech.jarvistradutorbackend.service.EPUBPairImportService;
+import com.dnobretech.jarvistradutorbackend.service.ImportJobService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +17,7 @@
 public class EPUBPairImportController {
 
     private final EPUBPairImportService service;
+    private final ImportJobService jobService;
 
     /**
      * Importa dois EPUBs paralelos (EN↔PT) e popula a TM.
@@ -25,6 +29,7 @@ public class EPUBPairImportController {
      * @param srcLang default "en"
      * @param tgtLang default "pt"
      * @param minQuality descarta pares com quality abaixo (default 0.55)
+     * @param async   true = responde 202 com jobId; progresso em GET /jobs/{id}
      */
     @PostMapping(value = "/import/epub-pair", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> importPair(
@@ -37,19 +42,45 @@ public ResponseEntity<?> importPair(
             @RequestParam(defaultValue = "0.55") double minQuality,
             @RequestParam(required = false) Long seriesId,
             @RequestParam(required = false) Long bookId,
-            @RequestParam(required = false) String sourceTag
+            @RequestParam(required = false) String sourceTag,
+            @RequestParam(defaultValue = "false") boolean async
     ) throws Exception {
+        if (async) {
+            var storedEn = jobService.stageUpload(fileEn);
+            var storedPt = jobService.stageUpload(filePt);
+            var params = new java.util.LinkedHashMap<String, Object>();   // seriesId/bookId/sourceTag podem ser null
+            params.put("fileEn", fileEn.getOriginalFilename());
+            params.put("filePt", filePt.getOriginalFilename());
+            params.put("level", level);
+            params.put("mode", mode);
+            params.put("srcLang", srcLang);
+            params.put("tgtLang", tgtLang);
+            params.put("minQuality", minQuality);
+            params.put("seriesId", seriesId);
+            params.put("bookId", bookId);
+            params.put("sourceTag", sourceTag);
+            ImportJobDTO job = jobService.submit(ImportJobType.EPUB_PAIR, params, () -> body(service.importParallelEPUB(
+                    storedEn, storedPt, level, mode, srcLang, tgtLang, minQuality, seriesId, bookId, sourceTag
+            )), () -> { storedEn.delete(); storedPt.delete(); });
+            return ResponseEntity.accepted().body(java.util.Map.of(
+                    "ok", true, "async", true, "jobId", job.id(), "status", job.status()));
+        }
+
         Result r = service.importParallelEPUB(
                 fileEn, filePt, level, mode, srcLang, tgtLang, minQuality, seriesId, bookId, sourceTag
         );
-        return ResponseEntity.ok(java.util.Map.of(
+        return ResponseEntity.ok(body(r));
+    }
+
+    private static java.util.Map<String, Object> body(Result r) {
+        return java.util.Map.of(
                 "ok", true,
                 "pairsInserted", r.inserted(),
                 "pairsSkipped", r.skipped(),
                 "avgQuality", r.avgQuality(),
                 "chapters", r.chapters(),
                 "examples",      r.examples()   // <- add
-        ));
+        );
     }
 }
 
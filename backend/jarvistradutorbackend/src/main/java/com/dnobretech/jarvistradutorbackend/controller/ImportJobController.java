@@ -0,0 +1,36 @@
+package com.dnobretech.jarvistradutorbackend.controller;
+
+import com.dnobretech.jarvistradutorbackend.dto.ImportJobDTO;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobStatus;
+import com.dnobretech.jarvistradutorbackend.service.ImportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/jobs")
+public class ImportJobController {
+
+    private final ImportJobService service;
+
+    // lista os jobs mais recentes (opcionalmente por status)
+    @GetMapping
+    public List<ImportJobDTO> list(@RequestParam(required = false) ImportJobStatus status,
+                                   @RequestParam(defaultValue = "50") int limit) {
+        return service.list(status, limit);
+    }
+
+    // progresso: linhas, aceitas, rejeitadas, bytes, taxa e ETA
+    @GetMapping("/{id}")
+    public ImportJobDTO get(@PathVariable Long id) {
+        return service.get(id);
+    }
+
+    // cancela (na fila: não roda; rodando: para no próximo ponto de checagem, lote atual em rollback)
+    @PostMapping("/{id}/cancel")
+    public ImportJobDTO cancel(@PathVariable Long id) {
+        return service.cancel(id);
+    }
+}
@@ -1,9 +1,19 @@
 package com.dnobretech.jarvistradutorbackend.controller;
 
+import com.dnobretech.jarvistradutorbackend.dto.DirectoryImportResult;
+import com.dnobretech.jarvistradutorbackend.dto.ImportJobDTO;
+import com.dnobretech.jarvistradutorbackend.dto.ResumeResult;
+import com.dnobretech.jarvistradutorbackend.dto.ShardedImportResult;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
+import com.dnobretech.jarvistradutorbackend.service.ImportJobService;
+import com.dnobretech.jarvistradutorbackend.service.TMDirectoryImportService;
 import com.dnobretech.jarvistradutorbackend.service.TMImportService;
 import com.dnobretech.jarvistradutorbackend.service.TMQueryService;
+import com.dnobretech.jarvistradutorbackend.service.TMShardedImportService;
 import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -16,6 +26,9 @@ public class TMController {
 
     private final TMImportService importService;
     private final TMQueryService tmService;
+    private final ImportJobService jobService;
+    private final TMDirectoryImportService dirImportService;
+    private final TMShardedImportService shardedImportService;
 
     // Upload (multipart) OU Resumível (path+fileKey)
     @PostMapping("/import")
@@ -26,18 +39,22 @@ public ResponseEntity<?> importFile(
             @RequestParam(required = false) String fileKey,
             @RequestParam(defaultValue = "100000") int batchLines,
             @RequestParam(defaultValue = "0") int examples,                 // <- NOVO
-            @RequestParam(defaultValue = "none") String embed                // <- NOVO: none|src|both
+            @RequestParam(defaultValue = "none") String embed,               // <- NOVO: none|src|both
+            @RequestParam(defaultValue = "1") int workers,                   // >1 = parsing paralelo (modo resumível)
+            @RequestParam(defaultValue = "false") boolean async              // true = vira job (GET /jobs/{id}); resumível vai até o fim do arquivo
     ) throws Exception {
 
         if (path != null && fileKey != null) {
-            var res = importService.importTxtResume(path, delimiter, fileKey, batchLines, examples, embed);
-            return ResponseEntity.ok(java.util.Map.of(
-                    "ok", true, "mode", "resume",
-                    "processedLines", res.processedLines(),
-                    "newOffset", res.newOffset(),
-                    "totalCopied", res.totalCopied(),
-                    "examples", res.examples()
-            ));
+            if (async) {
+                var params = java.util.Map.<String, Object>of(
+                        "path", path, "fileKey", fileKey, "delimiter", delimiter, "batchLines", batchLines,
+                        "examples", examples, "embed", embed, "workers", workers);
+                ImportJobDTO job = jobService.submit(ImportJobType.TM_RESUME, params, () -> resumeBody(
+                        importService.importTxtResumeToEnd(path, delimiter, fileKey, batchLines, examples, embed, workers)), null);
+                return accepted(job);
+            }
+            var res = importService.importTxtResume(path, delimiter, fileKey, batchLines, examples, embed, workers);
+            return ResponseEntity.ok(resumeBody(res));
         }
 
         if (file == null || file.isEmpty()) {
@@ -47,10 +64,170 @@ public ResponseEntity<?> importFile(
             ));
         }
 
+        if (async) {
+            var stored = jobService.stageUpload(file);
+            var params = java.util.Map.<String, Object>of(
+                    "filename", String.valueOf(file.getOriginalFilename()), "size", file.getSize(), "delimiter", delimiter);
+            ImportJobDTO job = jobService.submit(ImportJobType.TM_UPLOAD, params, () -> java.util.Map.of(
+                    "ok", true, "mode", "upload", "rows", importService.importTsvOrCsvStreaming(stored, delimiter)),
+                    stored::delete);
+            return accepted(job);
+        }
+
         long rows = importService.importTsvOrCsvStreaming(file, delimiter);
         return ResponseEntity.ok(java.util.Map.of("ok", true, "mode", "upload", "rows", rows));
     }
 
+    /**
+     * Upload sem spool: o corpo cru é parseado enquanto chega e vai direto para o COPY em tm_staging
+     * (o multipart do /import grava o arquivo inteiro em disco antes de começar).
+     * Ex.: {@code curl -H 'Content-Type: application/octet-stream' --data-binary @corpus.tsv.gz '/tm/import/stream?filename=corpus.tsv.gz'}
+     * Content-Type de formulário é recusado (415): o Tomcat consumiria o corpo como parâmetros.
+     */
+    @PostMapping(value = "/import/stream", consumes = {
+            MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.TEXT_PLAIN_VALUE,
+            "text/tab-separated-values", "text/csv", "application/gzip", "application/zstd", "application/x-xz"})
+    public ResponseEntity<?> importStream(HttpServletRequest request,
+                                          @RequestParam(defaultValue = "\t") String delimiter,
+                                          @RequestParam(required = false) String filename) throws Exception {
+        long rows = importService.importTsvOrCsvStream(
+                request.getInputStream(), filename, request.getContentLengthLong(), delimiter);
+        return ResponseEntity.ok(java.util.Map.of("ok", true, "mode", "stream", "rows", rows));
+    }
+
+    /**
+     * Diretório inteiro no modo resumível: um checkpoint por arquivo (fileKey = {@code <keyPrefix>:<caminho relativo>},
+     * keyPrefix padrão = nome do diretório). Repetir a chamada continua os arquivos inacabados e pula os concluídos.
+     * Ex.: {@code POST /tm/import/dir?dir=/data/opus/en-pt&glob=*.tsv.gz&parallelFiles=4&workers=2&async=true}
+     */
+    @PostMapping("/import/dir")
+    public ResponseEntity<?> importDirectory(
+            @RequestParam String dir,
+            @RequestParam(defaultValue = "*.{tsv,csv,txt,gz,zst,xz}") String glob,
+            @RequestParam(required = false) String keyPrefix,
+            @RequestParam(defaultValue = "\t") String delimiter,
+            @RequestParam(defaultValue = "100000") int batchLines,
+            @RequestParam(defaultValue = "none") String embed,
+            @RequestParam(defaultValue = "1") int workers,                   // parsing paralelo dentro de cada arquivo
+            @RequestParam(defaultValue = "0") int parallelFiles,             // 0 = jarvis.tm.dir.max-parallel-files
+            @RequestParam(defaultValue = "false") boolean async
+    ) throws Exception {
+        if (async) {
+            var params = new java.util.LinkedHashMap<String, Object>();
+            params.put("dir", dir);
+            params.put("glob", glob);
+            if (keyPrefix != null) params.put("keyPrefix", keyPrefix);
+            params.put("delimiter", delimiter);
+            params.put("batchLines", batchLines);
+            params.put("embed", embed);
+            params.put("workers", workers);
+            params.put("parallelFiles", parallelFiles);
+            ImportJobDTO job = jobService.submit(ImportJobType.TM_DIR, params, () -> dirBody(
+                    dirImportService.importDirectory(dir, glob, keyPrefix, delimiter, batchLines, embed, workers, parallelFiles)), null);
+            return accepted(job);
+        }
+        var res = dirImportService.importDirectory(dir, glob, keyPrefix, delimiter, batchLines, embed, workers, parallelFiles);
+        return ResponseEntity.ok(dirBody(res));
+    }
+
+    private static java.util.Map<String, Object> dirBody(DirectoryImportResult res) {
+        return java.util.Map.of(
+                "ok", res.failed() == 0, "mode", "dir",
+                "dir", res.dir(),
+                "files", res.files(),
+                "completed", res.completed(),
+                "skipped", res.skipped(),
+                "failed", res.failed(),
+                "processedLines", res.processedLines(),
+                "totalCopied", res.totalCopied(),
+                "results", res.results()
+        );
+    }
+
+    /**
+     * Um arquivo grande dividido entre vários nós: cada nó chama com o mesmo path (volume compartilhado) e fileKey,
+     * e processa shards (faixas de bytes) até não sobrar nenhum livre. O plano é gravado na primeira chamada;
+     * repetir continua os shards inacabados. Só arquivo sem compressão.
+     * Ex.: {@code POST /tm/import/sharded?path=/data/cc/en-pt.tsv&fileKey=cc-en-pt&shards=64&async=true}
+     */
+    @PostMapping("/import/sharded")
+    public ResponseEntity<?> importSharded(
+            @RequestParam String path,
+            @RequestParam String fileKey,
+            @RequestParam(defaultValue = "32") int shards,                   // só vale na primeira chamada do fileKey
+            @RequestParam(defaultValue = "\t") String delimiter,
+            @RequestParam(defaultValue = "100000") int batchLines,
+            @RequestParam(defaultValue = "none") String embed,
+            @RequestParam(defaultValue = "1") int workers,
+            @RequestParam(defaultValue = "false") boolean async
+    ) throws Exception {
+        if (async) {
+            var params = java.util.Map.<String, Object>of(
+                    "path", path, "fileKey", fileKey, "shards", shards, "delimiter", delimiter,
+                    "batchLines", batchLines, "embed", embed, "workers", workers);
+            ImportJobDTO job = jobService.submit(ImportJobType.TM_SHARDED, params, () -> shardBody(
+                    shardedImportService.importSharded(path, fileKey, shards, delimiter, batchLines, embed, workers)), null);
+            return accepted(job);
+        }
+        var res = shardedImportService.importSharded(path, fileKey, shards, delimiter, batchLines, embed, workers);
+        return ResponseEntity.ok(shardBody(res));
+    }
+
+    @GetMapping("/import/shards")
+    public ResponseEntity<?> getShards(@RequestParam String fileKey) {
+        return ResponseEntity.ok(java.util.Map.of("ok", true, "fileKey", fileKey, "shards", shardedImportService.shards(fileKey)));
+    }
+
+    @DeleteMapping("/import/shards")
+    public ResponseEntity<?> resetShards(@RequestParam String fileKey) {
+        int n = shardedImportService.resetShards(fileKey);
+        return ResponseEntity.ok(java.util.Map.of("ok", true, "reset", fileKey, "shards", n));
+    }
+
+    private static java.util.Map<String, Object> shardBody(ShardedImportResult res) {
+        return java.util.Map.of(
+                "ok", res.failed() == 0, "mode", "sharded",
+                "fileKey", res.fileKey(),
+                "shards", res.shards(),
+                "claimed", res.claimed(),
+                "completed", res.completed(),
+                "failed", res.failed(),
+                "processedLines", res.processedLines(),
+                "totalCopied", res.totalCopied(),
+                "status", res.status()
+        );
+    }
+
+    private static java.util.Map<String, Object> resumeBody(ResumeResult res) {
+        return java.util.Map.of(
+                "ok", true, "mode", "resume",
+                "processedLines", res.processedLines(),
+                "newOffset", res.newOffset(),
+                "totalCopied", res.totalCopied(),
+                "examples", res.examples()
+        );
+    }
+
+    private static ResponseEntity<?> accepted(ImportJobDTO job) {
+        return ResponseEntity.accepted().body(java.util.Map.of(
+                "ok", true, "async", true, "jobId", job.id(), "status", job.status()));
+    }
+
+    /**
+     * Prévia sem gravar nada: amostra ~samples linhas do arquivo e roda os filtros do import.
+     * Devolve aceitação estimada, rejeições por motivo, taxa de duplicatas e tempo projetado de parse/filtro.
+     * Ex.: {@code GET /tm/import/preview?path=/data/opus/en-pt.tsv&samples=20000&workers=4}
+     */
+    @GetMapping("/import/preview")
+    public ResponseEntity<?> preview(
+            @RequestParam String path,
+            @RequestParam(defaultValue = "\t") String delimiter,
+            @RequestParam(defaultValue = "20000") int samples,
+            @RequestParam(defaultValue = "1") int workers
+    ) throws Exception {
+        return ResponseEntity.ok(java.util.Map.of("ok", true, "preview", importService.previewTxt(path, delimiter, samples, workers)));
+    }
+
     // Acompanhar checkpoint
     @GetMapping("/import/checkpoint")
     public ResponseEntity<?> getCheckpoint(@RequestParam String fileKey) {
@@ -0,0 +1,47 @@
+package com.dnobretech.jarvistradutorbackend.controller;
+
+import com.dnobretech.jarvistradutorbackend.dto.TMExportFilter;
+import com.dnobretech.jarvistradutorbackend.enums.TMExportFormat;
+import com.dnobretech.jarvistradutorbackend.service.TMExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/tm")
+public class TMExportController {
+
+    private final TMExportService exportService;
+
+    /**
+     * Exporta tm em streaming (memória constante), para treino/backup.
+     * Ex.: {@code curl -o tm-en-pt.tsv.gz '/tm/export?format=tsv&srcLang=en&tgtLang=pt&minQuality=0.8'}
+     *
+     * @param format     tsv | tmx | jsonl
+     * @param seriesId   só pares com ocorrência na série (tm_occurrence)
+     * @param bookId     só pares com ocorrência no livro (tm_occurrence)
+     * @param minQuality quality mínima (pares sem quality ficam de fora)
+     * @param gzip       true = arquivo .gz (default)
+     */
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "tsv") String format,
+                       @RequestParam(required = false) Long seriesId,
+                       @RequestParam(required = false) Long bookId,
+                       @RequestParam(required = false) String srcLang,
+                       @RequestParam(required = false) String tgtLang,
+                       @RequestParam(required = false) Double minQuality,
+                       @RequestParam(defaultValue = "true") boolean gzip,
+                       HttpServletResponse response) throws Exception {
+        // valida antes do primeiro byte: erro ainda vira 400 normal
+        TMExportFormat fmt = TMExportFormat.of(format);
+        TMExportFilter filter = new TMExportFilter(seriesId, bookId, srcLang, tgtLang, minQuality);
+
+        String filename = "tm-export." + fmt.key() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : fmt.contentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        exportService.export(filter, fmt, gzip, response.getOutputStream());
+        response.flushBuffer();
+    }
+}
@@ -1,6 +1,11 @@
 package com.dnobretech.jarvistradutorbackend.controller;
 
+import com.dnobretech.jarvistradutorbackend.dto.ImportJobDTO;
+import com.dnobretech.jarvistradutorbackend.dto.ResumeResult;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
+import com.dnobretech.jarvistradutorbackend.service.ImportJobService;
 import com.dnobretech.jarvistradutorbackend.service.TMXImportService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -13,18 +18,33 @@
 public class TMXController {
 
     private final TMXImportService tmxImportService;
+    private final ImportJobService jobService;
 
     /**
-     * Importa um arquivo TMX (ex.: ParaCrawl) para TM (Postgres) via COPY.
+     * Importa um arquivo TMX (ex.: ParaCrawl) para TM (Postgres) via COPY em tm_staging + consolidação.
      *
-     * @param file    arquivo .tmx (multipart)
+     * @param file    arquivo .tmx (multipart; também .tmx.gz/.zst/.xz, detectado pelo conteúdo)
      * @param srcLang idioma origem (default: en)
      * @param tgtLang idioma destino (default: pt)
+     * @param async   true = responde 202 com jobId; progresso em GET /jobs/{id}
      */
     @PostMapping(value = "/import/tmx", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> importTmx(@RequestPart("file") MultipartFile file,
                                        @RequestParam(defaultValue = "en") String srcLang,
-                                       @RequestParam(defaultValue = "pt") String tgtLang) throws Exception {
+                                       @RequestParam(defaultValue = "pt") String tgtLang,
+                                       @RequestParam(defaultValue = "false") boolean async) throws Exception {
+        if (async) {
+            var stored = jobService.stageUpload(file);
+            var params = java.util.Map.<String, Object>of(
+                    "filename", String.valueOf(file.getOriginalFilename()), "size", file.getSize(),
+                    "srcLang", srcLang, "tgtLang", tgtLang);
+            ImportJobDTO job = jobService.submit(ImportJobType.TMX, params, () -> java.util.Map.of(
+                    "ok", true, "rows", tmxImportService.importTmx(stored, srcLang, tgtLang),
+                    "srcLang", srcLang, "tgtLang", tgtLang), stored::delete);
+            return ResponseEntity.accepted().body(java.util.Map.of(
+                    "ok", true, "async", true, "jobId", job.id(), "status", job.status()));
+        }
+
         long rows = tmxImportService.importTmx(file, srcLang, tgtLang);
         return ResponseEntity.ok(java.util.Map.of(
                 "ok", true,
@@ -33,5 +53,62 @@ public ResponseEntity<?> importTmx(@RequestPart("file") MultipartFile file,
                 "tgtLang", tgtLang
         ));
     }
+
+    /**
+     * Import resumível de um TMX no disco (.tmx, .tmx.gz/.zst/.xz): cada lote de {@code batchTus} TUs
+     * passa por tm_staging e é consolidado em tm na mesma transação que grava o offset do último
+     * {@code </tu>} em import_checkpoint. Sem async roda um lote; com async vai até o fim do arquivo.
+     * Checkpoint: GET/DELETE /tm/import/checkpoint?fileKey=...
+     */
+    @PostMapping("/import/tmx/resume")
+    public ResponseEntity<?> importTmxResume(@RequestParam String path,
+                                             @RequestParam String fileKey,
+                                             @RequestParam(defaultValue = "en") String srcLang,
+                                             @RequestParam(defaultValue = "pt") String tgtLang,
+                                             @RequestParam(defaultValue = "100000") int batchTus,
+                                             @RequestParam(defaultValue = "false") boolean async) throws Exception {
+        if (async) {
+            var params = java.util.Map.<String, Object>of(
+                    "path", path, "fileKey", fileKey, "srcLang", srcLang, "tgtLang", tgtLang, "batchTus", batchTus);
+            ImportJobDTO job = jobService.submit(ImportJobType.TMX, params, () -> resumeBody(
+                    tmxImportService.importTmxResumeToEnd(path, fileKey, srcLang, tgtLang, batchTus), srcLang, tgtLang), null);
+            return ResponseEntity.accepted().body(java.util.Map.of(
+                    "ok", true, "async", true, "jobId", job.id(), "status", job.status()));
+        }
+
+        var res = tmxImportService.importTmxResume(path, fileKey, srcLang, tgtLang, batchTus);
+        return ResponseEntity.ok(resumeBody(res, srcLang, tgtLang));
+    }
+
+    private static java.util.Map<String, Object> resumeBody(ResumeResult res, String srcLang, String tgtLang) {
+        return java.util.Map.of(
+                "ok", true, "mode", "resume",
+                "processedTus", res.processedLines(),
+                "newOffset", res.newOffset(),
+                "totalCopied", res.totalCopied(),
+                "srcLang", srcLang,
+                "tgtLang", tgtLang
+        );
+    }
+
+    /**
+     * Mesmo import, mas lendo o corpo cru da requisição enquanto chega (sem spool do multipart).
+     * Ex.: {@code curl -H 'Content-Type: application/octet-stream' --data-binary @en-pt.tmx.gz '/tm/import/tmx/stream?srcLang=en&tgtLang=pt'}
+     */
+    @PostMapping(value = "/import/tmx/stream", consumes = {
+            MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE,
+            "application/x-tmx+xml", "application/gzip", "application/zstd", "application/x-xz"})
+    public ResponseEntity<?> importTmxStream(HttpServletRequest request,
+                                             @RequestParam(defaultValue = "en") String srcLang,
+                                             @RequestParam(defaultValue = "pt") String tgtLang) throws Exception {
+        long rows = tmxImportService.importTmx(request.getInputStream(), request.getContentLengthLong(), srcLang, tgtLang);
+        return ResponseEntity.ok(java.util.Map.of(
+                "ok", true,
+                "mode", "stream",
+                "rows", rows,
+                "srcLang", srcLang,
+                "tgtLang", tgtLang
+        ));
+    }
 }
 
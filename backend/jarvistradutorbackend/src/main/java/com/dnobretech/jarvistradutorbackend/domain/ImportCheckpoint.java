@@ -31,6 +31,15 @@ public class ImportCheckpoint {
     @Column(name = "line_count", nullable = false)
     private long lineCount;                 // total de linhas já lidas (para telemetria)
 
+    @Column(name = "dedupe_entries")
+    private Long dedupeEntries;             // fingerprints já commitados no filtro de dedupe (DedupeFilterStore)
+
+    @Column(name = "compression", length = 8)
+    private String compression;             // gzip|zstd|xz (null = texto puro); byteOffset é no conteúdo descomprimido
+
+    @Column(name = "completed")
+    private Boolean completed;              // último lote chegou ao fim do arquivo (import de diretório pula)
+
     @UpdateTimestamp
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;              // auto-atualiza a cada persist/merge
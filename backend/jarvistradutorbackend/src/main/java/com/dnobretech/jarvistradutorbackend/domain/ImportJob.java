@@ -0,0 +1,74 @@
+package com.dnobretech.jarvistradutorbackend.domain;
+
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobStatus;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Import assíncrono (upload/resumível/TMX/EPUB). Os contadores são gravados periodicamente
+ * enquanto RUNNING; ao reiniciar o processo, jobs que ficaram QUEUED/RUNNING viram INTERRUPTED.
+ */
+@Entity
+@Table(name = "import_job",
+        indexes = @Index(name = "idx_import_job_status", columnList = "status"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ImportJob {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImportJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImportJobStatus status;
+
+    @Column(columnDefinition = "text")
+    private String params;                  // JSON dos parâmetros da requisição
+
+    @Column(columnDefinition = "text")
+    private String result;                  // JSON do resultado (mesmo corpo da resposta síncrona)
+
+    @Column(columnDefinition = "text")
+    private String error;
+
+    @Column(name = "lines_read", nullable = false)
+    private long linesRead;
+
+    @Column(nullable = false)
+    private long accepted;
+
+    @Column(nullable = false)
+    private long rejected;
+
+    @Column(name = "bytes_read", nullable = false)
+    private long bytesRead;
+
+    @Column(name = "total_bytes")
+    private Long totalBytes;
+
+    @Column(nullable = false, updatable = false)
+    @Builder.Default
+    private Instant createdAt = Instant.now();
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Instant updatedAt = Instant.now();
+
+    @PreUpdate
+    public void onUpdate() { this.updatedAt = Instant.now(); }
+}
@@ -0,0 +1,18 @@
+package com.dnobretech.jarvistradutorbackend.dto;
+
+import java.util.List;
+
+public record DirectoryImportResult(
+        String dir,
+        int files,
+        int completed,                          // importados até o fim nesta chamada
+        int skipped,                            // checkpoint já marcava o arquivo como concluído
+        int failed,
+        long processedLines,
+        long totalCopied,
+        List<FileResult> results
+) {
+    /** status: done | skipped | failed */
+    public record FileResult(String path, String fileKey, String status,
+                             long processedLines, long totalCopied, String error) {}
+}
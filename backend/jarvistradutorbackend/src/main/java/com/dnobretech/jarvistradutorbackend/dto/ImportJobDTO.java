@@ -0,0 +1,27 @@
+package com.dnobretech.jarvistradutorbackend.dto;
+
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobStatus;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+
+public record ImportJobDTO(
+        Long id,
+        ImportJobType type,
+        ImportJobStatus status,
+        JsonNode params,
+        long linesRead,
+        long accepted,
+        long rejected,
+        long bytesRead,
+        Long totalBytes,
+        Double linesPerSec,                 // só enquanto RUNNING (contadores em memória)
+        Double bytesPerSec,
+        Long etaSeconds,                    // null se o total de bytes é desconhecido
+        JsonNode result,
+        String error,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt
+) {}
@@ -0,0 +1,21 @@
+package com.dnobretech.jarvistradutorbackend.dto;
+
+import java.util.Map;
+
+/** Resultado da prévia de import (amostra; nada é gravado). Estimativas valem para o arquivo inteiro. */
+public record ImportPreview(
+        String path,
+        long fileSize,
+        String compression,                     // null = texto puro (amostra aleatória); senão amostra do início
+        String sampling,                        // random | head
+        int sampledLines,
+        long estimatedLines,
+        long estimatedAccepted,
+        double acceptanceRate,
+        Map<String, Long> rejected,             // linhas da amostra por motivo (chaves de RejectReason)
+        double duplicateRate,                   // duplicatas dentro da amostra: piso das duplicatas do arquivo
+        double nanosPerLine,                    // parse + normalização + filtros + dedupe, uma thread, JIT aquecido
+        int workers,
+        double projectedSeconds,                // estimatedLines * nanosPerLine / workers (sem COPY/merge/embeddings)
+        long elapsedMillis
+) {}
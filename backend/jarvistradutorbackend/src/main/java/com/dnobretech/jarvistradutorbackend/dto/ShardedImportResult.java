@@ -0,0 +1,14 @@
+package com.dnobretech.jarvistradutorbackend.dto;
+
+import java.util.Map;
+
+public record ShardedImportResult(
+        String fileKey,
+        int shards,                             // total do plano (todos os nós)
+        int claimed,                            // shards que este nó pegou nesta chamada
+        int completed,                          // destes, processados até o fim da faixa
+        int failed,                             // destes, devolvidos com erro (ou lease perdido)
+        long processedLines,                    // só deste nó
+        long totalCopied,
+        Map<String, Long> status                // todos os nós: shards por status (pending|running|done|failed)
+) {}
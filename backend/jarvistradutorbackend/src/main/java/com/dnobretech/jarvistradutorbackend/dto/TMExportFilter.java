@@ -0,0 +1,25 @@
+package com.dnobretech.jarvistradutorbackend.dto;
+
+import java.util.regex.Pattern;
+
+/**
+ * Filtros do export de TM; todos opcionais (null = sem filtro).
+ * seriesId/bookId filtram por tm_occurrence; srcLang/tgtLang casam também subtags (en casa en-US).
+ */
+public record TMExportFilter(Long seriesId, Long bookId, String srcLang, String tgtLang, Double minQuality) {
+
+    private static final Pattern LANG = Pattern.compile("[A-Za-z0-9_-]{1,35}");
+
+    public TMExportFilter {
+        srcLang = blankToNull(srcLang);
+        tgtLang = blankToNull(tgtLang);
+        // vão como literais no COPY (sem parâmetros): só códigos de idioma simples
+        if (srcLang != null && !LANG.matcher(srcLang).matches()) throw new IllegalArgumentException("srcLang inválido: " + srcLang);
+        if (tgtLang != null && !LANG.matcher(tgtLang).matches()) throw new IllegalArgumentException("tgtLang inválido: " + tgtLang);
+        if (minQuality != null && !Double.isFinite(minQuality)) throw new IllegalArgumentException("minQuality inválido: " + minQuality);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+}
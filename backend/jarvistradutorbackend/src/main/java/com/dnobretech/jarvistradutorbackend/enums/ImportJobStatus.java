@@ -0,0 +1,9 @@
+package com.dnobretech.jarvistradutorbackend.enums;
+
+public enum ImportJobStatus {
+    QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED, INTERRUPTED;
+
+    public boolean isFinal() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
@@ -0,0 +1,23 @@
+package com.dnobretech.jarvistradutorbackend.enums;
+
+/** Tipos de import assíncrono; cada um tem seu próprio limite de concorrência (jarvis.jobs.concurrency.&lt;key&gt;). */
+public enum ImportJobType {
+    TM_UPLOAD("tm-upload", 2),
+    TM_RESUME("tm-resume", 2),
+    TM_DIR("tm-dir", 1),
+    TM_SHARDED("tm-sharded", 1),
+    TMX("tmx", 1),
+    EPUB_PAIR("epub-pair", 1);
+
+    private final String key;
+    private final int defaultConcurrency;
+
+    ImportJobType(String key, int defaultConcurrency) {
+        this.key = key;
+        this.defaultConcurrency = defaultConcurrency;
+    }
+
+    public String key() { return key; }
+
+    public int defaultConcurrency() { return defaultConcurrency; }
+}
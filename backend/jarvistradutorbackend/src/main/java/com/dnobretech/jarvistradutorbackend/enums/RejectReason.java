@@ -0,0 +1,17 @@
+package com.dnobretech.jarvistradutorbackend.enums;
+
+/** Motivo de descarte de uma linha/par nos filtros baratos do import (tag {@code reason} das métricas). */
+public enum RejectReason {
+    COLUMNS("columns"),            // linha sem src/tgt
+    BLANK("blank"),                // src ou tgt vazio depois da normalização
+    RATIO("ratio"),                // razão de tamanho fora de [ratio-min, ratio-max]
+    PLACEHOLDERS("placeholders"),  // placeholder do src ausente no tgt
+    DUPLICATE("duplicate"),        // par já visto no arquivo/livro
+    NEAR_DUPLICATE("near_duplicate"); // src quase igual (MinHash) a um já gravado com quality >= a deste
+
+    private final String key;
+
+    RejectReason(String key) { this.key = key; }
+
+    public String key() { return key; }
+}
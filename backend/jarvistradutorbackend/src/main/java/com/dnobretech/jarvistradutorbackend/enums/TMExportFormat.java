@@ -0,0 +1,30 @@
+package com.dnobretech.jarvistradutorbackend.enums;
+
+import java.util.Locale;
+
+/** Formatos do GET /tm/export. */
+public enum TMExportFormat {
+    TSV("tsv", "text/tab-separated-values"),     // src, tgt, lang_src, lang_tgt, quality (sem escapes: o /tm/import lê de volta)
+    TMX("tmx", "application/x-tmx+xml"),
+    JSONL("jsonl", "application/x-ndjson");     // um objeto {src,tgt,lang_src,lang_tgt,quality} por linha
+
+    private final String key;
+    private final String contentType;
+
+    TMExportFormat(String key, String contentType) {
+        this.key = key;
+        this.contentType = contentType;
+    }
+
+    public String key() { return key; }
+
+    public String contentType() { return contentType; }
+
+    public static TMExportFormat of(String s) {
+        if (s != null) {
+            String k = s.trim().toLowerCase(Locale.ROOT);
+            for (TMExportFormat f : values()) if (f.key.equals(k)) return f;
+        }
+        throw new IllegalArgumentException("Formato de export inválido: " + s + " (use tsv, tmx ou jsonl)");
+    }
+}
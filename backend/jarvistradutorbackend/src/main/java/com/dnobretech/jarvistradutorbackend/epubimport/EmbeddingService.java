@@ -2,6 +2,7 @@
 package com.dnobretech.jarvistradutorbackend.epubimport;
 
 import com.dnobretech.jarvistradutorbackend.dto.EmbedResponse;
+import com.dnobretech.jarvistradutorbackend.util.PgBinaryCopyWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,7 +13,6 @@
 import reactor.netty.http.client.HttpClient;
 
 import java.io.IOException;
-import java.io.Writer;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -87,9 +87,10 @@ private List<double[]> embedTextsBatched(List<String> texts, boolean normalize,
     }
 
     /**
-     * Assinatura preservada — usada por quem grava CSV com embeddings.
+     * Grava linhas binárias de COPY (src,tgt,lang_src,lang_tgt,emb_src,emb_tgt,quality) —
+     * vetores no formato binário do pgvector, sem literal texto.
      */
-    public void flushEmbeddingsToFile(Writer outEmbFile,
+    public void flushEmbeddingsToFile(PgBinaryCopyWriter outEmbFile,
                                       List<String> bufSrc,
                                       List<String> bufTgt,
                                       String srcLang, String tgtLang,
@@ -100,43 +101,18 @@ public void flushEmbeddingsToFile(Writer outEmbFile,
         var vecTgt = both ? embedTexts(bufTgt, true) : List.<double[]>of();
 
         for (int i = 0; i < bufSrc.size(); i++) {
-            String src = bufSrc.get(i);
-            String tgt = bufTgt.get(i);
-            String embSrc = toVectorLiteral(vecSrc.get(i));
-            String embTgt = both ? toVectorLiteral(vecTgt.get(i)) : "";
-
-            StringBuilder sb = new StringBuilder(8192);
-            sb.append('"').append(esc(src)).append('"').append(',');
-            sb.append('"').append(esc(tgt)).append('"').append(',');
-            sb.append('"').append(esc(srcLang)).append('"').append(',');
-            sb.append('"').append(esc(tgtLang)).append('"').append(',');
-            if (!embSrc.isEmpty()) sb.append('"').append(embSrc).append('"');
-            sb.append(',');
-            if (!embTgt.isEmpty()) sb.append('"').append(embTgt).append('"');
-            sb.append(',');
-            sb.append(bufQ.get(i)).append('\n');
-
-            outEmbFile.write(sb.toString());
+            outEmbFile.startRow(7);
+            outEmbFile.text(bufSrc.get(i));
+            outEmbFile.text(bufTgt.get(i));
+            outEmbFile.text(srcLang);
+            outEmbFile.text(tgtLang);
+            outEmbFile.vector(vecSrc.get(i));
+            outEmbFile.vector(both ? vecTgt.get(i) : null);
+            outEmbFile.float8(bufQ.get(i));
         }
         outEmbFile.flush();
         bufSrc.clear();
         bufTgt.clear();
         bufQ.clear();
     }
-
-    // ===== helpers (iguais aos seus) =====
-    private static String esc(String s) {
-        return s.replace("\"", "\"\"");
-    }
-
-    private static String toVectorLiteral(double[] v) {
-        StringBuilder sb = new StringBuilder();
-        sb.append('[');
-        for (int i = 0; i < v.length; i++) {
-            if (i > 0) sb.append(',');
-            sb.append(Double.toString(v[i]));
-        }
-        sb.append(']');
-        return sb.toString();
-    }
 }
@@ -1,5 +1,6 @@
 package com.dnobretech.jarvistradutorbackend.epubimport;
 
+import com.dnobretech.jarvistradutorbackend.util.PgBinaryCopyWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.postgresql.copy.PGCopyOutputStream;
@@ -11,7 +12,6 @@
 
 import javax.sql.DataSource;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 
 @Slf4j
@@ -29,16 +29,15 @@ public class InboxWriter {
     private double qeGoodMinValue;
 
     private final DataSource dataSource;
-    private final SchemaEnsurer schema;
 
     /** Contexto de COPY (fechou = finaliza o COPY). */
     public static class CopyCtx implements AutoCloseable {
-        public final Writer writer;
+        public final PgBinaryCopyWriter writer;
         private final PGCopyOutputStream pgOut;
         private final Connection con;
         private final DataSource ds;
 
-        private CopyCtx(Writer writer, PGCopyOutputStream pgOut, Connection con, DataSource ds) {
+        private CopyCtx(PgBinaryCopyWriter writer, PGCopyOutputStream pgOut, Connection con, DataSource ds) {
             this.writer = writer;
             this.pgOut = pgOut;
             this.con = con;
@@ -47,42 +46,38 @@ private CopyCtx(Writer writer, PGCopyOutputStream pgOut, Connection con, DataSou
 
         @Override
         public void close() {
-            try { writer.flush(); } catch (IOException ignore) {}
+            try { writer.finish(); } catch (IOException ignore) {}
             try { pgOut.endCopy(); } catch (Exception e) {
-                log.warn("endCopy tm_bookpair_inbox_staging: {}", e.toString());
+                log.warn("endCopy staging bookpair: {}", e.toString());
             }
             DataSourceUtils.releaseConnection(con, ds);
         }
     }
 
-    /** Abre COPY para **tm_bookpair_inbox_staging**. */
-    // --- UPDATED FILE: com/dnobretech/jarvistradutorbackend/epubimport/InboxWriter.java ---
-    public CopyCtx openBookpairInboxStagingCopy() throws Exception {
-        schema.ensureBookpairSchemas();
+    /** Abre COPY para o staging do import ({@code StagingTables} sobre tm_bookpair_inbox_staging). */
+    public CopyCtx openBookpairInboxStagingCopy(String stagingTable) throws Exception {
         Connection con = DataSourceUtils.getConnection(dataSource);
         BaseConnection base = con.unwrap(BaseConnection.class);
         PGCopyOutputStream pgOut = new PGCopyOutputStream(
                 base,
-                "COPY tm_bookpair_inbox_staging(" +
+                "COPY " + stagingTable + "(" +
                         // ORDEM IMPORTANTE:
                         "src,tgt,lang_src,lang_tgt,quality,series_id,book_id," +
                         "chapter_en,chapter_pt,chapter," + // NEW cols + legado
                         "location,source_tag,qe_score,bt_chrf,final_score" +
-                        ") FROM STDIN WITH (FORMAT csv, HEADER true)"
+                        ") FROM STDIN WITH (FORMAT binary)"
         );
-        BufferedWriter w = new BufferedWriter(new OutputStreamWriter(pgOut, StandardCharsets.UTF_8), 1 << 16);
-        w.write("src,tgt,lang_src,lang_tgt,quality,series_id,book_id,chapter_en,chapter_pt,chapter,location,source_tag,qe_score,bt_chrf,final_score\n");
-        return new CopyCtx(w, pgOut, con, dataSource);
+        return new CopyCtx(new PgBinaryCopyWriter(pgOut), pgOut, con, dataSource);
     }
 
 
     //MERGE!!!
-    /** Consolida staging → inbox sem erro de duplicidade (requer Postgres 15+ por MERGE). */
-    // com.dnobretech.jarvistradutorbackend.epubimport.InboxWriter.java
-    // --- UPDATED FILE: com/dnobretech/jarvistradutorbackend/epubimport/InboxWriter.java ---
-    public int mergeBookpairInboxFromStaging(JdbcTemplate jdbc) {
-        jdbc.execute("""
-        CREATE TEMP TABLE IF NOT EXISTS _bp_dedup AS
+    /**
+     * Consolida staging → inbox sem erro de duplicidade (requer Postgres 15+ por MERGE).
+     * O dedup vai como subquery do MERGE: tabela TEMP ficaria na conexão do pool e vazaria entre imports.
+     */
+    public int mergeBookpairInboxFromStaging(JdbcTemplate jdbc, String stagingTable) {
+        String dedup = """
         SELECT DISTINCT ON (
             src,tgt,lang_src,lang_tgt,
             COALESCE(series_id,0),COALESCE(book_id,0),COALESCE(source_tag,'')
@@ -91,12 +86,12 @@ SELECT DISTINCT ON (
             chapter,chapter_en,chapter_pt,          -- NEW
             location,source_tag,
             qe_score,bt_chrf,final_score,created_at
-        FROM tm_bookpair_inbox_staging
+        FROM %s
         ORDER BY
             src,tgt,lang_src,lang_tgt,
             COALESCE(series_id,0),COALESCE(book_id,0),COALESCE(source_tag,''),
             quality DESC, created_at DESC
-    """);
+    """.formatted(stagingTable);
 
         double goodMin    = goodMinValue;
         double suspectMin = suspectMinValue;
@@ -104,7 +99,7 @@ SELECT DISTINCT ON (
 
         String sql = """
         MERGE INTO tm_bookpair_inbox t
-        USING _bp_dedup s
+        USING (%s) s
         ON (
              t.src = s.src AND
              t.tgt = s.tgt AND
@@ -146,7 +141,7 @@ WHEN COALESCE(s.final_score,0) >= ? AND COALESCE(s.qe_score,0) >= ? THEN 'good'
                      WHEN t.status IN ('pending','rejected') AND COALESCE(s.final_score,0) >= ? THEN 'suspect'
                      ELSE t.status
                    END
-    """;
+    """.formatted(dedup);
 
         int affected = jdbc.update(
                 sql,
@@ -156,8 +151,6 @@ WHEN t.status IN ('pending','rejected') AND COALESCE(s.final_score,0) >= ? THEN
                 goodMin, qeGoodMin, suspectMin, suspectMin
         );
 
-        jdbc.execute("TRUNCATE tm_bookpair_inbox_staging");
-        jdbc.execute("DROP TABLE IF EXISTS _bp_dedup");
         return affected;
     }
 
@@ -0,0 +1,30 @@
+package com.dnobretech.jarvistradutorbackend.epubimport;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migração de tm.pair_hash no startup, antes do servidor web aceitar requisições: a primeira vez
+ * reescreve tm (ACCESS EXCLUSIVE) e, feita de forma preguiçosa no primeiro import/review, travava
+ * todos os lookups durante a reescrita. Depois do Hibernate (ddl-auto cria tm numa base nova).
+ * No perfil cli (lazy-initialization) não roda: o import chama ensurePairHash antes de tocar em tm,
+ * e o servidor que atende lookups já migrou no próprio startup.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class PairHashMigration {
+
+    private final SchemaEnsurer schemaEnsurer;
+
+    @PostConstruct
+    void migrate() {
+        long t0 = System.nanoTime();
+        schemaEnsurer.ensurePairHash();
+        log.info("[schema] tm.pair_hash verificado em {} ms", (System.nanoTime() - t0) / 1_000_000);
+    }
+}
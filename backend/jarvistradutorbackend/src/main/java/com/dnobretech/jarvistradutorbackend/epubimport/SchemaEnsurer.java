@@ -2,17 +2,42 @@
 package com.dnobretech.jarvistradutorbackend.epubimport;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
+
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class SchemaEnsurer {
 
     private final JdbcTemplate jdbc;
+    private final PlatformTransactionManager txManager;
+
+    /**
+     * Fingerprint de 128 bits do par (md5 → uuid, 16 bytes). Usado como coluna gerada em tm e nos
+     * stagings/inboxes que consolidam em tm: ON CONFLICT e joins comparam 16 bytes em vez do texto
+     * completo das 4 colunas.
+     */
+    public static final String PAIR_HASH_COLUMN =
+            "pair_hash uuid GENERATED ALWAYS AS (tm_pair_hash(src, tgt, lang_src, lang_tgt)) STORED";
+
+    // tabelas (src,tgt,lang_src,lang_tgt) que fazem join/conflict com tm
+    private static final List<String> PAIR_HASH_TABLES = List.of(
+            "tm_staging", "tm_emb_staging", "tm_occurrence_staging",
+            "tm_corpora_inbox", "tm_corpora_emb_staging",
+            "tm_bookpair_inbox", "tm_bookpair_emb_staging");
+
+    private volatile boolean pairHashReady = false;
 
     public void ensureBookpairSchemas() {
         ensureVectorExtension();
+        ensurePairHash();
         ensureBookpairInbox();
         ensureBookpairInboxStaging();
         ensureBookpairEmbStaging();
@@ -20,6 +45,136 @@ public void ensureBookpairSchemas() {
 
     public void ensureVectorExtension() { jdbc.execute("CREATE EXTENSION IF NOT EXISTS vector"); }
 
+    /**
+     * Migração (uma vez por JVM): função tm_pair_hash, coluna gerada pair_hash + índice único em tm,
+     * pair_hash nos stagings existentes e remoção do UNIQUE antigo (src,tgt,lang_src,lang_tgt).
+     * Roda no startup (PairHashMigration, antes do servidor aceitar requisições); aqui fica como
+     * garantia para quem toca em tm. Fora da transação do chamador, em autocommit: o índice é
+     * criado com CONCURRENTLY, que não roda em bloco de transação.
+     * Na primeira execução reescreve tm (coluna STORED) — pode demorar em bases grandes.
+     */
+    public void ensurePairHash() {
+        if (pairHashReady) return;
+        synchronized (this) {
+            if (pairHashReady) return;
+            TransactionTemplate tt = new TransactionTemplate(txManager);
+            tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+            tt.executeWithoutResult(st -> migratePairHash());
+            pairHashReady = true;
+        }
+    }
+
+    private void migratePairHash() {
+        jdbc.execute("""
+        CREATE OR REPLACE FUNCTION tm_pair_hash(src text, tgt text, lang_src text, lang_tgt text)
+        RETURNS uuid LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+          SELECT md5(coalesce(src,'') || E'\\001' || coalesce(tgt,'') || E'\\001' ||
+                     coalesce(lang_src,'') || E'\\001' || coalesce(lang_tgt,''))::uuid
+        $$
+        """);
+
+        Boolean hasColumn = jdbc.queryForObject("""
+        SELECT EXISTS (SELECT 1 FROM information_schema.columns
+                        WHERE table_schema = current_schema() AND table_name = 'tm' AND column_name = 'pair_hash')
+        """, Boolean.class);
+        if (!Boolean.TRUE.equals(hasColumn)) {
+            log.warn("Migrando tm: adicionando coluna pair_hash (reescreve a tabela)");
+        }
+        jdbc.execute("ALTER TABLE tm ADD COLUMN IF NOT EXISTS " + PAIR_HASH_COLUMN);
+
+        // CONCURRENTLY: só bloqueia escrita de forma leve, lookups seguem durante o build.
+        // Um build interrompido deixa o índice INVALID (IF NOT EXISTS pularia): apaga e refaz.
+        Boolean valid = jdbc.queryForObject(
+                "SELECT (SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass('ux_tm_pair_hash'))", Boolean.class);
+        if (Boolean.FALSE.equals(valid)) {
+            log.warn("Índice ux_tm_pair_hash inválido (build anterior interrompido); recriando");
+            jdbc.execute("DROP INDEX CONCURRENTLY IF EXISTS ux_tm_pair_hash");
+        }
+        if (!Boolean.TRUE.equals(valid)) {
+            log.info("Criando índice único ux_tm_pair_hash (CONCURRENTLY)");
+            jdbc.execute("CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_tm_pair_hash ON tm(pair_hash)");
+        }
+
+        // UNIQUE/índice único antigo sobre o texto das 4 colunas: redundante e caro em todo upsert
+        jdbc.execute("""
+        DO $$
+        DECLARE r record;
+        BEGIN
+          FOR r IN
+            SELECT c.conname
+              FROM pg_constraint c
+             WHERE c.conrelid = 'tm'::regclass AND c.contype = 'u'
+               AND (SELECT array_agg(a.attname::text ORDER BY a.attname)
+                      FROM pg_attribute a
+                     WHERE a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey))
+                   = ARRAY['lang_src','lang_tgt','src','tgt']
+          LOOP
+            EXECUTE format('ALTER TABLE tm DROP CONSTRAINT %I', r.conname);
+          END LOOP;
+
+          FOR r IN
+            SELECT i.indexrelid::regclass AS idx
+              FROM pg_index i
+             WHERE i.indrelid = 'tm'::regclass AND i.indisunique AND NOT i.indisprimary
+               AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)
+               AND (SELECT array_agg(a.attname::text ORDER BY a.attname)
+                      FROM pg_attribute a
+                     WHERE a.attrelid = i.indrelid AND a.attnum = ANY (i.indkey))
+                   = ARRAY['lang_src','lang_tgt','src','tgt']
+          LOOP
+            EXECUTE format('DROP INDEX %s', r.idx);
+          END LOOP;
+        END
+        $$
+        """);
+
+        for (String t : PAIR_HASH_TABLES) {
+            jdbc.execute("ALTER TABLE IF EXISTS " + t + " ADD COLUMN IF NOT EXISTS " + PAIR_HASH_COLUMN);
+        }
+    }
+
+    /** Base dos stagings por import que consolidam em tm (upload TSV/CSV e TMX, ver StagingTables/StagingMerger). */
+    public void ensureTmStaging() {
+        ensurePairHash();
+        jdbc.execute("""
+        CREATE TABLE IF NOT EXISTS tm_staging (
+          src       text NOT NULL,
+          tgt       text NOT NULL,
+          lang_src  text NOT NULL,
+          lang_tgt  text NOT NULL,
+          quality   double precision,
+          created_at timestamp default now()
+        )
+        """);
+        jdbc.execute("ALTER TABLE tm_staging ADD COLUMN IF NOT EXISTS " + PAIR_HASH_COLUMN);
+    }
+
+    /**
+     * Faixas de bytes de um import distribuído (ImportShardStore): uma linha por shard, com o lease
+     * do nó que a processa. O progresso fica no import_checkpoint de cada shard ({@code <fileKey>#<nnnn>}).
+     */
+    public void ensureImportShards() {
+        jdbc.execute("""
+        CREATE TABLE IF NOT EXISTS import_shard (
+          file_key        text        NOT NULL,
+          shard_no        int         NOT NULL,
+          path            text        NOT NULL,
+          start_offset    bigint      NOT NULL,
+          end_offset      bigint      NOT NULL,
+          status          text        NOT NULL DEFAULT 'pending',   -- pending|running|done|failed
+          owner           text,
+          lease_until     timestamptz,
+          attempts        int         NOT NULL DEFAULT 0,           -- execuções que terminaram em erro
+          processed_lines bigint      NOT NULL DEFAULT 0,
+          total_copied    bigint      NOT NULL DEFAULT 0,
+          last_error      text,
+          updated_at      timestamptz NOT NULL DEFAULT now(),
+          PRIMARY KEY (file_key, shard_no)
+        )
+        """);
+        jdbc.execute("CREATE INDEX IF NOT EXISTS import_shard_claim_idx ON import_shard(file_key, status, shard_no)");
+    }
+
     public void ensureBookpairInbox() {
         jdbc.execute("""
         CREATE TABLE IF NOT EXISTS tm_bookpair_inbox (
@@ -63,6 +218,7 @@ created_at  timestamp DEFAULT now()
         jdbc.execute("ALTER TABLE tm_bookpair_inbox ADD COLUMN IF NOT EXISTS qe_best double precision");
         jdbc.execute("ALTER TABLE tm_bookpair_inbox ADD COLUMN IF NOT EXISTS review_best_index int");
         jdbc.execute("ALTER TABLE tm_bookpair_inbox ADD COLUMN IF NOT EXISTS review_candidates jsonb");
+        jdbc.execute("ALTER TABLE tm_bookpair_inbox ADD COLUMN IF NOT EXISTS " + PAIR_HASH_COLUMN);
 
 
 
@@ -71,6 +227,7 @@ created_at  timestamp DEFAULT now()
         jdbc.execute("CREATE INDEX IF NOT EXISTS idx_bpinbox_scores   ON tm_bookpair_inbox(final_score DESC, qe_score DESC)");
         jdbc.execute("CREATE INDEX IF NOT EXISTS idx_bpinbox_rev_stat ON tm_bookpair_inbox(rev_status)");
         jdbc.execute("CREATE INDEX IF NOT EXISTS idx_bpinbox_created  ON tm_bookpair_inbox(created_at DESC)");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_bpinbox_pair_hash ON tm_bookpair_inbox(pair_hash)");
     }
 
     public void ensureBookpairInboxStaging() {
@@ -99,7 +256,6 @@ created_at  timestamp DEFAULT now()
         jdbc.execute("ALTER TABLE tm_bookpair_inbox_staging ADD COLUMN IF NOT EXISTS qe_score double precision");
         jdbc.execute("ALTER TABLE tm_bookpair_inbox_staging ADD COLUMN IF NOT EXISTS bt_chrf double precision");
         jdbc.execute("ALTER TABLE tm_bookpair_inbox_staging ADD COLUMN IF NOT EXISTS final_score double precision");
-        jdbc.execute("TRUNCATE tm_bookpair_inbox_staging");
     }
 
     public void ensureBookpairEmbStaging() {
@@ -115,6 +271,6 @@ emb_tgt   vector(384),
             created_at timestamp default now()
           )
         """);
-        jdbc.execute("TRUNCATE tm_bookpair_emb_staging");
+        jdbc.execute("ALTER TABLE tm_bookpair_emb_staging ADD COLUMN IF NOT EXISTS " + PAIR_HASH_COLUMN);
     }
 }
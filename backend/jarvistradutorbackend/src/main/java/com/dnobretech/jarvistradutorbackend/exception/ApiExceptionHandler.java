@@ -13,6 +13,7 @@
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.time.Instant;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestControllerAdvice
@@ -73,6 +74,15 @@ public ResponseEntity<ApiError> handleIntegrity(DataIntegrityViolationException
         );
     }
 
+    // 503 - fila de jobs de import cheia (ImportJobService)
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ApiError> handleRejected(RejectedExecutionException ex, HttpServletRequest req) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                new ApiError(503, "Service Unavailable", "Fila de imports cheia; tente novamente mais tarde",
+                        req.getRequestURI(), Instant.now())
+        );
+    }
+
     // 500 - fallback único
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleGeneric(Exception ex, HttpServletRequest req) {
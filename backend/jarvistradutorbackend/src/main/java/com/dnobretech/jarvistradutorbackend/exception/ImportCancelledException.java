@@ -0,0 +1,8 @@
+package com.dnobretech.jarvistradutorbackend.exception;
+
+/** Lançada pelo próprio import ao notar o pedido de cancelamento do job (ver ImportProgress). */
+public class ImportCancelledException extends RuntimeException {
+    public ImportCancelledException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,19 @@
 package com.dnobretech.jarvistradutorbackend.repository;
 
 import com.dnobretech.jarvistradutorbackend.domain.ImportCheckpoint;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
     // fileKey = ID
+
+    /** SELECT ... FOR UPDATE: segura o checkpoint até o fim da transação do lote. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from ImportCheckpoint c where c.fileKey = :fileKey")
+    Optional<ImportCheckpoint> lockByFileKey(@Param("fileKey") String fileKey);
 }
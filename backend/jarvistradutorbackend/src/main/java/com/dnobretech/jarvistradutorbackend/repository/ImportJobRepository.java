@@ -0,0 +1,45 @@
+package com.dnobretech.jarvistradutorbackend.repository;
+
+import com.dnobretech.jarvistradutorbackend.domain.ImportJob;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    List<ImportJob> findAllByOrderByIdDesc(Pageable page);
+
+    List<ImportJob> findAllByStatusOrderByIdDesc(ImportJobStatus status, Pageable page);
+
+    /** Flush periódico dos contadores; só toca jobs ainda RUNNING (não sobrescreve o estado final). */
+    @Modifying
+    @Transactional
+    @Query("""
+            update ImportJob j
+               set j.linesRead = :lines, j.accepted = :accepted, j.rejected = :rejected,
+                   j.bytesRead = :bytes, j.totalBytes = :totalBytes, j.updatedAt = :now
+             where j.id = :id and j.status = com.dnobretech.jarvistradutorbackend.enums.ImportJobStatus.RUNNING
+            """)
+    int updateProgress(@Param("id") Long id, @Param("lines") long lines, @Param("accepted") long accepted,
+                       @Param("rejected") long rejected, @Param("bytes") long bytes,
+                       @Param("totalBytes") Long totalBytes, @Param("now") Instant now);
+
+    /** Na subida: jobs de um processo anterior que não terminaram. */
+    @Modifying
+    @Transactional
+    @Query("""
+            update ImportJob j
+               set j.status = com.dnobretech.jarvistradutorbackend.enums.ImportJobStatus.INTERRUPTED,
+                   j.finishedAt = :now, j.updatedAt = :now
+             where j.status in :statuses
+            """)
+    int markInterrupted(@Param("statuses") Collection<ImportJobStatus> statuses, @Param("now") Instant now);
+}
@@ -0,0 +1,30 @@
+package com.dnobretech.jarvistradutorbackend.service;
+
+import com.dnobretech.jarvistradutorbackend.dto.ImportJobDTO;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobStatus;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
+import com.dnobretech.jarvistradutorbackend.util.StoredMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public interface ImportJobService {
+
+    /** Corpo do job; o retorno vira o JSON de resultado. Progresso via ImportProgress.current(). */
+    @FunctionalInterface
+    interface JobTask {
+        Object run() throws Exception;
+    }
+
+    // enfileira no executor do tipo (limite de concorrência por tipo); cleanup roda ao fim, com qualquer status
+    ImportJobDTO submit(ImportJobType type, Map<String, Object> params, JobTask task, Runnable cleanup);
+
+    // copia o upload para disco antes de a requisição terminar (o job roda depois)
+    StoredMultipartFile stageUpload(MultipartFile file) throws IOException;
+
+    ImportJobDTO get(Long id);
+    List<ImportJobDTO> list(ImportJobStatus status, int limit);
+    ImportJobDTO cancel(Long id);
+}
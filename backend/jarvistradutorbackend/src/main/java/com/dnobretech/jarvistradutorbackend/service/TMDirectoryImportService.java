@@ -0,0 +1,11 @@
+package com.dnobretech.jarvistradutorbackend.service;
+
+import com.dnobretech.jarvistradutorbackend.dto.DirectoryImportResult;
+
+public interface TMDirectoryImportService {
+
+    // todos os arquivos do diretório que casam com o glob, cada um com seu checkpoint (fileKey derivado do caminho)
+    // parallelFiles <= 0 = limite global (jarvis.tm.dir.max-parallel-files); workers = parsing paralelo dentro de cada arquivo
+    DirectoryImportResult importDirectory(String dir, String glob, String keyPrefix, String delimiter, int batchLines,
+                                          String embed, int workers, int parallelFiles) throws Exception;
+}
@@ -0,0 +1,12 @@
+package com.dnobretech.jarvistradutorbackend.service;
+
+import com.dnobretech.jarvistradutorbackend.dto.TMExportFilter;
+import com.dnobretech.jarvistradutorbackend.enums.TMExportFormat;
+
+import java.io.OutputStream;
+
+public interface TMExportService {
+
+    // escreve o export em out (gzip opcional; out não é fechado); retorna o número de pares exportados
+    long export(TMExportFilter filter, TMExportFormat format, boolean gzip, OutputStream out) throws Exception;
+}
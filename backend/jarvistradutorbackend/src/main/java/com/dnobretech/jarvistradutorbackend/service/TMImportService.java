@@ -1,17 +1,36 @@
 package com.dnobretech.jarvistradutorbackend.service;
 
 import com.dnobretech.jarvistradutorbackend.dto.CheckpointDTO;
+import com.dnobretech.jarvistradutorbackend.dto.ImportPreview;
 import com.dnobretech.jarvistradutorbackend.dto.ResumeResult;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.function.Consumer;
+
 public interface TMImportService {
 
     // upload normal (multipart) — AGORA streaming → COPY (sem arquivo temporário)
     long importTsvOrCsvStreaming(MultipartFile file, String delimiter) throws Exception;
 
+    // corpo cru da requisição (sem spool do multipart) → COPY; contentLength < 0 = desconhecido
+    long importTsvOrCsvStream(InputStream body, String filename, long contentLength, String delimiter) throws Exception;
+
     // resumível (lê do disco do servidor em lotes; salva checkpoint)
+    // workers > 1: split/normalização/filtros em paralelo, COPY continua ordenado
+
+    ResumeResult importTxtResume(String path, String delimiter, String fileKey, int batchLines, int examples, String embed, int workers) throws Exception;
+
+    // todos os lotes até o fim do arquivo, um commit por lote (jobs assíncronos)
+    ResumeResult importTxtResumeToEnd(String path, String delimiter, String fileKey, int batchLines, int examples, String embed, int workers) throws Exception;
+
+    // um lote dentro de [startOffset, endOffset) (shard de um import distribuído); beforeCommit roda na transação do lote
+    ResumeResult importTxtResumeRange(String path, String delimiter, String fileKey, long startOffset, long endOffset,
+                                      int batchLines, int examples, String embed, int workers,
+                                      Consumer<ResumeResult> beforeCommit) throws Exception;
 
-    ResumeResult importTxtResume(String path, String delimiter, String fileKey, int batchLines, int examples, String embed) throws Exception;
+    // prévia: amostra ~samples linhas e roda os filtros sem gravar nada (aceitação, rejeições, tempo projetado)
+    ImportPreview previewTxt(String path, String delimiter, int samples, int workers) throws Exception;
 
     // utilidades para acompanhar/gerenciar checkpoint
 
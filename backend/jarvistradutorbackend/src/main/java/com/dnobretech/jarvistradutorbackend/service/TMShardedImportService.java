@@ -0,0 +1,19 @@
+package com.dnobretech.jarvistradutorbackend.service;
+
+import com.dnobretech.jarvistradutorbackend.dto.ShardedImportResult;
+import com.dnobretech.jarvistradutorbackend.tmimport.ImportShardStore;
+
+import java.util.List;
+
+public interface TMShardedImportService {
+
+    // divide o arquivo em faixas (só na primeira chamada do fileKey) e processa shards até não sobrar nenhum disponível;
+    // vários nós chamam com o mesmo path/fileKey ao mesmo tempo, cada shard com seu checkpoint (<fileKey>#<nnnn>)
+    ShardedImportResult importSharded(String path, String fileKey, int shards, String delimiter, int batchLines,
+                                      String embed, int workers) throws Exception;
+
+    List<ImportShardStore.Shard> shards(String fileKey);
+
+    // apaga o plano e os checkpoints dos shards (próxima chamada replaneja do zero)
+    int resetShards(String fileKey);
+}
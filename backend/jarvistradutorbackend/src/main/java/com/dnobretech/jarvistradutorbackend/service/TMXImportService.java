@@ -1,7 +1,18 @@
 package com.dnobretech.jarvistradutorbackend.service;
 
+import com.dnobretech.jarvistradutorbackend.dto.ResumeResult;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+
 public interface TMXImportService {
     long importTmx(MultipartFile file, String srcLang, String tgtLang) throws Exception;
+
+    // corpo cru da requisição, sem spool; contentLength < 0 = desconhecido
+    long importTmx(InputStream body, long contentLength, String srcLang, String tgtLang) throws Exception;
+
+    // resumível (arquivo no disco): um lote de até batchTus TUs por transação; processedLines = TUs lidos
+    ResumeResult importTmxResume(String path, String fileKey, String srcLang, String tgtLang, int batchTus) throws Exception;
+
+    ResumeResult importTmxResumeToEnd(String path, String fileKey, String srcLang, String tgtLang, int batchTus) throws Exception;
 }
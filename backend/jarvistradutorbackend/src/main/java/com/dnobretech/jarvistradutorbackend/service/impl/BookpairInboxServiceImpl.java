@@ -1,6 +1,7 @@
 package com.dnobretech.jarvistradutorbackend.service.impl;
 
 import com.dnobretech.jarvistradutorbackend.dto.BookpairInboxRow;
+import com.dnobretech.jarvistradutorbackend.epubimport.SchemaEnsurer;
 import com.dnobretech.jarvistradutorbackend.service.BookpairInboxService;
 
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@
 public class BookpairInboxServiceImpl implements BookpairInboxService {
 
     private final JdbcTemplate jdbc;
+    private final SchemaEnsurer schemaEnsurer;
 
     @Override
     public List<BookpairInboxRow> list(String status, Long seriesId, Long bookId, String sourceTag, int page, int size) {
@@ -134,22 +136,23 @@ public int reject(long id, String reviewer, String reason) {
     @Override
     @org.springframework.transaction.annotation.Transactional
     public int consolidateApproved() {
+        schemaEnsurer.ensurePairHash(); // transação própria, antes de tocar em tm
         int tmUpserts = jdbc.update("""
         WITH approved AS (
-          SELECT src, tgt, lang_src, lang_tgt, quality
+          SELECT pair_hash, src, tgt, lang_src, lang_tgt, quality
           FROM tm_bookpair_inbox
           WHERE status = 'approved'
         ),
         dedup AS (
-          SELECT DISTINCT ON (src, tgt, lang_src, lang_tgt)
+          SELECT DISTINCT ON (pair_hash)
                  src, tgt, lang_src, lang_tgt, quality
           FROM approved
-          ORDER BY src, tgt, lang_src, lang_tgt, quality DESC
+          ORDER BY pair_hash, quality DESC
         )
         INSERT INTO tm (src, tgt, lang_src, lang_tgt, quality)
         SELECT src, tgt, lang_src, lang_tgt, quality
         FROM dedup
-        ON CONFLICT (src, tgt, lang_src, lang_tgt)
+        ON CONFLICT (pair_hash)
         DO UPDATE SET quality = GREATEST(tm.quality, EXCLUDED.quality)
     """);
 
@@ -158,15 +161,14 @@ INSERT INTO tm_occurrence (tm_id, series_id, book_id, chapter, location, quality
         SELECT t.id, b.series_id, b.book_id, b.chapter, b.location, b.quality, b.source_tag
           FROM tm_bookpair_inbox b
           JOIN tm t
-            ON t.src = b.src AND t.tgt = b.tgt
-           AND t.lang_src = b.lang_src AND t.lang_tgt = b.lang_tgt
+            ON t.pair_hash = b.pair_hash
          WHERE b.status = 'approved'
     """);
 
         // Preferir embeddings não-nulos e de melhor qualidade
         int emb = jdbc.update("""
         WITH approved AS (
-          SELECT src, tgt, lang_src, lang_tgt, quality
+          SELECT pair_hash, quality
           FROM tm_bookpair_inbox
           WHERE status = 'approved'
         ),
@@ -180,11 +182,9 @@ joined AS (
                  ) rn
           FROM approved a
           JOIN tm t
-            ON t.src = a.src AND t.tgt = a.tgt
-           AND t.lang_src = a.lang_src AND t.lang_tgt = a.lang_tgt
+            ON t.pair_hash = a.pair_hash
           LEFT JOIN tm_bookpair_emb_staging e
-            ON e.src = a.src AND e.tgt = a.tgt
-           AND e.lang_src = a.lang_src AND e.lang_tgt = a.lang_tgt
+            ON e.pair_hash = a.pair_hash
         )
         INSERT INTO tm_embeddings (tm_id, emb_src, emb_tgt)
         SELECT tm_id, emb_src, emb_tgt
@@ -5,8 +5,16 @@
 import com.dnobretech.jarvistradutorbackend.dto.Block;
 import com.dnobretech.jarvistradutorbackend.dto.ExamplePair;
 import com.dnobretech.jarvistradutorbackend.dto.Result;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
+import com.dnobretech.jarvistradutorbackend.enums.RejectReason;
 import com.dnobretech.jarvistradutorbackend.epubimport.*;
 import com.dnobretech.jarvistradutorbackend.service.EPUBPairImportService;
+import com.dnobretech.jarvistradutorbackend.tmimport.ImportMetrics;
+import com.dnobretech.jarvistradutorbackend.tmimport.NearDuplicateFilter;
+import com.dnobretech.jarvistradutorbackend.tmimport.NearDuplicateIndex;
+import com.dnobretech.jarvistradutorbackend.tmimport.StagingTables;
+import com.dnobretech.jarvistradutorbackend.util.ImportProgress;
+import com.dnobretech.jarvistradutorbackend.util.PgBinaryCopyWriter;
 import com.dnobretech.jarvistradutorbackend.util.TextNormalizer;
 import lombok.extern.slf4j.Slf4j;
 import org.postgresql.copy.CopyManager;
@@ -19,7 +27,6 @@
 
 import javax.sql.DataSource;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -45,6 +52,9 @@ public class EPUBPairImportServiceImpl implements EPUBPairImportService {
     private final EmbeddingService embeddingService;
     private final InboxWriter inboxWriter;
     private final SchemaEnsurer schemaEnsurer;
+    private final StagingTables stagingTables;
+    private final ImportMetrics metrics;
+    private final NearDuplicateFilter nearDupFilter;
 
     // Aligners (nomeados com @Component("lengthAligner") / @Component("embeddingAligner"))
     private final Aligner lengthAligner;
@@ -65,7 +75,7 @@ public class EPUBPairImportServiceImpl implements EPUBPairImportService {
     private boolean embedOnlyApproved;
 
     public EPUBPairImportServiceImpl(
-            DataSource dataSource, JdbcTemplate jdbc, TextNormalizer norm, EpubExtractor epubExtractor, QualityFilter qualityFilter, EmbeddingService embeddingService, InboxWriter inboxWriter, SchemaEnsurer schemaEnsurer, @Qualifier("lengthAligner") Aligner lengthAligner,
+            DataSource dataSource, JdbcTemplate jdbc, TextNormalizer norm, EpubExtractor epubExtractor, QualityFilter qualityFilter, EmbeddingService embeddingService, InboxWriter inboxWriter, SchemaEnsurer schemaEnsurer, StagingTables stagingTables, ImportMetrics metrics, NearDuplicateFilter nearDupFilter, @Qualifier("lengthAligner") Aligner lengthAligner,
             @Qualifier("embeddingAlignerHungarian") Aligner embeddingAlignerHungarian, QeClient qeClient
             /* demais deps… */) {
         this.dataSource = dataSource;
@@ -76,6 +86,9 @@ public EPUBPairImportServiceImpl(
         this.embeddingService = embeddingService;
         this.inboxWriter = inboxWriter;
         this.schemaEnsurer = schemaEnsurer;
+        this.stagingTables = stagingTables;
+        this.metrics = metrics;
+        this.nearDupFilter = nearDupFilter;
         this.lengthAligner = lengthAligner;
         this.embeddingAlignerHungarian = embeddingAlignerHungarian;
         this.qeClient = qeClient;
@@ -93,6 +106,25 @@ public Result importParallelEPUB(MultipartFile fileEn,
                                      Long seriesId,
                                      Long bookId,
                                      String sourceTag) throws Exception {
+        schemaEnsurer.ensureBookpairSchemas();
+        // staging só deste import: outro par de livros pode estar sendo importado ao mesmo tempo
+        try (StagingTables.Scope st = stagingTables.create("tm_bookpair_inbox_staging")) {
+            return importPair(st.table("tm_bookpair_inbox_staging"), fileEn, filePt, level, mode,
+                    srcLang, tgtLang, minQuality, seriesId, bookId, sourceTag);
+        }
+    }
+
+    private Result importPair(String inboxStaging,
+                              MultipartFile fileEn,
+                              MultipartFile filePt,
+                              String level,
+                              String mode,
+                              String srcLang,
+                              String tgtLang,
+                              double minQuality,
+                              Long seriesId,
+                              Long bookId,
+                              String sourceTag) throws Exception {
 
         // 1) Extrair blocos com posição
         List<Block> blocksEn = epubExtractor.extractBlocks(fileEn, level);
@@ -110,15 +142,11 @@ public Result importParallelEPUB(MultipartFile fileEn,
         boolean doEmb = "embedding".equalsIgnoreCase(mode);
 
         File embTmpFile = null;
-        BufferedWriter embFileWriter = null;
+        PgBinaryCopyWriter embFileWriter = null;
         if (doEmb) {
             ensureBookpairEmbStagingSchema(); // cria tm_bookpair_emb_staging (vector(384))
-            embTmpFile = File.createTempFile("tm_bookpair_emb_", ".csv");
-            embFileWriter = new BufferedWriter(
-                    new OutputStreamWriter(new FileOutputStream(embTmpFile), StandardCharsets.UTF_8),
-                    1 << 20
-            );
-            embFileWriter.write("src,tgt,lang_src,lang_tgt,emb_src,emb_tgt,quality\n");
+            embTmpFile = File.createTempFile("tm_bookpair_emb_", ".pgcopy");
+            embFileWriter = new PgBinaryCopyWriter(new FileOutputStream(embTmpFile), 1 << 20);
         }
 
         long inserted = 0, skipped = 0;
@@ -134,17 +162,27 @@ public Result importParallelEPUB(MultipartFile fileEn,
 
         // Dedupe leve por (src,tgt,langs,location) dentro do lote
         Set<String> seen = new HashSet<>(aligned.size() * 2);
+        // quase-duplicatas do src no livro inteiro (null = desligado)
+        final NearDuplicateIndex nearDup = nearDupFilter.newIndex(aligned.size());
+        final long nearDupGroup = NearDuplicateFilter.group(srcLang, tgtLang);
 
         final IntRef skippedRef = new IntRef(0);
+        final ImportProgress progress = ImportProgress.current();   // pares alinhados como "linhas"
+        final ImportMetrics.Pipeline m = metrics.pipeline(ImportJobType.EPUB_PAIR.key());
+        final long t0 = System.nanoTime();
 
-        try (InboxWriter.CopyCtx ctx = inboxWriter.openBookpairInboxStagingCopy()) {
-            Writer out = ctx.writer;
+        try (InboxWriter.CopyCtx ctx = inboxWriter.openBookpairInboxStagingCopy(inboxStaging)) {
+            PgBinaryCopyWriter out = ctx.writer;
 
             for (AlignedPair ap : aligned) {
+                progress.addLines(1);
+                m.lines(1);
                 String src = norm.normalizeDialogue(ap.src());
                 String tgt = norm.normalizeDialogue(ap.tgt());
                 if (src.isBlank() || tgt.isBlank()) {
                     skipped++;
+                    progress.addRejected(1);
+                    m.rejected(RejectReason.BLANK);
                     continue;
                 }
 
@@ -158,6 +196,8 @@ public Result importParallelEPUB(MultipartFile fileEn,
                 String key = src + "\u0001" + tgt + "\u0001" + srcLang + "\u0001" + tgtLang + "\u0001" + location;
                 if (!seen.add(key)) {
                     skipped++;
+                    progress.addRejected(1);
+                    m.rejected(RejectReason.DUPLICATE);
                     continue;
                 }
 
@@ -166,10 +206,18 @@ public Result importParallelEPUB(MultipartFile fileEn,
                 boolean ph = qualityFilter.placeholdersPreserved(src, tgt);
                 if (r < ratioMin || r > ratioMax || !ph) {
                     skipped++;
+                    progress.addRejected(1);
+                    m.rejected(r < ratioMin || r > ratioMax ? RejectReason.RATIO : RejectReason.PLACEHOLDERS);
                     continue;
                 }
 
                 double q = qualityFilter.qualityScore(r, ph, ratioMin, ratioMax);
+                if (nearDup != null && !nearDup.offer(src, nearDupGroup, q)) {
+                    skipped++;
+                    progress.addRejected(1);
+                    m.rejected(RejectReason.NEAR_DUPLICATE);
+                    continue;
+                }
 
                 // NEW: sim vindo do aligner (se for LengthAligner, trate como 0.0)
                 double sim = 0.0;
@@ -183,6 +231,8 @@ public Result importParallelEPUB(MultipartFile fileEn,
 
                 // FLUSH por lote
                 if (pending.size() >= BATCH) {
+                    progress.checkCancelled();
+                    int skippedBefore = skippedRef.v;
                     enrichWithQE(pending);
                     int writ = flushPendingToStaging(
                             out, pending, srcLang, tgtLang, seriesId, bookId, sourceTag, minQuality,
@@ -190,6 +240,9 @@ public Result importParallelEPUB(MultipartFile fileEn,
                             doEmb, bufSrc, bufTgt, bufQ
                     );
                     inserted += writ;
+                    progress.addAccepted(writ);
+                    m.accepted(writ);
+                    progress.addRejected(skippedRef.v - skippedBefore);
                     for (var it : pending) sumQ += it.qRule;
                     pending.clear();
                 }
@@ -198,6 +251,7 @@ public Result importParallelEPUB(MultipartFile fileEn,
             }
 
             if (!pending.isEmpty()) {
+                int skippedBefore = skippedRef.v;
                 enrichWithQE(pending);
                 int writ = flushPendingToStaging(
                         out, pending, srcLang, tgtLang, seriesId, bookId, sourceTag, minQuality,
@@ -205,13 +259,22 @@ public Result importParallelEPUB(MultipartFile fileEn,
                         doEmb, bufSrc, bufTgt, bufQ
                 );
                 inserted += writ;
+                progress.addAccepted(writ);
+                m.accepted(writ);
+                progress.addRejected(skippedRef.v - skippedBefore);
                 for (var it : pending) sumQ += it.qRule;
                 pending.clear();
             }
 
             if (doEmb && !bufSrc.isEmpty()) {
-                embeddingService.flushEmbeddingsToFile(embFileWriter, bufSrc, bufTgt, srcLang, tgtLang, bufQ, true);
+                long e0 = m.embedStarted();
+                try {
+                    embeddingService.flushEmbeddingsToFile(embFileWriter, bufSrc, bufTgt, srcLang, tgtLang, bufQ, true);
+                } finally {
+                    m.embedFinished(e0);
+                }
             }
+            m.copied(inserted, out.bytesWritten(), System.nanoTime() - t0);
         } finally {
             if (embFileWriter != null) {
                 try {
@@ -224,23 +287,24 @@ public Result importParallelEPUB(MultipartFile fileEn,
         log.info("[epub-pair] após filtros baratos (ratio/placeholders) = {}", inserted + skipped); // ou faça um contador dedicado
         log.info("[epub-pair] gravados no staging (linhas CSV) = {}", inserted);
         log.info("[epub-pair] rejeitados nos filtros baratos = {}", skipped);
+        if (nearDup != null) log.info("[epub-pair] quase-duplicatas descartadas = {}", nearDup.dropped());
 
 
         // 4) Consolidar STAGING → INBOX (UPSERT seguro)
-        int merged = inboxWriter.mergeBookpairInboxFromStaging(jdbc);
+        long tm0 = System.currentTimeMillis();
+        int merged = inboxWriter.mergeBookpairInboxFromStaging(jdbc, inboxStaging);
+        metrics.merged("tm_bookpair_inbox", merged, System.currentTimeMillis() - tm0);
         log.info("[epub-pair] merged into tm_bookpair_inbox = {}", merged);
 
         // 5) Se geramos embeddings, COPY do arquivo temporário → tm_bookpair_emb_staging
         if (doEmb && embTmpFile != null && embTmpFile.exists()) {
             try (Connection con2 = DataSourceUtils.getConnection(dataSource)) {
                 CopyManager cm2 = con2.unwrap(org.postgresql.PGConnection.class).getCopyAPI();
-                try (Reader r = new BufferedReader(
-                        new InputStreamReader(new FileInputStream(embTmpFile), StandardCharsets.UTF_8),
-                        1 << 20)) {
+                try (InputStream in = new BufferedInputStream(new FileInputStream(embTmpFile), 1 << 20)) {
                     cm2.copyIn("""
                                 COPY tm_bookpair_emb_staging(src,tgt,lang_src,lang_tgt,emb_src,emb_tgt,quality)
-                                FROM STDIN WITH (FORMAT csv, HEADER true)
-                            """, r);
+                                FROM STDIN WITH (FORMAT binary)
+                            """, in);
                 }
             } finally {
                 if (!embTmpFile.delete()) {
@@ -271,16 +335,15 @@ private static String posToLocation(Block p) {
     }
 
 
-    // ===== Helpers de IO CSV (escrita de uma linha do inbox staging) =====
-    // --- UPDATED FILE: com/dnobretech/jarvistradutorbackend/service/impl/EPUBPairImportServiceImpl.java ---
-// altera a assinatura para receber chapter_en e chapter_pt:
-    private static void writeBookpairInboxCsvLine(
-            Writer w,
+    // ===== Helpers de IO (linha binária do inbox staging) =====
+    // ordem = colunas do COPY em InboxWriter.openBookpairInboxStagingCopy(); texto em branco vira NULL (como no CSV)
+    private static void writeBookpairInboxRow(
+            PgBinaryCopyWriter w,
             String src, String tgt,
             String langSrc, String langTgt,
             Double quality,
             Long seriesId, Long bookId,
-            String chapterEn, String chapterPt, // NEW
+            String chapterEn, String chapterPt,
             String chapterLegacy,               // será chapter_en para compat
             String location,
             String sourceTag,
@@ -288,69 +351,22 @@ private static void writeBookpairInboxCsvLine(
             Double btChrf,
             Double finalScore
     ) throws IOException {
-        w.write('"');
-        w.write(esc(src));
-        w.write('"');
-        w.write(',');
-        w.write('"');
-        w.write(esc(tgt));
-        w.write('"');
-        w.write(',');
-        w.write('"');
-        w.write(esc(langSrc));
-        w.write('"');
-        w.write(',');
-        w.write('"');
-        w.write(esc(langTgt));
-        w.write('"');
-        w.write(',');
-        if (quality != null) w.write(Double.toString(quality));
-        w.write(',');
-        if (seriesId != null) w.write(seriesId.toString());
-        w.write(',');
-        if (bookId != null) w.write(bookId.toString());
-        w.write(',');
-        if (chapterEn != null && !chapterEn.isBlank()) {
-            w.write('"');
-            w.write(esc(chapterEn));
-            w.write('"');
-        }
-        w.write(',');
-        if (chapterPt != null && !chapterPt.isBlank()) {
-            w.write('"');
-            w.write(esc(chapterPt));
-            w.write('"');
-        }
-        w.write(',');
-        if (chapterLegacy != null && !chapterLegacy.isBlank()) {
-            w.write('"');
-            w.write(esc(chapterLegacy));
-            w.write('"');
-        }
-        w.write(',');
-        if (location != null && !location.isBlank()) {
-            w.write('"');
-            w.write(esc(location));
-            w.write('"');
-        }
-        w.write(',');
-        if (sourceTag != null && !sourceTag.isBlank()) {
-            w.write('"');
-            w.write(esc(sourceTag));
-            w.write('"');
-        }
-        w.write(',');
-        if (qeScore != null) w.write(Double.toString(qeScore));
-        w.write(',');
-        if (btChrf != null) w.write(Double.toString(btChrf));
-        w.write(',');
-        if (finalScore != null) w.write(Double.toString(finalScore));
-        w.write('\n');
-    }
-
-
-    private static String esc(String s) {
-        return s.replace("\"", "\"\"");
+        w.startRow(15);
+        w.text(src);
+        w.text(tgt);
+        w.text(langSrc);
+        w.text(langTgt);
+        w.float8(quality);
+        w.int8(seriesId);
+        w.int8(bookId);
+        w.textOrNull(chapterEn);
+        w.textOrNull(chapterPt);
+        w.textOrNull(chapterLegacy);
+        w.textOrNull(location);
+        w.textOrNull(sourceTag);
+        w.float8(qeScore);
+        w.float8(btChrf);
+        w.float8(finalScore);
     }
 
     // ===== Esquema de staging de embeddings (book-pair) =====
@@ -367,6 +383,7 @@ emb_tgt   vector(384),
                     created_at timestamp default now()
                   )
                 """);
+        jdbc.execute("ALTER TABLE tm_bookpair_emb_staging ADD COLUMN IF NOT EXISTS " + SchemaEnsurer.PAIR_HASH_COLUMN);
     }
 
     // --- UPDATED FILE: EPUBPairImportServiceImpl.java ---
@@ -438,7 +455,7 @@ private void enrichWithQE(List<PendingItem> items) {
     // escreve TODO o lote no STAGING; decide embeddings via flag embedOnlyApproved
     // --- UPDATED SIGNATURE (se necessário você já a alterou acima) ---
     private int flushPendingToStaging(
-            Writer out,
+            PgBinaryCopyWriter out,
             List<PendingItem> items,
             String srcLang, String tgtLang,
             Long seriesId, Long bookId,
@@ -457,7 +474,7 @@ private int flushPendingToStaging(
             // preenche 'chapter' legado com chapter_en para compat
             String legacyChapter = it.chapterEn;
 
-            writeBookpairInboxCsvLine(
+            writeBookpairInboxRow(
                     out,
                     it.src, it.tgt, srcLang, tgtLang, it.qRule,
                     seriesId, bookId,
@@ -4,6 +4,9 @@
 import com.dnobretech.jarvistradutorbackend.dto.EmbedResponse;
 import com.dnobretech.jarvistradutorbackend.repository.GlossaryRepository;
 import com.dnobretech.jarvistradutorbackend.service.GlossaryService;
+import com.dnobretech.jarvistradutorbackend.tmimport.ImportMetrics;
+import com.dnobretech.jarvistradutorbackend.tmimport.StagingTables;
+import com.dnobretech.jarvistradutorbackend.util.PgBinaryCopyWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.postgresql.copy.CopyManager;
@@ -19,9 +22,6 @@
 import org.postgresql.copy.PGCopyOutputStream;
 
 import javax.sql.DataSource;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -34,6 +34,8 @@ public class GlossaryServiceImpl implements GlossaryService {
     private final GlossaryRepository repo;   // jpa (se necessário em outros pontos)
     private final JdbcTemplate jdbc;
     private final DataSource dataSource;
+    private final StagingTables stagingTables;
+    private final ImportMetrics metrics;
 
     /** none | src | both (default: src) */
     @Value("${jarvis.glossary.embed-mode:src}")
@@ -87,15 +89,23 @@ ON CONFLICT (src, series_id) DO UPDATE
         });
 
         int total = Arrays.stream(counts).mapToInt(batch -> Arrays.stream(batch).sum()).sum();
+        ImportMetrics.Pipeline m = metrics.pipeline("glossary");
+        m.lines(items.size());
+        m.accepted(total);
 
         // 2) embeddings (opcional)
         String mode = (embedMode == null) ? "src" : embedMode.toLowerCase(Locale.ROOT);
         if (!"none".equals(mode)) {
             try {
                 ensureEmbeddingsSchema();
-                embedAndStage(items, seriesId, mode); // escreve staging via COPY
-                int merged = consolidateFromStaging();
-                log.info("[glossary] embeddings consolidados: {}", merged);
+                try (StagingTables.Scope st = stagingTables.create("glossary_emb_staging")) {
+                    String staging = st.table("glossary_emb_staging");
+                    embedAndStage(staging, items, seriesId, mode); // escreve staging via COPY
+                    long tm0 = System.currentTimeMillis();
+                    int merged = consolidateFromStaging(staging);
+                    metrics.merged("glossary_embeddings", merged, System.currentTimeMillis() - tm0);
+                    log.info("[glossary] embeddings consolidados: {}", merged);
+                }
             } catch (Exception e) {
                 log.error("[glossary] falha ao gerar/consolidar embeddings: {}", e.toString(), e);
             }
@@ -124,15 +134,18 @@ updated_at  timestamp default now()
         jdbc.execute("ALTER TABLE glossary_embeddings " +
                 "ALTER COLUMN emb_tgt TYPE vector(" + VECTOR_DIM + ") USING emb_tgt");
 
-        // staging com series_id e dimensão fixa
-        jdbc.execute("DROP TABLE IF EXISTS glossary_emb_staging");
-        jdbc.execute("CREATE TABLE glossary_emb_staging (" +
+        // molde do staging (cada import cria a sua cópia via StagingTables); dimensão fixa
+        jdbc.execute("CREATE TABLE IF NOT EXISTS glossary_emb_staging (" +
                 "src text NOT NULL, " +
                 "series_id bigint, " +
                 "emb_src vector(" + VECTOR_DIM + "), " +
                 "emb_tgt vector(" + VECTOR_DIM + "), " +
                 "created_at timestamp default now()" +
                 ")");
+        jdbc.execute("ALTER TABLE glossary_emb_staging " +
+                "ALTER COLUMN emb_src TYPE vector(" + VECTOR_DIM + ") USING emb_src");
+        jdbc.execute("ALTER TABLE glossary_emb_staging " +
+                "ALTER COLUMN emb_tgt TYPE vector(" + VECTOR_DIM + ") USING emb_tgt");
 
         // índice ANN em emb_src (se ainda não existir)
         jdbc.execute("""
@@ -151,7 +164,7 @@ IF NOT EXISTS (
     }
 
     /** Deduplica por (src, series_id), chama embedder em lotes e streama para staging via COPY. */
-    private void embedAndStage(List<Glossary> items, Long defaultSeriesId, String mode) throws Exception {
+    private void embedAndStage(String staging, List<Glossary> items, Long defaultSeriesId, String mode) throws Exception {
         record Key(String src, Long sid) {}
         Map<Key, Glossary> map = items.stream()
                 .filter(g -> g.getSrc() != null && !g.getSrc().isBlank())
@@ -163,6 +176,7 @@ record Key(String src, Long sid) {}
                 ));
         if (map.isEmpty()) return;
 
+        final long t0 = System.nanoTime();
         Connection con = DataSourceUtils.getConnection(dataSource);
         try {
             // ↓↓↓ EM VEZ de pegar CopyManager e passar pro construtor, pegue o PGConnection:
@@ -171,12 +185,11 @@ record Key(String src, Long sid) {}
             // Opção A (mais simples): usa o construtor PGCopyOutputStream(PGConnection, String)
             PGCopyOutputStream pgOut = new PGCopyOutputStream(
                     pgConn,
-                    "COPY glossary_emb_staging (src, series_id, emb_src, emb_tgt) " +
-                            "FROM STDIN WITH (FORMAT csv, HEADER true)"
+                    "COPY " + staging + " (src, series_id, emb_src, emb_tgt) " +
+                            "FROM STDIN WITH (FORMAT binary)"
             );
 
-            try (Writer w = new OutputStreamWriter(pgOut, StandardCharsets.UTF_8)) {
-                w.write("src,series_id,emb_src,emb_tgt\n");
+            try (PgBinaryCopyWriter w = new PgBinaryCopyWriter(pgOut)) {
 
                 List<String> batchSrc = new ArrayList<>(EMB_BATCH);
                 List<String> batchTgt = new ArrayList<>(EMB_BATCH);
@@ -197,10 +210,11 @@ record Key(String src, Long sid) {}
                     written += writeBatch(w, batchSrc, batchTgt, batchSid, mode);
                 }
 
-                w.flush();
+                w.finish();
+                metrics.pipeline("glossary").copied(written, w.bytesWritten(), System.nanoTime() - t0);
                 log.info("[glossary] staging wrote {} rows", written);
             } finally {
-                // garante endCopy() mesmo em erro
+                // garante endCopy() mesmo em erro (close do writer já fecha; aqui é idempotente)
                 pgOut.close();
             }
 
@@ -209,35 +223,28 @@ record Key(String src, Long sid) {}
         }
     }
 
-    /** Embeda o batch atual e escreve linhas CSV no writer. */
-    private int writeBatch(Writer w, List<String> srcs, List<String> tgts, List<Long> sids, String mode) throws Exception {
+    /** Embeda o batch atual e escreve linhas binárias (src, series_id, emb_src, emb_tgt) no COPY. */
+    private int writeBatch(PgBinaryCopyWriter w, List<String> srcs, List<String> tgts, List<Long> sids, String mode) throws Exception {
         List<double[]> vSrc = embedTexts(srcs, true);
         List<double[]> vTgt = "both".equals(mode) ? embedTexts(tgts, true) : List.of();
 
         for (int i = 0; i < srcs.size(); i++) {
-            String embSrc = vSrc.isEmpty() ? "" : toVectorLiteral(vSrc.get(i));
-            String embTgt = (!vTgt.isEmpty()) ? toVectorLiteral(vTgt.get(i)) : "";
-            Long sid = sids.get(i);
-
-            // "src","series_id","[vec]","[vec]"
-            w.write('"'); w.write(esc(srcs.get(i))); w.write('"'); w.write(',');
-            if (sid == null) w.write(""); else w.write(Long.toString(sid));
-            w.write(',');
-            if (!embSrc.isEmpty()) { w.write('"'); w.write(embSrc); w.write('"'); }
-            w.write(',');
-            if (!embTgt.isEmpty()) { w.write('"'); w.write(embTgt); w.write('"'); }
-            w.write('\n');
+            w.startRow(4);
+            w.text(srcs.get(i));
+            w.int8(sids.get(i));
+            w.vector(vSrc.isEmpty() ? null : vSrc.get(i));
+            w.vector(vTgt.isEmpty() ? null : vTgt.get(i));
         }
         return srcs.size();
     }
 
     /** Consolida staging → glossary_embeddings por join (src, series_id) → glossary.id. */
-    private int consolidateFromStaging() {
+    private int consolidateFromStaging(String staging) {
         String sql = """
             WITH dedup AS (
               SELECT DISTINCT ON (src, series_id)
                      src, series_id, emb_src, emb_tgt, created_at
-              FROM glossary_emb_staging
+              FROM %s
               ORDER BY src, series_id, created_at DESC
             )
             INSERT INTO glossary_embeddings (glossary_id, emb_src, emb_tgt, updated_at)
@@ -250,10 +257,8 @@ ON CONFLICT (glossary_id) DO UPDATE
               SET emb_src = EXCLUDED.emb_src,
                   emb_tgt = COALESCE(EXCLUDED.emb_tgt, glossary_embeddings.emb_tgt),
                   updated_at = now()
-        """;
-        int up = jdbc.update(sql);
-        jdbc.execute("TRUNCATE glossary_emb_staging");
-        return up;
+        """.formatted(staging);
+        return jdbc.update(sql);
     }
 
     // ======================= EMBED CLIENT =======================
@@ -261,28 +266,23 @@ ON CONFLICT (glossary_id) DO UPDATE
     private List<double[]> embedTexts(List<String> texts, boolean normalize) {
         if (texts == null || texts.isEmpty()) return List.of();
         Map<String, Object> payload = Map.of("texts", texts, "normalize", normalize);
-        EmbedResponse resp = embClient.post()
-                .uri("/embed")
-                .bodyValue(payload)
-                .retrieve()
-                .bodyToMono(EmbedResponse.class)
-                .block();
+        ImportMetrics.Pipeline m = metrics.pipeline("glossary");
+        long t0 = m.embedStarted();
+        EmbedResponse resp;
+        try {
+            resp = embClient.post()
+                    .uri("/embed")
+                    .bodyValue(payload)
+                    .retrieve()
+                    .bodyToMono(EmbedResponse.class)
+                    .block();
+        } finally {
+            m.embedFinished(t0);
+        }
         return (resp != null && resp.vectors() != null) ? resp.vectors() : List.of();
     }
 
     // ======================= UTILS =======================
 
-    private static String toVectorLiteral(double[] v) {
-        StringBuilder sb = new StringBuilder(v.length * 6 + 2);
-        sb.append('[');
-        for (int i = 0; i < v.length; i++) {
-            if (i > 0) sb.append(',');
-            sb.append(Double.toString(v[i]));
-        }
-        sb.append(']');
-        return sb.toString();
-    }
-
-    private static String esc(String s) { return s == null ? "" : s.replace("\"","\"\""); }
     private static String nvl(String s) { return s == null ? "" : s; }
 }
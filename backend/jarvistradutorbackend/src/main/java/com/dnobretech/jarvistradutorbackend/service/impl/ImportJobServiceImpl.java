@@ -0,0 +1,280 @@
+package com.dnobretech.jarvistradutorbackend.service.impl;
+
+import com.dnobretech.jarvistradutorbackend.domain.ImportJob;
+import com.dnobretech.jarvistradutorbackend.dto.ImportJobDTO;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobStatus;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
+import com.dnobretech.jarvistradutorbackend.exception.ImportCancelledException;
+import com.dnobretech.jarvistradutorbackend.repository.ImportJobRepository;
+import com.dnobretech.jarvistradutorbackend.service.ImportJobService;
+import com.dnobretech.jarvistradutorbackend.util.ImportProgress;
+import com.dnobretech.jarvistradutorbackend.util.StoredMultipartFile;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executor de imports assíncronos: um pool fixo por tipo (jarvis.jobs.concurrency.&lt;tipo&gt;) com fila
+ * limitada; estado e contadores persistidos em import_job para sobreviver a restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportJobServiceImpl implements ImportJobService {
+
+    private final ImportJobRepository repo;
+    private final ObjectMapper objectMapper;
+    private final Environment env;
+
+    /** jobs aguardando por tipo além dos que estão rodando; cheio = 503 */
+    @Value("${jarvis.jobs.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${jarvis.jobs.upload-dir:${app.storageDir}job-uploads}")
+    private String uploadDir;
+
+    private final Map<ImportJobType, ThreadPoolExecutor> executors = new EnumMap<>(ImportJobType.class);
+    private final Map<Long, Active> active = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown = false;
+
+    /** Job deste processo: o estado em memória decide a corrida entre início e cancelamento. */
+    private static final class Active {
+        final ImportProgress progress = new ImportProgress();
+        final AtomicReference<ImportJobStatus> state = new AtomicReference<>(ImportJobStatus.QUEUED);
+    }
+
+    @PostConstruct
+    void init() {
+        // antes do servidor web aceitar requisições: o que ficou pendente é de um processo anterior
+        int n = repo.markInterrupted(List.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING), Instant.now());
+        if (n > 0) log.warn("[jobs] {} job(s) de uma execução anterior marcados como INTERRUPTED", n);
+
+        for (ImportJobType t : ImportJobType.values()) {
+            int limit = Math.max(1, env.getProperty("jarvis.jobs.concurrency." + t.key(), Integer.class, t.defaultConcurrency()));
+            AtomicInteger seq = new AtomicInteger();
+            executors.put(t, new ThreadPoolExecutor(limit, limit, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                    r -> new Thread(r, "import-job-" + t.key() + "-" + seq.incrementAndGet())));
+            log.info("[jobs] executor {}: concorrência={} fila={}", t.key(), limit, queueCapacity);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        shuttingDown = true;
+        // cancelamento cooperativo: o lote em andamento faz rollback; o job fica INTERRUPTED
+        active.values().forEach(a -> a.progress.cancel());
+        executors.values().forEach(ExecutorService::shutdown);
+        for (ExecutorService ex : executors.values()) {
+            try { ex.awaitTermination(30, TimeUnit.SECONDS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+    }
+
+    // ===================== Submissão =====================
+
+    @Override
+    public ImportJobDTO submit(ImportJobType type, Map<String, Object> params, JobTask task, Runnable cleanup) {
+        ImportJob job = repo.save(ImportJob.builder()
+                .type(type)
+                .status(ImportJobStatus.QUEUED)
+                .params(toJson(params))
+                .build());
+        Long id = job.getId();
+
+        Active a = new Active();
+        active.put(id, a);
+        try {
+            executors.get(type).execute(() -> run(id, a, task, cleanup));
+        } catch (RejectedExecutionException e) {
+            active.remove(id);
+            finish(id, ImportJobStatus.FAILED, null, "Fila de jobs '" + type.key() + "' cheia", a.progress);
+            if (cleanup != null) cleanup.run();
+            throw e;
+        }
+        log.info("[jobs] job {} ({}) enfileirado", id, type.key());
+        return toDTO(job, a);
+    }
+
+    @Override
+    public StoredMultipartFile stageUpload(MultipartFile file) throws IOException {
+        return StoredMultipartFile.save(file, Path.of(uploadDir));
+    }
+
+    private void run(Long id, Active a, JobTask task, Runnable cleanup) {
+        try {
+            if (!a.state.compareAndSet(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING)) return;   // cancelado na fila
+
+            repo.findById(id).ifPresent(j -> {
+                j.setStatus(ImportJobStatus.RUNNING);
+                j.setStartedAt(Instant.now());
+                repo.save(j);
+            });
+            log.info("[jobs] job {} iniciado", id);
+
+            a.progress.markStarted();
+            ImportProgress.bind(a.progress);
+            try {
+                Object result = task.run();
+                finish(id, ImportJobStatus.SUCCEEDED, toJson(result), null, a.progress);
+                log.info("[jobs] job {} concluído: linhas={} aceitas={}", id, a.progress.lines(), a.progress.accepted());
+            } catch (Throwable t) {
+                if (isCancellation(t)) {
+                    ImportJobStatus st = shuttingDown ? ImportJobStatus.INTERRUPTED : ImportJobStatus.CANCELLED;
+                    finish(id, st, null, null, a.progress);
+                    log.warn("[jobs] job {} {}", id, st);
+                } else {
+                    finish(id, ImportJobStatus.FAILED, null, String.valueOf(t.getMessage() != null ? t.getMessage() : t), a.progress);
+                    log.error("[jobs] job {} falhou", id, t);
+                }
+            } finally {
+                ImportProgress.unbind();
+            }
+        } finally {
+            active.remove(id);
+            if (cleanup != null) {
+                try { cleanup.run(); } catch (Exception e) { log.warn("[jobs] cleanup do job {}: {}", id, e.toString()); }
+            }
+        }
+    }
+
+    private static boolean isCancellation(Throwable t) {
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c instanceof ImportCancelledException) return true;
+        }
+        return false;
+    }
+
+    private void finish(Long id, ImportJobStatus status, String result, String error, ImportProgress p) {
+        repo.findById(id).ifPresent(j -> {
+            j.setStatus(status);
+            j.setResult(result);
+            j.setError(error);
+            j.setLinesRead(p.lines());
+            j.setAccepted(p.accepted());
+            j.setRejected(p.rejected());
+            j.setBytesRead(p.bytes());
+            j.setTotalBytes(p.totalBytes());
+            j.setFinishedAt(Instant.now());
+            repo.save(j);
+        });
+    }
+
+    // ===================== Consulta / cancelamento =====================
+
+    @Override
+    public ImportJobDTO get(Long id) {
+        ImportJob j = repo.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Job não encontrado: " + id));
+        return toDTO(j, active.get(id));
+    }
+
+    @Override
+    public List<ImportJobDTO> list(ImportJobStatus status, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, 500)));
+        List<ImportJob> jobs = (status == null)
+                ? repo.findAllByOrderByIdDesc(page)
+                : repo.findAllByStatusOrderByIdDesc(status, page);
+        return jobs.stream().map(j -> toDTO(j, active.get(j.getId()))).toList();
+    }
+
+    @Override
+    public ImportJobDTO cancel(Long id) {
+        ImportJob j = repo.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Job não encontrado: " + id));
+        Active a = active.get(id);
+        if (a == null || j.getStatus().isFinal()) return toDTO(j, a);
+
+        if (a.state.compareAndSet(ImportJobStatus.QUEUED, ImportJobStatus.CANCELLED)) {
+            // ainda na fila: quando o executor chegar nele, run() só faz o cleanup
+            active.remove(id);
+            finish(id, ImportJobStatus.CANCELLED, null, null, a.progress);
+            log.info("[jobs] job {} cancelado na fila", id);
+        } else {
+            a.progress.cancel();   // o import para no próximo ponto de checagem
+            log.info("[jobs] cancelamento solicitado para job {}", id);
+        }
+        return get(id);
+    }
+
+    // ===================== Progresso =====================
+
+    /** Grava os contadores dos jobs em andamento (o GET lê da memória; isto é para restart/histórico). */
+    @Scheduled(fixedDelayString = "${jarvis.jobs.progress-flush-ms:5000}")
+    public void flushProgress() {
+        Instant now = Instant.now();
+        active.forEach((id, a) -> {
+            if (a.state.get() != ImportJobStatus.RUNNING) return;
+            ImportProgress p = a.progress;
+            try {
+                repo.updateProgress(id, p.lines(), p.accepted(), p.rejected(), p.bytes(), p.totalBytes(), now);
+            } catch (Exception e) {
+                log.warn("[jobs] falha ao gravar progresso do job {}: {}", id, e.toString());
+            }
+        });
+    }
+
+    // ===================== Helpers =====================
+
+    private ImportJobDTO toDTO(ImportJob j, Active a) {
+        boolean live = a != null && a.state.get() == ImportJobStatus.RUNNING && j.getStatus() == ImportJobStatus.RUNNING;
+        ImportProgress p = live ? a.progress : null;
+        return new ImportJobDTO(
+                j.getId(),
+                j.getType(),
+                j.getStatus(),
+                readJson(j.getParams()),
+                live ? p.lines() : j.getLinesRead(),
+                live ? p.accepted() : j.getAccepted(),
+                live ? p.rejected() : j.getRejected(),
+                live ? p.bytes() : j.getBytesRead(),
+                live ? p.totalBytes() : j.getTotalBytes(),
+                live ? p.linesPerSecond() : null,
+                live ? p.bytesPerSecond() : null,
+                live ? p.etaSeconds() : null,
+                readJson(j.getResult()),
+                j.getError(),
+                j.getCreatedAt(),
+                j.getStartedAt(),
+                j.getFinishedAt()
+        );
+    }
+
+    private String toJson(Object o) {
+        if (o == null) return null;
+        try {
+            return objectMapper.writeValueAsString(o);
+        } catch (Exception e) {
+            log.warn("[jobs] falha ao serializar JSON: {}", e.toString());
+            return null;
+        }
+    }
+
+    private JsonNode readJson(String s) {
+        if (s == null) return null;
+        try {
+            return objectMapper.readTree(s);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
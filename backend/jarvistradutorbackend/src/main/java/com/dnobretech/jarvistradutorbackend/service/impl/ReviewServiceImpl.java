@@ -3,6 +3,7 @@
 
 import com.dnobretech.jarvistradutorbackend.client.GptjClient;
 import com.dnobretech.jarvistradutorbackend.client.ReviewLLMClient;
+import com.dnobretech.jarvistradutorbackend.epubimport.SchemaEnsurer;
 import com.dnobretech.jarvistradutorbackend.service.ReviewService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +18,7 @@
 public class ReviewServiceImpl implements ReviewService {
     private final JdbcTemplate jdbc;
     private final ReviewLLMClient reviewer;
+    private final SchemaEnsurer schemaEnsurer;
     private final ObjectMapper om = new ObjectMapper();
 
     @Override
@@ -56,29 +58,30 @@ public int rejectBookpairs(java.util.List<Long> ids, String reviewer) {
     @Override
     @Transactional
     public int commitCorporaApproved() {
+        schemaEnsurer.ensurePairHash(); // transação própria, antes de tocar em tm
         // 1) TM
         int up = jdbc.update("""
                     INSERT INTO tm (src,tgt,lang_src,lang_tgt,quality)
                     SELECT c.src, c.tgt, c.lang_src, c.lang_tgt, c.quality
                       FROM tm_corpora_inbox c
                      WHERE c.status='approved'
-                    ON CONFLICT (src,tgt,lang_src,lang_tgt)
+                    ON CONFLICT (pair_hash)
                     DO UPDATE SET quality = GREATEST(tm.quality, EXCLUDED.quality)
                 """);
 
         // 2) Embeddings (se existirem em tm_corpora_emb_staging)
         int emb = jdbc.update("""
                     WITH dedup AS (
-                      SELECT DISTINCT ON (src,tgt,lang_src,lang_tgt)
-                             src,tgt,lang_src,lang_tgt,emb_src,emb_tgt,quality,created_at
+                      SELECT DISTINCT ON (pair_hash)
+                             pair_hash,emb_src,emb_tgt,quality,created_at
                       FROM tm_corpora_emb_staging
-                      ORDER BY src,tgt,lang_src,lang_tgt,quality DESC, created_at DESC
+                      ORDER BY pair_hash,quality DESC, created_at DESC
                     )
                     INSERT INTO tm_embeddings (tm_id, emb_src, emb_tgt)
                     SELECT t.id, d.emb_src, d.emb_tgt
                       FROM tm t
                       JOIN dedup d
-                        ON t.src=d.src AND t.tgt=d.tgt AND t.lang_src=d.lang_src AND t.lang_tgt=d.lang_tgt
+                        ON t.pair_hash=d.pair_hash
                     ON CONFLICT (tm_id) DO UPDATE
                       SET emb_src = EXCLUDED.emb_src,
                           emb_tgt = COALESCE(EXCLUDED.emb_tgt, tm_embeddings.emb_tgt)
@@ -93,13 +96,14 @@ ON CONFLICT (tm_id) DO UPDATE
     @Override
     @Transactional
     public int commitBookpairsApproved() {
+        schemaEnsurer.ensurePairHash(); // transação própria, antes de tocar em tm
         // 1) TM (garante o pareamento na TM)
         int up = jdbc.update("""
                     INSERT INTO tm (src,tgt,lang_src,lang_tgt,quality)
                     SELECT b.src, b.tgt, b.lang_src, b.lang_tgt, b.quality
                       FROM tm_bookpair_inbox b
                      WHERE b.status='approved'
-                    ON CONFLICT (src,tgt,lang_src,lang_tgt)
+                    ON CONFLICT (pair_hash)
                     DO UPDATE SET quality = GREATEST(tm.quality, EXCLUDED.quality)
                 """);
 
@@ -109,23 +113,23 @@ INSERT INTO tm_occurrence (tm_id, series_id, book_id, chapter, location, quality
                     SELECT t.id, b.series_id, b.book_id, b.chapter, b.location, b.quality, b.source_tag
                       FROM tm_bookpair_inbox b
                       JOIN tm t
-                        ON t.src=b.src AND t.tgt=b.tgt AND t.lang_src=b.lang_src AND t.lang_tgt=b.lang_tgt
+                        ON t.pair_hash=b.pair_hash
                      WHERE b.status='approved'
                 """);
 
         // 3) Embeddings de bookpair (se existirem)
         int emb = jdbc.update("""
                     WITH dedup AS (
-                      SELECT DISTINCT ON (src,tgt,lang_src,lang_tgt)
-                             src,tgt,lang_src,lang_tgt,emb_src,emb_tgt,quality,created_at
+                      SELECT DISTINCT ON (pair_hash)
+                             pair_hash,emb_src,emb_tgt,quality,created_at
                       FROM tm_bookpair_emb_staging
-                      ORDER BY src,tgt,lang_src,lang_tgt,quality DESC, created_at DESC
+                      ORDER BY pair_hash,quality DESC, created_at DESC
                     )
                     INSERT INTO tm_embeddings (tm_id, emb_src, emb_tgt)
                     SELECT t.id, d.emb_src, d.emb_tgt
                       FROM tm t
                       JOIN dedup d
-                        ON t.src=d.src AND t.tgt=d.tgt AND t.lang_src=d.lang_src AND t.lang_tgt=d.lang_tgt
+                        ON t.pair_hash=d.pair_hash
                     ON CONFLICT (tm_id) DO UPDATE
                       SET emb_src = EXCLUDED.emb_src,
                           emb_tgt = COALESCE(EXCLUDED.emb_tgt, tm_embeddings.emb_tgt)
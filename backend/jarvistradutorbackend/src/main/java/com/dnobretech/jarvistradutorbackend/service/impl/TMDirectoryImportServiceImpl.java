@@ -0,0 +1,199 @@
+package com.dnobretech.jarvistradutorbackend.service.impl;
+
+import com.dnobretech.jarvistradutorbackend.domain.ImportCheckpoint;
+import com.dnobretech.jarvistradutorbackend.dto.DirectoryImportResult;
+import com.dnobretech.jarvistradutorbackend.dto.DirectoryImportResult.FileResult;
+import com.dnobretech.jarvistradutorbackend.dto.ResumeResult;
+import com.dnobretech.jarvistradutorbackend.exception.ImportCancelledException;
+import com.dnobretech.jarvistradutorbackend.repository.ImportCheckpointRepository;
+import com.dnobretech.jarvistradutorbackend.service.TMDirectoryImportService;
+import com.dnobretech.jarvistradutorbackend.service.TMImportService;
+import com.dnobretech.jarvistradutorbackend.util.ImportProgress;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Import resumível de um diretório inteiro (ex.: dump do OPUS): descobre os arquivos pelo glob,
+ * deriva um fileKey por arquivo ({@code <prefixo>:<caminho relativo>}) e roda
+ * {@link TMImportService#importTxtResumeToEnd} em vários arquivos ao mesmo tempo.
+ *
+ * Cada arquivo tem seu próprio import_checkpoint, então repetir a mesma chamada depois de uma queda
+ * continua cada arquivo do ponto em que parou e pula os que já foram até o fim. O número de arquivos
+ * simultâneos é limitado globalmente (jarvis.tm.dir.max-parallel-files), somando todos os imports de
+ * diretório em andamento: cada arquivo segura conexões (COPY + embeddings) e threads de parsing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TMDirectoryImportServiceImpl implements TMDirectoryImportService {
+
+    private static final int MAX_FILE_KEY = 255;   // import_checkpoint.file_key
+
+    private final TMImportService importService;
+    private final ImportCheckpointRepository checkpointRepo;
+
+    @Value("${jarvis.tm.dir.max-parallel-files:4}")
+    private int maxParallelFiles;
+
+    private Semaphore fileSlots;
+
+    @PostConstruct
+    void init() {
+        maxParallelFiles = Math.max(1, maxParallelFiles);
+        fileSlots = new Semaphore(maxParallelFiles, true);
+    }
+
+    @Override
+    public DirectoryImportResult importDirectory(String dir, String glob, String keyPrefix, String delimiter, int batchLines,
+                                                 String embed, int workers, int parallelFiles) throws Exception {
+        final Path root = Path.of(dir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) throw new FileNotFoundException("Diretório não encontrado: " + dir);
+        final String prefix = (keyPrefix == null || keyPrefix.isBlank())
+                ? String.valueOf(root.getFileName()) : keyPrefix.trim();
+
+        List<Path> files = discover(root, glob);
+        final ImportProgress progress = ImportProgress.current();
+
+        // concluídos saem antes de ocupar vaga; o progresso em bytes do job conta os arquivos inteiros
+        List<FileResult> results = new ArrayList<>(files.size());
+        List<Path> pending = new ArrayList<>(files.size());
+        long totalBytes = 0, skippedBytes = 0;
+        for (Path f : files) {
+            long size = Files.size(f);
+            totalBytes += size;
+            String key = fileKey(prefix, root.relativize(f));
+            if (alreadyCompleted(key, f, size)) {
+                results.add(new FileResult(f.toString(), key, "skipped", 0, 0, null));
+                skippedBytes += size;
+            } else {
+                pending.add(f);
+            }
+        }
+        progress.setTotalBytes(totalBytes);
+        progress.setBytes(skippedBytes);
+
+        int threads = Math.min(pending.size(), parallelFiles > 0 ? Math.min(parallelFiles, maxParallelFiles) : maxParallelFiles);
+        log.info("[tm-dir] {} glob='{}': {} arquivos, {} já concluídos, {} a importar ({} por vez)",
+                root, glob, files.size(), files.size() - pending.size(), pending.size(), threads);
+
+        if (!pending.isEmpty()) {
+            AtomicLong doneBytes = new AtomicLong(skippedBytes);
+            AtomicInteger seq = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "tm-dir-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<FileResult>> fs = new ArrayList<>(pending.size());
+                for (Path f : pending) {
+                    String key = fileKey(prefix, root.relativize(f));
+                    fs.add(pool.submit(() -> importOne(f, key, delimiter, batchLines, embed, workers, progress, doneBytes)));
+                }
+                // espera todos (sem interrupt: um cancelamento para cada arquivo no próximo ponto de checagem)
+                boolean cancelled = false;
+                for (Future<FileResult> fut : fs) {
+                    try {
+                        results.add(fut.get());
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ImportCancelledException) cancelled = true;
+                        else throw e;
+                    }
+                }
+                if (cancelled) throw new ImportCancelledException("Import de diretório cancelado");
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        int completed = 0, skipped = 0, failed = 0;
+        long lines = 0, copied = 0;
+        for (FileResult r : results) {
+            switch (r.status()) {
+                case "done" -> completed++;
+                case "skipped" -> skipped++;
+                default -> failed++;
+            }
+            lines += r.processedLines();
+            copied += r.totalCopied();
+        }
+        log.info("[tm-dir] {} finalizado: concluídos={} pulados={} falhas={} linhas={} copiadas={}",
+                root, completed, skipped, failed, lines, copied);
+        return new DirectoryImportResult(root.toString(), files.size(), completed, skipped, failed, lines, copied, results);
+    }
+
+    /** Um arquivo até o fim; falha de um arquivo não derruba os outros (fica no resultado e no checkpoint). */
+    private FileResult importOne(Path f, String key, String delimiter, int batchLines, String embed, int workers,
+                                 ImportProgress progress, AtomicLong doneBytes) throws Exception {
+        ImportProgress part = progress.child();
+        long size = Files.size(f);
+        fileSlots.acquire();
+        try {
+            part.checkCancelled();
+            ImportProgress.bind(part);
+            ResumeResult res = importService.importTxtResumeToEnd(f.toString(), delimiter, key, batchLines, 0, embed, workers);
+            log.info("[tm-dir] {} concluído: linhas={} copiadas={}", key, res.processedLines(), res.totalCopied());
+            return new FileResult(f.toString(), key, "done", res.processedLines(), res.totalCopied(), null);
+        } catch (ImportCancelledException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("[tm-dir] {} falhou: {}", key, e.toString(), e);
+            return new FileResult(f.toString(), key, "failed", 0, 0, e.toString());
+        } finally {
+            ImportProgress.unbind();
+            fileSlots.release();
+            progress.setBytes(doneBytes.addAndGet(size));
+        }
+    }
+
+    /**
+     * Glob sem '/' casa com o nome do arquivo em qualquer nível ({@code *.tsv.gz});
+     * com '/' casa com o caminho relativo ao diretório ({@code en-pt/**.xz}).
+     */
+    private static List<Path> discover(Path root, String glob) throws IOException {
+        PathMatcher matcher = root.getFileSystem().getPathMatcher("glob:" + glob);
+        boolean byName = glob.indexOf('/') < 0;
+        try (Stream<Path> s = Files.walk(root)) {
+            return s.filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(byName ? p.getFileName() : root.relativize(p)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /** Caminho relativo com '/' (estável entre SOs); longo demais = corta e sufixa um UUID do caminho inteiro. */
+    static String fileKey(String prefix, Path relative) {
+        String key = prefix + ":" + relative.toString().replace('\\', '/');
+        if (key.length() <= MAX_FILE_KEY) return key;
+        String id = UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+        return key.substring(0, MAX_FILE_KEY - id.length() - 1) + "~" + id;
+    }
+
+    /** Texto puro que cresceu depois do fim registrado volta a importar (do offset salvo). */
+    private boolean alreadyCompleted(String key, Path f, long size) {
+        ImportCheckpoint ck = checkpointRepo.findById(key).orElse(null);
+        if (ck == null || !Boolean.TRUE.equals(ck.getCompleted()) || !f.toString().equals(ck.getPath())) return false;
+        return ck.getCompression() != null || ck.getByteOffset() >= size;
+    }
+}
@@ -0,0 +1,194 @@
+package com.dnobretech.jarvistradutorbackend.service.impl;
+
+import com.dnobretech.jarvistradutorbackend.dto.TMExportFilter;
+import com.dnobretech.jarvistradutorbackend.enums.TMExportFormat;
+import com.dnobretech.jarvistradutorbackend.service.TMExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export de tm em streaming, com memória constante:
+ * TSV e JSONL saem de {@code COPY (SELECT ...) TO STDOUT} direto para o stream da resposta (o
+ * servidor formata as linhas; o TSV sem escapes, para o próprio import ler de volta); TMX precisa
+ * de escape XML por segmento e vem de um cursor no servidor (fetchSize) escrito aqui. Filtros viram literais no SQL: o COPY não aceita parâmetros,
+ * por isso o {@link TMExportFilter} só deixa passar números e códigos de idioma simples.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TMExportServiceImpl implements TMExportService {
+
+    private static final int FETCH_SIZE = 10_000;
+    private static final int IO_BUFFER = 1 << 16;
+
+    /**
+     * Colunas do TSV: o formato text do COPY escaparia barra, tab, quebra de linha e NULL ({@code \N}),
+     * e o DelimitedRecordParser do import não desfaz escapes (backup → restore dobrava as barras).
+     * Por isso o TSV sai como csv com delimitador tab e QUOTE de controle (csv não tem escape de barra):
+     * tab/CR/LF dentro do texto viram espaço (o import colapsa espaços de qualquer jeito) e o \x01 é
+     * removido, então o COPY nunca precisa de aspas; texto vazio vira NULL e NULL sai como coluna vazia.
+     */
+    private static final String TSV_COLUMNS = String.join(", ",
+            tsvText("t.src"), tsvText("t.tgt"), tsvText("t.lang_src"), tsvText("t.lang_tgt"), "t.quality");
+
+    private final DataSource dataSource;
+
+    /** 1 = mais rápido; o gargalo do export costuma ser o deflate, não o Postgres */
+    @Value("${jarvis.tm.export.gzip-level:1}")
+    private int gzipLevel;
+
+    @Override
+    public long export(TMExportFilter filter, TMExportFormat format, boolean gzip, OutputStream out) throws Exception {
+        final long t0 = System.currentTimeMillis();
+        final String where = where(filter);
+        OutputStream os = gzip ? new GZIPOutputStream(out, IO_BUFFER) {{ def.setLevel(gzipLevel); }} : out;
+
+        long rows = switch (format) {
+            case TSV -> copyOut("""
+                    COPY (SELECT %s FROM tm t %s)
+                      TO STDOUT WITH (FORMAT csv, DELIMITER E'\\t', QUOTE E'\\x01', NULL '')
+                    """.formatted(TSV_COLUMNS, where), os);
+            // csv com QUOTE/DELIMITER de controle: o json já escapa todo caractere < 0x20, então o
+            // COPY nunca põe aspas e cada linha sai exatamente como o json_build_object gerou
+            case JSONL -> copyOut("""
+                    COPY (SELECT json_build_object('src', t.src, 'tgt', t.tgt, 'lang_src', t.lang_src,
+                                                   'lang_tgt', t.lang_tgt, 'quality', t.quality)::text
+                            FROM tm t %s) TO STDOUT WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')
+                    """.formatted(where), os);
+            case TMX -> writeTmx(where, filter, os);
+        };
+
+        if (os instanceof GZIPOutputStream gz) gz.finish();
+        os.flush();
+        log.info("[tm-export] {} {} pares em {} ms (gzip={} filtro={})",
+                format.key(), rows, System.currentTimeMillis() - t0, gzip, filter);
+        return rows;
+    }
+
+    private static String tsvText(String column) {
+        return "NULLIF(translate(" + column + ", E'\\t\\r\\n\\x01', '   '), '')";
+    }
+
+    private long copyOut(String sql, OutputStream out) throws Exception {
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyManager cm = con.unwrap(PGConnection.class).getCopyAPI();
+            return cm.copyOut(sql, out);   // cliente que desconecta = IOException no write → COPY cancelado
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    private long writeTmx(String where, TMExportFilter filter, OutputStream out) throws Exception {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), IO_BUFFER);
+        w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<tmx version=\"1.4\">\n<header creationtool=\"jarvis-tradutor\" creationtoolversion=\"1\" segtype=\"sentence\" o-tmf=\"jarvis-tm\" adminlang=\"en\" srclang=\"");
+        xml(w, filter.srcLang() != null ? filter.srcLang() : "*all*");
+        w.write("\" datatype=\"plaintext\"/>\n<body>\n");
+
+        long rows = 0;
+        try (Connection con = dataSource.getConnection()) {
+            con.setAutoCommit(false);   // sem transação o driver ignora o fetchSize e traz tudo para a memória
+            try (Statement st = con.createStatement()) {
+                st.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = st.executeQuery(
+                        "SELECT t.src, t.tgt, t.lang_src, t.lang_tgt, t.quality FROM tm t " + where)) {
+                    while (rs.next()) {
+                        double q = rs.getDouble(5);
+                        writeTu(w, rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                                rs.wasNull() ? null : q);
+                        rows++;
+                    }
+                }
+            } finally {
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+        }
+
+        w.write("</body>\n</tmx>\n");
+        w.flush();
+        return rows;
+    }
+
+    private static void writeTu(Writer w, String src, String tgt, String langSrc, String langTgt, Double quality)
+            throws IOException {
+        w.write("<tu>");
+        if (quality != null) {
+            w.write("<prop type=\"x-quality\">");
+            w.write(Double.toString(quality));
+            w.write("</prop>");
+        }
+        w.write("<tuv xml:lang=\"");
+        xml(w, langSrc);
+        w.write("\"><seg>");
+        xml(w, src);
+        w.write("</seg></tuv><tuv xml:lang=\"");
+        xml(w, langTgt);
+        w.write("\"><seg>");
+        xml(w, tgt);
+        w.write("</seg></tuv></tu>\n");
+    }
+
+    /** Escape de texto/atributo; caracteres proibidos em XML 1.0 (controles, U+FFFE/U+FFFF) são descartados. */
+    private static void xml(Writer w, String s) throws IOException {
+        if (s == null) return;
+        int from = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            String rep;
+            switch (c) {
+                case '&' -> rep = "&amp;";
+                case '<' -> rep = "&lt;";
+                case '>' -> rep = "&gt;";
+                case '"' -> rep = "&quot;";
+                default -> {
+                    if ((c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c == 0xFFFE || c == 0xFFFF) rep = "";
+                    else continue;
+                }
+            }
+            w.write(s, from, i - from);
+            w.write(rep);
+            from = i + 1;
+        }
+        w.write(s, from, s.length() - from);
+    }
+
+    /** WHERE com os filtros como literais (valores já validados pelo TMExportFilter). */
+    static String where(TMExportFilter f) {
+        List<String> c = new ArrayList<>();
+        if (f.minQuality() != null) c.add("t.quality >= " + f.minQuality());
+        if (f.srcLang() != null) c.add(langMatch("t.lang_src", f.srcLang()));
+        if (f.tgtLang() != null) c.add(langMatch("t.lang_tgt", f.tgtLang()));
+        if (f.seriesId() != null || f.bookId() != null) {
+            // EXISTS: um par com várias ocorrências sai uma vez só
+            StringBuilder occ = new StringBuilder("EXISTS (SELECT 1 FROM tm_occurrence o WHERE o.tm_id = t.id");
+            if (f.seriesId() != null) occ.append(" AND o.series_id = ").append(f.seriesId().longValue());
+            if (f.bookId() != null) occ.append(" AND o.book_id = ").append(f.bookId().longValue());
+            c.add(occ.append(')').toString());
+        }
+        return c.isEmpty() ? "" : "WHERE " + String.join(" AND ", c);
+    }
+
+    /** Mesmo critério do import de TMX: en casa en, en-us, en_US. */
+    private static String langMatch(String column, String lang) {
+        String l = lang.replace('_', '-').toLowerCase(Locale.ROOT);
+        String col = "replace(lower(" + column + "), '_', '-')";
+        return "(" + col + " = '" + l + "' OR " + col + " LIKE '" + l + "-%')";
+    }
+}
@@ -5,10 +5,34 @@
 import com.dnobretech.jarvistradutorbackend.dto.CheckpointDTO;
 import com.dnobretech.jarvistradutorbackend.dto.EmbedResponse;
 import com.dnobretech.jarvistradutorbackend.dto.ExamplePair;
+import com.dnobretech.jarvistradutorbackend.dto.ImportPreview;
 import com.dnobretech.jarvistradutorbackend.dto.ResumeResult;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
+import com.dnobretech.jarvistradutorbackend.enums.RejectReason;
+import com.dnobretech.jarvistradutorbackend.epubimport.SchemaEnsurer;
 import com.dnobretech.jarvistradutorbackend.repository.ImportCheckpointRepository;
 import com.dnobretech.jarvistradutorbackend.service.TMImportService;
+import com.dnobretech.jarvistradutorbackend.tmimport.DedupeFilterStore;
+import com.dnobretech.jarvistradutorbackend.tmimport.EmbeddingPipeline;
+import com.dnobretech.jarvistradutorbackend.tmimport.FingerprintSet;
+import com.dnobretech.jarvistradutorbackend.tmimport.ImportMetrics;
+import com.dnobretech.jarvistradutorbackend.tmimport.NearDuplicateFilter;
+import com.dnobretech.jarvistradutorbackend.tmimport.NearDuplicateIndex;
+import com.dnobretech.jarvistradutorbackend.tmimport.LineChunkReader;
+import com.dnobretech.jarvistradutorbackend.tmimport.OrderedWorkPool;
+import com.dnobretech.jarvistradutorbackend.tmimport.PairFingerprint;
+import com.dnobretech.jarvistradutorbackend.tmimport.PairRow;
+import com.dnobretech.jarvistradutorbackend.tmimport.ReaderCarry;
+import com.dnobretech.jarvistradutorbackend.tmimport.SeekIndexStore;
+import com.dnobretech.jarvistradutorbackend.tmimport.StagingMerger;
+import com.dnobretech.jarvistradutorbackend.tmimport.StagingTables;
+import com.dnobretech.jarvistradutorbackend.util.CompressedInput;
+import com.dnobretech.jarvistradutorbackend.util.CopyRingBuffer;
+import com.dnobretech.jarvistradutorbackend.util.DelimitedRecordParser;
+import com.dnobretech.jarvistradutorbackend.util.ImportProgress;
+import com.dnobretech.jarvistradutorbackend.util.PgBinaryCopyWriter;
 import com.dnobretech.jarvistradutorbackend.util.TextNormalizer;
+import com.dnobretech.jarvistradutorbackend.util.Utf8LineReader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.postgresql.copy.CopyManager;
@@ -18,17 +42,30 @@
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import javax.sql.DataSource;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.sql.Connection;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 @Slf4j
@@ -40,6 +77,14 @@ public class TMImportServiceImpl implements TMImportService {
     private final DataSource dataSource;
     private final ImportCheckpointRepository checkpointRepo;
     private final JdbcTemplate jdbc; // DDL/merge
+    private final PlatformTransactionManager txManager;
+    private final DedupeFilterStore dedupeStore;
+    private final SchemaEnsurer schemaEnsurer;
+    private final StagingMerger stagingMerger;
+    private final StagingTables stagingTables;
+    private final ImportMetrics metrics;
+    private final NearDuplicateFilter nearDupFilter;
+    private final SeekIndexStore seekIndexes;
 
     private static final Pattern PLACEHOLDERS = Pattern.compile("(\\{[^}]+\\}|%s|%d|<[^>]+>|\\$\\{[^}]+\\})");
 
@@ -56,78 +101,142 @@ public class TMImportServiceImpl implements TMImportService {
     private double ratioMin;
     @Value("${jarvis.tm.ratio-max:2.0}")
     private double ratioMax;
+    @Value("${jarvis.tm.quoting:auto}")
+    private String quoting;
 
+    // embeddings no import resumível: tamanho do lote enviado ao /embed e lotes simultâneos em voo
+    @Value("${jarvis.tm.embed.batch-size:512}")
+    private int embedBatchSize;
+    @Value("${jarvis.tm.embed.max-in-flight:4}")
+    private int embedMaxInFlight;
+
+    // modo paralelo: tamanho de cada faixa entregue aos workers
+    private static final int PARALLEL_CHUNK_LINES = 8_192;
+    private static final int PARALLEL_CHUNK_BYTES = 4 << 20;
+
+    // upload: anel entre o parser e a thread do COPY (16 x 64 KB em voo)
+    private static final int COPY_RING_CHUNKS = 16;
+    private static final int COPY_RING_CHUNK_BYTES = 1 << 16;
+
+    // a cada N linhas: posição em bytes para o progresso do job + checagem de cancelamento
+    private static final int PROGRESS_EVERY_LINES = 4_096;
+
+    // prévia: sondas de 64 KB com até 16 linhas cada; comprimido: até 64 MB de linhas do início e
+    // taxa de compressão medida em pelo menos 16 MB do arquivo
+    private static final int PREVIEW_MIN_SAMPLES = 100;
+    private static final int PREVIEW_MAX_SAMPLES = 200_000;
+    private static final int PREVIEW_WINDOW_BYTES = 1 << 16;
+    private static final int PREVIEW_LINES_PER_PROBE = 16;
+    private static final int PREVIEW_MAX_HEAD_BYTES = 64 << 20;
+    private static final long PREVIEW_RATIO_BYTES = 16L << 20;
 
 
     // ===================== Upload (multipart) -> COPY (tm_staging) =====================
 
     @Override
     public long importTsvOrCsvStreaming(MultipartFile file, String delimiter) throws Exception {
+        try (InputStream in = file.getInputStream()) {
+            return importTsvOrCsvStream(in, file.getOriginalFilename(), file.getSize(), delimiter);
+        }
+    }
+
+    /**
+     * Parse enquanto os bytes chegam: cada linha vai direto para o COPY binário. O pipe do COPY é
+     * limitado, então um Postgres lento segura a leitura do corpo (e o TCP segura o cliente).
+     */
+    @Override
+    public long importTsvOrCsvStream(InputStream body, String filename, long contentLength, String delimiter) throws Exception {
         ensureCorpInboxSchema();
+        schemaEnsurer.ensureTmStaging();
+
+        // staging só deste upload: outro import em paralelo não trunca nem consolida nossas linhas
+        try (StagingTables.Scope st = stagingTables.create("tm_staging")) {
+            final String staging = st.table("tm_staging");
+            long rows = copyUploadToStaging(body, filename, contentLength, delimiter, staging);
+
+            // Consolidar staging -> tm (dedupe por faixa de pair_hash, ver StagingMerger)
+            long up = stagingMerger.mergeIntoTm(staging).rows();
+            log.info("[upload] staging→tm upserts/updates={}", up);
+            return rows;
+        }
+    }
 
+    private long copyUploadToStaging(InputStream body, String filename, long contentLength, String delimiter,
+                                     String staging) throws Exception {
         final String delim = normalizeDelimiter(delimiter);
-        log.info("Import upload iniciado: filename='{}', delimiter='{}'",
-                file.getOriginalFilename(), printableDelim(delim));
+        log.info("Import upload iniciado: filename='{}', size={}, delimiter='{}'",
+                filename, contentLength, printableDelim(delim));
 
         long rows = 0, seen = 0;
+        final ImportProgress progress = ImportProgress.current();
+        if (contentLength > 0) progress.setTotalBytes(contentLength);
+        final ImportMetrics.Pipeline m = metrics.pipeline(ImportJobType.TM_UPLOAD.key());
+        final long t0 = System.nanoTime();
 
         Connection con = DataSourceUtils.getConnection(dataSource);
         final CopyManager cm = con.unwrap(org.postgresql.PGConnection.class).getCopyAPI();
-        final PipedReader pr = new PipedReader(1 << 16);
-        final PipedWriter pw = new PipedWriter(pr);
+        // parser → anel → COPY: erro do COPY para o parser na próxima escrita, e vice-versa
+        final CopyRingBuffer ring = new CopyRingBuffer(COPY_RING_CHUNKS, COPY_RING_CHUNK_BYTES);
 
         final AtomicReference<Throwable> copyErr = new AtomicReference<>();
         Thread copyThread = new Thread(() -> {
-            try (Reader r = pr) {
-                cm.copyIn("COPY tm_staging(src,tgt,lang_src,lang_tgt,quality) FROM STDIN WITH (FORMAT csv, HEADER true)", r);
+            try (InputStream in = ring.input()) {
+                cm.copyIn("COPY " + staging + "(src,tgt,lang_src,lang_tgt,quality) FROM STDIN WITH (FORMAT binary)",
+                        in, COPY_RING_CHUNK_BYTES);
             } catch (Throwable t) {
                 copyErr.set(t);
+                ring.abort(t);
                 log.error("Erro no COPY (upload)", t);
             }
         }, "copy-upload-staging");
         copyThread.start();
 
-        BufferedReader br = null;
-        BufferedWriter out = null;
+        Utf8LineReader reader = null;
+        PgBinaryCopyWriter out = null;
+        boolean ok = false;
         try {
-            br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
-            out = new BufferedWriter(pw, 1 << 16);
-
-            out.write("src,tgt,lang_src,lang_tgt,quality\n");
+            // .gz/.zst/.xz detectados pelo conteúdo; progresso conta os bytes recebidos (comprimidos)
+            reader = new Utf8LineReader(Channels.newChannel(CompressedInput.open(progress.track(body))),
+                    0, 1 << 16);
+            out = new PgBinaryCopyWriter(ring.output());
 
-            String line;
-            // dedupe leve do lote
-            Set<String> seenKeys = new HashSet<>(1 << 14);
+            DelimitedRecordParser rec = newRecordParser(delim);
+            // dedupe do upload inteiro por fingerprint (sem montar a chave em String)
+            FingerprintSet seenKeys = new FingerprintSet(1 << 14);
+            final Consumer<RejectReason> reject = m::rejected;
 
-            while ((line = br.readLine()) != null) {
+            while (reader.readRecord(rec)) {
                 seen++;
-                String[] cols = line.split(delim, -1);
-                if (cols.length < 2) continue;
-
-                String src = norm.normalize(cols[0]);
-                String tgt = norm.normalize(cols[1]);
-                if (src.isBlank() || tgt.isBlank()) continue;
-
-                double r = lengthRatio(src, tgt);
-                if (r < ratioMin || r > ratioMax) continue;
-                if (!placeholdersPreserved(src, tgt)) continue;
-
-                String langSrc = (cols.length > 2 && !cols[2].isBlank()) ? cols[2] : "en";
-                String langTgt = (cols.length > 3 && !cols[3].isBlank()) ? cols[3] : "pt";
-
-                String key = src + "\u0001" + tgt + "\u0001" + langSrc + "\u0001" + langTgt;
-                if (!seenKeys.add(key)) continue;
+                progress.addLines(1);
+                m.lines(1);
+                if ((seen % PROGRESS_EVERY_LINES) == 0) progress.checkCancelled();
+
+                PairRow row = filterRecord(rec, reject);
+                if (row == null) {
+                    progress.addRejected(1);
+                    continue;
+                }
+                if (!seenKeys.add(PairFingerprint.of(row.src(), row.tgt(), row.langSrc(), row.langTgt()))) {
+                    progress.addRejected(1);
+                    m.rejected(RejectReason.DUPLICATE);
+                    continue;
+                }
 
-                double q = qualityScore(r, true);
-                writeCsvLine(out, src, tgt, langSrc, langTgt, String.valueOf(q));
+                writePairRow(out, row);
                 rows++;
+                progress.addAccepted(1);
+                m.accepted(1);
 
                 if ((seen % 100_000) == 0) {
                     log.info("[upload] lidas={} válidas={} ({}%)", seen, rows, percent(rows, seen));
                 }
             }
-            out.flush();
+            out.finish();
+            m.copied(rows, out.bytesWritten(), System.nanoTime() - t0);
+            ok = true;
         } finally {
+            // falha do parser: o COPY cancela (sem commitar linhas parciais) em vez de receber EOF
+            if (!ok) ring.abort(new IOException("Parser do upload falhou"));
             if (out != null) {
                 try { out.close(); } catch (IOException e) {
                     log.debug("Ignorando IOException ao fechar 'out' (upload): {}", e.toString());
@@ -135,39 +244,104 @@ public long importTsvOrCsvStreaming(MultipartFile file, String delimiter) throws
             }
             try { copyThread.join(120_000); } catch (InterruptedException ignore) {}
             DataSourceUtils.releaseConnection(con, dataSource);
-            if (br != null) try { br.close(); } catch (IOException ignore) {}
+            if (reader != null) try { reader.close(); } catch (IOException ignore) {}
         }
 
         if (copyErr.get() != null) throw new RuntimeException("COPY (upload) falhou", copyErr.get());
 
-        // Consolidar staging -> tm (dedupe prévio evita ON CONFLICT double-hit)
-        int up = upsertFromTmStagingToTm();
-        log.info("[upload] staging→tm upserts/updates={}", up);
-        truncateTmStaging();
-
-        // Consolidar ocorrências (se estiver usando esse staging; safe mesmo vazio)
-        ensureTmOccurrenceStagingSchema();
-        int occ = upsertFromOccurrenceStagingToOccurrence();
-        log.info("[upload] staging→tm_occurrence inseridos={}", occ);
-
         log.info("Import upload finalizado: lidas={} válidas={}", seen, rows);
         return rows;
     }
 
     // ===================== Resumível (arquivo no disco) =====================
 
+    /**
+     * Um lote = uma transação: COPY → tm_corpora_inbox, consolidação dos embeddings e UPDATE do
+     * import_checkpoint commitam juntos (ou nada commita). Se cair no meio, o próximo run relê
+     * exatamente o mesmo lote a partir do offset anterior, sem efeito duplicado.
+     * DDL roda antes (autocommit) para ficar visível à conexão separada do COPY de embeddings;
+     * o staging de embeddings é do lote (StagingTables) e é dropado ao fim, com commit ou rollback.
+     */
     @Override
     public ResumeResult importTxtResume(String path, String delimiter, String fileKey, int batchLines,
-                                        int examples, String embed) throws Exception {
+                                        int examples, String embed, int workers) throws Exception {
+        return resumeInTx(path, delimiter, fileKey, 0L, Long.MAX_VALUE, batchLines, examples, embed, workers, null, null);
+    }
+
+    /**
+     * Um lote restrito à faixa [startOffset, endOffset) do arquivo (import em shards): o checkpoint de
+     * {@code fileKey} começa em startOffset e o lote nunca lê além de endOffset, que deve ser início de
+     * linha. {@code beforeCommit} roda na transação do lote, depois do COPY e antes do commit.
+     */
+    @Override
+    public ResumeResult importTxtResumeRange(String path, String delimiter, String fileKey, long startOffset, long endOffset,
+                                             int batchLines, int examples, String embed, int workers,
+                                             Consumer<ResumeResult> beforeCommit) throws Exception {
+        if (startOffset < 0 || endOffset < startOffset) {
+            throw new IllegalArgumentException("Faixa inválida: [" + startOffset + ", " + endOffset + ")");
+        }
+        return resumeInTx(path, delimiter, fileKey, startOffset, endOffset, batchLines, examples, embed, workers, beforeCommit, null);
+    }
+
+    /** {@code carry}: leitor aberto entre os lotes de um run ({@code null} = lote avulso, abre e fecha o arquivo). */
+    private ResumeResult resumeInTx(String path, String delimiter, String fileKey, long rangeStart, long rangeEnd,
+                                    int batchLines, int examples, String embed, int workers,
+                                    Consumer<ResumeResult> beforeCommit, ReaderCarry carry) throws Exception {
         ensureCorpInboxSchema();
+        final String embedMode = (embed == null ? "none" : embed.toLowerCase(Locale.ROOT)); // none|src|both
+        if (!"none".equals(embedMode)) ensureEmbeddingsSchema();
+
+        try (StagingTables.Scope st = "none".equals(embedMode) ? null : stagingTables.create("tm_emb_staging")) {
+            final String embStaging = st != null ? st.table("tm_emb_staging") : null;
+            TransactionStatus tx = txManager.getTransaction(new DefaultTransactionDefinition());
+            try {
+                ResumeResult res = resumeBatch(path, delimiter, fileKey, rangeStart, rangeEnd,
+                        batchLines, examples, embedMode, embStaging, workers, carry);
+                if (beforeCommit != null) beforeCommit.accept(res);
+                txManager.commit(tx);
+                return res;
+            } catch (Throwable t) {
+                if (!tx.isCompleted()) txManager.rollback(tx);
+                throw t;
+            }
+        }
+    }
 
+    /**
+     * Lotes sucessivos de {@link #importTxtResume} até o fim do arquivo (cada lote com seu commit).
+     * Cancelamento entre lotes não perde nada; no meio de um lote, só aquele lote volta.
+     * O leitor (e o decodificador de .gz/.zst) fica aberto de um lote para o outro.
+     */
+    @Override
+    public ResumeResult importTxtResumeToEnd(String path, String delimiter, String fileKey, int batchLines,
+                                             int examples, String embed, int workers) throws Exception {
+        final ImportProgress progress = ImportProgress.current();
+        long processed = 0, copied = 0;
+        List<ExamplePair> firstExamples = List.of();
+        ResumeResult last;
+        try (ReaderCarry carry = new ReaderCarry()) {
+            do {
+                progress.checkCancelled();
+                last = resumeInTx(path, delimiter, fileKey, 0L, Long.MAX_VALUE, batchLines, examples, embed, workers,
+                        null, carry);
+                processed += last.processedLines();
+                copied += last.totalCopied();
+                if (firstExamples.isEmpty()) firstExamples = last.examples();
+            } while (last.processedLines() >= batchLines);   // lote incompleto = fim do arquivo
+        }
+        return new ResumeResult(processed, last.newOffset(), copied, firstExamples);
+    }
+
+    /** {@code rangeEnd = Long.MAX_VALUE}: até o fim do arquivo. */
+    private ResumeResult resumeBatch(String path, String delimiter, String fileKey, long rangeStart, long rangeEnd, int batchLines,
+                                     int examples, String embedMode, String embStaging, int workers,
+                                     ReaderCarry carry) throws Exception {
         final String delim = normalizeDelimiter(delimiter);
-        final String embedMode = (embed == null ? "none" : embed.toLowerCase(Locale.ROOT)); // none|src|both
-        final int EMB_BATCH = 512;
 
-        ImportCheckpoint ck = checkpointRepo.findById(fileKey)
+        // FOR UPDATE: dois runs do mesmo fileKey não processam o mesmo lote em paralelo
+        ImportCheckpoint ck = checkpointRepo.lockByFileKey(fileKey)
                 .orElseGet(() -> ImportCheckpoint.builder()
-                        .fileKey(fileKey).path(path).byteOffset(0L).lineCount(0L).build());
+                        .fileKey(fileKey).path(path).byteOffset(rangeStart).lineCount(0L).build());
 
         if (ck.getPath() == null || !ck.getPath().equals(path)) {
             log.warn("Atualizando path do checkpoint: {} -> {}", ck.getPath(), path);
@@ -177,16 +351,41 @@ public ResumeResult importTxtResume(String path, String delimiter, String fileKe
         File f = new File(path);
         if (!f.exists() || !f.isFile()) throw new FileNotFoundException("Arquivo não encontrado: " + path);
 
+        // .gz/.zst/.xz são lidos direto; o offset do checkpoint é no conteúdo descomprimido
+        final CompressedInput.Codec codec = CompressedInput.detect(f.toPath());
+        final String codecLabel = CompressedInput.label(codec);
+        if (ck.getByteOffset() > 0 && !Objects.equals(ck.getCompression(), codecLabel)) {
+            throw new IllegalStateException("Checkpoint de '" + fileKey + "' foi gravado para compressão="
+                    + ck.getCompression() + " mas o arquivo atual é " + codecLabel + "; resete o checkpoint");
+        }
+        ck.setCompression(codecLabel);
+        final boolean ranged = rangeStart > 0 || rangeEnd != Long.MAX_VALUE;
+        if (ranged && codec != CompressedInput.Codec.NONE) {
+            throw new IllegalArgumentException("Import por faixa exige arquivo sem compressão (sem acesso aleatório em " + codec + ")");
+        }
+        if (ck.getByteOffset() < rangeStart || ck.getByteOffset() > rangeEnd) {
+            throw new IllegalStateException("Checkpoint de '" + fileKey + "' (offset " + ck.getByteOffset()
+                    + ") fora da faixa [" + rangeStart + ", " + rangeEnd + "); resete o checkpoint");
+        }
+
+        // dedupe do arquivo inteiro (entre lotes e entre runs); offset 0 = recomeço, histórico descartado
+        final long dedupeBefore = (ck.getByteOffset() > 0 && ck.getDedupeEntries() != null) ? ck.getDedupeEntries() : 0L;
+        final FingerprintSet seen = dedupeStore.load(fileKey, dedupeBefore, batchLines);
+
         long startOffset = ck.getByteOffset();
         long fileSize = f.length();
+        final long endOffset = Math.min(rangeEnd, fileSize);
 
-        log.info("Import resume iniciado: fileKey='{}', path='{}', fromOffset={} fileSize={} batchLines={} delimiter='{}' embed={}",
-                fileKey, path, startOffset, fileSize, batchLines, printableDelim(delim), embedMode);
+        final ImportProgress progress = ImportProgress.current();
+        if (codec == CompressedInput.Codec.NONE) progress.setTotalBytes(endOffset);
+        progress.setBytes(startOffset);
+        final ImportMetrics.Pipeline m = metrics.pipeline(ImportJobType.TM_RESUME.key());
+        final long t0 = System.nanoTime();
 
-        long processedLines = 0L;
-        long totalCopied = 0L;
+        log.info("Import resume iniciado: fileKey='{}', path='{}', fromOffset={} endOffset={} fileSize={} compression={} batchLines={} delimiter='{}' embed={} workers={}",
+                fileKey, path, startOffset, ranged ? endOffset : "eof", fileSize, codec, batchLines, printableDelim(delim), embedMode, workers);
 
-        // === Conexões dedicadas ao COPY (uma para tm_staging e outra opcional para tm_emb_staging) ===
+        // === COPY principal na conexão da transação; tm_emb_staging numa conexão própria (autocommit) ===
         Connection conTm = DataSourceUtils.getConnection(dataSource);
         BaseConnection base = conTm.unwrap(BaseConnection.class);
 //        PGCopyOutputStream pgOutTm = new PGCopyOutputStream(
@@ -196,174 +395,477 @@ public ResumeResult importTxtResume(String path, String delimiter, String fileKe
         PGCopyOutputStream pgOut = new PGCopyOutputStream(
                 base,
                 "COPY tm_corpora_inbox(src,tgt,lang_src,lang_tgt,quality,source_tag) " +
-                        "FROM STDIN WITH (FORMAT csv, HEADER true)"
+                        "FROM STDIN WITH (FORMAT binary)"
         );
-        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(pgOut, StandardCharsets.UTF_8), 1 << 16);
-        //out.write("src,tgt,lang_src,lang_tgt,quality\n");
-        out.write("src,tgt,lang_src,lang_tgt,quality,source_tag\n");
+        PgBinaryCopyWriter out = new PgBinaryCopyWriter(pgOut);
 
         final boolean doEmb = !"none".equals(embedMode);
-        Connection conEmb = null; BaseConnection baseEmb = null; PGCopyOutputStream pgOutEmb = null; BufferedWriter outEmb = null;
+        Connection conEmb = null; BaseConnection baseEmb = null; PGCopyOutputStream pgOutEmb = null; PgBinaryCopyWriter outEmb = null;
         if (doEmb) {
-            ensureEmbeddingsSchema();
-            conEmb = DataSourceUtils.getConnection(dataSource);
+            conEmb = dataSource.getConnection();   // fora da transação: staging é idempotente (DISTINCT ON na consolidação)
             baseEmb = conEmb.unwrap(BaseConnection.class);
             pgOutEmb = new PGCopyOutputStream(
                     baseEmb,
-                    "COPY tm_emb_staging(src,tgt,lang_src,lang_tgt,emb_src,emb_tgt,quality) FROM STDIN WITH (FORMAT csv, HEADER true)"
+                    "COPY " + embStaging + "(src,tgt,lang_src,lang_tgt,emb_src,emb_tgt,quality) FROM STDIN WITH (FORMAT binary)"
             );
-            outEmb = new BufferedWriter(new OutputStreamWriter(pgOutEmb, StandardCharsets.UTF_8), 1 << 16);
-            outEmb.write("src,tgt,lang_src,lang_tgt,emb_src,emb_tgt,quality\n");
+            outEmb = new PgBinaryCopyWriter(pgOutEmb);
         }
 
-        RandomAccessFile raf = null;
+        Closeable input = null;   // Utf8LineReader ou LineChunkReader (workers > 1)
         long newOffset;
 
         final int maxExamples = Math.min(Math.max(0, examples), 50);
-        final List<ExamplePair> examplesList = new ArrayList<>(maxExamples);
-
-        final List<String> bufSrc = new ArrayList<>(EMB_BATCH);
-        final List<String> bufTgt = new ArrayList<>(EMB_BATCH);
-        final List<String> bufLangSrc = new ArrayList<>(EMB_BATCH);
-        final List<String> bufLangTgt = new ArrayList<>(EMB_BATCH);
-        final List<Double> bufQ = new ArrayList<>(EMB_BATCH);
-
-        // dedupe leve por par no lote
-        Set<String> seen = new HashSet<>(batchLines * 2);
+        final EmbeddingPipeline embPipe = doEmb
+                ? new EmbeddingPipeline(outEmb, embedMode, embedBatchSize, embedMaxInFlight,
+                        m.timedEmbedder(texts -> embedTexts(texts, true)))
+                : null;
+        final ResumeBatch batch = new ResumeBatch(out, embPipe, maxExamples, seen,
+                nearDupFilter.forImport(fileKey, startOffset, ck.getLineCount() > 0, batchLines), progress, m);
+        registerDedupeSync(fileKey, batch, dedupeBefore);
 
         try {
-            raf = new RandomAccessFile(f, "r");
-
-            if (startOffset > 0 && startOffset < fileSize) {
-                raf.seek(startOffset);
-            } else if (startOffset >= fileSize) {
-                log.info("Nada a fazer: offset >= fileSize ({} >= {})", startOffset, fileSize);
+            if (codec == CompressedInput.Codec.NONE && startOffset >= endOffset) {
+                log.info("Nada a fazer: offset >= fim ({} >= {})", startOffset, endOffset);
+                batch.reachedEof = true;
                 // Finaliza corretamente os COPY vazios
-                out.flush();
+                out.finish();
                 pgOut.endCopy();
                 DataSourceUtils.releaseConnection(conTm, dataSource);
 
                 if (doEmb && outEmb != null) {
-                    outEmb.flush();
+                    embPipe.finish();
+                    outEmb.finish();
                     pgOutEmb.endCopy();
-                    DataSourceUtils.releaseConnection(conEmb, dataSource);
+                    conEmb.close();
                 }
 
-                int up = upsertFromTmStagingToTm();
-                log.info("[resume] staging→tm upserts/updates (EOF caso offset>=size) = {}", up);
-                truncateTmStaging();
-                if (doEmb) consolidateEmbeddingsFromStaging();
+                if (doEmb) consolidateEmbeddingsFromStaging(embStaging);
 
                 return new ResumeResult(0, startOffset, 0, List.of());
             }
 
-            int linesThisBatch = 0;
-            int count = 0;
-            while (true) {
-                log.info("Count: {}", count);
-                count++;
-                String line = readLineUtf8(raf);
-                if (line == null) break;
-
-                processedLines++;
-                linesThisBatch++;
-
-                String[] cols = line.split(delim, -1);
-                if (cols.length >= 2) {
-                    String src = norm.normalize(cols[0]);
-                    String tgt = norm.normalize(cols[1]);
-                    if (!src.isBlank() && !tgt.isBlank()) {
-                        double r = lengthRatio(src, tgt);
-                        boolean ph = placeholdersPreserved(src, tgt);
-                        if (r >= ratioMin && r <= ratioMax && ph) {
-                            String langSrc = (cols.length > 2 && !cols[2].isBlank()) ? cols[2] : "en";
-                            String langTgt = (cols.length > 3 && !cols[3].isBlank()) ? cols[3] : "pt";
-                            String key = src + "\u0001" + tgt + "\u0001" + langSrc + "\u0001" + langTgt;
-                            if (seen.add(key)) {
-                                double q = qualityScore(r, ph);
-                                writeCsvLine(out, src, tgt, langSrc, langTgt, String.valueOf(q));
-                                totalCopied++;
-
-                                if (examplesList.size() < maxExamples) {
-                                    examplesList.add(new ExamplePair(src, tgt, q));
-                                }
-
-                                if (doEmb) {
-                                    bufSrc.add(src);
-                                    bufTgt.add(tgt);
-                                    bufLangSrc.add(langSrc);
-                                    bufLangTgt.add(langTgt);
-                                    bufQ.add(q);
-
-                                    if (bufSrc.size() >= EMB_BATCH) {
-                                        flushEmbeddingsBuffer(outEmb, bufSrc, bufTgt, bufLangSrc, bufLangTgt, bufQ, embedMode);
-                                    }
-                                }
-                            }
-                        }
-                    }
+            if (workers > 1) {
+                LineChunkReader chunks = carry != null ? carry.take(LineChunkReader.class, path, startOffset) : null;
+                if (chunks == null) chunks = new LineChunkReader(openRange(f, codec, startOffset, endOffset), startOffset, 1 << 20);
+                input = chunks;
+                newOffset = readParallel(chunks, delim, batchLines, workers, fileKey, batch);
+            } else {
+                Utf8LineReader reader = carry != null ? carry.take(Utf8LineReader.class, path, startOffset) : null;
+                if (reader == null) {
+                    reader = new Utf8LineReader(openRange(f, codec, startOffset, endOffset),
+                            startOffset, Utf8LineReader.DEFAULT_BUFFER);
                 }
+                input = reader;
+
+                int linesThisBatch = 0;
+                DelimitedRecordParser rec = newRecordParser(delim);
+                final Consumer<RejectReason> reject = m::rejected;
+                while (reader.readRecord(rec)) {
+                    batch.processedLines++;
+                    linesThisBatch++;
+                    progress.addLines(1);
+                    m.lines(1);
+
+                    PairRow row = filterRecord(rec, reject);
+                    if (row != null) batch.accept(row);
+                    else progress.addRejected(1);
+
+                    if ((linesThisBatch % PROGRESS_EVERY_LINES) == 0) {
+                        progress.setBytes(reader.position());
+                        progress.checkCancelled();
+                    }
 
-                if ((processedLines % 100_000) == 0) {
-                    long pos = raf.getFilePointer();
-                    log.info("[resume:{}] lidas(lote+total)={}+{}, válidas={}, offset={}",
-                            fileKey, linesThisBatch, processedLines, totalCopied, pos);
+                    if ((batch.processedLines % 100_000) == 0) {
+                        log.info("[resume:{}] lidas(lote+total)={}+{}, válidas={}, offset={}",
+                                fileKey, linesThisBatch, batch.processedLines, batch.totalCopied, reader.position());
+                    }
+
+                    if (linesThisBatch >= batchLines) break;
                 }
 
-                if (linesThisBatch >= batchLines) break;
+                newOffset = reader.position();
             }
-
-            newOffset = raf.getFilePointer();
-
-            out.flush();
-            if (doEmb && !bufSrc.isEmpty()) {
-                flushEmbeddingsBuffer(outEmb, bufSrc, bufTgt, bufLangSrc, bufLangTgt, bufQ, embedMode);
+            progress.setBytes(newOffset);
+
+            // comprimido: tamanho descomprimido é desconhecido; lote incompleto = fim do arquivo
+            batch.reachedEof = (codec == CompressedInput.Codec.NONE)
+                    ? newOffset >= endOffset
+                    : batch.processedLines < batchLines;
+            if (carry != null && !batch.reachedEof) {   // próximo lote do run continua daqui
+                carry.keep(path, input, newOffset);
+                input = null;
             }
+            batch.flushEmbeddings();
+            out.finish();
+            if (outEmb != null) outEmb.finish();
+            m.copied(batch.totalCopied, out.bytesWritten() + (outEmb != null ? outEmb.bytesWritten() : 0),
+                    System.nanoTime() - t0);
 
         } finally {
-            // Fechamentos em ordem: writers → endCopy → release connections
-            try { out.flush(); } catch (IOException ignore) {}
-            try { pgOut.endCopy(); } catch (Exception e) { log.warn("endCopy tm_staging: {}", e.toString()); }
+            // Fechamentos em ordem: writers (trailer) → endCopy → release connections
+            try { out.finish(); } catch (IOException ignore) {}
+            try { pgOut.endCopy(); } catch (Exception e) { log.warn("endCopy tm_corpora_inbox: {}", e.toString()); }
             DataSourceUtils.releaseConnection(conTm, dataSource);
 
             if (doEmb && outEmb != null) {
-                try { outEmb.flush(); } catch (IOException ignore) {}
+                embPipe.close();   // para a escritora antes de finalizar o COPY dela
+                try { outEmb.finish(); } catch (IOException ignore) {}
                 try { pgOutEmb.endCopy(); } catch (Exception e) { log.warn("endCopy tm_emb_staging: {}", e.toString()); }
-                if (conEmb != null) DataSourceUtils.releaseConnection(conEmb, dataSource);
+                if (conEmb != null) try { conEmb.close(); } catch (Exception ignore) {}
             }
 
-            if (raf != null) try { raf.close(); } catch (IOException ignore) {}
+            if (input != null) try { input.close(); } catch (IOException ignore) {}
         }
 
-        // Consolidar staging → tm
-        int up = upsertFromTmStagingToTm();
-        log.info("[resume] staging→tm upserts/updates={}", up);
-        truncateTmStaging();
+        long processedLines = batch.processedLines;
+        long totalCopied = batch.totalCopied;
 
         // Consolidar embeddings
-        if (!"none".equals(embedMode)) {
-            int merged = consolidateEmbeddingsFromStaging();
+        if (doEmb) {
+            long tm0 = System.currentTimeMillis();
+            int merged = consolidateEmbeddingsFromStaging(embStaging);
+            metrics.merged("tm_embeddings", merged, System.currentTimeMillis() - tm0);
             log.info("Embeddings consolidados do staging → tm_embeddings: {}", merged);
         }
 
-        // (opcional) consolidar ocorrências se estiver usando esse staging neste fluxo
-        ensureTmOccurrenceStagingSchema();
-        int occ = upsertFromOccurrenceStagingToOccurrence();
-        log.info("[resume] staging→tm_occurrence inseridos={}", occ);
-
-        // salvar checkpoint
+        // salvar checkpoint (mesma transação do COPY e das consolidações)
+        batch.newOffset = newOffset;
         ck.setByteOffset(newOffset);
         ck.setLineCount(ck.getLineCount() + processedLines);
+        ck.setDedupeEntries(dedupeBefore + batch.addedCount);
+        ck.setCompleted(batch.reachedEof);
         ck.setPath(path);
         ck.setUpdatedAt(LocalDateTime.now());
         checkpointRepo.save(ck);
+        if (codec == CompressedInput.Codec.NONE && !batch.reachedEof) metrics.checkpointLag(fileKey, endOffset - newOffset);
+        else metrics.clearCheckpointLag(fileKey);   // concluído, ou tamanho descomprimido desconhecido
 
         log.info("Checkpoint salvo: key='{}' offset={} addLines={} copiedThisBatch={}",
                 fileKey, newOffset, processedLines, totalCopied);
         log.info("Import resume finalizado: fileKey='{}' processedLines={} totalCopied={} newOffset={}",
                 fileKey, processedLines, totalCopied, newOffset);
+        if (batch.nearDup != null) {
+            log.info("[resume:{}] quase-duplicatas descartadas no lote: {} ({} representantes no arquivo)",
+                    fileKey, batch.nearDup.dropped() - batch.nearDupDroppedBefore, batch.nearDup.representatives());
+        }
+
+        return new ResumeResult(processedLines, ck.getByteOffset(), totalCopied, batch.examples);
+    }
 
-        return new ResumeResult(processedLines, ck.getByteOffset(), totalCopied, examplesList);
+    // ===================== Modo paralelo (faixas de bytes → pool de workers → COPY ordenado) =====================
+
+    /**
+     * Lê o lote em faixas alinhadas a linha; split/normalização/filtros rodam no pool e os
+     * resultados voltam na ordem do arquivo para o único stream do COPY (dedupe/exemplos/embeddings
+     * continuam na thread chamadora). Retorna o offset exato após a última linha do lote.
+     */
+    private long readParallel(LineChunkReader reader, String delim, int batchLines, int workers, String fileKey,
+                              ResumeBatch batch) throws Exception {
+        try (OrderedWorkPool<ParsedChunk> pool = new OrderedWorkPool<>("tm-import", workers, workers * 2, pc -> {
+            long before = batch.processedLines;
+            batch.processedLines += pc.lines();
+            batch.progress.addLines(pc.lines());
+            batch.progress.addRejected(pc.lines() - pc.rows().size());
+            batch.metrics.lines(pc.lines());   // motivos de rejeição já contados nos workers
+            for (PairRow row : pc.rows()) batch.accept(row);
+            batch.progress.setBytes(pc.endOffset());
+            batch.progress.checkCancelled();
+            if (before / 100_000 != batch.processedLines / 100_000) {
+                log.info("[resume:{}] lidas={}, válidas={}, offset={}",
+                        fileKey, batch.processedLines, batch.totalCopied, pc.endOffset());
+            }
+        })) {
+            int remaining = batchLines;
+            LineChunkReader.Chunk chunk;
+            while (remaining > 0
+                    && (chunk = reader.next(Math.min(remaining, PARALLEL_CHUNK_LINES), PARALLEL_CHUNK_BYTES)) != null) {
+                remaining -= chunk.lines();
+                final LineChunkReader.Chunk c = chunk;
+                pool.submit(() -> parseChunk(c, delim, batch.metrics));
+            }
+            pool.finish();
+            return reader.position();
+        }
+    }
+
+    private ParsedChunk parseChunk(LineChunkReader.Chunk chunk, String delim, ImportMetrics.Pipeline m) throws Exception {
+        List<PairRow> rows = new ArrayList<>(chunk.lines());
+        DelimitedRecordParser rec = newRecordParser(delim);   // um por chunk: parser não é thread-safe
+        final Consumer<RejectReason> reject = m::rejected;
+        chunk.forEachRecord(rec, r -> {
+            PairRow row = filterRecord(r, reject);
+            if (row != null) rows.add(row);
+        });
+        return new ParsedChunk(rows, chunk.lines(), chunk.endOffset());
+    }
+
+    private record ParsedChunk(List<PairRow> rows, int lines, long endOffset) {}
+
+    /**
+     * Fingerprints novos do lote só vão para o arquivo do filtro depois do commit
+     * (dedupe_entries já foi gravado junto com o offset); em rollback o filtro em memória é descartado.
+     * O índice de quase-duplicatas segue a mesma regra (só em memória).
+     */
+    private void registerDedupeSync(String fileKey, ResumeBatch batch, long dedupeBefore) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    dedupeStore.committed(fileKey, batch.seen, batch.added, batch.addedCount,
+                            dedupeBefore + batch.addedCount);
+                    nearDupFilter.committed(fileKey, batch.nearDup, batch.newOffset);
+                    if (batch.reachedEof) {                               // arquivo concluído: libera a memória
+                        dedupeStore.evict(fileKey);
+                        nearDupFilter.evict(fileKey);
+                    }
+                } else {
+                    dedupeStore.evict(fileKey);
+                    nearDupFilter.evict(fileKey);
+                }
+            }
+        });
+    }
+
+    /** Estado de um lote do import resumível; sempre alimentado na ordem do arquivo. */
+    private final class ResumeBatch {
+        private final PgBinaryCopyWriter out;
+        private final EmbeddingPipeline embPipe;   // null = sem embeddings
+        private final int maxExamples;
+        private final List<ExamplePair> examples;
+        private final ImportProgress progress;
+        private final ImportMetrics.Pipeline metrics;
+
+        // dedupe do arquivo inteiro: fingerprints já commitados + os novos deste lote
+        private final FingerprintSet seen;
+        private long[] added = new long[1024];
+        private int addedCount = 0;
+        private boolean reachedEof = false;
+        private long newOffset;
+
+        long processedLines = 0L;
+        long totalCopied = 0L;
+
+        // quase-duplicatas do src no arquivo inteiro (null = desligado); o índice vem dos lotes anteriores
+        private final NearDuplicateIndex nearDup;
+        private final long nearDupDroppedBefore;
+
+        ResumeBatch(PgBinaryCopyWriter out, EmbeddingPipeline embPipe, int maxExamples, FingerprintSet seen,
+                    NearDuplicateIndex nearDup, ImportProgress progress, ImportMetrics.Pipeline metrics) {
+            this.out = out;
+            this.progress = progress;
+            this.metrics = metrics;
+            this.embPipe = embPipe;
+            this.maxExamples = maxExamples;
+            this.examples = new ArrayList<>(maxExamples);
+            this.seen = seen;
+            this.nearDup = nearDup;
+            this.nearDupDroppedBefore = nearDup != null ? nearDup.dropped() : 0L;
+        }
+
+        void accept(PairRow row) throws Exception {
+            long fp = PairFingerprint.of(row.src(), row.tgt(), row.langSrc(), row.langTgt());
+            if (!seen.add(fp)) {
+                progress.addRejected(1);
+                metrics.rejected(RejectReason.DUPLICATE);
+                return;
+            }
+            if (addedCount == added.length) added = Arrays.copyOf(added, addedCount * 2);
+            added[addedCount++] = fp;
+            if (nearDup != null
+                    && !nearDup.offer(row.src(), NearDuplicateFilter.group(row.langSrc(), row.langTgt()), row.quality())) {
+                progress.addRejected(1);
+                metrics.rejected(RejectReason.NEAR_DUPLICATE);
+                return;
+            }
+
+            writeInboxRow(out, row, null);
+            totalCopied++;
+            progress.addAccepted(1);
+            metrics.accepted(1);
+
+            if (examples.size() < maxExamples) {
+                examples.add(new ExamplePair(row.src(), row.tgt(), row.quality()));
+            }
+
+            // não bloqueia no /embed: o pipeline embeda em paralelo e grava em tm_emb_staging
+            if (embPipe != null) embPipe.accept(row);
+        }
+
+        void flushEmbeddings() throws Exception {
+            if (embPipe != null) {
+                long n = embPipe.finish();
+                log.info("[resume] embeddings gravados em tm_emb_staging: {}", n);
+            }
+        }
+    }
+
+    // ===================== Prévia (amostra, sem gravar nada) =====================
+
+    /**
+     * Estima o resultado de um import sem tocar no banco: amostra linhas do arquivo, roda a mesma
+     * cadeia de filtros do import (normalização, ratio, placeholders, dedupe, quase-duplicatas) e
+     * extrapola aceitação e tempo para o arquivo inteiro. Texto puro: sondas em offsets aleatórios
+     * (janelas mapeadas, poucos MB lidos mesmo em arquivos de 100 GB); comprimido não tem acesso
+     * aleatório, então a amostra é o início do arquivo.
+     */
+    @Override
+    public ImportPreview previewTxt(String path, String delimiter, int samples, int workers) throws Exception {
+        final long t0 = System.nanoTime();
+        final String delim = normalizeDelimiter(delimiter);
+        File f = new File(path);
+        if (!f.exists() || !f.isFile()) throw new FileNotFoundException("Arquivo não encontrado: " + path);
+
+        final int target = Math.max(PREVIEW_MIN_SAMPLES, Math.min(PREVIEW_MAX_SAMPLES, samples));
+        final long fileSize = f.length();
+        final CompressedInput.Codec codec = CompressedInput.detect(f.toPath());
+        final PreviewSample sample = (codec == CompressedInput.Codec.NONE
+                && fileSize > (long) PREVIEW_WINDOW_BYTES * previewProbes(target))
+                ? sampleRandom(f.toPath(), fileSize, target)
+                : sampleHead(f.toPath(), codec, fileSize, target);
+
+        final LineChunkReader.Chunk chunk = sample.chunk();
+        final int lines = chunk == null ? 0 : chunk.lines();
+        long[] rejected = new long[RejectReason.values().length];
+        double nanosPerLine = 0;
+        if (lines > 0) {
+            previewFilters(chunk, delim);                           // aquece o JIT; só a segunda passada é medida
+            long tf = System.nanoTime();
+            rejected = previewFilters(chunk, delim);
+            nanosPerLine = (double) (System.nanoTime() - tf) / lines;
+        }
+
+        long rejectedTotal = 0;
+        Map<String, Long> byReason = new LinkedHashMap<>();
+        for (RejectReason r : RejectReason.values()) {
+            rejectedTotal += rejected[r.ordinal()];
+            byReason.put(r.key(), rejected[r.ordinal()]);
+        }
+        final double acceptance = lines == 0 ? 0 : (double) (lines - rejectedTotal) / lines;
+        final double dupRate = lines == 0 ? 0 : (double) rejected[RejectReason.DUPLICATE.ordinal()] / lines;
+
+        final int cores = Runtime.getRuntime().availableProcessors();
+        final int effective = Math.max(1, Math.min(workers > 0 ? workers : 1, cores));
+        final double projected = sample.estimatedLines() * nanosPerLine / effective / 1e9;
+        final long elapsedMs = (System.nanoTime() - t0) / 1_000_000L;
+
+        log.info("Prévia do import: path='{}' size={} compression={} sampling={} sampled={} estLines={} aceitação={}% dup={}% ns/linha={} projeção={}s workers={} ({} ms)",
+                path, fileSize, codec, sample.mode(), lines, sample.estimatedLines(),
+                String.format("%.1f", acceptance * 100), String.format("%.1f", dupRate * 100),
+                String.format("%.0f", nanosPerLine), String.format("%.1f", projected), effective, elapsedMs);
+
+        return new ImportPreview(path, fileSize, CompressedInput.label(codec), sample.mode(), lines,
+                sample.estimatedLines(), Math.round(sample.estimatedLines() * acceptance), acceptance,
+                byReason, dupRate, nanosPerLine, effective, projected, elapsedMs);
+    }
+
+    /** Linhas amostradas (separadas por {@code \n}) e a estimativa de linhas do arquivo inteiro. */
+    private record PreviewSample(LineChunkReader.Chunk chunk, long estimatedLines, String mode) {}
+
+    private static int previewProbes(int target) {
+        return (target + PREVIEW_LINES_PER_PROBE - 1) / PREVIEW_LINES_PER_PROBE;
+    }
+
+    /**
+     * Sondas em offsets aleatórios (ordenados: a leitura anda só para frente). Cada sonda mapeia uma
+     * janela a partir do byte anterior ao offset, descarta o resto da linha em que caiu (a linha
+     * sorteada é enviesada para as longas; as seguintes não) e pega algumas linhas inteiras.
+     * Linhas estimadas = tamanho do arquivo / média de bytes por linha (terminador incluso).
+     */
+    private static PreviewSample sampleRandom(Path p, long size, int target) throws IOException {
+        final int probes = previewProbes(target);
+        long[] offsets = new long[probes];
+        SplittableRandom rnd = new SplittableRandom();
+        for (int i = 0; i < probes; i++) offsets[i] = rnd.nextLong(size);
+        Arrays.sort(offsets);
+
+        byte[] win = new byte[PREVIEW_WINDOW_BYTES];
+        byte[] out = new byte[1 << 16];
+        int outLen = 0, lines = 0;
+        long lineBytes = 0;
+        long windowEnd = -1;
+
+        try (FileChannel fc = FileChannel.open(p, StandardOpenOption.READ)) {
+            for (long off : offsets) {
+                if (lines >= target) break;
+                long from = Math.max(0, off - 1);
+                if (from < windowEnd) continue;                   // cairia na janela anterior: mesmas linhas
+                int len = (int) Math.min(PREVIEW_WINDOW_BYTES, size - from);
+                MappedByteBuffer mb = fc.map(FileChannel.MapMode.READ_ONLY, from, len);
+                mb.get(0, win, 0, len);
+                windowEnd = from + len;
+
+                int i = 0;
+                if (off > 0) {
+                    while (i < len && win[i] != '\n' && win[i] != '\r') i++;
+                    if (i == len) continue;                       // linha maior que a janela
+                    i = afterTerminator(win, i, len);
+                }
+                for (int taken = 0; taken < PREVIEW_LINES_PER_PROBE && lines < target; taken++) {
+                    int s = i;
+                    while (i < len && win[i] != '\n' && win[i] != '\r') i++;
+                    if (i == len) break;                          // linha cortada pela janela
+                    int n = i - s;
+                    i = afterTerminator(win, i, len);
+                    if (outLen + n + 1 > out.length) out = Arrays.copyOf(out, Math.max(out.length * 2, outLen + n + 1));
+                    System.arraycopy(win, s, out, outLen, n);
+                    outLen += n;
+                    out[outLen++] = '\n';
+                    lineBytes += i - s;
+                    lines++;
+                }
+            }
+        }
+
+        long estimated = lines == 0 ? 0 : Math.round((double) size * lines / lineBytes);
+        LineChunkReader.Chunk chunk = lines == 0 ? null : new LineChunkReader.Chunk(out, outLen, lines, 0, outLen);
+        return new PreviewSample(chunk, estimated, "random");
+    }
+
+    private static int afterTerminator(byte[] b, int i, int len) {
+        return (b[i] == '\r' && i + 1 < len && b[i + 1] == '\n') ? i + 2 : i + 1;
+    }
+
+    /**
+     * Primeiras {@code target} linhas (arquivo comprimido ou pequeno). Se o arquivo acabar antes, a
+     * contagem é exata. Senão continua descomprimindo (só contando bytes) até consumir
+     * {@link #PREVIEW_RATIO_BYTES} do arquivo, para medir a taxa de compressão sem o erro do read-ahead
+     * do descompressor, e extrapola: tamanho × taxa / média de bytes por linha da amostra.
+     */
+    private static PreviewSample sampleHead(Path p, CompressedInput.Codec codec, long size, int target) throws IOException {
+        ImportProgress counter = new ImportProgress();        // bytes do arquivo
+        ImportProgress inflated = new ImportProgress();       // bytes descomprimidos (inclui o read-ahead do leitor)
+        try (InputStream raw = counter.track(Files.newInputStream(p));
+             ReadableByteChannel ch = Channels.newChannel(inflated.track(CompressedInput.decompress(raw, codec)))) {
+            LineChunkReader reader = new LineChunkReader(ch, 0, 1 << 20);
+            LineChunkReader.Chunk chunk = reader.next(target, PREVIEW_MAX_HEAD_BYTES);
+            if (chunk == null) return new PreviewSample(null, 0, "head");
+            ByteBuffer bb = ByteBuffer.allocate(1 << 16);
+            boolean eof = reader.next(1, 1) == null;
+            if (eof) return new PreviewSample(chunk, chunk.lines(), "head");   // arquivo todo na amostra
+            while (counter.bytes() < PREVIEW_RATIO_BYTES && ch.read(bb.clear()) >= 0) { }
+
+            double uncompressed = (double) size * inflated.bytes() / counter.bytes();
+            return new PreviewSample(chunk, Math.round(uncompressed * chunk.lines() / chunk.length()), "head");
+        }
+    }
+
+    /** Mesma cadeia do import (filterRecord → dedupe → quase-duplicatas), só contando; índice = ordinal do motivo. */
+    private long[] previewFilters(LineChunkReader.Chunk chunk, String delim) throws Exception {
+        final long[] rejected = new long[RejectReason.values().length];
+        final Consumer<RejectReason> reject = r -> rejected[r.ordinal()]++;
+        final FingerprintSet seen = new FingerprintSet(chunk.lines());
+        final NearDuplicateIndex nearDup = nearDupFilter.newIndex(chunk.lines());
+        chunk.forEachRecord(newRecordParser(delim), r -> {
+            PairRow row = filterRecord(r, reject);
+            if (row == null) return;
+            if (!seen.add(PairFingerprint.of(row.src(), row.tgt(), row.langSrc(), row.langTgt()))) {
+                reject.accept(RejectReason.DUPLICATE);
+            } else if (nearDup != null
+                    && !nearDup.offer(row.src(), NearDuplicateFilter.group(row.langSrc(), row.langTgt()), row.quality())) {
+                reject.accept(RejectReason.NEAR_DUPLICATE);
+            }
+        });
+        return rejected;
     }
 
     // ===================== Checkpoint utils =====================
@@ -375,7 +877,8 @@ public CheckpointDTO getCheckpoint(String fileKey) {
                     Long fileSize = null;
                     try {
                         File f = new File(ck.getPath());
-                        if (f.exists()) fileSize = f.length();
+                        // comprimido: byteOffset é descomprimido, não comparável ao tamanho no disco
+                        if (f.exists() && ck.getCompression() == null) fileSize = f.length();
                     } catch (Exception ignore) {}
                     return new CheckpointDTO(ck.getFileKey(), ck.getPath(), ck.getByteOffset(), ck.getLineCount(), fileSize);
                 })
@@ -385,56 +888,100 @@ public CheckpointDTO getCheckpoint(String fileKey) {
     @Override
     public void resetCheckpoint(String fileKey) {
         checkpointRepo.deleteById(fileKey);
+        dedupeStore.delete(fileKey);
+        nearDupFilter.evict(fileKey);
         log.warn("Checkpoint resetado para fileKey='{}'", fileKey);
     }
 
     // ===================== Helpers comuns =====================
 
-    private static String readLineUtf8(RandomAccessFile raf) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
-        int b;
-        boolean seen = false;
-        while ((b = raf.read()) != -1) {
-            seen = true;
-            if (b == '\n') break;
-            if (b == '\r') {
-                long pos = raf.getFilePointer();
-                int next = raf.read();
-                if (next != '\n') raf.seek(pos);
-                break;
-            }
-            baos.write(b);
-        }
-        if (!seen && b == -1) return null;
-        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+    /**
+     * Normalização + filtros baratos (ratio/placeholders) sobre as colunas do registro. Sem estado
+     * mutável além do parser (um por thread): roda nos workers do modo paralelo. {@code null} = rejeitada.
+     * Só src/tgt viram String antes dos filtros; as línguas só para linhas aceitas.
+     */
+    private PairRow filterRecord(DelimitedRecordParser rec, Consumer<RejectReason> reject) {
+        if (rec.columns() < 2) { reject.accept(RejectReason.COLUMNS); return null; }
+        if (rec.byteLength(0) == 0 || rec.byteLength(1) == 0) { reject.accept(RejectReason.BLANK); return null; }
+
+        String src = norm.normalize(rec.text(0));
+        String tgt = norm.normalize(rec.text(1));
+        if (src.isBlank() || tgt.isBlank()) { reject.accept(RejectReason.BLANK); return null; }
+
+        double r = lengthRatio(src, tgt);
+        if (r < ratioMin || r > ratioMax) { reject.accept(RejectReason.RATIO); return null; }
+        if (!placeholdersPreserved(src, tgt)) { reject.accept(RejectReason.PLACEHOLDERS); return null; }
+
+        String langSrc = rec.columns() > 2 ? rec.text(2) : "";
+        String langTgt = rec.columns() > 3 ? rec.text(3) : "";
+        return new PairRow(src, tgt,
+                langSrc.isBlank() ? "en" : langSrc,
+                langTgt.isBlank() ? "pt" : langTgt,
+                qualityScore(r, true));
     }
 
-    private static void writeCsvLine(Writer out, String src, String tgt, String langSrc, String langTgt, String quality) throws IOException {
+    /**
+     * Canal a partir de {@code from} que dá EOF em {@code to} (texto puro; {@code to} alinhado a início
+     * de linha, então o leitor vê exatamente as linhas da faixa). Comprimido: até o fim do conteúdo,
+     * partindo do ponto de acesso gravado mais próximo de {@code from}.
+     */
+    private ReadableByteChannel openRange(File f, CompressedInput.Codec codec, long from, long to) throws IOException {
+        final ReadableByteChannel ch = CompressedInput.openAt(f.toPath(), codec, from, seekIndexes.forFile(f.toPath(), codec));
+        if (codec != CompressedInput.Codec.NONE || to >= f.length()) return ch;
+        return new ReadableByteChannel() {
+            private long left = to - from;
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                if (left <= 0) return -1;
+                int lim = dst.limit();
+                if (dst.remaining() > left) dst.limit(dst.position() + (int) left);
+                try {
+                    int n = ch.read(dst);
+                    if (n > 0) left -= n;
+                    return n;
+                } finally {
+                    dst.limit(lim);
+                }
+            }
+
+            @Override
+            public boolean isOpen() { return ch.isOpen(); }
 
+            @Override
+            public void close() throws IOException { ch.close(); }
+        };
+    }
+
+    /** Aspas RFC-4180: {@code jarvis.tm.quoting} = auto (só com , ou ;), always ou never. */
+    private DelimitedRecordParser newRecordParser(String delim) {
+        boolean q = switch (quoting.toLowerCase(Locale.ROOT)) {
+            case "always" -> true;
+            case "never" -> false;
+            default -> DelimitedRecordParser.quotingByDefault(delim);
+        };
+        return new DelimitedRecordParser(delim, q);
+    }
 
-        out.write('"');
-        out.write(esc(src));
-        out.write('"');
-        out.write(',');
-        out.write('"');
-        out.write(esc(tgt));
-        out.write('"');
-        out.write(',');
-        out.write('"');
-        out.write(esc(langSrc));
-        out.write('"');
-        out.write(',');
-        out.write('"');
-        out.write(esc(langTgt));
-        out.write('"');
-        out.write(',');
-        if (quality != null && !quality.isBlank())
-            out.write(quality);
-        out.write('\n');
+    /** Linha binária de tm_staging(src,tgt,lang_src,lang_tgt,quality). */
+    private static void writePairRow(PgBinaryCopyWriter out, PairRow row) throws IOException {
+        out.startRow(5);
+        out.text(row.src());
+        out.text(row.tgt());
+        out.text(row.langSrc());
+        out.text(row.langTgt());
+        out.float8(row.quality());
     }
 
-    private static String esc(String s) {
-        return s.replace("\"", "\"\"");
+    /** Linha binária de tm_corpora_inbox(src,tgt,lang_src,lang_tgt,quality,source_tag). */
+    private static void writeInboxRow(PgBinaryCopyWriter out, PairRow row, String sourceTag) throws IOException {
+        out.startRow(6);
+        out.text(row.src());
+        out.text(row.tgt());
+        out.text(row.langSrc());
+        out.text(row.langTgt());
+        out.float8(row.quality());
+        out.textOrNull(sourceTag);
     }
 
     private static String normalizeDelimiter(String delimiter) {
@@ -476,64 +1023,11 @@ private List<double[]> embedTexts(List<String> texts, boolean normalize) {
                 : List.of();
     }
 
-    private static String toVectorLiteral(double[] v) {
-        StringBuilder sb = new StringBuilder();
-        sb.append('[');
-        for (int i = 0; i < v.length; i++) {
-            if (i > 0) sb.append(',');
-            sb.append(Double.toString(v[i]));
-        }
-        sb.append(']');
-        return sb.toString();
-    }
-
-    private void flushEmbeddingsBuffer(
-            Writer outEmb,
-            List<String> bufSrc, List<String> bufTgt,
-            List<String> bufLangSrc, List<String> bufLangTgt,
-            List<Double> bufQ,
-            String embedMode
-    ) throws IOException {
-        if (outEmb == null) return; // seguro
-
-        List<double[]> vecSrc = embedTexts(bufSrc, true);
-        List<double[]> vecTgt = "both".equals(embedMode) ? embedTexts(bufTgt, true) : List.of();
-
-        // (opcional) logar dimensão dos vetores para sanity-check
-        if (!vecSrc.isEmpty()) log.info("emb_src dim={}", vecSrc.get(0).length);
-        if (!vecTgt.isEmpty()) log.info("emb_tgt dim={}", vecTgt.get(0).length);
-
-        for (int i = 0; i < bufSrc.size(); i++) {
-            String src = bufSrc.get(i);
-            String tgt = bufTgt.get(i);
-            String ls = bufLangSrc.get(i);
-            String lt = bufLangTgt.get(i);
-            Double q  = bufQ.get(i);
-
-            String embSrc = vecSrc.isEmpty() ? "" : toVectorLiteral(vecSrc.get(i));
-            String embTgt = (!vecTgt.isEmpty()) ? toVectorLiteral(vecTgt.get(i)) : "";
-
-            outEmb.write('"'); outEmb.write(esc(src)); outEmb.write('"'); outEmb.write(',');
-            outEmb.write('"'); outEmb.write(esc(tgt)); outEmb.write('"'); outEmb.write(',');
-            outEmb.write('"'); outEmb.write(esc(ls));  outEmb.write('"'); outEmb.write(',');
-            outEmb.write('"'); outEmb.write(esc(lt));  outEmb.write('"'); outEmb.write(',');
-            if (!embSrc.isEmpty()) { outEmb.write('"'); outEmb.write(embSrc); outEmb.write('"'); }
-            outEmb.write(',');
-            if (!embTgt.isEmpty()) { outEmb.write('"'); outEmb.write(embTgt); outEmb.write('"'); }
-            outEmb.write(',');
-            outEmb.write(Double.toString(q));
-            outEmb.write('\n');
-
-            if ((i & 0xFF) == 0) outEmb.flush(); // flush leve a cada 256 linhas
-        }
-
-        bufSrc.clear(); bufTgt.clear(); bufLangSrc.clear(); bufLangTgt.clear(); bufQ.clear();
-    }
-
     // ========= Staging + Consolidação =========
 
 
     private void ensureCorpInboxSchema() {
+        schemaEnsurer.ensurePairHash();   // tm.pair_hash + função tm_pair_hash (transação própria)
         jdbc.execute("""
       CREATE TABLE IF NOT EXISTS tm_corpora_inbox (
         id bigserial PRIMARY KEY,
@@ -546,62 +1040,11 @@ created_at timestamp default now(),
         CONSTRAINT uk_corpora_inbox UNIQUE (src, tgt, lang_src, lang_tgt, coalesce(source_tag,''))
       )
     """);
+        jdbc.execute("ALTER TABLE tm_corpora_inbox ADD COLUMN IF NOT EXISTS " + SchemaEnsurer.PAIR_HASH_COLUMN);
     }
 
 
-//    private void ensureTmStagingSchema() {
-//        jdbc.execute("""
-//      CREATE TABLE IF NOT EXISTS tm_staging (
-//        src       text NOT NULL,
-//        tgt       text NOT NULL,
-//        lang_src  text NOT NULL,
-//        lang_tgt  text NOT NULL,
-//        quality   double precision,
-//        created_at timestamp default now()
-//      )
-//    """);
-//
-//        // Em versões que não suportam ADD CONSTRAINT IF NOT EXISTS, use DO $$ ... $$
-//        jdbc.execute("""
-//      DO $$
-//      BEGIN
-//        IF NOT EXISTS (
-//          SELECT 1
-//          FROM pg_constraint
-//          WHERE conname = 'tm_unique_pair'
-//            AND conrelid = 'tm'::regclass
-//        ) THEN
-//          ALTER TABLE tm
-//            ADD CONSTRAINT tm_unique_pair
-//            UNIQUE (src, tgt, lang_src, lang_tgt);
-//        END IF;
-//      END
-//      $$;
-//    """);
-//    }
-
-    private int upsertFromTmStagingToTm() {
-        String sql = """
-        WITH dedup AS (
-          SELECT DISTINCT ON (src, tgt, lang_src, lang_tgt)
-                 src, tgt, lang_src, lang_tgt, quality
-          FROM tm_staging
-          ORDER BY src, tgt, lang_src, lang_tgt, quality DESC
-        )
-        INSERT INTO tm (src, tgt, lang_src, lang_tgt, quality)
-        SELECT src, tgt, lang_src, lang_tgt, quality
-        FROM dedup
-        ON CONFLICT (src, tgt, lang_src, lang_tgt)
-        DO UPDATE
-          SET quality = GREATEST(EXCLUDED.quality, tm.quality)
-    """;
-        int update = jdbc.update(sql);
-        clearTmStaging();
-        return update;
-    }
-
-    private void truncateTmStaging() { jdbc.execute("TRUNCATE tm_staging"); }
-
+    /** Molde dos stagings de upload (StagingTables cria uma cópia UNLOGGED por import). */
     private void ensureEmbeddingsSchema() {
         jdbc.execute("""
         CREATE TABLE IF NOT EXISTS tm_emb_staging (
@@ -618,76 +1061,27 @@ created_at timestamp default now()
         jdbc.execute("CREATE TABLE IF NOT EXISTS tm_embeddings (tm_id bigint PRIMARY KEY)");
         jdbc.execute("ALTER TABLE tm_embeddings ADD COLUMN IF NOT EXISTS emb_src vector");
         jdbc.execute("ALTER TABLE tm_embeddings ADD COLUMN IF NOT EXISTS emb_tgt vector");
+        jdbc.execute("ALTER TABLE tm_emb_staging ADD COLUMN IF NOT EXISTS " + SchemaEnsurer.PAIR_HASH_COLUMN);
     }
 
-    private int consolidateEmbeddingsFromStaging() {
+    private int consolidateEmbeddingsFromStaging(String embStaging) {
         String sql = """
         WITH dedup AS (
-          SELECT DISTINCT ON (src, tgt, lang_src, lang_tgt)
-                 src, tgt, lang_src, lang_tgt,
-                 emb_src, emb_tgt, quality
-          FROM tm_emb_staging
-          ORDER BY src, tgt, lang_src, lang_tgt, quality DESC, created_at DESC
+          SELECT DISTINCT ON (pair_hash)
+                 pair_hash, emb_src, emb_tgt, quality
+          FROM %s
+          ORDER BY pair_hash, quality DESC, created_at DESC
         )
         INSERT INTO tm_embeddings (tm_id, emb_src, emb_tgt)
         SELECT t.id, d.emb_src, d.emb_tgt
           FROM tm t
           JOIN dedup d
-            ON t.src = d.src
-           AND t.tgt = d.tgt
-           AND t.lang_src = d.lang_src
-           AND t.lang_tgt = d.lang_tgt
+            ON t.pair_hash = d.pair_hash
         ON CONFLICT (tm_id) DO UPDATE
           SET emb_src = EXCLUDED.emb_src,
               emb_tgt = COALESCE(EXCLUDED.emb_tgt, tm_embeddings.emb_tgt)
-    """;
-        int update = jdbc.update(sql);
-        clearEmbStaging();
-        return update;
-    }
-
-    private void clearTmStaging() {
-        jdbc.execute("TRUNCATE tm_staging");
-    }
-
-    private void clearEmbStaging() {
-        jdbc.execute("TRUNCATE tm_emb_staging");
-    }
-
-    // ======== Ocorrências (preparado para seriesId/bookId/sourceTag) ========
-
-    private void ensureTmOccurrenceStagingSchema() {
-        jdbc.execute("""
-        CREATE TABLE IF NOT EXISTS tm_occurrence_staging (
-          src       text NOT NULL,
-          tgt       text NOT NULL,
-          lang_src  text NOT NULL,
-          lang_tgt  text NOT NULL,
-          series_id bigint,
-          book_id   bigint,
-          chapter   text,
-          location  text,
-          quality   double precision,
-          source_tag text,
-          created_at timestamp default now()
-        )
-    """);
-    }
-
-    private int upsertFromOccurrenceStagingToOccurrence() {
-        String sql = """
-        INSERT INTO tm_occurrence (tm_id, series_id, book_id, chapter, location, quality_at_import, source_tag)
-        SELECT t.id, s.series_id, s.book_id, s.chapter, s.location, s.quality, s.source_tag
-        FROM tm_occurrence_staging s
-        JOIN tm t
-          ON t.src = s.src
-         AND t.tgt = s.tgt
-         AND t.lang_src = s.lang_src
-         AND t.lang_tgt = s.lang_tgt
-    """;
-        int inserted = jdbc.update(sql);
-        jdbc.execute("TRUNCATE tm_occurrence_staging");
-        return inserted;
+    """.formatted(embStaging);
+        return jdbc.update(sql);
     }
 
     public boolean placeholdersPreserved(String src, String tgt) {
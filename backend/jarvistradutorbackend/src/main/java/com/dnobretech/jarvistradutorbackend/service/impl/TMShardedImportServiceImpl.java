@@ -0,0 +1,239 @@
+package com.dnobretech.jarvistradutorbackend.service.impl;
+
+import com.dnobretech.jarvistradutorbackend.dto.ResumeResult;
+import com.dnobretech.jarvistradutorbackend.dto.ShardedImportResult;
+import com.dnobretech.jarvistradutorbackend.exception.ImportCancelledException;
+import com.dnobretech.jarvistradutorbackend.service.TMImportService;
+import com.dnobretech.jarvistradutorbackend.service.TMShardedImportService;
+import com.dnobretech.jarvistradutorbackend.tmimport.ImportShardStore;
+import com.dnobretech.jarvistradutorbackend.tmimport.ImportShardStore.Shard;
+import com.dnobretech.jarvistradutorbackend.util.CompressedInput;
+import com.dnobretech.jarvistradutorbackend.util.ImportProgress;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Import resumível de UM arquivo grande dividido entre vários nós do backend (arquivo num volume
+ * compartilhado, mesmo path em todos). A primeira chamada corta o arquivo em faixas alinhadas a
+ * início de linha e grava o plano em import_shard; cada nó pega shards livres (SKIP LOCKED, com
+ * lease) e roda os lotes de {@link TMImportService#importTxtResumeRange} na faixa do shard, com o
+ * checkpoint próprio {@code <fileKey>#<nnnn>}. Um heartbeat renova o lease a cada ttl/3 enquanto o
+ * shard roda (lote com embeddings pode passar do ttl); a transação de cada lote confere o owner.
+ *
+ * Nó que cai: o lease vence e outro nó continua o shard do último checkpoint. O filtro de dedupe é
+ * por shard e fica no disco local do nó; num shard que troca de nó as duplicatas restantes caem no
+ * DISTINCT ON da consolidação. Entre shards vale o mesmo (cada shard só deduplica a própria faixa).
+ * Só texto puro: comprimido não tem acesso aleatório para começar no meio.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TMShardedImportServiceImpl implements TMShardedImportService {
+
+    private static final int MAX_SHARDS = 4_096;
+
+    // pid@host: identifica o nó no owner do lease; o sufixo separa chamadas simultâneas no mesmo nó
+    private static final String NODE = ManagementFactory.getRuntimeMXBean().getName();
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    private final TMImportService importService;
+    private final ImportShardStore shardStore;
+
+    @Value("${jarvis.tm.shard.lease-ttl:15m}")
+    private Duration leaseTtl;
+
+    @Value("${jarvis.tm.shard.max-attempts:3}")
+    private int maxAttempts;
+
+    // uma thread para os heartbeats de todos os shards em andamento neste nó (cada um é um UPDATE curto)
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "shard-lease");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+    }
+
+    @Override
+    public ShardedImportResult importSharded(String path, String fileKey, int shards, String delimiter, int batchLines,
+                                             String embed, int workers) throws Exception {
+        if (fileKey == null || fileKey.isBlank()) throw new IllegalArgumentException("fileKey é obrigatório");
+        if (shards < 1 || shards > MAX_SHARDS) throw new IllegalArgumentException("shards fora de [1, " + MAX_SHARDS + "]: " + shards);
+        if (batchLines < 1) throw new IllegalArgumentException("batchLines deve ser >= 1");
+        final Path file = Path.of(path);
+        if (!Files.isRegularFile(file)) throw new FileNotFoundException("Arquivo não encontrado: " + path);
+        final CompressedInput.Codec codec = CompressedInput.detect(file);
+        if (codec != CompressedInput.Codec.NONE) {
+            throw new IllegalArgumentException("Import em shards exige arquivo sem compressão (" + codec
+                    + " não tem acesso aleatório); use o import resumível comum");
+        }
+
+        final long size = Files.size(file);
+        final List<Shard> plan = shardStore.plan(fileKey, path, size, lineAlignedRanges(file, size, shards));
+        final String owner = NODE + "#" + RUNS.incrementAndGet();
+        final ImportProgress progress = ImportProgress.current();
+        progress.setTotalBytes(size);
+        log.info("[shard] {}: nó {} entrando ({} shards, leaseTtl={}, batchLines={}, workers={})",
+                fileKey, owner, plan.size(), leaseTtl, batchLines, workers);
+
+        int claimed = 0, completed = 0, failed = 0;
+        long lines = 0, copied = 0, doneBytes = 0;
+        Shard s;
+        while (true) {
+            progress.checkCancelled();
+            if ((s = shardStore.claim(fileKey, owner, leaseTtl, maxAttempts)) == null) break;
+            claimed++;
+            final Shard shard = s;
+            final String key = shardKey(fileKey, shard.shardNo());
+            log.info("[shard] {}: shard {} [{}, {}) assumido (falhas anteriores: {})",
+                    fileKey, shard.shardNo(), shard.startOffset(), shard.endOffset(), shard.attempts());
+
+            ImportProgress part = progress.child();
+            ImportProgress.bind(part);
+            ScheduledFuture<?> beat = startHeartbeat(fileKey, shard.shardNo(), owner);
+            try {
+                final boolean[] done = {false};
+                do {
+                    ResumeResult r = importService.importTxtResumeRange(path, delimiter, key,
+                            shard.startOffset(), shard.endOffset(), batchLines, 0, embed, workers,
+                            res -> {
+                                done[0] = res.newOffset() >= shard.endOffset();
+                                shardStore.renew(fileKey, shard.shardNo(), owner, leaseTtl,
+                                        res.processedLines(), res.totalCopied(), done[0]);
+                            });
+                    lines += r.processedLines();
+                    copied += r.totalCopied();
+                    if (!done[0] && r.processedLines() == 0) {
+                        throw new IllegalStateException("Shard " + shard.shardNo() + " sem progresso no offset " + r.newOffset());
+                    }
+                    part.checkCancelled();
+                } while (!done[0]);
+                completed++;
+                doneBytes += shard.endOffset() - shard.startOffset();
+                progress.setBytes(doneBytes);
+                log.info("[shard] {}: shard {} concluído", fileKey, shard.shardNo());
+            } catch (ImportCancelledException e) {
+                shardStore.release(fileKey, shard.shardNo(), owner, maxAttempts, null);
+                throw e;
+            } catch (Exception e) {
+                failed++;
+                log.error("[shard] {}: shard {} falhou: {}", fileKey, shard.shardNo(), e.toString(), e);
+                shardStore.release(fileKey, shard.shardNo(), owner, maxAttempts, e.toString());
+            } finally {
+                beat.cancel(false);
+                if (progress == ImportProgress.NOOP) ImportProgress.unbind();
+                else ImportProgress.bind(progress);
+            }
+        }
+
+        Map<String, Long> status = new TreeMap<>();
+        for (Shard x : shardStore.list(fileKey)) status.merge(x.status(), 1L, Long::sum);
+        log.info("[shard] {}: nó {} saindo: pegou={} concluídos={} falhas={} linhas={} copiadas={} status={}",
+                fileKey, owner, claimed, completed, failed, lines, copied, status);
+        return new ShardedImportResult(fileKey, plan.size(), claimed, completed, failed, lines, copied, status);
+    }
+
+    /**
+     * Mantém o lease enquanto o shard roda. Perder o lease aqui não interrompe o lote em andamento:
+     * o renew na transação dele falha e desfaz o lote (o outro nó refaz a partir do checkpoint).
+     */
+    private ScheduledFuture<?> startHeartbeat(String fileKey, int shardNo, String owner) {
+        long period = Math.max(1_000L, leaseTtl.toMillis() / 3);
+        final ScheduledFuture<?>[] self = new ScheduledFuture<?>[1];
+        Runnable beat = () -> {
+            try {
+                if (!shardStore.heartbeat(fileKey, shardNo, owner, leaseTtl)) {
+                    log.warn("[shard] {}: shard {} não é mais de {}; heartbeat encerrado", fileKey, shardNo, owner);
+                    synchronized (self) { if (self[0] != null) self[0].cancel(false); }
+                }
+            } catch (Exception e) {
+                // falha transitória de banco: tenta de novo no próximo ciclo (o lease ainda tem 2/3 do ttl)
+                log.warn("[shard] {}: heartbeat do shard {} falhou: {}", fileKey, shardNo, e.toString());
+            }
+        };
+        synchronized (self) {
+            self[0] = heartbeats.scheduleWithFixedDelay(beat, period, period, TimeUnit.MILLISECONDS);
+            return self[0];
+        }
+    }
+
+    @Override
+    public List<Shard> shards(String fileKey) {
+        return shardStore.list(fileKey);
+    }
+
+    @Override
+    public int resetShards(String fileKey) {
+        List<Shard> plan = shardStore.list(fileKey);
+        for (Shard s : plan) importService.resetCheckpoint(shardKey(fileKey, s.shardNo()));
+        return shardStore.delete(fileKey);
+    }
+
+    static String shardKey(String fileKey, int shardNo) {
+        return String.format("%s#%04d", fileKey, shardNo);
+    }
+
+    /**
+     * {@code shards} faixas de tamanho ~igual, cada fronteira empurrada para o próximo início de linha
+     * (mesma regra de terminadores do leitor: \n, \r ou \r\n). Faixas vazias (linhas maiores que a
+     * faixa) são descartadas.
+     */
+    static List<long[]> lineAlignedRanges(Path file, long size, int shards) throws IOException {
+        List<long[]> ranges = new ArrayList<>(shards);
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+            long start = 0;
+            for (int k = 1; k <= shards; k++) {
+                long end = k == shards ? size : nextLineStart(fc, buf, Math.max(start, size / shards * k), size);
+                if (end > start) ranges.add(new long[]{start, end});
+                start = end;
+            }
+        }
+        return ranges;
+    }
+
+    /** Primeiro início de linha em {@code >= pos}: {@code pos} já é início se o byte anterior for terminador. */
+    private static long nextLineStart(FileChannel fc, ByteBuffer buf, long pos, long size) throws IOException {
+        if (pos <= 0) return 0;
+        long p = pos - 1;
+        boolean cr = false;
+        while (p < size) {
+            buf.clear();
+            int n = fc.read(buf, p);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                byte b = buf.get(i);
+                if (cr) return b == '\n' ? p + i + 1 : p + i;
+                if (b == '\n') return p + i + 1;
+                if (b == '\r') cr = true;
+            }
+            p += n;
+        }
+        return size;
+    }
+}
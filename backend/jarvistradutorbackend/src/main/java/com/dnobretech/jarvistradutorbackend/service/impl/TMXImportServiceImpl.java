@@ -1,13 +1,42 @@
 package com.dnobretech.jarvistradutorbackend.service.impl;
 
+import com.dnobretech.jarvistradutorbackend.domain.ImportCheckpoint;
+import com.dnobretech.jarvistradutorbackend.dto.ResumeResult;
+import com.dnobretech.jarvistradutorbackend.enums.ImportJobType;
+import com.dnobretech.jarvistradutorbackend.enums.RejectReason;
+import com.dnobretech.jarvistradutorbackend.epubimport.QualityFilter;
+import com.dnobretech.jarvistradutorbackend.epubimport.SchemaEnsurer;
+import com.dnobretech.jarvistradutorbackend.repository.ImportCheckpointRepository;
 import com.dnobretech.jarvistradutorbackend.service.TMXImportService;
+import com.dnobretech.jarvistradutorbackend.tmimport.DedupeFilterStore;
+import com.dnobretech.jarvistradutorbackend.tmimport.FingerprintSet;
+import com.dnobretech.jarvistradutorbackend.tmimport.ImportMetrics;
+import com.dnobretech.jarvistradutorbackend.tmimport.NearDuplicateFilter;
+import com.dnobretech.jarvistradutorbackend.tmimport.NearDuplicateIndex;
+import com.dnobretech.jarvistradutorbackend.tmimport.OrderedWorkPool;
+import com.dnobretech.jarvistradutorbackend.tmimport.PairFingerprint;
+import com.dnobretech.jarvistradutorbackend.tmimport.PairRow;
+import com.dnobretech.jarvistradutorbackend.tmimport.ReaderCarry;
+import com.dnobretech.jarvistradutorbackend.tmimport.SeekIndexStore;
+import com.dnobretech.jarvistradutorbackend.tmimport.StagingMerger;
+import com.dnobretech.jarvistradutorbackend.tmimport.StagingTables;
+import com.dnobretech.jarvistradutorbackend.tmimport.TmxTuReader;
+import com.dnobretech.jarvistradutorbackend.util.CompressedInput;
+import com.dnobretech.jarvistradutorbackend.util.ImportProgress;
+import com.dnobretech.jarvistradutorbackend.util.PgBinaryCopyWriter;
 import com.dnobretech.jarvistradutorbackend.util.TextNormalizer;
 import lombok.RequiredArgsConstructor;
-import org.postgresql.PGConnection;
-import org.postgresql.copy.CopyManager;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.postgresql.core.BaseConnection;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.sql.DataSource;
@@ -15,77 +44,360 @@
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamReader;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
 import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
+/**
+ * Import de TMX via tm_staging: mesmo caminho dos TSV (staging por import, dedupe por fingerprint,
+ * consolidação por faixas de pair_hash no StagingMerger). Um par que já existe em tm só atualiza a
+ * quality no merge, em vez de derrubar um COPY direto em tm de vários GB.
+ *
+ * A thread chamadora só recorta o arquivo em TUs ({@link TmxTuReader}, direto nos bytes); o parse StAX
+ * de cada lote, strip de tags, normalização e filtros rodam no pool, e os lotes voltam na ordem do
+ * arquivo para o único COPY binário. No modo resumível o checkpoint guarda o offset logo após o
+ * último {@code </tu>} do lote commitado.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class TMXImportServiceImpl implements TMXImportService {
 
     private final DataSource dataSource;
     private final TextNormalizer norm;
+    private final ImportMetrics metrics;
+    private final SchemaEnsurer schemaEnsurer;
+    private final StagingTables stagingTables;
+    private final StagingMerger stagingMerger;
+    private final ImportCheckpointRepository checkpointRepo;
+    private final DedupeFilterStore dedupeStore;
+    private final PlatformTransactionManager txManager;
+    private final NearDuplicateFilter nearDupFilter;
+    private final QualityFilter qualityFilter;
+    private final SeekIndexStore seekIndexes;
     private static final Pattern PLACEHOLDERS = Pattern.compile("(\\{[^}]+\\}|%s|%d|<[^>]+>|\\$\\{[^}]+\\})");
 
+    // teto de bytes por tarefa do pool (TUs muito longos não viram um lote gigante)
+    private static final int MAX_BATCH_BYTES = 4 << 20;
+
+    // cada lote é parseado como um documento: <b> + TUs + </b> (na codificação do arquivo)
+    private static final String OPEN = "<b>";
+    private static final String CLOSE = "</b>";
+
+    // uma fábrica por worker (XMLInputFactory não garante thread-safety)
+    private static final ThreadLocal<XMLInputFactory> XML = ThreadLocal.withInitial(TMXImportServiceImpl::newXmlFactory);
+
     @Value("${jarvis.tm.ratio-min:0.5}")
     private double ratioMin;
     @Value("${jarvis.tm.ratio-max:2.0}")
     private double ratioMax;
 
+    /** threads de parse/strip/normalização/filtros; 0 = núcleos - 1 (o recorte de TUs fica com um) */
+    @Value("${jarvis.tmx.workers:0}")
+    private int workers;
+
+    @Value("${jarvis.tmx.batch-tus:2048}")
+    private int batchTus;
+
     public long importTmx(MultipartFile file, String srcLang, String tgtLang) throws Exception {
+        try (InputStream in = file.getInputStream()) {
+            return importTmx(in, file.getSize(), srcLang, tgtLang);
+        }
+    }
+
+    /**
+     * Direto sobre o stream (corpo cru da requisição ou upload): TUs vão para o COPY em tm_staging à
+     * medida que chegam; no fim o staging é consolidado em tm. Dedupe em memória do arquivo inteiro.
+     */
+    public long importTmx(InputStream body, long contentLength, String srcLang, String tgtLang) throws Exception {
         final String srcL = normalizeLang(srcLang);
         final String tgtL = normalizeLang(tgtLang);
+        // progresso por bytes do arquivo enviado (comprimido ou não) e TUs como "linhas"
+        final ImportProgress progress = ImportProgress.current();
+        if (contentLength > 0) progress.setTotalBytes(contentLength);
+        final ImportMetrics.Pipeline m = metrics.pipeline(ImportJobType.TMX.key());
+        final long t0 = System.nanoTime();
+
+        schemaEnsurer.ensureTmStaging();
+        try (StagingTables.Scope st = stagingTables.create("tm_staging")) {
+            final String staging = st.table("tm_staging");
+
+            // autocommit: o staging é só deste import e é dropado no fim, com ou sem erro
+            Connection con = dataSource.getConnection();
+            PGCopyOutputStream pgOut = new PGCopyOutputStream(con.unwrap(BaseConnection.class), copySql(staging));
+            PgBinaryCopyWriter out = new PgBinaryCopyWriter(pgOut);
+            final TmxBatch batch = new TmxBatch(out, new FingerprintSet(1 << 14),
+                    nearDupFilter.newIndex(1 << 16), progress, m, false);
+            // .tmx, .tmx.gz, .tmx.zst, .tmx.xz
+            try (TmxTuReader reader = new TmxTuReader(Channels.newChannel(CompressedInput.open(progress.track(body))),
+                    0, TmxTuReader.DEFAULT_BUFFER)) {
+                copyTus(reader, Long.MAX_VALUE, srcL, tgtL, batch, "stream");
+                if (batch.tus == 0) throw noTus("o arquivo enviado", reader);
+                out.finish();
+                m.copied(batch.copied, out.bytesWritten(), System.nanoTime() - t0);
+            } finally {
+                try { out.finish(); } catch (IOException ignore) {}
+                try { pgOut.endCopy(); } catch (Exception e) { log.warn("endCopy {}: {}", staging, e.toString()); }
+                try { con.close(); } catch (Exception ignore) {}
+            }
+
+            long up = stagingMerger.mergeIntoTm(staging).rows();
+            log.info("[tmx] TUs={} válidas={} staging→tm upserts/updates={}", batch.tus, batch.copied, up);
+            if (batch.nearDup != null) {
+                log.info("[tmx] quase-duplicatas descartadas: {} ({} representantes)",
+                        batch.nearDup.dropped(), batch.nearDup.representatives());
+            }
+            return batch.copied;
+        }
+    }
+
+    // ===================== Resumível (arquivo no disco) =====================
+
+    /**
+     * Um lote = uma transação: COPY → staging, consolidação staging → tm e UPDATE do import_checkpoint
+     * commitam juntos. Se cair no meio, o próximo run relê o mesmo lote a partir do offset anterior.
+     */
+    @Override
+    public ResumeResult importTmxResume(String path, String fileKey, String srcLang, String tgtLang,
+                                        int batchTus) throws Exception {
+        schemaEnsurer.ensureTmStaging();
+        try (StagingTables.Scope st = stagingTables.create("tm_staging")) {
+            return resumeInTx(path, fileKey, srcLang, tgtLang, batchTus, st.table("tm_staging"), null);
+        }
+    }
+
+    /**
+     * Lotes sucessivos até o fim do arquivo (cada lote com seu commit), no mesmo staging: o merge de
+     * cada lote já esvazia o staging dentro da transação dele. O leitor (e o decodificador de
+     * .gz/.zst) fica aberto de um lote para o outro.
+     */
+    @Override
+    public ResumeResult importTmxResumeToEnd(String path, String fileKey, String srcLang, String tgtLang,
+                                             int batchTus) throws Exception {
+        schemaEnsurer.ensureTmStaging();
+        final ImportProgress progress = ImportProgress.current();
+        try (StagingTables.Scope st = stagingTables.create("tm_staging");
+             ReaderCarry carry = new ReaderCarry()) {
+            final String staging = st.table("tm_staging");
+            long processed = 0, copied = 0;
+            ResumeResult last;
+            do {
+                progress.checkCancelled();
+                last = resumeInTx(path, fileKey, srcLang, tgtLang, batchTus, staging, carry);
+                processed += last.processedLines();
+                copied += last.totalCopied();
+            } while (last.processedLines() >= batchTus);   // lote incompleto = fim do arquivo
+            return new ResumeResult(processed, last.newOffset(), copied, List.of());
+        }
+    }
 
-        // Conexão COPY
+    /** {@code carry}: leitor aberto entre os lotes de um run ({@code null} = lote avulso, abre e fecha o arquivo). */
+    private ResumeResult resumeInTx(String path, String fileKey, String srcLang, String tgtLang, int batchTus,
+                                    String staging, ReaderCarry carry) throws Exception {
+        TransactionStatus tx = txManager.getTransaction(new DefaultTransactionDefinition());
+        try {
+            ResumeResult res = resumeBatch(path, fileKey, srcLang, tgtLang, Math.max(1, batchTus), staging, carry);
+            txManager.commit(tx);
+            return res;
+        } catch (Throwable t) {
+            if (!tx.isCompleted()) txManager.rollback(tx);
+            throw t;
+        }
+    }
+
+    private ResumeResult resumeBatch(String path, String fileKey, String srcLang, String tgtLang, int batchTus,
+                                     String staging, ReaderCarry carry) throws Exception {
+        final String srcL = normalizeLang(srcLang);
+        final String tgtL = normalizeLang(tgtLang);
+
+        // FOR UPDATE: dois runs do mesmo fileKey não processam o mesmo lote em paralelo
+        ImportCheckpoint ck = checkpointRepo.lockByFileKey(fileKey)
+                .orElseGet(() -> ImportCheckpoint.builder()
+                        .fileKey(fileKey).path(path).byteOffset(0L).lineCount(0L).build());
+
+        if (ck.getPath() == null || !ck.getPath().equals(path)) {
+            log.warn("Atualizando path do checkpoint: {} -> {}", ck.getPath(), path);
+            ck.setPath(path);
+        }
+
+        File f = new File(path);
+        if (!f.exists() || !f.isFile()) throw new FileNotFoundException("Arquivo não encontrado: " + path);
+
+        // .gz/.zst/.xz são lidos direto; o offset do checkpoint é no conteúdo descomprimido
+        final CompressedInput.Codec codec = CompressedInput.detect(f.toPath());
+        final String codecLabel = CompressedInput.label(codec);
+        if (ck.getByteOffset() > 0 && !Objects.equals(ck.getCompression(), codecLabel)) {
+            throw new IllegalStateException("Checkpoint de '" + fileKey + "' foi gravado para compressão="
+                    + ck.getCompression() + " mas o arquivo atual é " + codecLabel + "; resete o checkpoint");
+        }
+        ck.setCompression(codecLabel);
+
+        // dedupe do arquivo inteiro (entre lotes e entre runs); offset 0 = recomeço, histórico descartado
+        final long dedupeBefore = (ck.getByteOffset() > 0 && ck.getDedupeEntries() != null) ? ck.getDedupeEntries() : 0L;
+        final FingerprintSet seen = dedupeStore.load(fileKey, dedupeBefore, batchTus);
+
+        final long startOffset = ck.getByteOffset();
+        final long fileSize = f.length();
+
+        final ImportProgress progress = ImportProgress.current();
+        if (codec == CompressedInput.Codec.NONE) progress.setTotalBytes(fileSize);
+        progress.setBytes(startOffset);
+        final ImportMetrics.Pipeline m = metrics.pipeline(ImportJobType.TMX.key());
+        final long t0 = System.nanoTime();
+
+        log.info("Import TMX resume iniciado: fileKey='{}', path='{}', fromOffset={} fileSize={} compression={} batchTus={} {}→{}",
+                fileKey, path, startOffset, fileSize, codec, batchTus, srcL, tgtL);
+
+        // COPY na conexão da transação: staging, merge e checkpoint commitam juntos
         Connection con = DataSourceUtils.getConnection(dataSource);
-        CopyManager cm = con.unwrap(PGConnection.class).getCopyAPI();
-
-        // Pipe: thread do COPY lê enquanto o parser escreve
-        final PipedReader pr = new PipedReader(1 << 16); // 64KB buffer
-        final PipedWriter pw = new PipedWriter(pr);
-
-        // Lança thread do COPY (consumidor)
-        var copyThread = new Thread(() -> {
-            try (Reader r = pr) {
-                cm.copyIn(
-                        "COPY tm(src,tgt,lang_src,lang_tgt,quality) FROM STDIN WITH (FORMAT csv, HEADER true)",
-                        r
-                );
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+        PGCopyOutputStream pgOut = new PGCopyOutputStream(con.unwrap(BaseConnection.class), copySql(staging));
+        PgBinaryCopyWriter out = new PgBinaryCopyWriter(pgOut);
+
+        final TmxBatch batch = new TmxBatch(out, seen,
+                nearDupFilter.forImport(fileKey, startOffset, ck.getLineCount() > 0, batchTus), progress, m,
+                codec == CompressedInput.Codec.NONE);
+        registerDedupeSync(fileKey, batch, dedupeBefore);
+
+        long newOffset;
+        TmxTuReader reader = carry != null ? carry.take(TmxTuReader.class, path, startOffset) : null;
+        try {
+            if (reader == null) {
+                // BOM/declaração XML do início do arquivo: a retomada começa no meio, depois do prólogo
+                final TmxTuReader.Encoding enc = TmxTuReader.Encoding.detect(CompressedInput.openAt(f.toPath(), codec, 0));
+                reader = new TmxTuReader(CompressedInput.openAt(f.toPath(), codec, startOffset, seekIndexes.forFile(f.toPath(), codec)),
+                        startOffset, TmxTuReader.DEFAULT_BUFFER, enc);
+            }
+            newOffset = copyTus(reader, batchTus, srcL, tgtL, batch, fileKey);
+            // o trailer (</body></tmx>) nunca vira TU: fim = o recorte não achou mais TU completo
+            batch.reachedEof = batch.tus < batchTus;
+            // nenhum TU no arquivo todo não é "concluído": codificação/arquivo errado não pode virar sucesso
+            if (batch.reachedEof && batch.tus == 0 && ck.getLineCount() == 0) throw noTus("'" + path + "'", reader);
+            if (carry != null && !batch.reachedEof) {   // próximo lote do run continua daqui
+                carry.keep(path, reader, newOffset);
+                reader = null;
+            }
+            out.finish();
+            m.copied(batch.copied, out.bytesWritten(), System.nanoTime() - t0);
+        } finally {
+            // Fechamentos em ordem: writer (trailer) → endCopy → release connection
+            try { out.finish(); } catch (IOException ignore) {}
+            try { pgOut.endCopy(); } catch (Exception e) { log.warn("endCopy {}: {}", staging, e.toString()); }
+            DataSourceUtils.releaseConnection(con, dataSource);
+            if (reader != null) try { reader.close(); } catch (IOException ignore) {}
+        }
+        progress.setBytes(newOffset);
+
+        // consolidação dentro da transação (faixas em sequência na mesma conexão)
+        long up = batch.copied > 0 ? stagingMerger.mergeIntoTm(staging).rows() : 0;
+
+        batch.newOffset = newOffset;
+        ck.setByteOffset(newOffset);
+        ck.setLineCount(ck.getLineCount() + batch.tus);
+        ck.setDedupeEntries(dedupeBefore + batch.addedCount);
+        ck.setCompleted(batch.reachedEof);
+        ck.setPath(path);
+        ck.setUpdatedAt(LocalDateTime.now());
+        checkpointRepo.save(ck);
+        if (codec == CompressedInput.Codec.NONE && !batch.reachedEof) metrics.checkpointLag(fileKey, fileSize - newOffset);
+        else metrics.clearCheckpointLag(fileKey);
+
+        log.info("Checkpoint TMX salvo: key='{}' offset={} TUs={} válidas={} upserts={}",
+                fileKey, newOffset, batch.tus, batch.copied, up);
+        if (batch.nearDup != null) {
+            log.info("[tmx:{}] quase-duplicatas descartadas no lote: {} ({} representantes no arquivo)",
+                    fileKey, batch.nearDup.dropped() - batch.nearDupDroppedBefore, batch.nearDup.representatives());
+        }
+        return new ResumeResult(batch.tus, newOffset, batch.copied, List.of());
+    }
+
+    /**
+     * Fingerprints novos do lote só vão para o arquivo do filtro depois do commit
+     * (dedupe_entries já foi gravado junto com o offset); em rollback o filtro em memória é descartado.
+     * O índice de quase-duplicatas segue a mesma regra (só em memória).
+     */
+    private void registerDedupeSync(String fileKey, TmxBatch batch, long dedupeBefore) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    dedupeStore.committed(fileKey, batch.seen, batch.added, batch.addedCount,
+                            dedupeBefore + batch.addedCount);
+                    nearDupFilter.committed(fileKey, batch.nearDup, batch.newOffset);
+                    if (batch.reachedEof) {                               // arquivo concluído: libera a memória
+                        dedupeStore.evict(fileKey);
+                        nearDupFilter.evict(fileKey);
+                    }
+                } else {
+                    dedupeStore.evict(fileKey);
+                    nearDupFilter.evict(fileKey);
+                }
             }
-        }, "tmx-copy");
-        copyThread.start();
-
-        long rows = 0;
-        try (InputStream raw = new BufferedInputStream(file.getInputStream());
-             // Se .tmx.gz, troque por new GZIPInputStream(raw)
-             Writer out = new BufferedWriter(pw, 1 << 16)) {
-
-            // Cabeçalho CSV
-            out.write("src,tgt,lang_src,lang_tgt,quality\n");
-
-            XMLInputFactory f = XMLInputFactory.newFactory();
-            // Segurança
-            f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-            try {
-                f.setProperty("javax.xml.stream.isSupportingExternalEntities", false);
-            } catch (Exception ignore) {
+        });
+    }
+
+    // ===================== Pipeline: recorte → pool (StAX + filtros) → COPY ordenado =====================
+
+    /**
+     * Até {@code maxTus} TUs do reader para o COPY do {@code batch}.
+     * Retorna o offset logo após o último TU entregue (ponto de retomada).
+     */
+    private long copyTus(TmxTuReader reader, long maxTus, String srcL, String tgtL, TmxBatch batch,
+                         String tag) throws Exception {
+        final int nWorkers = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        final int perTask = Math.max(1, batchTus);
+        try (OrderedWorkPool<ParsedTus> pool = new OrderedWorkPool<>("tmx-filter", nWorkers, nWorkers * 2, pt -> {
+            long before = batch.tus;
+            batch.accept(pt);
+            if (before / 100_000 != batch.tus / 100_000) {
+                log.info("[tmx:{}] TUs={} válidas={} offset={}", tag, batch.tus, batch.copied, pt.endOffset());
             }
-            // Performance
-            f.setProperty(XMLInputFactory.IS_COALESCING, true); // junta textos adjacentes
+        })) {
+            long remaining = maxTus;
+            TmxTuReader.Batch b;
+            while (remaining > 0 && (b = reader.next((int) Math.min(remaining, perTask), MAX_BATCH_BYTES)) != null) {
+                remaining -= b.tus();
+                final TmxTuReader.Batch tb = b;
+                pool.submit(() -> parseTus(tb, srcL, tgtL, batch.metrics));
+            }
+            pool.finish();
+        }
+        return reader.position();
+    }
 
-            XMLStreamReader xr = f.createXMLStreamReader(raw, StandardCharsets.UTF_8.name());
+    private static IllegalArgumentException noTus(String what, TmxTuReader reader) {
+        return new IllegalArgumentException("Nenhum <tu> encontrado em " + what + " (encoding "
+                + (reader.encoding() != null ? reader.encoding().charset().name() : "?")
+                + "); não é TMX, está vazio ou truncado");
+    }
+
+    /** Pares aprovados de um lote de TUs, na ordem do arquivo. */
+    private record ParsedTus(List<PairRow> rows, int tus, long endOffset) {}
 
-            // Buffers por TU
-            StringBuilder segSrc = null;
-            StringBuilder segTgt = null;
-            String curLang = null;
-            boolean inSeg = false;
+    /**
+     * StAX do lote (envolto em {@code <b>...</b>}), strip de tags, normalização e filtros; roda nos workers.
+     * Sem estado compartilhado além dos contadores das métricas (thread-safe).
+     */
+    private ParsedTus parseTus(TmxTuReader.Batch b, String srcL, String tgtL, ImportMetrics.Pipeline m) throws Exception {
+        List<PairRow> rows = new ArrayList<>(b.tus());
+        InputStream in = new SequenceInputStream(new ByteArrayInputStream(OPEN.getBytes(b.charset())),
+                new SequenceInputStream(new ByteArrayInputStream(b.data(), 0, b.length()),
+                        new ByteArrayInputStream(CLOSE.getBytes(b.charset()))));
+        XMLStreamReader xr = XML.get().createXMLStreamReader(in, b.charset().name());
 
-            long tus = 0; // contagem de TU processadas
+        // Buffers por TU
+        StringBuilder segSrc = null;
+        StringBuilder segTgt = null;
+        String curLang = null;
+        boolean inSeg = false;
+        int tus = 0;
 
+        try {
             while (xr.hasNext()) {
                 int ev = xr.next();
 
@@ -120,41 +432,133 @@ public long importTmx(MultipartFile file, String srcLang, String tgtLang) throws
                         inSeg = false;
                     } else if ("tu".equalsIgnoreCase(name)) {
                         tus++;
-                        if (segSrc != null && segSrc.length() > 0 && segTgt != null && segTgt.length() > 0) {
-                            String src = norm.normalize(maybeStrip(segSrc));
-                            String tgt = norm.normalize(maybeStrip(segTgt));
-                            if (!src.isBlank() && !tgt.isBlank()) {
-                                double r = lengthRatio(src, tgt);
-                                if (r >= ratioMin && r <= ratioMax && placeholdersPreserved(src, tgt)) {
-                                    writeCsvLine(out, src, tgt, srcL, tgtL);
-                                    rows++;
-                                }
-                            }
-                        }
+                        PairRow row = filterTu(segSrc != null ? segSrc.toString() : null,
+                                segTgt != null ? segTgt.toString() : null, srcL, tgtL, m);
+                        if (row != null) rows.add(row);
                         // limpa para o próximo TU
                         segSrc = null;
                         segTgt = null;
                         curLang = null;
                         inSeg = false;
-                        if (tus % 100_000 == 0) {
-                            // log simples de progresso
-                            System.out.printf("TMX TU processadas: %,d | linhas válidas: %,d%n", tus, rows);
-                        }
                     }
                 }
             }
-            xr.close();
         } finally {
-            // finaliza e espera COPY concluir
-            pw.close();
-            copyThread.join();
-            DataSourceUtils.releaseConnection(con, dataSource);
+            xr.close();
+        }
+        m.lines(tus);
+        return new ParsedTus(rows, tus, b.endOffset());
+    }
+
+    /** Filtros de um TU (null = idioma ausente); {@code null} = rejeitado, motivo já contado. */
+    private PairRow filterTu(String rawSrc, String rawTgt, String srcL, String tgtL, ImportMetrics.Pipeline m) {
+        if (rawSrc == null || rawTgt == null) { m.rejected(RejectReason.COLUMNS); return null; }   // TU sem um dos idiomas pedidos
+        if (rawSrc.isEmpty() || rawTgt.isEmpty()) { m.rejected(RejectReason.BLANK); return null; }
+
+        String src = norm.normalize(stripTags(rawSrc));
+        String tgt = norm.normalize(stripTags(rawTgt));
+        if (src.isBlank() || tgt.isBlank()) { m.rejected(RejectReason.BLANK); return null; }
+
+        double r = lengthRatio(src, tgt);
+        if (r < ratioMin || r > ratioMax) { m.rejected(RejectReason.RATIO); return null; }
+        if (!placeholdersPreserved(src, tgt)) { m.rejected(RejectReason.PLACEHOLDERS); return null; }
+
+        return new PairRow(src, tgt, srcL, tgtL, qualityFilter.qualityScore(r, true, ratioMin, ratioMax));
+    }
+
+    /** Estado de um COPY de TMX (stream inteiro ou lote resumível); alimentado na ordem do arquivo. */
+    private final class TmxBatch {
+        private final PgBinaryCopyWriter out;
+        private final ImportProgress progress;
+        private final ImportMetrics.Pipeline metrics;
+        private final boolean offsetProgress;   // progresso em bytes pelo offset (arquivo não comprimido)
+
+        // dedupe: fingerprints já commitados + os novos deste lote
+        private final FingerprintSet seen;
+        private long[] added = new long[1024];
+        private int addedCount = 0;
+        private boolean reachedEof = false;
+        private long newOffset;
+
+        // quase-duplicatas do src (null = desligado); no resumível, o índice vem dos lotes anteriores
+        private final NearDuplicateIndex nearDup;
+        private final long nearDupDroppedBefore;
+
+        long tus = 0L;
+        long copied = 0L;
+
+        TmxBatch(PgBinaryCopyWriter out, FingerprintSet seen, NearDuplicateIndex nearDup, ImportProgress progress,
+                 ImportMetrics.Pipeline metrics, boolean offsetProgress) {
+            this.out = out;
+            this.seen = seen;
+            this.nearDup = nearDup;
+            this.nearDupDroppedBefore = nearDup != null ? nearDup.dropped() : 0L;
+            this.progress = progress;
+            this.metrics = metrics;
+            this.offsetProgress = offsetProgress;
+        }
+
+        void accept(ParsedTus pt) throws IOException {
+            tus += pt.tus();
+            progress.addLines(pt.tus());
+            progress.addRejected(pt.tus() - pt.rows().size());   // motivos já contados nos workers
+            for (PairRow row : pt.rows()) accept(row);
+            if (offsetProgress) progress.setBytes(pt.endOffset());
+            progress.checkCancelled();
+        }
+
+        private void accept(PairRow row) throws IOException {
+            long fp = PairFingerprint.of(row.src(), row.tgt(), row.langSrc(), row.langTgt());
+            if (!seen.add(fp)) {
+                progress.addRejected(1);
+                metrics.rejected(RejectReason.DUPLICATE);
+                return;
+            }
+            if (addedCount == added.length) added = Arrays.copyOf(added, addedCount * 2);
+            added[addedCount++] = fp;
+            if (nearDup != null
+                    && !nearDup.offer(row.src(), NearDuplicateFilter.group(row.langSrc(), row.langTgt()), row.quality())) {
+                progress.addRejected(1);
+                metrics.rejected(RejectReason.NEAR_DUPLICATE);
+                return;
+            }
+
+            writePairRow(out, row);
+            copied++;
+            progress.addAccepted(1);
+            metrics.accepted(1);
         }
-        return rows;
     }
 
     // ---------- helpers de alto desempenho ----------
 
+    private static XMLInputFactory newXmlFactory() {
+        XMLInputFactory f = XMLInputFactory.newFactory();
+        // Segurança
+        f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        try {
+            f.setProperty("javax.xml.stream.isSupportingExternalEntities", false);
+        } catch (Exception ignore) {
+        }
+        // Performance
+        f.setProperty(XMLInputFactory.IS_COALESCING, true); // junta textos adjacentes
+        return f;
+    }
+
+    private static String copySql(String staging) {
+        return "COPY " + staging + "(src,tgt,lang_src,lang_tgt,quality) FROM STDIN WITH (FORMAT binary)";
+    }
+
+    /** Linha binária de tm_staging(src,tgt,lang_src,lang_tgt,quality). */
+    private static void writePairRow(PgBinaryCopyWriter out, PairRow row) throws IOException {
+        out.startRow(5);
+        out.text(row.src());
+        out.text(row.tgt());
+        out.text(row.langSrc());
+        out.text(row.langTgt());
+        out.float8(row.quality());
+    }
+
     private static String getAttr(XMLStreamReader xr, String qname) {
         if (qname == null) return null;
         // tenta qname com prefixo (xml:lang)
@@ -184,42 +588,23 @@ private static boolean isLangMatch(String a, String b) {
         return a.equals(b) || a.startsWith(b + "-") || b.startsWith(a + "-");
     }
 
-    // só strip tags se existir '<' (evita regex cara desnecessária)
-    private static String maybeStrip(StringBuilder sb) {
-        int idx = indexOfLt(sb);
-        if (idx < 0) return sb.toString();
-        // remove tags simples
-        return sb.toString().replaceAll("<[^>]+>", "");
-    }
-
-    private static int indexOfLt(CharSequence cs) {
-        for (int i = 0, n = cs.length(); i < n; i++) if (cs.charAt(i) == '<') return i;
-        return -1;
-    }
-
-    private static void writeCsvLine(Writer out, String src, String tgt, String srcL, String tgtL) throws IOException {
-        out.write('"');
-        out.write(esc(src));
-        out.write('"');
-        out.write(',');
-        out.write('"');
-        out.write(esc(tgt));
-        out.write('"');
-        out.write(',');
-        out.write('"');
-        out.write(srcL);
-        out.write('"');
-        out.write(',');
-        out.write('"');
-        out.write(tgtL);
-        out.write('"');
-        out.write(',');
-        // quality vazio
-        out.write('\n');
-    }
-
-    private static String esc(String s) {
-        return s.replace("\"", "\"\"");
+    /** Remove tags simples (mesmo efeito de {@code replaceAll("<[^>]+>", "")}) sem regex; sem tag devolve a própria String. */
+    static String stripTags(String s) {
+        int lt = s.indexOf('<');
+        if (lt < 0) return s;
+        StringBuilder sb = null;
+        int from = 0;
+        while (lt >= 0) {
+            int gt = s.indexOf('>', lt + 1);
+            if (gt < 0) break;                  // sem fechamento: não há mais tags
+            if (gt > lt + 1) {                  // "<>" não é tag (o regex exige 1+ caractere)
+                if (sb == null) sb = new StringBuilder(s.length());
+                sb.append(s, from, lt);
+                from = gt + 1;
+            }
+            lt = s.indexOf('<', gt + 1);
+        }
+        return sb == null ? s : sb.append(s, from, s.length()).toString();
     }
 
     public boolean placeholdersPreserved(String src, String tgt) {
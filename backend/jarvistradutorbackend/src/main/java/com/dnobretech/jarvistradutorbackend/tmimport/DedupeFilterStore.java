@@ -0,0 +1,142 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filtro de dedupe por fileKey que sobrevive entre lotes e entre runs do import resumível.
+ * Persistido como arquivo append-only de fingerprints (long LE) em {@code <dedupe-dir>/<fileKey>.fp}.
+ * O número de entradas válidas fica em {@code import_checkpoint.dedupe_entries}, gravado na mesma
+ * transação do offset; o append no arquivo só acontece depois do commit. Assim o arquivo nunca
+ * contém fingerprint de lote que fez rollback (entradas excedentes são truncadas no load).
+ */
+@Slf4j
+@Component
+public class DedupeFilterStore {
+
+    private static final int IO_BUFFER = 1 << 20;
+
+    @Value("${jarvis.tm.dedupe-dir:${app.storageDir}import-dedupe}")
+    private String dir;
+
+    // último filtro carregado por fileKey (evita reler o arquivo a cada lote)
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
+    private record Cached(FingerprintSet set, long entries) {}
+
+    /**
+     * Filtro com os fingerprints já commitados para {@code fileKey}.
+     * {@code committedEntries == 0} = import começando do zero (arquivo antigo é descartado).
+     */
+    public FingerprintSet load(String fileKey, long committedEntries, int expectedNew) throws IOException {
+        Cached c = cache.get(fileKey);
+        if (c != null && c.entries() == committedEntries) return c.set();
+        cache.remove(fileKey);
+
+        Path file = fileFor(fileKey);
+        if (committedEntries <= 0) {
+            Files.deleteIfExists(file);
+            return new FingerprintSet(expectedNew);
+        }
+        if (!Files.exists(file)) {
+            log.warn("Filtro de dedupe ausente para fileKey='{}' (esperadas {} entradas); seguindo sem histórico",
+                    fileKey, committedEntries);
+            return new FingerprintSet(expectedNew);
+        }
+
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long stored = fc.size() / Long.BYTES;
+            long n = Math.min(stored, committedEntries);
+            if (fc.size() != n * Long.BYTES) fc.truncate(n * Long.BYTES);   // sobras de append parcial
+            if (n < committedEntries) {
+                log.warn("Filtro de dedupe de fileKey='{}' tem {} de {} entradas; duplicatas restantes caem no DISTINCT ON",
+                        fileKey, n, committedEntries);
+            }
+
+            FingerprintSet set = new FingerprintSet((int) Math.min(Integer.MAX_VALUE / 2, n + expectedNew));
+            ByteBuffer bb = ByteBuffer.allocateDirect(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            long left = n * Long.BYTES;
+            fc.position(0);
+            while (left > 0) {
+                bb.clear();
+                if (left < bb.capacity()) bb.limit((int) left);
+                int r = fc.read(bb);
+                if (r < 0) break;
+                bb.flip();
+                while (bb.remaining() >= Long.BYTES) set.add(bb.getLong());
+                left -= r;
+            }
+            log.info("Filtro de dedupe carregado: fileKey='{}' entradas={}", fileKey, set.size());
+            return set;
+        }
+    }
+
+    /**
+     * Chamado após o commit do lote: acrescenta os fingerprints novos ao arquivo e mantém o
+     * filtro em memória para o próximo lote. Falha de IO aqui não desfaz o lote: o arquivo fica
+     * menor que {@code committedEntries} e o load seguinte apenas perde parte do histórico.
+     */
+    public void committed(String fileKey, FingerprintSet set, long[] added, int count, long committedEntries) {
+        cache.put(fileKey, new Cached(set, committedEntries));
+        if (count == 0) return;
+        Path file = fileFor(fileKey);
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel fc = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer bb = ByteBuffer.allocateDirect(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < count; i++) {
+                    if (!bb.hasRemaining()) writeFully(fc, bb);
+                    bb.putLong(added[i]);
+                }
+                writeFully(fc, bb);
+                fc.force(false);
+            }
+        } catch (IOException e) {
+            log.warn("Falha ao persistir filtro de dedupe de fileKey='{}': {}", fileKey, e.toString());
+        }
+    }
+
+    /** Lote fez rollback: o filtro em memória pode conter fingerprints não commitados. */
+    public void evict(String fileKey) {
+        cache.remove(fileKey);
+    }
+
+    /** Reset de checkpoint: descarta filtro em memória e em disco. */
+    public void delete(String fileKey) {
+        cache.remove(fileKey);
+        try {
+            Files.deleteIfExists(fileFor(fileKey));
+        } catch (IOException e) {
+            log.warn("Não foi possível remover filtro de dedupe de fileKey='{}': {}", fileKey, e.toString());
+        }
+    }
+
+    private static void writeFully(FileChannel fc, ByteBuffer bb) throws IOException {
+        bb.flip();
+        while (bb.hasRemaining()) fc.write(bb);
+        bb.clear();
+    }
+
+    private Path fileFor(String fileKey) {
+        // fileKey é livre (vem da API): nome seguro + sufixo do hash para não colidir após sanitizar
+        String safe = fileKey.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (safe.length() > 100) safe = safe.substring(0, 100);
+        long h = PairFingerprint.of(fileKey, "", "", "");
+        byte[] tag = ByteBuffer.allocate(4).putInt((int) (h ^ (h >>> 32))).array();
+        return Paths.get(dir, safe + "-" + HexFormat.of().formatHex(tag) + ".fp");
+    }
+}
@@ -0,0 +1,157 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import com.dnobretech.jarvistradutorbackend.util.PgBinaryCopyWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Pipeline de embeddings do import: a thread do parser só enfileira linhas; lotes completos vão
+ * para o /embed em paralelo (src e tgt ao mesmo tempo, até {@code maxInFlight} lotes em voo) e uma
+ * thread escritora grava os resultados em tm_emb_staging na ordem de submissão.
+ * Backpressure: com {@code maxInFlight} lotes pendentes, {@link #accept} bloqueia o parser.
+ *
+ * O {@link PgBinaryCopyWriter} passa a pertencer à thread escritora até {@link #finish()}.
+ */
+public final class EmbeddingPipeline implements AutoCloseable {
+
+    private record Batch(List<PairRow> rows, Future<List<double[]>> src, Future<List<double[]>> tgt) {}
+
+    private static final Batch END = new Batch(List.of(), null, null);
+
+    private final PgBinaryCopyWriter out;
+    private final boolean both;
+    private final int batchSize;
+    private final Function<List<String>, List<double[]>> embedder;
+
+    private final ExecutorService embedPool;
+    private final BlockingQueue<Batch> inFlight;
+    private final Thread writer;
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    private List<PairRow> current;
+    private long written = 0;
+    private boolean finished = false;
+
+    public EmbeddingPipeline(PgBinaryCopyWriter out, String embedMode, int batchSize, int maxInFlight,
+                             Function<List<String>, List<double[]>> embedder) {
+        this.out = out;
+        this.both = "both".equals(embedMode);
+        this.batchSize = Math.max(1, batchSize);
+        this.embedder = embedder;
+        int slots = Math.max(1, maxInFlight);
+        this.current = new ArrayList<>(this.batchSize);
+        // fila limitada = nº de lotes em voo; o parser espera quando o /embed não acompanha
+        this.inFlight = new ArrayBlockingQueue<>(slots);
+
+        AtomicInteger seq = new AtomicInteger();
+        this.embedPool = Executors.newFixedThreadPool(both ? slots * 2 : slots, r -> {
+            Thread t = new Thread(r, "tm-embed-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.writer = new Thread(this::writeLoop, "tm-embed-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Chamado pelo parser (uma única thread), na ordem do arquivo. */
+    public void accept(PairRow row) throws Exception {
+        checkError();
+        current.add(row);
+        if (current.size() >= batchSize) dispatch();
+    }
+
+    /** Envia o lote parcial, espera a escrita de tudo e propaga erro do /embed ou do COPY. */
+    public long finish() throws Exception {
+        if (finished) return written;
+        finished = true;
+        if (!current.isEmpty()) dispatch();
+        while (!inFlight.offer(END, 200, TimeUnit.MILLISECONDS)) checkError();
+        writer.join();
+        checkError();
+        return written;
+    }
+
+    private void dispatch() throws Exception {
+        final List<PairRow> rows = current;
+        current = new ArrayList<>(batchSize);
+
+        List<String> srcs = new ArrayList<>(rows.size());
+        List<String> tgts = both ? new ArrayList<>(rows.size()) : null;
+        for (PairRow r : rows) {
+            srcs.add(r.src());
+            if (both) tgts.add(r.tgt());
+        }
+        Future<List<double[]>> fs = embedPool.submit(() -> embedder.apply(srcs));
+        Future<List<double[]>> ft = both ? embedPool.submit(() -> embedder.apply(tgts)) : null;
+
+        // espera vaga, mas acorda para checar erro da escritora (senão o parser ficaria preso)
+        Batch b = new Batch(rows, fs, ft);
+        while (!inFlight.offer(b, 200, TimeUnit.MILLISECONDS)) checkError();
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                Batch b = inFlight.take();
+                if (b == END) break;
+                List<double[]> vs = b.src().get();
+                List<double[]> vt = b.tgt() != null ? b.tgt().get() : List.of();
+                for (int i = 0; i < b.rows().size(); i++) {
+                    PairRow r = b.rows().get(i);
+                    out.startRow(7);
+                    out.text(r.src());
+                    out.text(r.tgt());
+                    out.text(r.langSrc());
+                    out.text(r.langTgt());
+                    out.vector(i < vs.size() ? vs.get(i) : null);
+                    out.vector(i < vt.size() ? vt.get(i) : null);
+                    out.float8(r.quality());
+                }
+                out.flush();
+                written += b.rows().size();
+            }
+        } catch (ExecutionException e) {
+            error.compareAndSet(null, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error.compareAndSet(null, e);
+        } catch (Throwable t) {
+            error.compareAndSet(null, t);
+        } finally {
+            if (error.get() != null) {
+                // destrava um parser parado no offer() e descarta o que ainda estiver em voo
+                for (Batch b; (b = inFlight.poll()) != null; ) cancel(b);
+            }
+        }
+    }
+
+    private void checkError() throws Exception {
+        Throwable t = error.get();
+        if (t == null) return;
+        if (t instanceof Exception ex) throw ex;
+        if (t instanceof Error err) throw err;
+        throw new IOException(t);
+    }
+
+    private static void cancel(Batch b) {
+        if (b.src() != null) b.src().cancel(true);
+        if (b.tgt() != null) b.tgt().cancel(true);
+    }
+
+    @Override
+    public void close() {
+        if (writer.isAlive()) {
+            writer.interrupt();
+            try { writer.join(5_000); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+        for (Batch b; (b = inFlight.poll()) != null; ) cancel(b);
+        embedPool.shutdownNow();
+    }
+}
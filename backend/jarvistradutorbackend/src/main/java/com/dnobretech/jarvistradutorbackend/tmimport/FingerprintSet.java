@@ -0,0 +1,72 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+/**
+ * Conjunto de fingerprints (long) em tabela de endereçamento aberto, sem boxing:
+ * ~8 bytes por slot contra ~100+ bytes de um HashSet&lt;String&gt; com a chave completa.
+ * O valor 0 é reservado como "slot vazio" (o fingerprint 0 é mapeado para 1).
+ */
+public final class FingerprintSet {
+
+    private static final float LOAD = 0.6f;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public FingerprintSet(int expected) {
+        int cap = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, (long) (expected / LOAD) + 1)) - 1) << 1;
+        alloc(cap);
+    }
+
+    /** @return true se o fingerprint é novo (e foi inserido). */
+    public boolean add(long fp) {
+        if (fp == 0) fp = 1;
+        int i = slot(fp);
+        while (true) {
+            long v = table[i];
+            if (v == 0) {
+                table[i] = fp;
+                if (++size >= resizeAt) grow();
+                return true;
+            }
+            if (v == fp) return false;
+            i = (i + 1) & mask;
+        }
+    }
+
+    public boolean contains(long fp) {
+        if (fp == 0) fp = 1;
+        int i = slot(fp);
+        while (true) {
+            long v = table[i];
+            if (v == 0) return false;
+            if (v == fp) return true;
+            i = (i + 1) & mask;
+        }
+    }
+
+    public int size() { return size; }
+
+    private int slot(long fp) {
+        return (int) (fp ^ (fp >>> 32)) & mask;
+    }
+
+    private void alloc(int cap) {
+        table = new long[cap];
+        mask = cap - 1;
+        resizeAt = (int) (cap * LOAD);
+    }
+
+    private void grow() {
+        if (table.length >= (1 << 30)) throw new IllegalStateException("FingerprintSet cheio (" + size + " entradas)");
+        long[] old = table;
+        alloc(old.length << 1);
+        for (long v : old) {
+            if (v == 0) continue;
+            int i = slot(v);
+            while (table[i] != 0) i = (i + 1) & mask;
+            table[i] = v;
+        }
+    }
+}
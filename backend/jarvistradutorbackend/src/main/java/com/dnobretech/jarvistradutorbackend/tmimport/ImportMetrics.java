@@ -0,0 +1,163 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import com.dnobretech.jarvistradutorbackend.enums.RejectReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Métricas Micrometer dos imports (expostas em /actuator/metrics/jarvis.import.*).
+ * Tag {@code pipeline}: tm-upload, tm-resume, tmx, epub-pair (as chaves de ImportJobType) e glossary.
+ *
+ * Os meters de cada pipeline são criados uma vez e guardados em {@link Pipeline}: no caminho por
+ * linha é só um incremento, sem lookup no registry. Contadores são cumulativos; linhas/s e bytes/s
+ * saem da taxa deles no backend de métricas (e o último COPY de cada pipeline fica num gauge).
+ */
+@Component
+@RequiredArgsConstructor
+public class ImportMetrics {
+
+    private static final String PREFIX = "jarvis.import.";
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Pipeline> pipelines = new ConcurrentHashMap<>();
+    private final Map<String, Timer> mergeTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> mergeRows = new ConcurrentHashMap<>();
+    private final Map<String, Lag> checkpointLag = new ConcurrentHashMap<>();
+
+    public Pipeline pipeline(String name) {
+        return pipelines.computeIfAbsent(name, Pipeline::new);
+    }
+
+    /** Consolidação staging → destino ({@code target} = tabela destino). */
+    public void merged(String target, long rows, long millis) {
+        mergeTimers.computeIfAbsent(target, t -> Timer.builder(PREFIX + "merge")
+                        .description("Duração das consolidações staging → destino")
+                        .tag("target", t)
+                        .register(registry))
+                .record(millis, TimeUnit.MILLISECONDS);
+        mergeRows.computeIfAbsent(target, t -> Counter.builder(PREFIX + "merge.rows")
+                        .description("Linhas inseridas/atualizadas pelas consolidações")
+                        .tag("target", t)
+                        .register(registry))
+                .increment(rows);
+    }
+
+    /** Bytes do arquivo ainda não cobertos pelo checkpoint do import resumível. */
+    public void checkpointLag(String fileKey, long remainingBytes) {
+        checkpointLag.computeIfAbsent(fileKey, k -> {
+            AtomicLong v = new AtomicLong();
+            Gauge g = Gauge.builder(PREFIX + "checkpoint.lag", v, AtomicLong::doubleValue)
+                    .description("Bytes entre o offset do checkpoint e o fim do arquivo")
+                    .baseUnit("bytes")
+                    .tag("file_key", k)
+                    .register(registry);
+            return new Lag(v, g);
+        }).value().set(Math.max(0, remainingBytes));
+    }
+
+    /** Arquivo concluído (ou tamanho desconhecido): o gauge do fileKey sai do registry. */
+    public void clearCheckpointLag(String fileKey) {
+        Lag lag = checkpointLag.remove(fileKey);
+        if (lag != null) registry.remove(lag.gauge());
+    }
+
+    private record Lag(AtomicLong value, Gauge gauge) {}
+
+    /** Meters de um pipeline; thread-safe (workers do modo paralelo incrementam direto). */
+    public final class Pipeline {
+        private final Counter lines;
+        private final Counter accepted;
+        private final Map<RejectReason, Counter> rejected = new EnumMap<>(RejectReason.class);
+        private final Counter copyRows;
+        private final Counter copyBytes;
+        private final Timer copy;
+        private final Timer embedBatch;
+        private final AtomicInteger embedInFlight = new AtomicInteger();
+        private volatile double lastCopyRowsPerSec = 0.0;
+
+        private Pipeline(String name) {
+            lines = Counter.builder(PREFIX + "lines")
+                    .description("Linhas/segmentos lidos")
+                    .tag("pipeline", name).register(registry);
+            accepted = Counter.builder(PREFIX + "accepted")
+                    .description("Linhas aprovadas nos filtros e gravadas no COPY")
+                    .tag("pipeline", name).register(registry);
+            for (RejectReason r : RejectReason.values()) {
+                rejected.put(r, Counter.builder(PREFIX + "rejected")
+                        .description("Linhas descartadas, por motivo")
+                        .tag("pipeline", name).tag("reason", r.key()).register(registry));
+            }
+            copyRows = Counter.builder(PREFIX + "copy.rows")
+                    .description("Linhas enviadas por COPY")
+                    .tag("pipeline", name).register(registry);
+            copyBytes = Counter.builder(PREFIX + "copy.bytes")
+                    .description("Bytes enviados por COPY (formato binário)")
+                    .baseUnit("bytes")
+                    .tag("pipeline", name).register(registry);
+            copy = Timer.builder(PREFIX + "copy")
+                    .description("Duração de cada COPY (leitura + filtros + envio)")
+                    .tag("pipeline", name).register(registry);
+            Gauge.builder(PREFIX + "copy.rows.per.second", this, p -> p.lastCopyRowsPerSec)
+                    .description("Linhas/s do último COPY concluído")
+                    .tag("pipeline", name).register(registry);
+            embedBatch = Timer.builder(PREFIX + "embed.batch")
+                    .description("Latência de cada chamada de embeddings")
+                    .tag("pipeline", name).register(registry);
+            Gauge.builder(PREFIX + "embed.in.flight", embedInFlight, AtomicInteger::get)
+                    .description("Chamadas de embeddings em andamento")
+                    .tag("pipeline", name).register(registry);
+        }
+
+        public void lines(long n) { lines.increment(n); }
+
+        public void accepted(long n) { accepted.increment(n); }
+
+        public void rejected(RejectReason reason) { rejected.get(reason).increment(); }
+
+        public void rejected(RejectReason reason, long n) { if (n > 0) rejected.get(reason).increment(n); }
+
+        /** Fim de um COPY: {@code nanos} desde o início da leitura. */
+        public void copied(long rows, long bytes, long nanos) {
+            copyRows.increment(rows);
+            if (bytes > 0) copyBytes.increment(bytes);
+            copy.record(nanos, TimeUnit.NANOSECONDS);
+            if (nanos > 0) lastCopyRowsPerSec = rows / (nanos / 1e9);
+        }
+
+        /** Início de uma chamada de embeddings; passe o retorno para {@link #embedFinished}. */
+        public long embedStarted() {
+            embedInFlight.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        public void embedFinished(long startNanos) {
+            embedBatch.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            embedInFlight.decrementAndGet();
+        }
+
+        /** Embeder com latência e contagem de chamadas em voo. */
+        public <T, R> Function<T, R> timedEmbedder(Function<T, R> embedder) {
+            return in -> {
+                long t0 = embedStarted();
+                try {
+                    return embedder.apply(in);
+                } finally {
+                    embedFinished(t0);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import com.dnobretech.jarvistradutorbackend.epubimport.SchemaEnsurer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tabela import_shard: faixas de bytes de um arquivo que vários nós importam ao mesmo tempo.
+ * Um nó pega um shard com {@code FOR UPDATE SKIP LOCKED} (nós concorrentes pegam shards diferentes
+ * sem esperar um pelo outro) e recebe um lease. O lease é mantido por um heartbeat enquanto o nó
+ * trabalha (um lote lento não perde o shard) e conferido de novo na transação de cada lote: um nó que
+ * perdeu o lease (parou de bater além do ttl e outro assumiu) não consegue commitar mais nada.
+ * Lease vencido = shard disponível de novo, continuando do checkpoint do shard; isso não conta como
+ * tentativa ({@code attempts} só conta execuções que terminaram em erro).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImportShardStore {
+
+    private final JdbcTemplate jdbc;
+    private final PlatformTransactionManager txManager;
+    private final SchemaEnsurer schemaEnsurer;
+
+    /** Faixa [startOffset, endOffset) do arquivo; offsets alinhados a início de linha. */
+    public record Shard(int shardNo, String path, long startOffset, long endOffset, String status, String owner,
+                        OffsetDateTime leaseUntil, int attempts, long processedLines, long totalCopied, String lastError) {}
+
+    private static final RowMapper<Shard> MAPPER = (rs, i) -> new Shard(
+            rs.getInt("shard_no"), rs.getString("path"), rs.getLong("start_offset"), rs.getLong("end_offset"),
+            rs.getString("status"), rs.getString("owner"), rs.getObject("lease_until", OffsetDateTime.class),
+            rs.getInt("attempts"), rs.getLong("processed_lines"), rs.getLong("total_copied"), rs.getString("last_error"));
+
+    /**
+     * Shards de {@code fileKey}; na primeira chamada grava {@code ranges} (pares start/end). O plano é
+     * único por fileKey: nós que chegam depois (mesmo com outro número de shards) recebem o já gravado.
+     * Lock advisory na transação: dois nós planejando ao mesmo tempo não intercalam inserts.
+     */
+    public List<Shard> plan(String fileKey, String path, long fileSize, List<long[]> ranges) {
+        schemaEnsurer.ensureImportShards();
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tt.execute(st -> {
+            jdbc.query("SELECT pg_advisory_xact_lock(hashtext(?))", rs -> {}, "import_shard:" + fileKey);
+            List<Shard> existing = select(fileKey);
+            if (!existing.isEmpty()) {
+                long planned = existing.get(existing.size() - 1).endOffset();
+                if (planned != fileSize) {
+                    throw new IllegalStateException("Shards de '" + fileKey + "' foram planejados para um arquivo de "
+                            + planned + " bytes, o atual tem " + fileSize + "; resete os shards");
+                }
+                return existing;
+            }
+            List<Object[]> rows = new ArrayList<>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) rows.add(new Object[]{fileKey, i, path, ranges.get(i)[0], ranges.get(i)[1]});
+            jdbc.batchUpdate("""
+                INSERT INTO import_shard(file_key, shard_no, path, start_offset, end_offset)
+                VALUES (?, ?, ?, ?, ?)
+                """, rows);
+            log.info("[shard] {}: {} shards planejados para '{}' ({} bytes)", fileKey, ranges.size(), path, fileSize);
+            return select(fileKey);
+        });
+    }
+
+    /**
+     * Próximo shard disponível (pendente, ou rodando com lease vencido) com menos de {@code maxAttempts}
+     * falhas; {@code null} se não há. Autocommit: o lock do SKIP LOCKED dura só o UPDATE.
+     */
+    public Shard claim(String fileKey, String owner, Duration leaseTtl, int maxAttempts) {
+        schemaEnsurer.ensureImportShards();
+        List<Shard> got = jdbc.query("""
+            UPDATE import_shard s
+               SET status = 'running', owner = ?, lease_until = now() + make_interval(secs => ?),
+                   updated_at = now()
+              FROM (SELECT shard_no FROM import_shard
+                     WHERE file_key = ?
+                       AND attempts < ?
+                       AND (status = 'pending' OR (status = 'running' AND lease_until < now()))
+                     ORDER BY shard_no
+                     LIMIT 1
+                     FOR UPDATE SKIP LOCKED) c
+             WHERE s.file_key = ? AND s.shard_no = c.shard_no
+            RETURNING s.*
+            """, MAPPER, owner, (double) leaseTtl.toSeconds(), fileKey, maxAttempts, fileKey);
+        return got.isEmpty() ? null : got.get(0);
+    }
+
+    /**
+     * Heartbeat, fora da transação do lote (conexão própria, autocommit): estende o lease enquanto o
+     * lote roda. {@code false} = o shard não é mais deste owner.
+     */
+    public boolean heartbeat(String fileKey, int shardNo, String owner, Duration leaseTtl) {
+        return jdbc.update("""
+            UPDATE import_shard
+               SET lease_until = now() + make_interval(secs => ?), updated_at = now()
+             WHERE file_key = ? AND shard_no = ? AND owner = ? AND status = 'running'
+            """, (double) leaseTtl.toSeconds(), fileKey, shardNo, owner) > 0;
+    }
+
+    /**
+     * Renova o lease e soma o lote; chamar DENTRO da transação do lote. Sem linha atualizada = o lease
+     * passou para outro nó: a exceção desfaz o lote.
+     */
+    public void renew(String fileKey, int shardNo, String owner, Duration leaseTtl,
+                      long processedLines, long totalCopied, boolean done) {
+        int n = jdbc.update("""
+            UPDATE import_shard
+               SET lease_until = CASE WHEN ? THEN NULL ELSE now() + make_interval(secs => ?) END,
+                   status = CASE WHEN ? THEN 'done' ELSE status END,
+                   processed_lines = processed_lines + ?, total_copied = total_copied + ?, updated_at = now()
+             WHERE file_key = ? AND shard_no = ? AND owner = ? AND status = 'running'
+            """, done, (double) leaseTtl.toSeconds(), done, processedLines, totalCopied, fileKey, shardNo, owner);
+        if (n == 0) {
+            throw new IllegalStateException("Lease do shard " + shardNo + " de '" + fileKey + "' perdido (outro nó assumiu)");
+        }
+    }
+
+    /**
+     * Devolve o shard: volta a pendente, ou 'failed' se esta falha esgotou as tentativas.
+     * {@code error == null} (cancelamento) não conta como falha.
+     */
+    public void release(String fileKey, int shardNo, String owner, int maxAttempts, String error) {
+        jdbc.update("""
+            UPDATE import_shard
+               SET status = CASE WHEN ?::text IS NOT NULL AND attempts + 1 >= ? THEN 'failed' ELSE 'pending' END,
+                   attempts = CASE WHEN ?::text IS NULL THEN attempts ELSE attempts + 1 END,
+                   owner = NULL, lease_until = NULL, last_error = ?::text, updated_at = now()
+             WHERE file_key = ? AND shard_no = ? AND owner = ? AND status = 'running'
+            """, error, maxAttempts, error, error, fileKey, shardNo, owner);
+    }
+
+    public List<Shard> list(String fileKey) {
+        schemaEnsurer.ensureImportShards();
+        return select(fileKey);
+    }
+
+    public int delete(String fileKey) {
+        schemaEnsurer.ensureImportShards();
+        return jdbc.update("DELETE FROM import_shard WHERE file_key = ?", fileKey);
+    }
+
+    private List<Shard> select(String fileKey) {
+        return jdbc.query("SELECT * FROM import_shard WHERE file_key = ? ORDER BY shard_no", MAPPER, fileKey);
+    }
+}
@@ -0,0 +1,148 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import com.dnobretech.jarvistradutorbackend.util.DelimitedRecordParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Lê o arquivo em faixas de bytes alinhadas a fim de linha (\n, \r\n ou \r isolado,
+ * mesma regra do {@link com.dnobretech.jarvistradutorbackend.util.Utf8LineReader}).
+ * Cada {@link Chunk} termina exatamente após um terminador (ou no EOF), então
+ * {@code endOffset} pode ir direto para o checkpoint.
+ * Não é thread-safe: um único leitor alimenta o pool de workers.
+ */
+public class LineChunkReader implements Closeable {
+
+    /** Faixa [startOffset, endOffset) do arquivo com {@code lines} linhas completas. */
+    public record Chunk(byte[] data, int length, int lines, long startOffset, long endOffset) {
+
+        /**
+         * Quebra a faixa em linhas, com a mesma regra de terminadores do leitor, e entrega cada uma
+         * ao parser direto dos bytes (sem criar a String da linha); a última linha sem terminador
+         * também conta.
+         */
+        public void forEachRecord(DelimitedRecordParser parser, RecordHandler handler) throws Exception {
+            int s = 0;
+            int i = 0;
+            while (i < length) {
+                byte b = data[i];
+                if (b == '\n' || b == '\r') {
+                    parser.parse(data, s, i - s);
+                    handler.record(parser);
+                    i++;
+                    if (b == '\r' && i < length && data[i] == '\n') i++;
+                    s = i;
+                } else {
+                    i++;
+                }
+            }
+            if (s < length) {
+                parser.parse(data, s, length - s);
+                handler.record(parser);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void record(DelimitedRecordParser record) throws Exception;
+    }
+
+    private final ReadableByteChannel ch;
+    private final byte[] buf;
+    private final ByteBuffer bb;
+    private int pos = 0;
+    private int lim = 0;
+    private long offset;          // offset (arquivo) do próximo byte ainda não entregue
+
+    private byte[] out = new byte[0];
+    private int outLen = 0;
+
+    public LineChunkReader(ReadableByteChannel ch, long startOffset, int bufferSize) {
+        this.ch = ch;
+        this.buf = new byte[Math.max(bufferSize, 8192)];
+        this.bb = ByteBuffer.wrap(buf);
+        this.offset = startOffset;
+    }
+
+    /** Offset (em bytes) logo após o último chunk devolvido. */
+    public long position() { return offset; }
+
+    /**
+     * Devolve o próximo chunk com até {@code maxLines} linhas; o chunk é fechado na primeira
+     * fronteira de linha depois de atingir {@code targetBytes}. {@code null} no EOF.
+     */
+    public Chunk next(int maxLines, int targetBytes) throws IOException {
+        out = new byte[Math.max(targetBytes, 1 << 12) + 1024];
+        outLen = 0;
+        int lines = 0;
+
+        outer:
+        while (lines < maxLines) {
+            if (pos >= lim && !fill()) break;                   // EOF
+            int i = pos;
+            while (i < lim) {
+                byte b = buf[i++];
+                if (b != '\n' && b != '\r') continue;
+                if (b == '\r') {
+                    if (i < lim) {
+                        if (buf[i] == '\n') i++;
+                    } else {
+                        // \r no fim do buffer: precisa espiar o próximo byte (pode ser \r\n)
+                        append(pos, i - pos);
+                        pos = i;
+                        if (fill() && buf[pos] == '\n') append(pos++, 1);
+                        lines++;
+                        if (lines >= maxLines || outLen >= targetBytes) break outer;
+                        continue outer;
+                    }
+                }
+                lines++;
+                if (lines >= maxLines || outLen + (i - pos) >= targetBytes) {
+                    append(pos, i - pos);
+                    pos = i;
+                    break outer;
+                }
+            }
+            append(pos, i - pos);
+            pos = i;
+        }
+
+        if (outLen == 0) return null;
+        byte last = out[outLen - 1];
+        if (last != '\n' && last != '\r') lines++;             // última linha sem terminador (EOF)
+
+        long start = offset;
+        offset += outLen;
+        return new Chunk(out, outLen, lines, start, offset);
+    }
+
+    private void append(int from, int len) {
+        if (len <= 0) return;
+        if (outLen + len > out.length) out = Arrays.copyOf(out, Math.max(out.length * 2, outLen + len));
+        System.arraycopy(buf, from, out, outLen, len);
+        outLen += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ch.close();
+    }
+
+    private boolean fill() throws IOException {
+        pos = 0;
+        lim = 0;
+        int n;
+        do {
+            bb.clear();
+            n = ch.read(bb);
+        } while (n == 0);
+        if (n < 0) return false;
+        lim = n;
+        return true;
+    }
+}
@@ -0,0 +1,78 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Configuração do estágio opcional de quase-duplicatas (jarvis.tm.near-dup.*) e fábrica dos
+ * índices por import. Desligado, {@link #newIndex} devolve {@code null} e o import segue só com o
+ * dedupe exato.
+ *
+ * No import resumível o índice vale para o arquivo inteiro, não só para o lote: fica em memória por
+ * fileKey entre lotes, como o filtro do DedupeFilterStore (mas sem arquivo em disco). Lote que faz
+ * rollback descarta o índice (ele tem textos não commitados); o lote seguinte, um restart ou outro
+ * nó recomeçam com índice vazio a partir do checkpoint — o histórico só se perde depois de falha.
+ */
+@Slf4j
+@Component
+public class NearDuplicateFilter {
+
+    @Value("${jarvis.tm.near-dup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jarvis.tm.near-dup.threshold:0.7}")
+    private double threshold;
+
+    @Value("${jarvis.tm.near-dup.hashes:64}")
+    private int hashes;
+
+    @Value("${jarvis.tm.near-dup.bands:16}")
+    private int bands;
+
+    // índice do último lote commitado por fileKey, com o offset em que esse lote terminou
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
+    private record Cached(NearDuplicateIndex index, long offset) {}
+
+    public boolean enabled() { return enabled; }
+
+    /** Índice novo (um por lote/livro) ou {@code null} se o estágio estiver desligado. */
+    public NearDuplicateIndex newIndex(int expected) {
+        return enabled ? new NearDuplicateIndex(hashes, bands, threshold, expected) : null;
+    }
+
+    /**
+     * Índice do import {@code fileKey} no lote que começa em {@code offset}: o do lote anterior se ele
+     * commitou exatamente até aqui, senão um novo ({@code resumed == false}: checkpoint sem linhas, import
+     * começando). O lote fica dono do índice até {@link #committed}.
+     */
+    public NearDuplicateIndex forImport(String fileKey, long offset, boolean resumed, int expected) {
+        if (!enabled) return null;
+        Cached c = cache.remove(fileKey);
+        if (resumed && c != null && c.offset() == offset) return c.index();
+        if (resumed) {
+            log.info("Quase-duplicatas de fileKey='{}': sem índice em memória para o offset {}; seguindo sem histórico",
+                    fileKey, offset);
+        }
+        return newIndex(expected);
+    }
+
+    /** Chamado após o commit do lote que terminou em {@code offset}; o próximo lote continua com o mesmo índice. */
+    public void committed(String fileKey, NearDuplicateIndex index, long offset) {
+        if (index != null) cache.put(fileKey, new Cached(index, offset));
+    }
+
+    /** Rollback, arquivo concluído ou reset de checkpoint. */
+    public void evict(String fileKey) {
+        cache.remove(fileKey);
+    }
+
+    /** Grupo do índice: só pares do mesmo par de línguas são comparados. */
+    public static long group(String langSrc, String langTgt) {
+        return PairFingerprint.of("", "", langSrc, langTgt);
+    }
+}
@@ -0,0 +1,262 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import java.util.Arrays;
+
+/**
+ * Índice de quase-duplicatas (MinHash + LSH) em memória, um por import (no resumível, um por fileKey).
+ * O texto (src normalizado) vira uma forma canônica — minúsculas, só letras/dígitos, espaços
+ * colapsados — e shingles de {@value #SHINGLE} caracteres; a assinatura MinHash estima a
+ * similaridade de Jaccard entre esses conjuntos. Variantes de pontuação/caixa caem na mesma forma
+ * canônica; uma palavra trocada numa frase de ~12 palavras fica em torno de 0,75.
+ *
+ * LSH: a assinatura é cortada em {@code bands} faixas; textos que coincidem numa faixa inteira viram
+ * candidatos e só esses têm a assinatura comparada. Tabela de faixas com endereçamento aberto e
+ * listas encadeadas em arrays (sem boxing), no estilo de {@link FingerprintSet}.
+ *
+ * Não é thread-safe: usado por um lote de cada vez, na thread que escreve o COPY.
+ */
+public final class NearDuplicateIndex {
+
+    public static final int SHINGLE = 5;
+
+    private static final float LOAD = 0.6f;
+    private static final int MAX_CANDIDATES_PER_BAND = 32;   // faixa "popular" (textos curtos) não vira varredura
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private final int hashes;
+    private final int bands;
+    private final int rows;
+    private final int minEqual;              // posições iguais na assinatura para Jaccard estimado >= threshold
+    private final long[] mulA;
+    private final long[] addB;
+
+    // representantes: assinatura, grupo (par de línguas) e melhor quality vista no grupo de parecidos
+    private int[] sigs;
+    private long[] groups;
+    private double[] quality;
+    private int reps;
+
+    // faixa → cabeça da lista de representantes; próximo da lista em next[rep * bands + banda]
+    private long[] keys;
+    private int[] heads;
+    private int mask;
+    private int used;
+    private int resizeAt;
+    private int[] next;
+
+    // rascunho por chamada
+    private final int[] sig;
+    private final long[] bandKeys;
+    private char[] canon = new char[256];
+
+    private long dropped;
+
+    /**
+     * @param hashes    tamanho da assinatura (múltiplo de {@code bands})
+     * @param bands     faixas do LSH; mais faixas = mais candidatos (recall maior, mais comparações)
+     * @param threshold Jaccard estimado mínimo para considerar quase-duplicata
+     * @param expected  representantes esperados (dimensiona as tabelas)
+     */
+    public NearDuplicateIndex(int hashes, int bands, double threshold, int expected) {
+        if (bands <= 0 || hashes <= 0 || hashes % bands != 0) {
+            throw new IllegalArgumentException("hashes (" + hashes + ") deve ser múltiplo de bands (" + bands + ")");
+        }
+        if (threshold <= 0 || threshold > 1) throw new IllegalArgumentException("threshold fora de (0,1]: " + threshold);
+        this.hashes = hashes;
+        this.bands = bands;
+        this.rows = hashes / bands;
+        this.minEqual = (int) Math.ceil(threshold * hashes);
+        this.mulA = new long[hashes];
+        this.addB = new long[hashes];
+        long s = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < hashes; i++) {
+            mulA[i] = splitmix(s += 0x9E3779B97F4A7C15L) | 1L;
+            addB[i] = splitmix(s += 0x9E3779B97F4A7C15L);
+        }
+        this.sig = new int[hashes];
+        this.bandKeys = new long[bands];
+
+        int cap = Math.max(16, Math.min(1 << 16, expected));   // cresce sob demanda
+        sigs = new int[cap * hashes];
+        groups = new long[cap];
+        quality = new double[cap];
+        next = new int[cap * bands];
+        allocTable(Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, (long) (cap * bands / LOAD) + 1)) - 1) << 1);
+    }
+
+    /**
+     * Oferece um texto ao índice.
+     * Sem parecido (mesmo grupo, Jaccard estimado &gt;= threshold): vira representante e retorna true.
+     * Com parecido de quality maior ou igual: retorna false (descartar). Com parecido de quality menor:
+     * retorna true e o representante passa a exigir essa quality — num stream não dá para desfazer a
+     * linha já escrita, então o grupo fica com a primeira ocorrência e com cada melhoria sobre ela.
+     *
+     * @param group identifica o par de línguas (só compara textos do mesmo grupo)
+     */
+    public boolean offer(String text, long group, double q) {
+        int n = canonicalize(text);
+        if (n == 0) return true;   // nada para comparar (só pontuação/símbolos)
+        signature(n);
+
+        for (int b = 0; b < bands; b++) {
+            long h = group * C1 + b;
+            for (int r = b * rows, end = r + rows; r < end; r++) h = Long.rotateLeft(h ^ (sig[r] * C1), 31) * 5 + 0x52dce729;
+            long key = fmix64(h);
+            bandKeys[b] = key == 0 ? 1 : key;
+        }
+
+        for (int b = 0; b < bands; b++) {
+            int slot = find(bandKeys[b]);
+            if (slot < 0) continue;
+            int seen = 0;
+            for (int id = heads[slot]; id >= 0 && seen < MAX_CANDIDATES_PER_BAND; id = next[id * bands + b], seen++) {
+                if (groups[id] != group || !similar(id)) continue;
+                if (q <= quality[id]) {
+                    dropped++;
+                    return false;
+                }
+                quality[id] = q;
+                return true;
+            }
+        }
+
+        add(group, q);
+        return true;
+    }
+
+    public int representatives() { return reps; }
+
+    public long dropped() { return dropped; }
+
+    // ---------- MinHash ----------
+
+    /** Minúsculas, letras/dígitos, um espaço entre palavras; devolve o comprimento em {@link #canon}. */
+    private int canonicalize(String text) {
+        int n = 0;
+        boolean space = false;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && n > 0) put(n++, ' ');
+                put(n++, Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return n;
+    }
+
+    private void put(int i, char c) {
+        if (i == canon.length) canon = Arrays.copyOf(canon, canon.length * 2);
+        canon[i] = c;
+    }
+
+    private void signature(int n) {
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        int last = Math.max(0, n - SHINGLE);
+        for (int i = 0; i <= last; i++) {
+            long k = 0;
+            for (int j = i, end = Math.min(n, i + SHINGLE); j < end; j++) k = k * C1 + canon[j];
+            long x = fmix64(k);
+            for (int h = 0; h < hashes; h++) {
+                int v = (int) ((x * mulA[h] + addB[h]) >>> 33);
+                if (v < sig[h]) sig[h] = v;
+            }
+        }
+    }
+
+    private boolean similar(int id) {
+        int base = id * hashes;
+        int eq = 0;
+        for (int h = 0; h < hashes; h++) {
+            if (sigs[base + h] == sig[h]) eq++;
+            else if (eq + (hashes - h - 1) < minEqual) return false;   // não alcança mais o mínimo
+        }
+        return eq >= minEqual;
+    }
+
+    // ---------- tabelas ----------
+
+    private void add(long group, double q) {
+        if (reps == groups.length) growReps();
+        if (used + bands > resizeAt) rehash();
+        int id = reps++;
+        System.arraycopy(sig, 0, sigs, id * hashes, hashes);
+        groups[id] = group;
+        quality[id] = q;
+        for (int b = 0; b < bands; b++) {
+            long key = bandKeys[b];
+            int i = slot(key);
+            while (keys[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == 0) {
+                keys[i] = key;
+                heads[i] = -1;
+                used++;
+            }
+            next[id * bands + b] = heads[i];
+            heads[i] = id;
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        allocTable(oldKeys.length << 1);
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k == 0) continue;
+            int i = slot(k);
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = k;
+            heads[i] = oldHeads[j];
+            used++;
+        }
+    }
+
+    private int find(long key) {
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == 0) return -1;
+            if (k == key) return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private void allocTable(int cap) {
+        if (cap > (1 << 30)) throw new IllegalStateException("NearDuplicateIndex cheio (" + reps + " representantes)");
+        keys = new long[cap];
+        heads = new int[cap];
+        mask = cap - 1;
+        used = 0;
+        resizeAt = (int) (cap * LOAD);
+    }
+
+    private void growReps() {
+        int cap = groups.length << 1;
+        sigs = Arrays.copyOf(sigs, cap * hashes);
+        groups = Arrays.copyOf(groups, cap);
+        quality = Arrays.copyOf(quality, cap);
+        next = Arrays.copyOf(next, cap * bands);
+    }
+
+    private static long splitmix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
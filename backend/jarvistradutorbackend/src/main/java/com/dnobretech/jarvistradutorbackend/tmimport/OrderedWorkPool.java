@@ -0,0 +1,68 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool de workers que devolve os resultados NA ORDEM de submissão.
+ * A thread que chama {@link #submit} é a única consumidora: quando a janela de tarefas
+ * pendentes enche, ela espera a mais antiga e entrega o resultado ao {@link Sink}.
+ * Assim o COPY continua sendo um único stream ordenado e o checkpoint fica exato.
+ */
+public final class OrderedWorkPool<T> implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Sink<T> {
+        void accept(T value) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final Deque<Future<T>> pending = new ArrayDeque<>();
+    private final int maxPending;
+    private final Sink<T> sink;
+
+    public OrderedWorkPool(String name, int workers, int maxPending, Sink<T> sink) {
+        final AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, workers), r -> {
+            Thread t = new Thread(r, name + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.maxPending = Math.max(1, maxPending);
+        this.sink = sink;
+    }
+
+    /** Enfileira a tarefa; bloqueia (drenando em ordem) enquanto a janela estiver cheia. */
+    public void submit(Callable<T> task) throws Exception {
+        while (pending.size() >= maxPending) drainOne();
+        pending.addLast(executor.submit(task));
+    }
+
+    /** Espera todas as tarefas pendentes e entrega os resultados restantes. */
+    public void finish() throws Exception {
+        while (!pending.isEmpty()) drainOne();
+    }
+
+    private void drainOne() throws Exception {
+        Future<T> f = pending.removeFirst();
+        T value;
+        try {
+            value = f.get();
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof Exception ex) throw ex;
+            if (c instanceof Error err) throw err;
+            throw e;
+        }
+        sink.accept(value);
+    }
+
+    @Override
+    public void close() {
+        for (Future<T> f : pending) f.cancel(true);
+        pending.clear();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,56 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+/**
+ * Fingerprint de 64 bits de (src, tgt, lang_src, lang_tgt) para dedupe na JVM,
+ * sem montar a string "src\u0001tgt\u0001..." a cada linha.
+ * Mistura estilo murmur3 (4 chars por passo) + comprimento de cada campo como separador.
+ */
+public final class PairFingerprint {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private PairFingerprint() {}
+
+    public static long of(String src, String tgt, String langSrc, String langTgt) {
+        long h = 0x2545F4914F6CDD1DL;
+        h = mix(h, src);
+        h = mix(h, tgt);
+        h = mix(h, langSrc);
+        h = mix(h, langTgt);
+        return fmix64(h);
+    }
+
+    private static long mix(long h, String s) {
+        int n = s.length();
+        int i = 0;
+        for (; i + 4 <= n; i += 4) {
+            long k = (long) s.charAt(i)
+                    | ((long) s.charAt(i + 1) << 16)
+                    | ((long) s.charAt(i + 2) << 32)
+                    | ((long) s.charAt(i + 3) << 48);
+            h = step(h, k);
+        }
+        long k = 0;
+        for (int sh = 0; i < n; i++, sh += 16) k |= (long) s.charAt(i) << sh;
+        h = step(h, k);
+        return step(h, n);
+    }
+
+    private static long step(long h, long k) {
+        k *= C1;
+        k = Long.rotateLeft(k, 31);
+        k *= C2;
+        h ^= k;
+        return Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
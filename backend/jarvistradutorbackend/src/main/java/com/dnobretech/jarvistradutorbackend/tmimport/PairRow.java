@@ -0,0 +1,5 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+/** Par já normalizado e aprovado nos filtros baratos (ratio/placeholders), pronto para o COPY. */
+public record PairRow(String src, String tgt, String langSrc, String langTgt, double quality) {
+}
@@ -0,0 +1,53 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Leitor mantido aberto entre os lotes de um mesmo run ({@code *ResumeToEnd}, import de diretório):
+ * o lote seguinte continua do decodificador e do buffer do anterior, em vez de reabrir o arquivo e,
+ * em .gz/.zst, descomprimir de novo do início até o offset do checkpoint.
+ *
+ * Só é reaproveitado quando o checkpoint lido pelo lote seguinte é exatamente a posição em que o
+ * leitor parou no mesmo arquivo (o lote anterior commitou); qualquer outra coisa fecha o leitor e o
+ * lote reabre pelo caminho normal. Uma instância por run, usada só pela thread do run.
+ */
+public final class ReaderCarry implements Closeable {
+
+    private Closeable reader;
+    private String path;
+    private long offset;
+
+    /** Leitor do tipo pedido parado em {@code offset} de {@code path}; {@code null} = o lote abre um novo. */
+    public <T extends Closeable> T take(Class<T> type, String path, long offset) {
+        Closeable r = reader;
+        reader = null;
+        if (r == null) return null;
+        if (type.isInstance(r) && this.path.equals(path) && this.offset == offset) return type.cast(r);
+        closeQuietly(r);
+        return null;
+    }
+
+    /** Guarda o leitor parado em {@code offset} para o próximo lote (fecha o que houver antes). */
+    public void keep(String path, Closeable reader, long offset) {
+        if (this.reader != null && this.reader != reader) closeQuietly(this.reader);
+        this.reader = reader;
+        this.path = path;
+        this.offset = offset;
+    }
+
+    /** Fim do run (concluído, cancelado ou com erro). */
+    @Override
+    public void close() {
+        Closeable r = reader;
+        reader = null;
+        if (r != null) closeQuietly(r);
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException ignore) {
+        }
+    }
+}
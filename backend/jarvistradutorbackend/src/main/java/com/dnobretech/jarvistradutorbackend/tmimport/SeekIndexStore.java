@@ -0,0 +1,61 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import com.dnobretech.jarvistradutorbackend.util.CompressedInput;
+import com.dnobretech.jarvistradutorbackend.util.SeekIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índices de seek ({@link SeekIndex}) dos arquivos .gz/.zst importados, um por arquivo de origem em
+ * {@code <seek-index.dir>/<nome>-<hash>.idx}. Ficam fora do checkpoint porque são do arquivo e não do
+ * import: qualquer leitura grava pontos, e uma retomada a frio (outro run, outro fileKey, restart do
+ * processo) parte do ponto mais próximo em vez do início. Arquivo de origem alterado = índice refeito.
+ */
+@Slf4j
+@Component
+public class SeekIndexStore {
+
+    @Value("${jarvis.tm.seek-index.dir:${app.storageDir}import-seek}")
+    private String dir;
+
+    @Value("${jarvis.tm.seek-index.span-mb:32}")
+    private int spanMb;
+
+    private final Map<Path, SeekIndex> cache = new ConcurrentHashMap<>();
+
+    /** Índice de {@code source}; {@code null} se o formato não usa (sem compressão, xz) ou se não deu para abrir. */
+    public SeekIndex forFile(Path source, CompressedInput.Codec codec) {
+        if (codec != CompressedInput.Codec.GZIP && codec != CompressedInput.Codec.ZSTD) return null;
+        Path key = source.toAbsolutePath().normalize();
+        SeekIndex idx = cache.get(key);
+        if (idx != null && idx.matchesSource()) return idx;
+        try {
+            idx = SeekIndex.open(fileFor(key), key, codec, (long) spanMb << 20);
+            cache.put(key, idx);
+            if (idx.size() > 0) log.info("Índice de seek carregado: {} pontos para {}", idx.size(), key);
+            return idx;
+        } catch (IOException e) {
+            log.warn("Índice de seek indisponível para {}: {}; retomada descomprime desde o início", key, e.toString());
+            cache.remove(key);
+            return null;
+        }
+    }
+
+    private Path fileFor(Path source) {
+        String name = source.getFileName() == null ? "arquivo" : source.getFileName().toString();
+        String safe = name.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (safe.length() > 100) safe = safe.substring(0, 100);
+        long h = PairFingerprint.of(source.toString(), "", "", "");
+        byte[] tag = ByteBuffer.allocate(4).putInt((int) (h ^ (h >>> 32))).array();
+        return Paths.get(dir, safe + "-" + HexFormat.of().formatHex(tag) + ".idx");
+    }
+}
@@ -0,0 +1,179 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Consolidação staging → tm por faixas de pair_hash em vez de um único
+ * {@code DISTINCT ON} + {@code INSERT ... ON CONFLICT} sobre a tabela inteira.
+ * Cada faixa é um {@code DELETE ... RETURNING} alimentando o upsert: ordena só o pedaço, segura
+ * locks e gera WAL só daquele pedaço, e o que já foi consolidado sai do staging no mesmo commit
+ * (se cair no meio, o próximo merge continua do que restou).
+ *
+ * Faixas são disjuntas em pair_hash, então várias conexões podem consolidar ao mesmo tempo sem
+ * disputar as mesmas linhas de tm. Dentro de uma transação já aberta (lote do import resumível)
+ * as faixas rodam em sequência na conexão dela, para continuar tudo-ou-nada.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StagingMerger {
+
+    private static final Pattern IDENT = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final JdbcTemplate jdbc;
+    private final PlatformTransactionManager txManager;
+    private final ImportMetrics metrics;
+
+    /** tamanho alvo (em disco) de cada faixa; define o número de faixas */
+    @Value("${jarvis.tm.merge.target-partition-mb:64}")
+    private long targetPartitionMb;
+
+    @Value("${jarvis.tm.merge.max-partitions:256}")
+    private int maxPartitions;
+
+    /** conexões em paralelo (só fora de transação) */
+    @Value("${jarvis.tm.merge.parallelism:1}")
+    private int parallelism;
+
+    public record MergeStats(long rows, int partitions, long millis) {}
+
+    /**
+     * Consolida {@code stagingTable} (src,tgt,lang_src,lang_tgt,quality,pair_hash) em tm.
+     * Retorna o total de linhas inseridas/atualizadas em tm.
+     */
+    public MergeStats mergeIntoTm(String stagingTable) {
+        if (!IDENT.matcher(stagingTable).matches()) throw new IllegalArgumentException("Tabela inválida: " + stagingTable);
+        long t0 = System.nanoTime();
+
+        Long bytes = jdbc.queryForObject("SELECT pg_relation_size(to_regclass(?::text))", Long.class, stagingTable);
+        if (bytes == null) return new MergeStats(0, 0, 0);   // staging ainda não existe
+        int partitions = partitionsFor(bytes);
+        if (partitions > 1) {
+            // faixa = range scan; sem índice cada faixa leria o staging inteiro
+            jdbc.execute("CREATE INDEX IF NOT EXISTS idx_" + stagingTable + "_pair_hash ON " + stagingTable + " (pair_hash)");
+        }
+
+        boolean inTx = TransactionSynchronizationManager.isActualTransactionActive();
+        int threads = inTx ? 1 : Math.max(1, Math.min(parallelism, partitions));
+        String sql = mergeSql(stagingTable);
+
+        AtomicLong rows = new AtomicLong();
+        AtomicInteger done = new AtomicInteger();
+        if (threads == 1) {
+            TransactionTemplate tt = inTx ? null : newTemplate();
+            for (int p = 0; p < partitions; p++) {
+                final int part = p;
+                Integer n = inTx ? mergePartition(sql, part, partitions)
+                        : tt.execute(s -> mergePartition(sql, part, partitions));
+                report(stagingTable, part, partitions, n, rows, done);
+            }
+        } else {
+            TransactionTemplate tt = newTemplate();
+            AtomicInteger seq = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "tm-merge-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<?>> fs = new ArrayList<>(partitions);
+                for (int p = 0; p < partitions; p++) {
+                    final int part = p;
+                    fs.add(pool.submit(() -> report(stagingTable, part, partitions,
+                            tt.execute(s -> mergePartition(sql, part, partitions)), rows, done)));
+                }
+                for (Future<?> f : fs) f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Merge de " + stagingTable + " interrompido", e);
+            } catch (Exception e) {
+                Throwable c = e.getCause() != null ? e.getCause() : e;
+                if (c instanceof RuntimeException re) throw re;
+                throw new IllegalStateException("Merge de " + stagingTable + " falhou", c);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        metrics.merged("tm", rows.get(), ms);
+        log.info("[merge] {} → tm: {} linhas em {} faixas ({} conexões) em {} ms",
+                stagingTable, rows.get(), partitions, threads, ms);
+        return new MergeStats(rows.get(), partitions, ms);
+    }
+
+    private Integer mergePartition(String sql, int part, int partitions) {
+        String lo = bound(part, partitions);
+        String hi = bound(part + 1, partitions);
+        return jdbc.update(sql, lo, hi, hi);
+    }
+
+    private void report(String table, int part, int partitions, Integer n, AtomicLong rows, AtomicInteger done) {
+        long total = rows.addAndGet(n == null ? 0 : n);
+        int d = done.incrementAndGet();
+        if (partitions > 1) log.info("[merge] {} faixa {}/{} (+{}) concluídas={} total={}", table, part + 1, partitions, n, d, total);
+    }
+
+    private TransactionTemplate newTemplate() {
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tt;
+    }
+
+    /** Potência de 2 (faixas alinhadas nos 16 bits iniciais do uuid), entre 1 e max-partitions. */
+    int partitionsFor(long bytes) {
+        long target = Math.max(1, targetPartitionMb) << 20;
+        long want = Math.max(1, (bytes + target - 1) / target);
+        int cap = Math.max(1, Math.min(Integer.highestOneBit(Math.max(1, maxPartitions)), 1 << 16));
+        int p = 1;
+        while (p < want && p < cap) p <<= 1;
+        return p;
+    }
+
+    /** Limite inferior da faixa {@code i} (uuid compara byte a byte); {@code i == partitions} = sem limite. */
+    static String bound(int i, int partitions) {
+        if (i >= partitions) return null;
+        int prefix = (int) ((long) i * 65536 / partitions);
+        return String.format("%04x0000-0000-0000-0000-000000000000", prefix);
+    }
+
+    private static String mergeSql(String staging) {
+        return """
+            WITH moved AS (
+              DELETE FROM %1$s
+               WHERE pair_hash >= ?::uuid
+                 AND (?::uuid IS NULL OR pair_hash < ?::uuid)
+              RETURNING src, tgt, lang_src, lang_tgt, quality, pair_hash
+            ),
+            dedup AS (
+              SELECT DISTINCT ON (pair_hash)
+                     src, tgt, lang_src, lang_tgt, quality
+                FROM moved
+               ORDER BY pair_hash, quality DESC NULLS LAST
+            )
+            INSERT INTO tm (src, tgt, lang_src, lang_tgt, quality)
+            SELECT src, tgt, lang_src, lang_tgt, quality
+              FROM dedup
+            ON CONFLICT (pair_hash)
+            DO UPDATE
+              SET quality = GREATEST(EXCLUDED.quality, tm.quality)
+            """.formatted(staging);
+    }
+}
@@ -0,0 +1,119 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Staging por import: cada COPY escreve numa tabela UNLOGGED própria
+ * ({@code <base>__<epoch base36>_<aleatório>}) criada a partir da tabela base
+ * ({@code LIKE ... INCLUDING DEFAULTS INCLUDING GENERATED}, ou seja, com pair_hash),
+ * e que é dropada no fim. Imports simultâneos não veem (nem truncam) o staging um do outro.
+ *
+ * A base continua existindo só como molde. DDL roda em transação própria para ficar visível
+ * às outras conexões do import (COPY de embeddings, merge em paralelo) antes do primeiro COPY.
+ * Tabelas de um processo que caiu são removidas na subida depois de {@code orphan-ttl}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StagingTables {
+
+    private static final Pattern BASE = Pattern.compile("[a-z_]{1,30}");
+    private static final Pattern SCOPED = Pattern.compile("([a-z_]+)__([0-9a-z]{1,8})_([0-9a-f]{8})");
+
+    private final JdbcTemplate jdbc;
+    private final PlatformTransactionManager txManager;
+
+    @Value("${jarvis.staging.orphan-ttl:24h}")
+    private Duration orphanTtl;
+
+    /** Tabelas de staging de um import; {@link #close()} dropa todas. */
+    public final class Scope implements AutoCloseable {
+        private final Map<String, String> tables;
+
+        private Scope(Map<String, String> tables) { this.tables = tables; }
+
+        /** Nome da tabela deste import para a base {@code base}. */
+        public String table(String base) {
+            String t = tables.get(base);
+            if (t == null) throw new IllegalArgumentException("Staging não criado para " + base);
+            return t;
+        }
+
+        @Override
+        public void close() {
+            for (String t : tables.values()) {
+                try {
+                    ddl("DROP TABLE IF EXISTS " + t);
+                } catch (Exception e) {
+                    log.warn("[staging] falha ao dropar {} (fica para a limpeza de órfãos): {}", t, e.toString());
+                }
+            }
+        }
+    }
+
+    /** Cria um staging UNLOGGED por base; as bases precisam existir. */
+    public Scope create(String... bases) {
+        String tag = Long.toString(System.currentTimeMillis() / 1000, 36) + "_"
+                + String.format("%08x", ThreadLocalRandom.current().nextInt());
+        Map<String, String> tables = new LinkedHashMap<>();
+        Scope scope = new Scope(tables);
+        try {
+            for (String base : bases) {
+                if (!BASE.matcher(base).matches()) throw new IllegalArgumentException("Base inválida: " + base);
+                String t = base + "__" + tag;
+                ddl("CREATE UNLOGGED TABLE " + t + " (LIKE " + base + " INCLUDING DEFAULTS INCLUDING GENERATED)");
+                tables.put(base, t);
+            }
+        } catch (RuntimeException e) {
+            scope.close();
+            throw e;
+        }
+        log.debug("[staging] criados {}", tables.values());
+        return scope;
+    }
+
+    @PostConstruct
+    void dropOrphans() {
+        long now = System.currentTimeMillis() / 1000;
+        List<String> names = jdbc.queryForList(
+                "SELECT tablename FROM pg_tables WHERE schemaname = current_schema() AND tablename LIKE '%\\_\\_%'",
+                String.class);
+        int dropped = 0;
+        for (String name : names) {
+            Matcher m = SCOPED.matcher(name);
+            if (!m.matches()) continue;
+            long created;
+            try { created = Long.parseLong(m.group(2), 36); } catch (NumberFormatException e) { continue; }
+            if (now - created < orphanTtl.toSeconds()) continue;   // pode ser de outra instância ainda rodando
+            try {
+                ddl("DROP TABLE IF EXISTS " + name);
+                dropped++;
+            } catch (Exception e) {
+                log.warn("[staging] falha ao dropar órfã {}: {}", name, e.toString());
+            }
+        }
+        if (dropped > 0) log.info("[staging] {} tabela(s) de staging órfãs removidas", dropped);
+    }
+
+    private void ddl(String sql) {
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        tt.executeWithoutResult(s -> jdbc.execute(sql));
+    }
+}
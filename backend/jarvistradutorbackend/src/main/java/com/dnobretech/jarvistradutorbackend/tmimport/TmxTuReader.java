@@ -0,0 +1,254 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recorta um TMX em elementos {@code <tu>...</tu>} direto nos bytes, sem XML parser, e agrupa em
+ * lotes para os workers (cada lote é parseado por StAX lá, envolto num elemento raiz).
+ * Cada lote traz o offset logo após o último {@code </tu>} completo: é o ponto de retomada gravado
+ * no checkpoint (offset do conteúdo descomprimido, ver {@code CompressedInput.openAt}).
+ *
+ * Codificação ({@link Encoding#detect}): BOM ou {@code encoding=} da declaração XML. Codificações
+ * compatíveis com ASCII (UTF-8, ISO-8859-x, windows-125x...) são recortadas byte a byte; UTF-16
+ * (LE/BE) em unidades de 2 bytes, então os offsets continuam sendo do arquivo e o lote vai para o
+ * StAX na codificação original ({@link Batch#charset}). UTF-32 e codificações desconhecidas são recusadas.
+ *
+ * Tudo fora de um TU (cabeçalho, {@code <body>}, {@code </tmx>}) é descartado; um TU truncado no fim
+ * do arquivo não entra em lote nenhum. Limitação: {@code </tu>} literal dentro de CDATA/comentário
+ * cortaria o TU (o StAX do lote acusa o XML inválido).
+ */
+public final class TmxTuReader implements Closeable {
+
+    public static final int DEFAULT_BUFFER = 1 << 20;
+
+    /** Bytes do início do arquivo que bastam para o BOM e a declaração XML. */
+    public static final int SNIFF_BYTES = 1 << 10;
+
+    private final ReadableByteChannel ch;
+    private Encoding enc;     // null = detectar no primeiro next() (leitura a partir do offset 0)
+    private int u;            // bytes por unidade: 1 ou 2 (UTF-16)
+    private byte[] buf;
+    private int pos;          // início do que ainda não foi consumido
+    private int lim;          // fim dos bytes válidos
+    private long base;        // offset absoluto de buf[0]
+    private boolean eof;
+    private long position;    // offset logo após o último TU entregue
+
+    /** Detecta a codificação pelo início do canal ({@code startOffset} tem que ser 0). */
+    public TmxTuReader(ReadableByteChannel ch, long startOffset, int bufferSize) {
+        this(ch, startOffset, bufferSize, null);
+        if (startOffset != 0) throw new IllegalArgumentException("Sem codificação informada, a leitura tem que começar no offset 0");
+    }
+
+    /** Retomada no meio do arquivo: codificação detectada antes, pelo início ({@link Encoding#detect}). */
+    public TmxTuReader(ReadableByteChannel ch, long startOffset, int bufferSize, Encoding encoding) {
+        this.ch = ch;
+        this.buf = new byte[Math.max(1 << 12, bufferSize)];
+        this.base = startOffset;
+        this.position = startOffset;
+        this.enc = encoding;
+        this.u = encoding != null ? encoding.unit() : 1;
+    }
+
+    /**
+     * Lote com os bytes dos TUs concatenados, na codificação do arquivo.
+     * @param endOffset offset logo após o último {@code </tu>} do lote
+     */
+    public record Batch(byte[] data, int length, int tus, long endOffset, Charset charset) {}
+
+    /**
+     * Codificação do arquivo.
+     * @param unit      bytes por unidade de código (1 = compatível com ASCII, 2 = UTF-16)
+     * @param bigEndian só para {@code unit == 2}
+     */
+    public record Encoding(Charset charset, int unit, boolean bigEndian) {
+
+        public static final Encoding UTF8 = new Encoding(StandardCharsets.UTF_8, 1, false);
+        public static final Encoding UTF16LE = new Encoding(StandardCharsets.UTF_16LE, 2, false);
+        public static final Encoding UTF16BE = new Encoding(StandardCharsets.UTF_16BE, 2, true);
+
+        private static final Pattern DECL_ENCODING =
+                Pattern.compile("encoding\\s*=\\s*[\"']([A-Za-z][A-Za-z0-9._-]*)[\"']");
+        private static final String MARKUP = "<tu></tu><b></b>/ \t\r\n";
+
+        /**
+         * Pelo início do arquivo ({@code head[0, n)}, até {@link #SNIFF_BYTES}): BOM, depois os bytes de
+         * {@code <?xml} em UTF-16 sem BOM, depois o {@code encoding=} da declaração; nada disso = UTF-8.
+         * @throws IllegalArgumentException UTF-32, codificação desconhecida ou que não preserva ASCII
+         */
+        public static Encoding detect(byte[] head, int n) {
+            if (n >= 4 && ((head[0] == 0 && head[1] == 0 && head[2] == (byte) 0xFE && head[3] == (byte) 0xFF)
+                    || (head[0] == (byte) 0xFF && head[1] == (byte) 0xFE && head[2] == 0 && head[3] == 0))) {
+                throw new IllegalArgumentException("TMX em UTF-32 não suportado; converta para UTF-8 ou UTF-16");
+            }
+            if (n >= 3 && head[0] == (byte) 0xEF && head[1] == (byte) 0xBB && head[2] == (byte) 0xBF) return UTF8;
+            if (n >= 2 && head[0] == (byte) 0xFE && head[1] == (byte) 0xFF) return UTF16BE;
+            if (n >= 2 && head[0] == (byte) 0xFF && head[1] == (byte) 0xFE) return UTF16LE;
+            if (n >= 4 && head[0] == '<' && head[1] == 0 && head[2] == '?' && head[3] == 0) return UTF16LE;
+            if (n >= 4 && head[0] == 0 && head[1] == '<' && head[2] == 0 && head[3] == '?') return UTF16BE;
+
+            String text = new String(head, 0, n, StandardCharsets.ISO_8859_1);
+            if (!text.startsWith("<?xml")) return UTF8;
+            int end = text.indexOf("?>");
+            Matcher mt = DECL_ENCODING.matcher(end < 0 ? text : text.substring(0, end));
+            if (!mt.find()) return UTF8;
+
+            String name = mt.group(1);
+            Charset cs;
+            try {
+                cs = Charset.forName(name);
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                throw new IllegalArgumentException("Encoding do TMX não suportado: " + name);
+            }
+            if (cs.equals(StandardCharsets.UTF_8)) return UTF8;
+            // o recorte procura "<tu" / "</tu>" como bytes ASCII: a codificação tem que escrevê-los igual
+            if (!cs.canEncode() || !Arrays.equals(MARKUP.getBytes(cs), MARKUP.getBytes(StandardCharsets.US_ASCII))) {
+                throw new IllegalArgumentException("Encoding do TMX '" + name + "' não confere com os bytes do arquivo"
+                        + " (UTF-16 precisa de BOM ou começar com <?xml) ou não é compatível com ASCII");
+            }
+            return new Encoding(cs, 1, false);
+        }
+
+        /** Lê até {@link #SNIFF_BYTES} do início do canal (que é fechado) e detecta. */
+        public static Encoding detect(ReadableByteChannel head) throws IOException {
+            try (head) {
+                ByteBuffer bb = ByteBuffer.allocate(SNIFF_BYTES);
+                while (bb.hasRemaining() && head.read(bb) >= 0) { }
+                return detect(bb.array(), bb.position());
+            }
+        }
+    }
+
+    /** Próximos TUs (até {@code maxTus} ou ~{@code maxBytes}); {@code null} quando não há mais TU completo. */
+    public Batch next(int maxTus, int maxBytes) throws IOException {
+        if (enc == null) sniff();
+        byte[] out = new byte[Math.min(maxBytes, 1 << 16)];
+        int len = 0, tus = 0;
+        while (tus < maxTus && len < maxBytes) {
+            if (!findStart()) break;
+            int e = findEnd();
+            if (e < 0) break;
+            int n = e - pos;
+            if (len + n > out.length) out = Arrays.copyOf(out, Math.max(out.length * 2, len + n));
+            System.arraycopy(buf, pos, out, len, n);
+            len += n;
+            tus++;
+            pos = e;
+            position = base + e;
+        }
+        return tus == 0 ? null : new Batch(out, len, tus, position, enc.charset());
+    }
+
+    /** Offset logo após o último TU entregue. */
+    public long position() { return position; }
+
+    /** Codificação em uso ({@code null} antes do primeiro {@link #next} quando é detectada pelo reader). */
+    public Encoding encoding() { return enc; }
+
+    @Override
+    public void close() throws IOException { ch.close(); }
+
+    private void sniff() throws IOException {
+        while (lim < SNIFF_BYTES && fill()) { }
+        enc = Encoding.detect(buf, lim);
+        u = enc.unit();
+    }
+
+    /** Avança {@code pos} até um {@code <tu} seguido de espaço, {@code >} ou {@code /} (o que vem antes é descartado). */
+    private boolean findStart() throws IOException {
+        while (true) {
+            if (!ensure(pos + 4 * u - 1)) return false;
+            if (at(pos) == '<' && (at(pos + u) | 0x20) == 't' && (at(pos + 2 * u) | 0x20) == 'u' && isNameEnd(at(pos + 3 * u))) {
+                return true;
+            }
+            pos += u;
+        }
+    }
+
+    /**
+     * Índice logo após o {@code </tu>} (ou o {@code />} de um TU vazio) do TU que começa em {@code pos};
+     * -1 se o arquivo acabar antes. Posições relativas a {@code pos}: {@link #fill} pode compactar o buffer.
+     */
+    private int findEnd() throws IOException {
+        // fim da tag de abertura (aspas: '>' é permitido em valor de atributo)
+        int off = 3 * u;
+        int quote = 0;
+        while (true) {
+            if (!ensure(pos + off + u - 1)) return -1;
+            int c = at(pos + off);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                if (at(pos + off - u) == '/') return pos + off + u;   // <tu .../>
+                break;
+            }
+            off += u;
+        }
+        while (true) {
+            if (!ensure(pos + off + 4 * u - 1)) return -1;
+            int i = pos + off;
+            if (at(i) == '<' && at(i + u) == '/' && (at(i + 2 * u) | 0x20) == 't' && (at(i + 3 * u) | 0x20) == 'u') {
+                for (int j = off + 4 * u; ; j += u) {
+                    if (!ensure(pos + j + u - 1)) return -1;
+                    int b = at(pos + j);
+                    if (b == '>') return pos + j + u;
+                    if (b != ' ' && b != '\t' && b != '\r' && b != '\n') break;   // </tuv> etc.
+                }
+            }
+            off += u;
+        }
+    }
+
+    /** Caractere ASCII da unidade que começa em {@code i}; -1 se não for ASCII (UTF-16 fora de 0..0xFF). */
+    private int at(int i) {
+        if (u == 1) return buf[i] & 0xFF;
+        byte hi = enc.bigEndian() ? buf[i] : buf[i + 1];
+        byte lo = enc.bigEndian() ? buf[i + 1] : buf[i];
+        return hi == 0 ? lo & 0xFF : -1;
+    }
+
+    /** Garante {@code index < lim}, lendo mais se preciso; o chamador recalcula índices a partir de {@code pos}. */
+    private boolean ensure(int index) throws IOException {
+        while (index >= lim) {
+            int rel = index - pos;
+            if (!fill()) return false;
+            index = pos + rel;
+        }
+        return true;
+    }
+
+    /** Compacta (descarta antes de {@code pos}), cresce se preciso e lê mais; false = fim do canal. */
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, lim - pos);
+            lim -= pos;
+            base += pos;
+            pos = 0;
+        }
+        if (lim == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);   // TU maior que o buffer
+        int r = ch.read(ByteBuffer.wrap(buf, lim, buf.length - lim));
+        if (r < 0) {
+            eof = true;
+            return false;
+        }
+        lim += r;
+        return true;
+    }
+
+    private static boolean isNameEnd(int c) {
+        return c == '>' || c == '/' || c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+}
@@ -0,0 +1,129 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
+import org.tukaani.xz.XZInputStream;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Entrada possivelmente comprimida (.gz / .zst / .xz), detectada pelos magic bytes.
+ * Offsets são sempre do conteúdo DESCOMPRIMIDO (é o que vai para {@code ImportCheckpoint.byteOffset}).
+ * Retomada: sem compressão = seek no arquivo; xz = seek pelo índice de blocos do próprio .xz
+ * (rápido em arquivos multi-bloco, ex. {@code xz -T0}); gz/zst = parte do ponto de acesso mais próximo
+ * antes do offset, gravado num {@link SeekIndex} pelas leituras anteriores (janela deflate do gzip,
+ * início de quadro do zstd), e descomprime e descarta só o resto; sem índice, desde o início.
+ */
+public final class CompressedInput {
+
+    public enum Codec { NONE, GZIP, ZSTD, XZ }
+
+    private static final int STREAM_BUFFER = 1 << 16;
+
+    private CompressedInput() {}
+
+    public static Codec detect(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return detect(in.readNBytes(6));
+        }
+    }
+
+    /** Pelos primeiros bytes do stream (que precisa suportar mark/reset). */
+    public static Codec detect(BufferedInputStream in) throws IOException {
+        in.mark(8);
+        byte[] head = in.readNBytes(6);
+        in.reset();
+        return detect(head);
+    }
+
+    private static Codec detect(byte[] h) {
+        if (h.length >= 2 && (h[0] & 0xFF) == 0x1F && (h[1] & 0xFF) == 0x8B) return Codec.GZIP;
+        if (h.length >= 4 && (h[0] & 0xFF) == 0x28 && (h[1] & 0xFF) == 0xB5
+                && (h[2] & 0xFF) == 0x2F && (h[3] & 0xFF) == 0xFD) return Codec.ZSTD;
+        if (h.length >= 6 && (h[0] & 0xFF) == 0xFD && h[1] == '7' && h[2] == 'z'
+                && h[3] == 'X' && h[4] == 'Z' && h[5] == 0) return Codec.XZ;
+        return Codec.NONE;
+    }
+
+    /** Nome gravado no checkpoint ({@code null} = sem compressão). */
+    public static String label(Codec c) {
+        return c == Codec.NONE ? null : c.name().toLowerCase(Locale.ROOT);
+    }
+
+    public static InputStream decompress(InputStream raw, Codec c) throws IOException {
+        return switch (c) {
+            case NONE -> raw;
+            case GZIP -> new GZIPInputStream(raw, STREAM_BUFFER);       // aceita membros concatenados (pigz/bgzip)
+            case ZSTD -> new ZstdInputStream(raw).setContinuous(false);
+            case XZ -> new XZInputStream(raw);
+        };
+    }
+
+    /** Abre o stream (comprimido ou não) detectando o formato pelo conteúdo. */
+    public static InputStream open(InputStream raw) throws IOException {
+        BufferedInputStream in = raw instanceof BufferedInputStream b ? b : new BufferedInputStream(raw, STREAM_BUFFER);
+        return decompress(in, detect(in));
+    }
+
+    /** Canal já posicionado no offset {@code uncompressedOffset} do conteúdo descomprimido. */
+    public static ReadableByteChannel openAt(Path path, Codec c, long uncompressedOffset) throws IOException {
+        return openAt(path, c, uncompressedOffset, null);
+    }
+
+    /**
+     * Como {@link #openAt(Path, Codec, long)}; com {@code index} (gz/zst), começa no ponto de acesso
+     * mais próximo e grava no índice os pontos novos que a leitura encontrar.
+     */
+    public static ReadableByteChannel openAt(Path path, Codec c, long uncompressedOffset, SeekIndex index) throws IOException {
+        if (c == Codec.NONE) {
+            FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                fc.position(uncompressedOffset);
+            } catch (IOException e) {
+                fc.close();
+                throw e;
+            }
+            return fc;
+        }
+        if (c == Codec.XZ) {
+            SeekableXZInputStream xz = new SeekableXZInputStream(new SeekableFileInputStream(path.toFile()));
+            try {
+                xz.seek(uncompressedOffset);
+            } catch (IOException e) {
+                xz.close();
+                throw e;
+            }
+            return Channels.newChannel(xz);
+        }
+        SeekIndex.Point start = index == null ? SeekIndex.ORIGIN : index.floor(uncompressedOffset);
+        InputStream in = index == null
+                ? decompress(new BufferedInputStream(Files.newInputStream(path), STREAM_BUFFER), c)
+                : c == Codec.GZIP ? new GzipSeekInputStream(path, start, index) : new ZstdFrameInputStream(path, start, index);
+        try {
+            skipFully(in, uncompressedOffset - start.out());
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return Channels.newChannel(in);
+    }
+
+    private static void skipFully(InputStream in, long n) throws IOException {
+        byte[] sink = new byte[STREAM_BUFFER];
+        long left = n;
+        while (left > 0) {
+            int r = in.read(sink, 0, (int) Math.min(sink.length, left));
+            if (r < 0) throw new EOFException("Offset " + n + " além do fim do conteúdo descomprimido");
+            left -= r;
+        }
+    }
+}
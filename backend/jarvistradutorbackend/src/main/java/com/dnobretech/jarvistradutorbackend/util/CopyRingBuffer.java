@@ -0,0 +1,230 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Transporte produtor → consumidor para um COPY rodando em outra thread (no lugar de
+ * PipedInputStream/PipedOutputStream, que sincronizam a cada write e esperam em ciclos de 1 s
+ * quando o buffer enche ou esvazia).
+ *
+ * Anel SPSC de {@code chunks} blocos de {@code chunkSize} bytes, alocados uma vez e reaproveitados:
+ * o produtor enche o bloco da cauda direto pelo {@link #output()} e o publica inteiro; o consumidor
+ * ({@code CopyManager.copyIn} sobre o {@link #input()}) lê o bloco da cabeça e o devolve. Sem lock:
+ * só os índices são volatile; quem espera gira um pouco e depois estaciona até o outro lado acordá-lo.
+ *
+ * {@link #abort} de qualquer lado aparece como IOException na próxima operação do outro: o COPY
+ * cancela em vez de commitar dados parciais, e o parser para em vez de ficar preso num anel cheio.
+ * Exatamente uma thread escreve e uma lê.
+ */
+public final class CopyRingBuffer {
+
+    private static final int SPINS = 256;
+
+    private final byte[][] chunks;
+    private final int[] lengths;
+    private final int mask;
+
+    private volatile long head;                 // próximo bloco a ler (só o consumidor escreve)
+    private volatile long tail;                 // próximo bloco a publicar (só o produtor escreve)
+    private volatile boolean producerClosed;    // EOF depois do último bloco publicado
+    private volatile boolean consumerClosed;
+    private volatile Throwable error;
+    private volatile Thread producerWaiting;
+    private volatile Thread consumerWaiting;
+
+    private final Output output = new Output();
+    private final Input input = new Input();
+
+    /**
+     * @param chunks    blocos no anel (arredondado para potência de 2, mínimo 2)
+     * @param chunkSize bytes por bloco
+     */
+    public CopyRingBuffer(int chunks, int chunkSize) {
+        int n = Integer.highestOneBit(Math.max(2, chunks) - 1) << 1;
+        this.chunks = new byte[n][];
+        for (int i = 0; i < n; i++) this.chunks[i] = new byte[Math.max(1, chunkSize)];
+        this.lengths = new int[n];
+        this.mask = n - 1;
+    }
+
+    /** Lado do produtor (parser); {@code close()} = fim dos dados. */
+    public OutputStream output() { return output; }
+
+    /** Lado do consumidor (COPY); {@code close()} antes do fim faz o produtor falhar. */
+    public InputStream input() { return input; }
+
+    /** Falha de qualquer lado: o outro recebe IOException (com {@code cause}) na próxima leitura/escrita. */
+    public void abort(Throwable cause) {
+        if (error == null) error = cause != null ? cause : new IOException("abortado");
+        wake(producerWaiting);
+        wake(consumerWaiting);
+    }
+
+    private static void wake(Thread t) {
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    private static void parked() throws InterruptedIOException {
+        if (Thread.interrupted()) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Transferência do COPY interrompida");
+        }
+    }
+
+    private final class Output extends OutputStream {
+        private byte[] cur;
+        private int fill;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (cur == null) acquire();
+            cur[fill++] = (byte) b;
+            if (fill == cur.length) publish();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (cur == null) acquire();
+                int n = Math.min(len, cur.length - fill);
+                System.arraycopy(b, off, cur, fill, n);
+                fill += n;
+                off += n;
+                len -= n;
+                if (fill == cur.length) publish();
+            }
+        }
+
+        /** Publica o bloco parcial (o consumidor não espera o bloco encher). */
+        @Override
+        public void flush() throws IOException {
+            check();
+            if (fill > 0) publish();
+        }
+
+        /** Fim dos dados; o consumidor pode já ter lido tudo e fechado, então só um abort é erro aqui. */
+        @Override
+        public void close() throws IOException {
+            if (producerClosed) return;
+            if (fill > 0) publish();
+            producerClosed = true;
+            wake(consumerWaiting);
+            Throwable e = error;
+            if (e != null) throw new IOException("COPY abortado: " + e, e);
+        }
+
+        /** Bloco livre na cauda; com o anel cheio, espera o consumidor devolver um. */
+        private void acquire() throws IOException {
+            if (producerClosed) throw new IOException("CopyRingBuffer já fechado pelo produtor");
+            final long t = tail;
+            int spins = 0;
+            while (t - head >= chunks.length) {
+                check();
+                if (spins++ < SPINS) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                producerWaiting = Thread.currentThread();
+                if (t - head >= chunks.length && error == null && !consumerClosed) LockSupport.park(this);
+                producerWaiting = null;
+                parked();
+            }
+            check();
+            cur = chunks[(int) (t & mask)];
+            fill = 0;
+        }
+
+        private void publish() {
+            final long t = tail;
+            lengths[(int) (t & mask)] = fill;
+            cur = null;
+            fill = 0;
+            tail = t + 1;
+            wake(consumerWaiting);
+        }
+
+        private void check() throws IOException {
+            Throwable e = error;
+            if (e != null) throw new IOException("COPY abortado: " + e, e);
+            if (consumerClosed) throw new IOException("Leitor do COPY fechou antes do fim dos dados");
+        }
+    }
+
+    private final class Input extends InputStream {
+        private byte[] cur;
+        private int pos;
+        private int lim;
+
+        @Override
+        public int read() throws IOException {
+            if (cur == null && !next()) return -1;
+            int b = cur[pos++] & 0xFF;
+            if (pos == lim) release();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (cur == null && !next()) return -1;
+            int n = Math.min(len, lim - pos);
+            System.arraycopy(cur, pos, b, off, n);
+            pos += n;
+            if (pos == lim) release();
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return cur == null ? 0 : lim - pos;
+        }
+
+        @Override
+        public void close() {
+            consumerClosed = true;
+            wake(producerWaiting);
+        }
+
+        /** Próximo bloco publicado; false = produtor fechou e não há mais blocos. */
+        private boolean next() throws IOException {
+            final long h = head;
+            int spins = 0;
+            while (h >= tail) {
+                check();
+                if (producerClosed) {
+                    if (h >= tail) return false;   // close() publica antes de marcar o fim
+                    break;
+                }
+                if (spins++ < SPINS) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                consumerWaiting = Thread.currentThread();
+                if (h >= tail && error == null && !producerClosed) LockSupport.park(this);
+                consumerWaiting = null;
+                parked();
+            }
+            check();
+            int s = (int) (h & mask);
+            cur = chunks[s];
+            pos = 0;
+            lim = lengths[s];
+            return true;
+        }
+
+        private void release() {
+            cur = null;
+            head = head + 1;
+            wake(producerWaiting);
+        }
+
+        private void check() throws IOException {
+            Throwable e = error;
+            if (e != null) throw new IOException("Produtor do COPY abortou: " + e, e);
+        }
+    }
+}
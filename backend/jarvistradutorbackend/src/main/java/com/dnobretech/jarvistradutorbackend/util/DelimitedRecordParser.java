@@ -0,0 +1,137 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Quebra uma linha TSV/CSV em colunas direto sobre os bytes UTF-8 do buffer do leitor, sem String
+ * da linha nem {@code String[]}: cada coluna é uma faixa [início, fim) e só vira String quando
+ * {@link #text(int)} é chamado (linhas rejeitadas não materializam as colunas que sobram).
+ *
+ * Delimitador literal de um ou mais caracteres (UTF-8 é auto-sincronizante, então comparar bytes
+ * só casa em fronteira de caractere). Com {@code quoting}, campo que começa com {@code "} segue a
+ * RFC-4180: o delimitador dentro das aspas é texto e {@code ""} vira {@code "}. Os registros são
+ * linhas (offsets do checkpoint e faixas do modo paralelo são alinhados a linha), então aspas
+ * não atravessam quebra de linha: aspas sem fechamento vão até o fim da linha.
+ *
+ * Não é thread-safe e as faixas valem até o próximo {@link #parse}: um parser por leitor/worker.
+ */
+public final class DelimitedRecordParser {
+
+    private static final byte QUOTE = '"';
+
+    private final byte[] delim;
+    private final boolean quoting;
+
+    private byte[] data;
+    private int count;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private boolean[] quoted = new boolean[8];
+    private byte[] unquoteBuf = new byte[256];
+
+    public DelimitedRecordParser(String delimiter, boolean quoting) {
+        if (delimiter == null || delimiter.isEmpty()) throw new IllegalArgumentException("Delimitador vazio");
+        this.delim = delimiter.getBytes(StandardCharsets.UTF_8);
+        this.quoting = quoting;
+    }
+
+    /** Aspas RFC-4180 ligadas por padrão só para delimitadores de CSV ({@code ,} e {@code ;}). */
+    public static boolean quotingByDefault(String delimiter) {
+        return ",".equals(delimiter) || ";".equals(delimiter);
+    }
+
+    /** Quebra {@code data[from, from + length)} (linha sem terminador) em colunas. */
+    public void parse(byte[] data, int from, int length) {
+        this.data = data;
+        this.count = 0;
+        final int end = from + length;
+        int i = from;
+        while (true) {
+            int fieldStart = i;
+            boolean q = false;
+            if (quoting && i < end && data[i] == QUOTE) {
+                q = true;
+                i++;
+                while (i < end) {                       // fecha na primeira " que não é ""
+                    if (data[i] == QUOTE) {
+                        if (i + 1 < end && data[i + 1] == QUOTE) { i += 2; continue; }
+                        i++;
+                        break;
+                    }
+                    i++;
+                }
+            }
+            int d = indexOfDelim(data, i, end);
+            add(fieldStart, d < 0 ? end : d, q);
+            if (d < 0) return;
+            i = d + delim.length;
+        }
+    }
+
+    /** Número de colunas (como {@code split(delim, -1)}: vazias no fim contam). */
+    public int columns() { return count; }
+
+    /** Tamanho em bytes da coluna, sem decodificar (aspas incluídas). */
+    public int byteLength(int col) {
+        check(col);
+        return ends[col] - starts[col];
+    }
+
+    /** Materializa a coluna: UTF-8 → String, tirando as aspas de campo citado. */
+    public String text(int col) {
+        check(col);
+        int s = starts[col], e = ends[col];
+        if (s == e) return "";
+        if (!quoted[col]) return new String(data, s, e - s, StandardCharsets.UTF_8);
+
+        if (unquoteBuf.length < e - s) unquoteBuf = new byte[Math.max(unquoteBuf.length * 2, e - s)];
+        int n = 0;
+        boolean inQuotes = true;
+        for (int i = s + 1; i < e; i++) {                // pula a " de abertura
+            byte b = data[i];
+            if (b == QUOTE && inQuotes) {
+                if (i + 1 < e && data[i + 1] == QUOTE) {
+                    unquoteBuf[n++] = QUOTE;
+                    i++;
+                } else {
+                    inQuotes = false;                    // resto até o delimitador fica como texto
+                }
+            } else {
+                unquoteBuf[n++] = b;
+            }
+        }
+        return new String(unquoteBuf, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private int indexOfDelim(byte[] a, int from, int end) {
+        byte first = delim[0];
+        int last = end - delim.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (a[i] != first) continue;
+            for (int k = 1; k < delim.length; k++) {
+                if (a[i + k] != delim[k]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private void add(int start, int end, boolean q) {
+        if (count == starts.length) {
+            int cap = count * 2;
+            starts = Arrays.copyOf(starts, cap);
+            ends = Arrays.copyOf(ends, cap);
+            quoted = Arrays.copyOf(quoted, cap);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        quoted[count] = q;
+        count++;
+    }
+
+    private void check(int col) {
+        if (col < 0 || col >= count) throw new IndexOutOfBoundsException("Coluna " + col + " de " + count);
+    }
+}
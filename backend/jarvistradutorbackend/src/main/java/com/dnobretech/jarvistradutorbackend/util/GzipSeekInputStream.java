@@ -0,0 +1,486 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Descompressor gzip em Java puro que começa em qualquer ponto de acesso do {@link SeekIndex} e
+ * grava pontos novos enquanto lê: na primeira fronteira de bloco deflate depois de cada {@code span}
+ * bytes de saída, guarda a posição em bits no arquivo comprimido e os últimos 32 KB descomprimidos
+ * (tudo o que os blocos seguintes podem referenciar), como o zran.c do zlib. O java.util.zip não
+ * expõe fronteiras de bloco nem começa num bit arbitrário, por isso o deflate é decodificado aqui.
+ *
+ * Membros concatenados (pigz, bgzip) são lidos em sequência; bytes que não formam um cabeçalho gzip
+ * depois do último membro são ignorados, como no GZIPInputStream. CRC32/ISIZE são conferidos nos
+ * membros lidos desde o cabeçalho (membro retomado no meio não tem CRC parcial para comparar).
+ */
+public final class GzipSeekInputStream extends InputStream {
+
+    private static final int WSIZE = 1 << 15;           // janela do deflate
+    private static final int OUT_SIZE = 1 << 18;        // janela + saída ainda não lida
+    private static final int MAX_MATCH = 258;
+    private static final int LIMIT = OUT_SIZE - MAX_MATCH;
+    private static final int FAST = 10;                 // bits da tabela de decodificação direta
+
+    private static final int[] LBASE = {3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51, 59,
+            67, 83, 99, 115, 131, 163, 195, 227, 258};
+    private static final int[] LEXT = {0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4,
+            5, 5, 5, 5, 0};
+    private static final int[] DBASE = {1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257, 385, 513,
+            769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385, 24577};
+    private static final int[] DEXT = {0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10, 10,
+            11, 11, 12, 12, 13, 13};
+    private static final int[] CL_ORDER = {16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15};
+
+    private enum State { HEADER, BLOCK, STORED, HUFFMAN, TRAILER, DONE }
+
+    private final FileChannel ch;
+    private SeekIndex index;   // null = só lê (ou falhou ao gravar: o índice é só otimização)
+
+    // entrada: bytes do arquivo + acumulador de bits (LSB primeiro, como o deflate)
+    private final byte[] in = new byte[1 << 16];
+    private int inIdx;
+    private int inLim;
+    private long inBase;       // offset no arquivo de in[0]
+    private boolean inEof;
+    private long bitBuf;
+    private int bitCnt;
+    private int pad;           // bits zero acrescentados depois do EOF (consumi-los = arquivo truncado)
+
+    // saída: out[histStart, rpos) é histórico, out[rpos, wpos) ainda não foi lido
+    private final byte[] out = new byte[OUT_SIZE];
+    private int rpos;
+    private int wpos;
+    private int histStart;
+    private long origin;       // offset descomprimido de out[0]
+
+    private State state;
+    private boolean lastBlock;
+    private int storedLeft;
+    private boolean firstMember = true;
+    private final CRC32 crc = new CRC32();
+    private boolean checkCrc;
+    private long memberOut;
+    private int crcMark;       // out[crcMark, wpos) ainda não entrou no CRC/ISIZE
+
+    private final Huffman lit = new Huffman(288);
+    private final Huffman dist = new Huffman(32);
+    private final Huffman lens = new Huffman(19);
+    private final int[] lengths = new int[288 + 32];
+    private Huffman fixedLit;
+    private Huffman fixedDist;
+    private Huffman curLit;
+    private Huffman curDist;
+
+    /**
+     * @param start ponto de partida ({@link SeekIndex#ORIGIN} = início do arquivo)
+     * @param index onde gravar os pontos encontrados; {@code null} = não grava
+     */
+    public GzipSeekInputStream(Path file, SeekIndex.Point start, SeekIndex index) throws IOException {
+        this.ch = FileChannel.open(file, StandardOpenOption.READ);
+        this.index = index;
+        try {
+            byte[] w = start.window();
+            if (w.length > WSIZE) throw new IOException("Janela do ponto de acesso maior que 32 KB");
+            System.arraycopy(w, 0, out, WSIZE - w.length, w.length);
+            histStart = WSIZE - w.length;
+            rpos = wpos = crcMark = WSIZE;
+            origin = start.out() - WSIZE;
+            inBase = start.in();
+            if (start.in() == 0 && start.out() == 0) {
+                state = State.HEADER;
+            } else {
+                state = State.BLOCK;   // ponto gravado = início de bloco deflate no meio de um membro
+                firstMember = false;
+                need(start.bits());
+                drop(start.bits());
+            }
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (rpos == wpos && !fill()) return -1;
+        return out[rpos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) return 0;
+        if (rpos == wpos && !fill()) return -1;
+        int n = Math.min(len, wpos - rpos);
+        System.arraycopy(out, rpos, b, off, n);
+        rpos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return wpos - rpos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ch.close();
+    }
+
+    // ===== Máquina de estados =====
+
+    private boolean fill() throws IOException {
+        while (rpos == wpos) {
+            if (state == State.DONE) return false;
+            if (wpos > LIMIT) slide();
+            while (wpos <= LIMIT && state != State.DONE) {
+                switch (state) {
+                    case HEADER -> state = header() ? State.BLOCK : State.DONE;
+                    case BLOCK -> block();
+                    case STORED -> stored();
+                    case HUFFMAN -> huffman();
+                    case TRAILER -> trailer();
+                    default -> throw new IllegalStateException(state.name());
+                }
+            }
+            syncCrc();
+        }
+        return true;
+    }
+
+    /** Tudo já foi lido: mantém só os últimos 32 KB como histórico no início do buffer. */
+    private void slide() {
+        int shift = wpos - WSIZE;
+        System.arraycopy(out, shift, out, 0, WSIZE);
+        origin += shift;
+        histStart = Math.max(0, histStart - shift);
+        rpos = wpos = crcMark = WSIZE;
+    }
+
+    private void syncCrc() {
+        if (wpos == crcMark) return;
+        if (checkCrc) crc.update(out, crcMark, wpos - crcMark);
+        memberOut += wpos - crcMark;
+        crcMark = wpos;
+    }
+
+    /** Cabeçalho de membro; false = fim do arquivo (ou lixo depois do último membro). */
+    private boolean header() throws IOException {
+        need(16);
+        if (bitCnt - pad < 16 || (bitBuf & 0xFFFF) != 0x8B1F) {
+            if (firstMember) throw new IOException("Não é gzip (ou está vazio)");
+            return false;
+        }
+        drop(16);
+        if (readByte() != 8) throw new IOException("Método de compressão gzip desconhecido");
+        int flg = readByte();
+        skipBytes(6);                                               // mtime, xfl, os
+        if ((flg & 0x04) != 0) skipBytes(readByte() | readByte() << 8);   // FEXTRA
+        if ((flg & 0x08) != 0) while (readByte() != 0) { }         // FNAME
+        if ((flg & 0x10) != 0) while (readByte() != 0) { }         // FCOMMENT
+        if ((flg & 0x02) != 0) skipBytes(2);                       // FHCRC
+        firstMember = false;
+        crc.reset();
+        checkCrc = true;
+        memberOut = 0;
+        crcMark = wpos;
+        histStart = wpos;   // membro novo não referencia o anterior
+        return true;
+    }
+
+    private void block() throws IOException {
+        if (index != null && pad == 0) {
+            long at = origin + wpos;
+            if (index.wants(at)) addPoint(at);
+        }
+        need(3);
+        lastBlock = (bitBuf & 1) != 0;
+        int type = (int) (bitBuf >>> 1) & 3;
+        drop(3);
+        switch (type) {
+            case 0 -> {
+                drop(bitCnt & 7);
+                int len = readByte() | readByte() << 8;
+                int nlen = readByte() | readByte() << 8;
+                if (len != (~nlen & 0xFFFF)) throw new IOException("Bloco deflate sem compressão inválido");
+                storedLeft = len;
+                state = State.STORED;
+            }
+            case 1 -> {
+                if (fixedLit == null) buildFixed();
+                curLit = fixedLit;
+                curDist = fixedDist;
+                state = State.HUFFMAN;
+            }
+            case 2 -> {
+                dynamicTables();
+                curLit = lit;
+                curDist = dist;
+                state = State.HUFFMAN;
+            }
+            default -> throw new IOException("Tipo de bloco deflate inválido");
+        }
+    }
+
+    private void addPoint(long at) {
+        int n = Math.min(WSIZE, wpos - histStart);
+        long bitPos = (inBase + inIdx) * 8 - bitCnt;
+        try {
+            index.add(new SeekIndex.Point(at, bitPos >>> 3, (int) (bitPos & 7), Arrays.copyOfRange(out, wpos - n, wpos)));
+        } catch (IOException e) {
+            index = null;   // sem índice a leitura continua igual; só a próxima retomada fica mais cara
+        }
+    }
+
+    private void stored() throws IOException {
+        while (storedLeft > 0 && wpos < OUT_SIZE && bitCnt >= 8) {   // bytes já no acumulador (alinhado)
+            if (bitCnt - pad < 8) throw truncated();
+            out[wpos++] = (byte) bitBuf;
+            bitBuf >>>= 8;
+            bitCnt -= 8;
+            storedLeft--;
+        }
+        while (storedLeft > 0 && wpos < OUT_SIZE) {
+            if (inIdx == inLim && !refill()) throw truncated();
+            int n = Math.min(Math.min(storedLeft, OUT_SIZE - wpos), inLim - inIdx);
+            System.arraycopy(in, inIdx, out, wpos, n);
+            inIdx += n;
+            wpos += n;
+            storedLeft -= n;
+        }
+        if (storedLeft == 0) state = lastBlock ? State.TRAILER : State.BLOCK;
+    }
+
+    private void huffman() throws IOException {
+        final byte[] o = out;
+        final Huffman hl = curLit, hd = curDist;
+        int w = wpos;
+        try {
+            while (w <= LIMIT) {
+                if (bitCnt < 48) need(48);   // maior símbolo: 15 + 5 + 15 + 13 bits
+                int sym = decode(hl);
+                if (sym < 256) {
+                    o[w++] = (byte) sym;
+                    continue;
+                }
+                if (sym == 256) {
+                    state = lastBlock ? State.TRAILER : State.BLOCK;
+                    return;
+                }
+                sym -= 257;
+                if (sym >= 29) throw new IOException("Código de comprimento deflate inválido");
+                int len = LBASE[sym] + take(LEXT[sym]);
+                int ds = decode(hd);
+                if (ds >= 30) throw new IOException("Código de distância deflate inválido");
+                int from = w - DBASE[ds] - take(DEXT[ds]);
+                if (from < histStart) throw new IOException("Distância deflate antes do início dos dados");
+                if (w - from >= len) {
+                    System.arraycopy(o, from, o, w, len);
+                    w += len;
+                } else {
+                    for (int k = 0; k < len; k++) o[w++] = o[from + k];   // sobreposto: repete o padrão
+                }
+            }
+        } finally {
+            wpos = w;
+        }
+    }
+
+    private void trailer() throws IOException {
+        drop(bitCnt & 7);
+        syncCrc();
+        long c = readByte() | readByte() << 8 | readByte() << 16 | (long) readByte() << 24;
+        long size = readByte() | readByte() << 8 | readByte() << 16 | (long) readByte() << 24;
+        if (checkCrc && (c != crc.getValue() || size != (memberOut & 0xFFFFFFFFL))) {
+            throw new IOException("CRC do gzip não confere: arquivo corrompido");
+        }
+        state = State.HEADER;
+    }
+
+    // ===== Tabelas Huffman =====
+
+    private void buildFixed() throws IOException {
+        int[] l = new int[288];
+        Arrays.fill(l, 0, 144, 8);
+        Arrays.fill(l, 144, 256, 9);
+        Arrays.fill(l, 256, 280, 7);
+        Arrays.fill(l, 280, 288, 8);
+        fixedLit = new Huffman(288);
+        fixedLit.build(l, 0, 288);
+        Arrays.fill(l, 0, 30, 5);
+        fixedDist = new Huffman(32);
+        fixedDist.build(l, 0, 30);
+    }
+
+    private void dynamicTables() throws IOException {
+        need(14);
+        int nlen = take(5) + 257;
+        int ndist = take(5) + 1;
+        int ncode = take(4) + 4;
+        if (nlen > 286 || ndist > 30) throw new IOException("Cabeçalho de bloco deflate inválido");
+
+        Arrays.fill(lengths, 0, 19, 0);
+        for (int i = 0; i < ncode; i++) {
+            need(3);
+            lengths[CL_ORDER[i]] = take(3);
+        }
+        lens.build(lengths, 0, 19);
+
+        int n = 0;
+        while (n < nlen + ndist) {
+            need(22);   // código (até 7 bits... 15 no caminho lento) + repetição (até 7)
+            int sym = decode(lens);
+            if (sym < 16) {
+                lengths[n++] = sym;
+                continue;
+            }
+            int len = 0, rep;
+            if (sym == 16) {
+                if (n == 0) throw new IOException("Repetição sem comprimento anterior no bloco deflate");
+                len = lengths[n - 1];
+                rep = 3 + take(2);
+            } else if (sym == 17) {
+                rep = 3 + take(3);
+            } else {
+                rep = 11 + take(7);
+            }
+            if (n + rep > nlen + ndist) throw new IOException("Comprimentos de código deflate demais");
+            while (rep-- > 0) lengths[n++] = len;
+        }
+        if (lengths[256] == 0) throw new IOException("Bloco deflate sem código de fim");
+        lit.build(lengths, 0, nlen);
+        dist.build(lengths, nlen, ndist);
+    }
+
+    /** Próximo símbolo; exige pelo menos 15 bits no acumulador. */
+    private int decode(Huffman h) throws IOException {
+        int e = h.fast[(int) bitBuf & ((1 << FAST) - 1)];
+        if (e != 0) {
+            drop(e >>> 16);
+            return e & 0xFFFF;
+        }
+        // código maior que FAST bits (ou inexistente): canônico, bit a bit
+        long b = bitBuf;
+        int code = 0, first = 0, idx = 0;
+        for (int len = 1; len <= 15; len++) {
+            code |= (int) (b & 1);
+            b >>>= 1;
+            int count = h.count[len];
+            if (code - first < count) {
+                drop(len);
+                return h.symbol[idx + code - first];
+            }
+            idx += count;
+            first = (first + count) << 1;
+            code <<= 1;
+        }
+        throw new IOException("Código Huffman inválido no deflate");
+    }
+
+    /** Código canônico do deflate: tabela direta para códigos até FAST bits, contagem por tamanho para o resto. */
+    private static final class Huffman {
+        final int[] fast = new int[1 << FAST];   // símbolo | tamanho << 16; 0 = código maior que FAST
+        final int[] count = new int[16];
+        final int[] symbol;
+        private final int[] offs = new int[16];
+
+        Huffman(int maxSymbols) {
+            this.symbol = new int[maxSymbols];
+        }
+
+        void build(int[] lengths, int from, int n) throws IOException {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) count[lengths[from + i]]++;
+            count[0] = 0;
+            int left = 1;
+            for (int len = 1; len <= 15; len++) {
+                left = (left << 1) - count[len];
+                if (left < 0) throw new IOException("Código Huffman do deflate com comprimentos inválidos");
+            }
+            offs[1] = 0;
+            for (int len = 1; len < 15; len++) offs[len + 1] = offs[len] + count[len];
+            for (int i = 0; i < n; i++) {
+                int len = lengths[from + i];
+                if (len != 0) symbol[offs[len]++] = i;
+            }
+
+            Arrays.fill(fast, 0);
+            int code = 0, idx = 0;
+            for (int len = 1; len <= 15; len++) {
+                for (int k = 0; k < count[len]; k++, idx++, code++) {
+                    if (len > FAST) continue;
+                    int rev = Integer.reverse(code) >>> (32 - len);
+                    int e = symbol[idx] | (len << 16);
+                    for (int j = rev; j < (1 << FAST); j += 1 << len) fast[j] = e;
+                }
+                code <<= 1;
+            }
+        }
+    }
+
+    // ===== Bits e bytes da entrada =====
+
+    private void need(int n) throws IOException {
+        while (bitCnt < n) {
+            if (inIdx == inLim && !refill()) {
+                pad += 8;              // zeros depois do fim: só é erro se forem consumidos
+                bitCnt += 8;
+                continue;
+            }
+            bitBuf |= (long) (in[inIdx++] & 0xFF) << bitCnt;
+            bitCnt += 8;
+        }
+    }
+
+    private void drop(int n) throws IOException {
+        bitBuf >>>= n;
+        bitCnt -= n;
+        if (bitCnt < pad) throw truncated();
+    }
+
+    private int take(int n) throws IOException {
+        int v = (int) (bitBuf & ((1L << n) - 1));
+        drop(n);
+        return v;
+    }
+
+    private int readByte() throws IOException {
+        need(8);
+        return take(8);
+    }
+
+    private void skipBytes(int n) throws IOException {
+        for (int i = 0; i < n; i++) readByte();
+    }
+
+    private boolean refill() throws IOException {
+        if (inEof) return false;
+        inBase += inLim;
+        inIdx = 0;
+        inLim = 0;
+        ByteBuffer bb = ByteBuffer.wrap(in);
+        int n;
+        do {
+            n = ch.read(bb, inBase);
+        } while (n == 0);
+        if (n < 0) {
+            inEof = true;
+            return false;
+        }
+        inLim = n;
+        return true;
+    }
+
+    private static EOFException truncated() {
+        return new EOFException("Arquivo gzip truncado");
+    }
+}
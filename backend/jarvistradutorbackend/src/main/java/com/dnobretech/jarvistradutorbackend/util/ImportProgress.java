@@ -0,0 +1,157 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import com.dnobretech.jarvistradutorbackend.exception.ImportCancelledException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de progresso de um import + flag de cancelamento.
+ * O job executor associa uma instância à thread do job ({@link #bind}); os imports pegam a atual
+ * com {@link #current()} uma vez no início (chamadas síncronas recebem {@link #NOOP}) e só somam.
+ * Cancelamento é cooperativo: o import chama {@link #checkCancelled()} nos pontos em que pode parar
+ * (rollback do lote em andamento), nunca por interrupt da thread (fecharia canais de I/O no meio do COPY).
+ */
+public final class ImportProgress {
+
+    public static final ImportProgress NOOP = new ImportProgress();
+
+    private static final ThreadLocal<ImportProgress> CURRENT = new ThreadLocal<>();
+
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile long baseBytes = -1;         // primeira posição reportada (import resumido no meio)
+    private volatile long totalBytes = -1;        // -1 = desconhecido (upload sem tamanho, arquivo comprimido)
+    private volatile long startedNanos = System.nanoTime();
+    private volatile boolean cancelRequested = false;
+    private final ImportProgress parent;          // null = progresso do job; senão, parte dele (child)
+
+    public ImportProgress() { this(null); }
+
+    private ImportProgress(ImportProgress parent) { this.parent = parent; }
+
+    public static ImportProgress current() {
+        ImportProgress p = CURRENT.get();
+        return p != null ? p : NOOP;
+    }
+
+    public static void bind(ImportProgress p) { CURRENT.set(p); }
+
+    public static void unbind() { CURRENT.remove(); }
+
+    // ===== reporte (thread do import) =====
+
+    public void addLines(long n) {
+        if (this == NOOP) return;
+        lines.add(n);
+        if (parent != null) parent.addLines(n);
+    }
+
+    public void addAccepted(long n) {
+        if (this == NOOP) return;
+        accepted.add(n);
+        if (parent != null) parent.addAccepted(n);
+    }
+
+    public void addRejected(long n) {
+        if (this == NOOP) return;
+        rejected.add(n);
+        if (parent != null) parent.addRejected(n);
+    }
+
+    /**
+     * Progresso de uma parte do job (um arquivo de um import de diretório, rodando em outra thread):
+     * linhas/aceitas/rejeitadas somam também no pai; bytes e total são só da parte; cancelar o pai
+     * cancela a parte.
+     */
+    public ImportProgress child() {
+        return this == NOOP ? NOOP : new ImportProgress(this);
+    }
+
+    /** Posição absoluta no arquivo (bytes já consumidos). */
+    public void setBytes(long position) {
+        if (this == NOOP) return;
+        if (baseBytes < 0) baseBytes = position;
+        bytes.set(position);
+    }
+
+    public void setTotalBytes(long total) { if (this != NOOP) totalBytes = total; }
+
+    /** Conta os bytes lidos do stream (uploads/TMX, onde não há offset explícito). */
+    public InputStream track(InputStream in) {
+        if (this == NOOP) return in;
+        setBytes(0);
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) bytes.incrementAndGet();
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                int n = super.read(buf, off, len);
+                if (n > 0) bytes.addAndGet(n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long s = super.skip(n);
+                if (s > 0) bytes.addAndGet(s);
+                return s;
+            }
+        };
+    }
+
+    public void checkCancelled() {
+        if (isCancelRequested()) throw new ImportCancelledException("Import cancelado");
+    }
+
+    // ===== controle (job executor) =====
+
+    public void markStarted() { startedNanos = System.nanoTime(); }
+
+    public void cancel() { if (this != NOOP) cancelRequested = true; }
+
+    public boolean isCancelRequested() { return cancelRequested || (parent != null && parent.isCancelRequested()); }
+
+    // ===== leitura =====
+
+    public long lines() { return lines.sum(); }
+
+    public long accepted() { return accepted.sum(); }
+
+    public long rejected() { return rejected.sum(); }
+
+    public long bytes() { return bytes.get(); }
+
+    public Long totalBytes() { return totalBytes >= 0 ? totalBytes : null; }
+
+    public double elapsedSeconds() { return (System.nanoTime() - startedNanos) / 1e9; }
+
+    public double linesPerSecond() {
+        double s = elapsedSeconds();
+        return s > 0 ? lines() / s : 0.0;
+    }
+
+    public double bytesPerSecond() {
+        double s = elapsedSeconds();
+        long done = bytes() - Math.max(0, baseBytes);
+        return s > 0 ? done / s : 0.0;
+    }
+
+    /** Segundos restantes pela taxa de bytes desde o início do job; {@code null} sem total ou sem taxa. */
+    public Long etaSeconds() {
+        long total = totalBytes;
+        double rate = bytesPerSecond();
+        if (total < 0 || rate <= 0) return null;
+        return (long) Math.ceil(Math.max(0, total - bytes()) / rate);
+    }
+}
@@ -0,0 +1,137 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escritor de {@code COPY ... FROM STDIN WITH (FORMAT binary)}.
+ * Sem escape de aspas nem {@code Double.toString}: texto vai como UTF-8 com prefixo de tamanho,
+ * float8/int8 em big-endian e vetores no formato binário do pgvector (int16 dim, int16 0, float4[]).
+ * Um vetor de 384 dimensões ocupa ~1.5 KB em vez de ~8 KB de texto, e o servidor não precisa parsear.
+ *
+ * Uso: {@code startRow(n)} e exatamente n valores na ordem das colunas do COPY; {@link #finish()}
+ * grava o trailer. A ordem e os tipos precisam bater com as colunas (o binário não tem coerção).
+ */
+public class PgBinaryCopyWriter implements Closeable, Flushable {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    private final DataOutputStream out;
+    private final Counting counter;
+    private boolean finished = false;
+
+    public PgBinaryCopyWriter(OutputStream os) throws IOException {
+        this(os, 1 << 16);
+    }
+
+    public PgBinaryCopyWriter(OutputStream os, int bufferSize) throws IOException {
+        this.counter = new Counting(new BufferedOutputStream(os, bufferSize));
+        this.out = new DataOutputStream(counter);
+        out.write(SIGNATURE);
+        out.writeInt(0);    // flags
+        out.writeInt(0);    // tamanho da extensão do header
+    }
+
+    public void startRow(int columns) throws IOException {
+        out.writeShort(columns);
+    }
+
+    public void nullValue() throws IOException {
+        out.writeInt(-1);
+    }
+
+    /** text/varchar; {@code null} = NULL. */
+    public void text(String s) throws IOException {
+        if (s == null) { nullValue(); return; }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    /** text que vira NULL quando vazio/em branco (equivale ao campo vazio do CSV). */
+    public void textOrNull(String s) throws IOException {
+        text(s == null || s.isBlank() ? null : s);
+    }
+
+    public void float8(double v) throws IOException {
+        out.writeInt(8);
+        out.writeDouble(v);
+    }
+
+    public void float8(Double v) throws IOException {
+        if (v == null) nullValue(); else float8(v.doubleValue());
+    }
+
+    public void int8(long v) throws IOException {
+        out.writeInt(8);
+        out.writeLong(v);
+    }
+
+    public void int8(Long v) throws IOException {
+        if (v == null) nullValue(); else int8(v.longValue());
+    }
+
+    /** Coluna {@code vector} do pgvector (componentes gravados como float4, como o próprio tipo armazena). */
+    public void vector(double[] v) throws IOException {
+        if (v == null) { nullValue(); return; }
+        out.writeInt(4 + 4 * v.length);
+        out.writeShort(v.length);
+        out.writeShort(0);
+        for (double d : v) out.writeFloat((float) d);
+    }
+
+    public void vector(float[] v) throws IOException {
+        if (v == null) { nullValue(); return; }
+        out.writeInt(4 + 4 * v.length);
+        out.writeShort(v.length);
+        out.writeShort(0);
+        for (float f : v) out.writeFloat(f);
+    }
+
+    /** Bytes do stream COPY gerados até agora (header incluído; contados antes do buffer). */
+    public long bytesWritten() {
+        return counter.count;
+    }
+
+    /** Grava o trailer e descarrega o buffer (não fecha o stream de baixo). */
+    public void finish() throws IOException {
+        if (finished) return;
+        finished = true;
+        out.writeShort(-1);
+        out.flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /** {@link #finish()} + fecha o stream de baixo (no PGCopyOutputStream isso faz o endCopy). */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /** Contador de bytes (o {@code size()} do DataOutputStream satura em 2 GB). */
+    private static final class Counting extends FilterOutputStream {
+        long count;
+
+        Counting(OutputStream out) { super(out); }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Pontos de acesso de um arquivo .gz/.zst para retomar a leitura no meio sem descomprimir desde o
+ * início (ver {@link CompressedInput#openAt(Path, CompressedInput.Codec, long, SeekIndex)}).
+ * Cada ponto liga um offset do conteúdo descomprimido a uma posição no arquivo comprimido:
+ * gzip = bit de início de um bloco deflate + os 32 KB de saída anteriores (janela, como no zran.c);
+ * zstd = início de um quadro (independente, sem janela).
+ *
+ * Os pontos são do arquivo, não do import: valem para qualquer fileKey e são gravados assim que o
+ * leitor passa por eles, mesmo antes do commit do lote. Persistido num arquivo à parte, append-only:
+ * cabeçalho com tamanho e mtime do arquivo de origem (mudou = índice descartado) e um registro por
+ * ponto com a janela comprimida. Registro truncado no fim (queda no meio do append) é cortado no load.
+ * Thread-safe; um ponto só entra se estiver pelo menos {@code span} bytes depois do último.
+ */
+public final class SeekIndex {
+
+    /**
+     * @param out    offset no conteúdo descomprimido
+     * @param in     offset (byte) no arquivo comprimido
+     * @param bits   bits já consumidos do byte {@code in} (gzip; 0 em zstd)
+     * @param window saída imediatamente anterior a {@code out} que o ponto pode referenciar (vazia em zstd)
+     */
+    public record Point(long out, long in, int bits, byte[] window) {}
+
+    /** Início do arquivo (implícito, nunca gravado). */
+    public static final Point ORIGIN = new Point(0, 0, 0, new byte[0]);
+
+    private static final int MAGIC = 0x4A534958;   // "JSIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 1 + 8 + 8;
+    private static final int RECORD_BYTES = 8 + 8 + 1 + 4 + 4;   // out, in, bits, tamanho comprimido e original da janela
+
+    private record Entry(long out, long in, int bits, long windowPos, int windowLen, int windowRaw) {}
+
+    private final Path file;
+    private final Path source;
+    private final CompressedInput.Codec codec;
+    private final long span;
+    private final long sourceSize;
+    private final long sourceMtime;
+    private final List<Entry> entries = new ArrayList<>();
+    private long fileEnd;   // 0 = sidecar ainda não criado
+
+    private SeekIndex(Path file, Path source, CompressedInput.Codec codec, long span, long sourceSize, long sourceMtime) {
+        this.file = file;
+        this.source = source;
+        this.codec = codec;
+        this.span = Math.max(1, span);
+        this.sourceSize = sourceSize;
+        this.sourceMtime = sourceMtime;
+    }
+
+    /**
+     * Carrega o índice de {@code source} gravado em {@code file}; se não existir, for de outra versão
+     * do arquivo de origem ou de outro codec, começa vazio (o arquivo é recriado no primeiro ponto).
+     */
+    public static SeekIndex open(Path file, Path source, CompressedInput.Codec codec, long span) throws IOException {
+        SeekIndex idx = new SeekIndex(file, source, codec, span, Files.size(source),
+                Files.getLastModifiedTime(source).toMillis());
+        if (Files.exists(file) && !idx.load()) Files.deleteIfExists(file);
+        return idx;
+    }
+
+    /** O arquivo de origem ainda é o mesmo (tamanho e mtime) para o qual os pontos foram gravados. */
+    public boolean matchesSource() {
+        try {
+            return Files.size(source) == sourceSize && Files.getLastModifiedTime(source).toMillis() == sourceMtime;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    /** Vale gravar um ponto em {@code out} (está pelo menos {@code span} depois do último). */
+    public synchronized boolean wants(long out) {
+        return out >= lastOut() + span;
+    }
+
+    /** Acrescenta o ponto (ignorado se não estiver depois do último). */
+    public synchronized void add(Point p) throws IOException {
+        if (p.out() <= lastOut()) return;
+        byte[] w = deflate(p.window());
+        ByteBuffer bb = ByteBuffer.allocate((fileEnd == 0 ? HEADER_BYTES : 0) + RECORD_BYTES + w.length);
+        if (fileEnd == 0) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            bb.putInt(MAGIC).putInt(VERSION).put((byte) codec.ordinal()).putLong(sourceSize).putLong(sourceMtime);
+        }
+        bb.putLong(p.out()).putLong(p.in()).put((byte) p.bits()).putInt(w.length).putInt(p.window().length).put(w);
+        bb.flip();
+
+        long start = fileEnd;
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (start == 0) fc.truncate(0);
+            long pos = start;
+            while (bb.hasRemaining()) pos += fc.write(bb, pos);
+            fileEnd = pos;
+        }
+        long recordStart = start == 0 ? HEADER_BYTES : start;
+        entries.add(new Entry(p.out(), p.in(), p.bits(), recordStart + RECORD_BYTES, w.length, p.window().length));
+    }
+
+    /** Último ponto em ou antes de {@code out}, com a janela; {@link #ORIGIN} se nenhum. */
+    public synchronized Point floor(long out) throws IOException {
+        int lo = 0, hi = entries.size() - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entries.get(mid).out() <= out) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (found < 0) return ORIGIN;
+        Entry e = entries.get(found);
+        byte[] packed = new byte[e.windowLen()];
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer bb = ByteBuffer.wrap(packed);
+            while (bb.hasRemaining()) {
+                if (fc.read(bb, e.windowPos() + bb.position()) < 0) throw new EOFException("Índice de seek truncado: " + file);
+            }
+        }
+        return new Point(e.out(), e.in(), e.bits(), inflate(packed, e.windowRaw()));
+    }
+
+    private long lastOut() {
+        return entries.isEmpty() ? 0 : entries.get(entries.size() - 1).out();
+    }
+
+    /** false = cabeçalho não confere (outra versão do arquivo de origem): descartar. */
+    private boolean load() throws IOException {
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = fc.size();
+            ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES);
+            if (!readFully(fc, head, 0)) return false;
+            head.flip();
+            if (head.getInt() != MAGIC || head.getInt() != VERSION || head.get() != codec.ordinal()
+                    || head.getLong() != sourceSize || head.getLong() != sourceMtime) {
+                return false;
+            }
+
+            long pos = HEADER_BYTES;
+            ByteBuffer rec = ByteBuffer.allocate(RECORD_BYTES);
+            while (pos + RECORD_BYTES <= size) {
+                rec.clear();
+                if (!readFully(fc, rec, pos)) break;
+                rec.flip();
+                long out = rec.getLong(), in = rec.getLong();
+                int bits = rec.get(), wlen = rec.getInt(), wraw = rec.getInt();
+                if (wlen < 0 || wraw < 0 || pos + RECORD_BYTES + wlen > size || out <= lastOut()) break;
+                entries.add(new Entry(out, in, bits, pos + RECORD_BYTES, wlen, wraw));
+                pos += RECORD_BYTES + wlen;
+            }
+            if (pos < size) fc.truncate(pos);   // sobra de append interrompido
+            fileEnd = pos;
+            return true;
+        }
+    }
+
+    private static boolean readFully(FileChannel fc, ByteBuffer bb, long pos) throws IOException {
+        while (bb.hasRemaining()) {
+            int n = fc.read(bb, pos + bb.position());
+            if (n < 0) return false;
+        }
+        return true;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        if (raw.length == 0) return raw;
+        Deflater d = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            d.setInput(raw);
+            d.finish();
+            byte[] buf = new byte[raw.length + 64];
+            int n = 0;
+            while (!d.finished()) {
+                if (n == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                n += d.deflate(buf, n, buf.length - n);
+            }
+            return Arrays.copyOf(buf, n);
+        } finally {
+            d.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] packed, int rawLen) throws IOException {
+        if (rawLen == 0) return new byte[0];
+        Inflater inf = new Inflater(true);
+        try {
+            inf.setInput(Arrays.copyOf(packed, packed.length + 1));   // byte extra exigido pelo modo nowrap
+            byte[] raw = new byte[rawLen];
+            int n = 0;
+            while (n < rawLen && !inf.finished()) {
+                int r = inf.inflate(raw, n, rawLen - n);
+                if (r == 0 && (inf.needsInput() || inf.needsDictionary())) break;
+                n += r;
+            }
+            if (n != rawLen) throw new IOException("Janela do índice de seek corrompida");
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Janela do índice de seek corrompida", e);
+        } finally {
+            inf.end();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Cópia em disco de um upload, para jobs assíncronos: o temporário do multipart some quando a
+ * requisição termina, mas o job roda depois. Os serviços continuam recebendo um {@link MultipartFile}.
+ */
+public class StoredMultipartFile implements MultipartFile {
+
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final Path path;
+
+    private StoredMultipartFile(String name, String originalFilename, String contentType, Path path) {
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.path = path;
+    }
+
+    /** Copia o upload para {@code dir} (criado se preciso). */
+    public static StoredMultipartFile save(MultipartFile src, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path dest = dir.resolve(UUID.randomUUID() + ".upload");
+        try (InputStream in = src.getInputStream()) {
+            Files.copy(in, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new StoredMultipartFile(src.getName(), src.getOriginalFilename(), src.getContentType(), dest);
+    }
+
+    /** Arquivo já em disco (CLI): nada é copiado, e quem chama não deve {@link #delete()}. */
+    public static StoredMultipartFile of(Path file, String contentType) {
+        return new StoredMultipartFile("file", String.valueOf(file.getFileName()), contentType, file);
+    }
+
+    public Path path() { return path; }
+
+    public void delete() {
+        try { Files.deleteIfExists(path); } catch (IOException ignore) {}
+    }
+
+    @Override public String getName() { return name; }
+
+    @Override public String getOriginalFilename() { return originalFilename; }
+
+    @Override public String getContentType() { return contentType; }
+
+    @Override
+    public boolean isEmpty() { return getSize() == 0; }
+
+    @Override
+    public long getSize() {
+        try { return Files.size(path); } catch (IOException e) { return 0; }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException { return Files.readAllBytes(path); }
+
+    @Override
+    public InputStream getInputStream() throws IOException { return Files.newInputStream(path); }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        Files.copy(path, dest, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
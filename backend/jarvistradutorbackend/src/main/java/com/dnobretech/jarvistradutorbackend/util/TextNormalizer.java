@@ -5,40 +5,132 @@
 import java.text.Normalizer;
 import java.util.regex.Pattern;
 
+/**
+ * Normalização de segmentos em uma passada, sem regex: roda para cada linha de todo import.
+ * "Espaço" aqui é o {@code \s} do Java sem flag UNICODE ({@code [ \t\n\x0B\f\r]}), igual aos
+ * regex que existiam antes; a saída é idêntica à versão anterior (ver TextNormalizerTest).
+ */
 @Component
 public class TextNormalizer {
-    private static final Pattern MULTI_SPACE = Pattern.compile("\\s+");   // 1+ espaços
     private static final Pattern PLACEHOLDERS = Pattern.compile(          // {x}, %s, <tag>, etc
             "(\\{[^}]+\\}|%s|%d|<[^>]+>|\\$\\{[^}]+\\})");
 
+    /** builder reaproveitado por thread; um segmento gigante não fica preso nele */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+    private static final ThreadLocal<StringBuilder> BUF = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    /** trim + NFKC + colapsa espaços em um só ' ' (sem trim depois do NFKC, como antes). */
     public String normalize(String s) {
         if (s == null) return "";
-        String t = s.trim();                                                // tira espaços extremos
-        t = Normalizer.normalize(t, Normalizer.Form.NFKC);                  // normaliza unicode
-        t = MULTI_SPACE.matcher(t).replaceAll(" ");                         // colapsa espaços
-        return t;
+        String t = nfkc(s.trim());
+        if (!needsCollapse(t)) return t;                                    // caso comum: nenhuma cópia
+
+        StringBuilder sb = buffer(t.length());
+        boolean inSpace = false;
+        for (int i = 0, n = t.length(); i < n; i++) {
+            char c = t.charAt(i);
+            if (isSpace(c)) {
+                if (!inSpace) sb.append(' ');
+                inSpace = true;
+            } else {
+                sb.append(c);
+                inSpace = false;
+            }
+        }
+        return release(sb);
     }
 
+    /**
+     * {@link #normalize} + regras de fala numa única varredura:
+     * aspas tipográficas → {@code "}, apóstrofos → {@code '} (NÃO REMOVER!), travessão → hífen,
+     * remove um hífen/travessão líder, reticências com espaço dos dois lados, colapsa espaços e trim.
+     */
     public String normalizeDialogue(String s) {
         if (s == null) return "";
-        String t = normalize(s); // sua normalize atual (trim + NFKC + espaços)
+        String t = nfkc(s.trim());
+        int n = t.length();
+        StringBuilder sb = buffer(n + 8);
+
+        int i = 0;
+        if (n > 0 && (t.charAt(0) == '-' || t.charAt(0) == '—')) i = 1;   // "— Oi" / "- Oi"; espaço seguinte cai no trim
+        for (; i < n; i++) {
+            char c = t.charAt(i);
+            if (c == '.' && i + 2 < n && t.charAt(i + 1) == '.' && t.charAt(i + 2) == '.') {
+                appendSpace(sb);
+                sb.append("...");
+                appendSpace(sb);
+                i += 2;
+            } else if (isSpace(c)) {
+                appendSpace(sb);
+            } else if (c <= ' ') {
+                if (sb.length() > 0) sb.append(c);                          // controle: só some nas pontas (trim)
+            } else {
+                sb.append(switch (c) {
+                    case '“', '”', '«', '»' -> '"';
+                    case '’', '‘' -> '\'';
+                    case '—' -> '-';
+                    default -> c;
+                });
+            }
+        }
+
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) <= ' ') end--;                 // trim do fim
+        sb.setLength(end);
+        return release(sb);
+    }
+
+    // ===================== Helpers =====================
+
+    /** NFKC só quando pode mudar algo: ASCII puro já é NFKC e a checagem rápida não aloca. */
+    private static String nfkc(String t) {
+        if (isAscii(t) || Normalizer.isNormalized(t, Normalizer.Form.NFKC)) return t;
+        return Normalizer.normalize(t, Normalizer.Form.NFKC);
+    }
 
-        // ASPAS DUPLAS tipográficas -> ASCII
-        t = t.replace('“','"').replace('”','"').replace('«','"').replace('»','"');
-        // APÓSTROFOS tipográficos -> ASCII (NÃO REMOVER!)
-        t = t.replace('’','\'').replace('‘','\'');
+    private static boolean isAscii(String t) {
+        for (int i = 0, n = t.length(); i < n; i++) {
+            if (t.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
 
-        // travessão U+2014 -> hífen (opcional, se quiser uniformizar)
-        t = t.replace('\u2014', '-');
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
 
-        // remover travessão/hífen líder típico de fala, mas **não** mexer em apóstrofos
-        t = t.replaceAll("^(\\-|—)\\s*", "");
+    private static boolean needsCollapse(String t) {
+        boolean prevSpace = false;
+        for (int i = 0, n = t.length(); i < n; i++) {
+            char c = t.charAt(i);
+            if (c == ' ') {
+                if (prevSpace) return true;
+                prevSpace = true;
+            } else if (isSpace(c)) {
+                return true;
+            } else {
+                prevSpace = false;
+            }
+        }
+        return false;
+    }
 
-        // reticências: normalizar spacing
-        t = t.replaceAll("\\s*\\.\\.\\.\\s*", " ... ");
+    /** Espaço colapsado; no início some (trim). Todo ' ' no builder veio de um espaço. */
+    private static void appendSpace(StringBuilder sb) {
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) != ' ') sb.append(' ');
+    }
+
+    private static StringBuilder buffer(int capacity) {
+        StringBuilder sb = BUF.get();
+        sb.setLength(0);
+        sb.ensureCapacity(capacity);
+        return sb;
+    }
 
-        // colapsa espaços novamente
-        t = t.replaceAll("\\s+", " ").trim();
-        return t;
+    private static String release(StringBuilder sb) {
+        String out = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) BUF.remove();
+        return out;
     }
 }
@@ -0,0 +1,161 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Leitor de linhas UTF-8 sobre um canal, com buffer grande (sem syscall por byte).
+ * Terminadores: \n, \r\n ou \r isolado (mesma regra do antigo readLineUtf8).
+ * {@link #position()} devolve o offset EXATO em bytes logo após a última linha lida,
+ * que é o valor gravado em {@code ImportCheckpoint.byteOffset}.
+ */
+public class Utf8LineReader implements Closeable {
+
+    public static final int DEFAULT_BUFFER = 1 << 20; // 1 MB
+
+    private final ReadableByteChannel ch;
+    private final byte[] buf;
+    private final ByteBuffer bb;
+    private int pos = 0;
+    private int lim = 0;
+    private long offset;
+
+    // linha que atravessa a fronteira do buffer
+    private byte[] scratch = new byte[256];
+    private int scratchLen = 0;
+
+    // última linha: faixa em buf (caso comum) ou em scratch
+    private byte[] lineBuf;
+    private int lineFrom;
+    private int lineLen;
+
+    public Utf8LineReader(ReadableByteChannel ch, long startOffset, int bufferSize) {
+        this.ch = ch;
+        this.buf = new byte[Math.max(bufferSize, 8192)];
+        this.bb = ByteBuffer.wrap(buf);
+        this.offset = startOffset;
+    }
+
+    /** Abre o arquivo já posicionado em {@code startOffset}. */
+    public static Utf8LineReader open(Path path, long startOffset) throws IOException {
+        FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            fc.position(startOffset);
+        } catch (IOException e) {
+            fc.close();
+            throw e;
+        }
+        return new Utf8LineReader(fc, startOffset, DEFAULT_BUFFER);
+    }
+
+    /** Offset (bytes) logo após a última linha devolvida por {@link #readLine()}. */
+    public long position() { return offset; }
+
+    /** Próxima linha sem o terminador; {@code null} no EOF. */
+    public String readLine() throws IOException {
+        return nextLine() ? new String(lineBuf, lineFrom, lineLen, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Próxima linha entregue ao parser direto dos bytes do buffer (sem String da linha);
+     * as colunas valem até a próxima leitura. {@code false} no EOF.
+     */
+    public boolean readRecord(DelimitedRecordParser parser) throws IOException {
+        if (!nextLine()) return false;
+        parser.parse(lineBuf, lineFrom, lineLen);
+        return true;
+    }
+
+    private boolean nextLine() throws IOException {
+        scratchLen = 0;
+        boolean any = false;
+        while (true) {
+            if (pos >= lim && !fill()) {
+                if (!any) return false;
+                setLine(scratch, 0, scratchLen);
+                return true;
+            }
+            any = true;
+
+            int start = pos;
+            int i = pos;
+            while (i < lim) {
+                byte b = buf[i];
+                if (b == '\n' || b == '\r') break;
+                i++;
+            }
+
+            if (i == lim) {                                   // sem terminador neste buffer
+                stash(start, lim - start);
+                offset += lim - start;
+                pos = lim;
+                continue;
+            }
+
+            if (scratchLen == 0) {
+                setLine(buf, start, i - start);
+            } else {
+                stash(start, i - start);
+                setLine(scratch, 0, scratchLen);
+            }
+
+            byte term = buf[i];
+            pos = i + 1;
+            offset += pos - start;
+            if (term == '\r') {                               // \r\n conta como um terminador só
+                if (pos < lim) {
+                    if (buf[pos] == '\n') { pos++; offset++; }
+                } else {
+                    if (lineBuf == buf) {                     // fill() vai sobrescrever a linha
+                        stash(start, i - start);
+                        setLine(scratch, 0, scratchLen);
+                    }
+                    if (fill() && buf[0] == '\n') {
+                        pos = 1;
+                        offset++;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    private void setLine(byte[] b, int from, int len) {
+        lineBuf = b;
+        lineFrom = from;
+        lineLen = len;
+    }
+
+    private void stash(int from, int len) {
+        if (scratchLen + len > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLen + len));
+        }
+        System.arraycopy(buf, from, scratch, scratchLen, len);
+        scratchLen += len;
+    }
+
+    private boolean fill() throws IOException {
+        pos = 0;
+        lim = 0;
+        int n;
+        do {
+            bb.clear();
+            n = ch.read(bb);
+        } while (n == 0);
+        if (n < 0) return false;
+        lim = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ch.close();
+    }
+}
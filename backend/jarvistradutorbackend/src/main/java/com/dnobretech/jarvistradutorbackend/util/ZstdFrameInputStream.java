@@ -0,0 +1,180 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Lê um .zst quadro a quadro, começando em qualquer ponto do {@link SeekIndex}, e grava como ponto de
+ * acesso o início de cada quadro que aparece depois de {@code span} bytes de saída. Quadros zstd são
+ * independentes (sem janela herdada), então o ponto é só (offset descomprimido, offset no arquivo).
+ * O fim de cada quadro é achado pelos cabeçalhos de bloco, sem descomprimir; cada quadro é
+ * descomprimido por um ZstdInputStream próprio limitado a ele. Quadros "skippable" são pulados.
+ *
+ * Arquivo de um quadro só ({@code zstd} padrão) tem apenas o ponto 0: para retomadas baratas,
+ * comprimir em quadros ({@code zstd --block-size}, {@code pzstd}, {@code t2sz}).
+ */
+public final class ZstdFrameInputStream extends InputStream {
+
+    private static final int FRAME_MAGIC = 0xFD2FB528;
+    private static final int SKIPPABLE_MASK = 0xFFFFFFF0;
+    private static final int SKIPPABLE_MAGIC = 0x184D2A50;
+
+    private final FileChannel ch;
+    private final long fileSize;
+    private SeekIndex index;   // null = só lê
+    private long pos;          // início do próximo quadro no arquivo
+    private long outPos;       // offset descomprimido do próximo byte entregue
+    private InputStream frame; // quadro atual (null = abrir o próximo)
+    private boolean done;
+    private final ByteBuffer head = ByteBuffer.allocate(18).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * @param start início de quadro ({@link SeekIndex#ORIGIN} = início do arquivo)
+     * @param index onde gravar os pontos encontrados; {@code null} = não grava
+     */
+    public ZstdFrameInputStream(Path file, SeekIndex.Point start, SeekIndex index) throws IOException {
+        this.ch = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = ch.size();
+        this.index = index;
+        this.pos = start.in();
+        this.outPos = start.out();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) return 0;
+        while (!done) {
+            if (frame == null && !nextFrame()) {
+                done = true;
+                break;
+            }
+            int n = frame.read(b, off, len);
+            if (n > 0) {
+                outPos += n;
+                return n;
+            }
+            if (n < 0) {
+                frame.close();
+                frame = null;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (frame != null) frame.close();
+        } finally {
+            ch.close();
+        }
+    }
+
+    // ===== Quadros =====
+
+    /** Posiciona no próximo quadro de dados; false = fim do arquivo. */
+    private boolean nextFrame() throws IOException {
+        while (pos < fileSize) {
+            int magic = readHead(pos, 4).getInt(0);
+            if ((magic & SKIPPABLE_MASK) == SKIPPABLE_MAGIC) {
+                pos += 8 + (readHead(pos, 8).getInt(4) & 0xFFFFFFFFL);
+                continue;
+            }
+            if (magic != FRAME_MAGIC) throw new IOException("Quadro zstd inválido no offset " + pos);
+
+            long start = pos;
+            long end = frameEnd(start);
+            if (index != null && index.wants(outPos)) {
+                try {
+                    index.add(new SeekIndex.Point(outPos, start, 0, new byte[0]));
+                } catch (IOException e) {
+                    index = null;   // sem índice a leitura continua igual; só a próxima retomada fica mais cara
+                }
+            }
+            frame = new ZstdInputStream(new RangeInput(start, end)).setContinuous(false);
+            pos = end;
+            return true;
+        }
+        return false;
+    }
+
+    /** Fim do quadro que começa em {@code start}, andando pelos cabeçalhos de bloco. */
+    private long frameEnd(long start) throws IOException {
+        ByteBuffer h = readHead(start, 5);
+        int fhd = h.get(4) & 0xFF;
+        boolean single = (fhd & 0x20) != 0;
+        boolean checksum = (fhd & 0x04) != 0;
+        int[] didBytes = {0, 1, 2, 4};
+        int[] fcsBytes = {single ? 1 : 0, 2, 4, 8};
+        long p = start + 5 + (single ? 0 : 1) + didBytes[fhd & 3] + fcsBytes[fhd >>> 6];
+
+        while (true) {
+            ByteBuffer bh = readHead(p, 3);
+            int v = (bh.get(0) & 0xFF) | (bh.get(1) & 0xFF) << 8 | (bh.get(2) & 0xFF) << 16;
+            boolean last = (v & 1) != 0;
+            int type = (v >>> 1) & 3;
+            int size = v >>> 3;
+            p += 3 + switch (type) {
+                case 0, 2 -> size;
+                case 1 -> 1;       // RLE: um byte repetido
+                default -> throw new IOException("Bloco zstd inválido no offset " + p);
+            };
+            if (last) break;
+        }
+        if (checksum) p += 4;
+        if (p > fileSize) throw new EOFException("Arquivo zstd truncado");
+        return p;
+    }
+
+    private ByteBuffer readHead(long at, int n) throws IOException {
+        head.clear().limit(n);
+        while (head.hasRemaining()) {
+            if (ch.read(head, at + head.position()) < 0) throw new EOFException("Arquivo zstd truncado");
+        }
+        return head;
+    }
+
+    /** Bytes [from, to) do arquivo, lidos por posição (o canal é compartilhado). */
+    private final class RangeInput extends InputStream {
+        private long p;
+        private final long to;
+
+        RangeInput(long from, long to) {
+            this.p = from;
+            this.to = to;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (p >= to) return -1;
+            int n = ch.read(ByteBuffer.wrap(b, off, (int) Math.min(len, to - p)), p);
+            if (n < 0) throw new EOFException("Arquivo zstd truncado");
+            p += n;
+            return n;
+        }
+    }
+}
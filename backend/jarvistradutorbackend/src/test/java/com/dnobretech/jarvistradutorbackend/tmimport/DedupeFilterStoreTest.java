@@ -0,0 +1,170 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filtro de dedupe persistido: só o que passou por {@code committed} chega ao disco, o load corta
+ * o que excede o checkpoint (append parcial ou lote sem commit) e um store novo (retomada a frio)
+ * reconstrói o mesmo filtro.
+ */
+class DedupeFilterStoreTest {
+
+    private static final String KEY = "corpus/en-pt.tsv.gz";
+
+    @TempDir
+    Path dir;
+
+    private DedupeFilterStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = newStore();
+    }
+
+    @Test
+    void committedEntriesSurviveColdResume() throws IOException {
+        FingerprintSet set = store.load(KEY, 0, 10);
+        long[] added = {11, 22, 33};
+        for (long fp : added) set.add(fp);
+        store.committed(KEY, set, added, added.length, 3);
+        assertEquals(3 * Long.BYTES, Files.size(file()));
+
+        FingerprintSet cold = newStore().load(KEY, 3, 10);
+        assertEquals(3, cold.size());
+        for (long fp : added) assertFalse(cold.add(fp));
+        assertTrue(cold.add(44));
+    }
+
+    @Test
+    void appendsOnlyOnCommit() throws IOException {
+        FingerprintSet set = store.load(KEY, 0, 10);
+        set.add(1);
+        set.add(2);
+        store.committed(KEY, set, new long[]{1, 2}, 2, 2);
+
+        // lote seguinte adiciona ao filtro em memória mas faz rollback
+        set.add(3);
+        assertEquals(2 * Long.BYTES, Files.size(file()));
+        store.evict(KEY);
+
+        FingerprintSet reloaded = store.load(KEY, 2, 10);
+        assertNotSame(set, reloaded);
+        assertEquals(2, reloaded.size());
+        assertFalse(reloaded.contains(3));
+    }
+
+    @Test
+    void cachedSetIsReusedOnlyForSameEntryCount() throws IOException {
+        FingerprintSet set = store.load(KEY, 0, 10);
+        set.add(5);
+        store.committed(KEY, set, new long[]{5}, 1, 1);
+        assertSame(set, store.load(KEY, 1, 10));
+        assertNotSame(set, store.load(KEY, 0, 10));   // recomeço do zero
+    }
+
+    @Test
+    void truncatedTrailingEntryIsDroppedOnLoad() throws IOException {
+        FingerprintSet set = store.load(KEY, 0, 10);
+        store.committed(KEY, set, new long[]{7, 8}, 2, 2);
+        Files.write(file(), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);   // queda no meio do append
+
+        FingerprintSet loaded = newStore().load(KEY, 2, 10);
+        assertEquals(2, loaded.size());
+        assertEquals(2 * Long.BYTES, Files.size(file()));
+    }
+
+    @Test
+    void entriesBeyondCheckpointAreCut() throws IOException {
+        FingerprintSet set = store.load(KEY, 0, 10);
+        store.committed(KEY, set, new long[]{1, 2, 3, 4}, 4, 4);
+
+        // checkpoint ficou em 2 (ex.: arquivo restaurado de outro ponto): o resto não vale
+        FingerprintSet loaded = newStore().load(KEY, 2, 10);
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.contains(1) && loaded.contains(2));
+        assertFalse(loaded.contains(3));
+        assertEquals(2 * Long.BYTES, Files.size(file()));
+    }
+
+    @Test
+    void missingOrShortFileLosesOnlyHistory() throws IOException {
+        FingerprintSet set = store.load(KEY, 5, 10);   // sem arquivo
+        assertEquals(0, set.size());
+
+        store.committed(KEY, set, new long[]{9}, 1, 1);
+        FingerprintSet loaded = newStore().load(KEY, 5, 10);   // arquivo tem 1 de 5
+        assertEquals(1, loaded.size());
+        assertEquals(Long.BYTES, Files.size(file()));
+    }
+
+    @Test
+    void loadFromZeroDiscardsOldFile() throws IOException {
+        FingerprintSet set = store.load(KEY, 0, 10);
+        store.committed(KEY, set, new long[]{1}, 1, 1);
+        assertTrue(Files.exists(file()));
+
+        assertEquals(0, newStore().load(KEY, 0, 10).size());
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void deleteRemovesFileAndCache() throws IOException {
+        FingerprintSet set = store.load(KEY, 0, 10);
+        set.add(1);
+        store.committed(KEY, set, new long[]{1}, 1, 1);
+        store.delete(KEY);
+        assertEquals(List.of(), files());
+        assertEquals(0, store.load(KEY, 1, 10).size());
+        store.delete("nunca-existiu");   // sem arquivo: não falha
+    }
+
+    @Test
+    void fileKeysAreIsolatedAndSanitized() throws IOException {
+        store.committed("a/b", store.load("a/b", 0, 4), new long[]{1}, 1, 1);
+        store.committed("a_b", store.load("a_b", 0, 4), new long[]{2, 3}, 2, 2);
+        assertEquals(2, files().size());
+        for (Path f : files()) assertTrue(f.getFileName().toString().matches("a_b-[0-9a-f]{8}\\.fp"), f.toString());
+
+        DedupeFilterStore cold = newStore();
+        assertEquals(1, cold.load("a/b", 1, 4).size());
+        assertEquals(2, cold.load("a_b", 2, 4).size());
+    }
+
+    // ===== Helpers =====
+
+    private DedupeFilterStore newStore() {
+        DedupeFilterStore s = new DedupeFilterStore();
+        ReflectionTestUtils.setField(s, "dir", dir.resolve("dedupe").toString());
+        return s;
+    }
+
+    private Path file() throws IOException {
+        List<Path> fs = files();
+        assertEquals(1, fs.size(), fs.toString());
+        return fs.get(0);
+    }
+
+    private List<Path> files() throws IOException {
+        Path d = dir.resolve("dedupe");
+        if (!Files.exists(d)) return List.of();
+        try (Stream<Path> s = Files.list(d)) {
+            return s.sorted().toList();
+        }
+    }
+}
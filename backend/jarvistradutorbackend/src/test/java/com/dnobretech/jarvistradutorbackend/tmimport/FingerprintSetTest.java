@@ -0,0 +1,90 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tabela de endereçamento aberto do FingerprintSet: sentinela do 0, sondagem linear com colisões,
+ * crescimento no fator de carga e paridade com um HashSet.
+ */
+class FingerprintSetTest {
+
+    @Test
+    void addReturnsFalseForDuplicates() {
+        FingerprintSet s = new FingerprintSet(10);
+        assertTrue(s.add(42));
+        assertFalse(s.add(42));
+        assertTrue(s.add(-42));
+        assertTrue(s.contains(42));
+        assertTrue(s.contains(-42));
+        assertFalse(s.contains(43));
+        assertEquals(2, s.size());
+    }
+
+    @Test
+    void zeroIsRemappedToOne() {
+        FingerprintSet s = new FingerprintSet(10);
+        assertFalse(s.contains(0));
+        assertTrue(s.add(0));
+        assertTrue(s.contains(0));
+        assertTrue(s.contains(1));   // 0 e 1 são o mesmo fingerprint
+        assertFalse(s.add(1));
+        assertEquals(1, s.size());
+
+        FingerprintSet t = new FingerprintSet(10);
+        assertTrue(t.add(1));
+        assertFalse(t.add(0));
+    }
+
+    @Test
+    void collidingFingerprintsAreProbed() {
+        // (fp ^ fp >>> 32) tem os 32 bits baixos zerados: todos caem no slot 0
+        FingerprintSet s = new FingerprintSet(100);
+        for (long k = 1; k <= 50; k++) assertTrue(s.add(k << 32 | k));
+        for (long k = 1; k <= 50; k++) {
+            assertTrue(s.contains(k << 32 | k));
+            assertFalse(s.add(k << 32 | k));
+        }
+        assertFalse(s.contains(51L << 32 | 51));
+        assertEquals(50, s.size());
+    }
+
+    @Test
+    void growsAtLoadFactor() {
+        FingerprintSet s = new FingerprintSet(0);
+        assertEquals(16, capacity(s));
+        for (long fp = 1; fp <= 8; fp++) s.add(fp);
+        assertEquals(16, capacity(s));
+        s.add(9);                        // 9 >= 16 * 0.6
+        assertEquals(32, capacity(s));
+        for (long fp = 1; fp <= 9; fp++) assertTrue(s.contains(fp), "fp " + fp);
+
+        assertEquals(1024, capacity(new FingerprintSet(600)));   // 600 / 0.6 = 1001 → próxima potência de 2
+    }
+
+    @Test
+    void matchesHashSetThroughManyResizes() {
+        Random rnd = new Random(3);
+        FingerprintSet s = new FingerprintSet(4);
+        Set<Long> ref = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            long fp = rnd.nextInt(4) == 0 ? rnd.nextInt(1000) : rnd.nextLong();   // parte repetida
+            assertEquals(ref.add(fp == 0 ? 1 : fp), s.add(fp));
+        }
+        assertEquals(ref.size(), s.size());
+        for (long fp : ref) assertTrue(s.contains(fp));
+        assertTrue(capacity(s) * 0.6 > s.size());
+    }
+
+    private static int capacity(FingerprintSet s) {
+        return ((long[]) ReflectionTestUtils.getField(s, "table")).length;
+    }
+}
@@ -0,0 +1,136 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MinHash/LSH do NearDuplicateIndex: variantes de caixa/pontuação caem juntas, o limiar de Jaccard
+ * separa pares pouco acima de pares pouco abaixo (Jaccard exato calculado aqui sobre os mesmos
+ * shingles) e a regra de quality do {@code offer} (primeira ocorrência, depois só melhorias).
+ */
+class NearDuplicateIndexTest {
+
+    private static final long PT = NearDuplicateFilter.group("en", "pt");
+    private static final long ES = NearDuplicateFilter.group("en", "es");
+
+    private static final String BASE = "The committee approved the new budget for the regional hospital network yesterday";
+    private static final String ONE_WORD = "The committee approved the new budget for the regional school network yesterday";
+
+    @Test
+    void casingAndPunctuationVariantsAreDuplicates() {
+        NearDuplicateIndex idx = index(0.7);
+        assertTrue(idx.offer(BASE + ".", PT, 1));
+        assertFalse(idx.offer(BASE.toUpperCase(Locale.ROOT), PT, 1));
+        assertFalse(idx.offer("  the committee, approved the NEW budget -- for the regional hospital network; yesterday!", PT, 1));
+        assertFalse(idx.offer("\"" + BASE.replace(" ", "   ") + "\"", PT, 1));
+        assertEquals(1, idx.representatives());
+        assertEquals(3, idx.dropped());
+    }
+
+    @Test
+    void thresholdSeparatesJustAboveFromJustBelow() {
+        double j = jaccard(BASE, ONE_WORD);
+        assertTrue(j > 0.5 && j < 0.8, "Jaccard do par: " + j);
+
+        NearDuplicateIndex below = index(Math.min(1, j + 0.1));   // par fica logo abaixo do limiar
+        assertTrue(below.offer(BASE, PT, 1));
+        assertTrue(below.offer(ONE_WORD, PT, 1));
+        assertEquals(2, below.representatives());
+
+        NearDuplicateIndex above = index(j - 0.1);                // par fica logo acima do limiar
+        assertTrue(above.offer(BASE, PT, 1));
+        assertFalse(above.offer(ONE_WORD, PT, 1));
+        assertEquals(1, above.representatives());
+    }
+
+    @Test
+    void unrelatedTextsStaySeparate() {
+        NearDuplicateIndex idx = index(0.7);
+        Random rnd = new Random(5);
+        String[] words = {"tradução", "memória", "segmento", "corpus", "livro", "capítulo", "frase", "texto",
+                "arquivo", "linha", "banco", "dados", "modelo", "vetor", "língua", "palavra", "sentido", "página"};
+        Set<String> seen = new HashSet<>();
+        int offered = 0;
+        while (offered < 2000) {
+            StringBuilder sb = new StringBuilder();
+            for (int k = 0; k < 12; k++) sb.append(words[rnd.nextInt(words.length)]).append(' ').append(rnd.nextInt(10_000)).append(' ');
+            if (!seen.add(sb.toString())) continue;
+            assertTrue(idx.offer(sb.toString(), PT, 1), sb.toString());
+            offered++;
+        }
+        assertEquals(2000, idx.representatives());   // também passa por growReps e rehash
+        assertEquals(0, idx.dropped());
+    }
+
+    @Test
+    void groupsAreIndependent() {
+        NearDuplicateIndex idx = index(0.7);
+        assertTrue(idx.offer(BASE, PT, 1));
+        assertTrue(idx.offer(BASE, ES, 1));
+        assertFalse(idx.offer(BASE, ES, 1));
+        assertEquals(2, idx.representatives());
+    }
+
+    @Test
+    void offerKeepsFirstUnlessLaterIsBetter() {
+        NearDuplicateIndex idx = index(0.7);
+        assertTrue(idx.offer(BASE, PT, 0.5));
+        assertFalse(idx.offer(BASE + "!", PT, 0.5));   // quality igual: fica a primeira
+        assertFalse(idx.offer(BASE + "?", PT, 0.2));   // pior
+        assertTrue(idx.offer(BASE + "...", PT, 0.9));  // melhor: passa e vira a nova exigência
+        assertFalse(idx.offer(BASE, PT, 0.7));         // melhor que a primeira, pior que a melhoria
+        assertTrue(idx.offer(BASE, PT, 0.95));
+        assertEquals(1, idx.representatives());
+        assertEquals(3, idx.dropped());
+    }
+
+    @Test
+    void textWithoutLettersOrDigitsIsAlwaysKept() {
+        NearDuplicateIndex idx = index(0.7);
+        assertTrue(idx.offer("...", PT, 1));
+        assertTrue(idx.offer("...", PT, 1));
+        assertTrue(idx.offer("", PT, 1));
+        assertEquals(0, idx.representatives());
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateIndex(64, 10, 0.7, 10));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateIndex(64, 0, 0.7, 10));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateIndex(64, 16, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateIndex(64, 16, 1.5, 10));
+    }
+
+    // ===== Helpers =====
+
+    /** Assinatura maior que a do padrão (64): estimativa mais estreita em volta do Jaccard exato. */
+    private static NearDuplicateIndex index(double threshold) {
+        return new NearDuplicateIndex(256, 64, threshold, 16);
+    }
+
+    /** Jaccard exato dos shingles da forma canônica (mesma regra do índice). */
+    private static double jaccard(String a, String b) {
+        Set<String> sa = shingles(a), sb = shingles(b);
+        Set<String> inter = new HashSet<>(sa);
+        inter.retainAll(sb);
+        Set<String> union = new HashSet<>(sa);
+        union.addAll(sb);
+        return (double) inter.size() / union.size();
+    }
+
+    private static Set<String> shingles(String text) {
+        String canon = text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{Nd}]+", " ").trim();
+        Set<String> out = new HashSet<>();
+        for (int i = 0; i + NearDuplicateIndex.SHINGLE <= canon.length(); i++) out.add(canon.substring(i, i + NearDuplicateIndex.SHINGLE));
+        return out;
+    }
+}
@@ -0,0 +1,258 @@
+package com.dnobretech.jarvistradutorbackend.tmimport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Recorte de TUs nos bytes: tokens partidos entre leituras do canal, casamento de {@code </tu>},
+ * TU vazio/truncado, offsets de retomada e detecção de codificação.
+ */
+class TmxTuReaderTest {
+
+    private static final String HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<tmx version=\"1.4\"><header srclang=\"en\"/>\n<body>\n";
+    private static final String TAIL = "</body>\n</tmx>\n";
+
+    private static String tu(int i) {
+        return "<tu tuid=\"" + i + "\"><tuv xml:lang=\"en\"><seg>Hello " + i + "</seg></tuv>"
+                + "<tuv xml:lang=\"pt\"><seg>Olá " + i + "</seg></tuv></tu>";
+    }
+
+    // ===== Recorte =====
+
+    @Test
+    void tokensSplitAcrossRefills() throws IOException {
+        List<String> tus = new ArrayList<>();
+        for (int i = 0; i < 40; i++) tus.add(tu(i));
+        byte[] data = (HEAD + String.join("\n", tus) + "\n" + TAIL).getBytes(StandardCharsets.UTF_8);
+
+        for (int maxRead : new int[]{1, 2, 3, 7, 64, 1 << 20}) {
+            assertEquals(tus, readAll(data, 0, maxRead, null), "maxRead=" + maxRead);
+        }
+    }
+
+    @Test
+    void closingTagStraddlesBufferBoundary() throws IOException {
+        // buffer inicial de 4096 bytes: varre "</tu>" e "<tu" por cima da fronteira da primeira leitura
+        String second = tu(2);
+        for (int pad = 4070; pad <= 4100; pad++) {
+            String first = "<tu><tuv xml:lang=\"en\"><seg>" + "x".repeat(pad) + "</seg></tuv></tu>";
+            byte[] data = (first + second + TAIL).getBytes(StandardCharsets.UTF_8);
+            assertEquals(List.of(first, second), readAll(data, 0, 1 << 20, null), "pad=" + pad);
+        }
+    }
+
+    @Test
+    void tuvIsNotTuAndWhitespaceBeforeCloseIsAccepted() throws IOException {
+        String a = "<tu><tuv xml:lang=\"en\"><seg>a</seg></tuv><tuv xml:lang=\"pt\"><seg>b</seg></tuv></tu >";
+        String b = "<TU>\n<tuv lang=\"en\"><seg>c</seg></tuv>\n</tu\n>";
+        // <tuv> solto fora de TU não abre TU; </tuv> e </tuvx> não fecham
+        byte[] data = ("<body><tuv>lixo</tuv>" + a + b + "</body>").getBytes(StandardCharsets.UTF_8);
+        assertEquals(List.of(a, b), readAll(data, 0, 3, null));
+
+        String c = "<tu><tuv><seg>x</seg></tuvx></tu>";
+        assertEquals(List.of(c), readAll(c.getBytes(StandardCharsets.UTF_8), 0, 1 << 20, null));
+    }
+
+    @Test
+    void emptyTu() throws IOException {
+        String next = tu(1);
+        for (String empty : new String[]{"<tu/>", "<tu />", "<tu tuid=\"7\"/>", "<tu note='a>b'/>"}) {
+            byte[] data = (HEAD + empty + next + TAIL).getBytes(StandardCharsets.UTF_8);
+            assertEquals(List.of(empty, next), readAll(data, 0, 2, null), empty);
+        }
+    }
+
+    @Test
+    void truncatedTrailingTuIsNotDelivered() throws IOException {
+        String first = tu(1);
+        byte[] data = (HEAD + first + "<tu><tuv xml:lang=\"en\"><seg>cortado").getBytes(StandardCharsets.UTF_8);
+        try (TmxTuReader r = new TmxTuReader(channel(data, 0, 5), 0, 1 << 12)) {
+            long end = (HEAD + first).getBytes(StandardCharsets.UTF_8).length;
+            TmxTuReader.Batch b = r.next(100, 1 << 20);
+            assertEquals(1, b.tus());
+            assertEquals(end, b.endOffset());
+            assertNull(r.next(100, 1 << 20));
+            assertEquals(end, r.position());
+        }
+    }
+
+    @Test
+    void noTuReturnsNull() throws IOException {
+        byte[] data = (HEAD + TAIL).getBytes(StandardCharsets.UTF_8);
+        try (TmxTuReader r = new TmxTuReader(channel(data, 0, 1 << 20), 0, 1 << 12)) {
+            assertNull(r.next(100, 1 << 20));
+            assertEquals(0, r.position());
+        }
+    }
+
+    @Test
+    void batchLimits() throws IOException {
+        List<String> tus = new ArrayList<>();
+        for (int i = 0; i < 10; i++) tus.add(tu(i));
+        byte[] data = (HEAD + String.join("", tus) + TAIL).getBytes(StandardCharsets.UTF_8);
+        try (TmxTuReader r = new TmxTuReader(channel(data, 0, 1 << 20), 0, 1 << 12)) {
+            TmxTuReader.Batch b = r.next(4, 1 << 20);
+            assertEquals(4, b.tus());
+            assertEquals(String.join("", tus.subList(0, 4)), new String(b.data(), 0, b.length(), StandardCharsets.UTF_8));
+            b = r.next(100, 1);   // teto de bytes: ao menos um TU por lote
+            assertEquals(1, b.tus());
+            assertEquals(5, r.next(100, 1 << 20).tus());
+            assertNull(r.next(100, 1 << 20));
+        }
+    }
+
+    // ===== Retomada =====
+
+    @Test
+    void endOffsetMatchesReopen() throws IOException {
+        List<String> tus = new ArrayList<>();
+        for (int i = 0; i < 12; i++) tus.add(i % 3 == 0 ? "<tu/>" : tu(i));
+        String text = HEAD + String.join("\n  ", tus) + TAIL;
+
+        for (TmxTuReader.Encoding enc : new TmxTuReader.Encoding[]{
+                TmxTuReader.Encoding.UTF8, TmxTuReader.Encoding.UTF16LE, TmxTuReader.Encoding.UTF16BE}) {
+            byte[] data = withBom(text, enc);
+            List<Long> offsets = new ArrayList<>();
+            try (TmxTuReader r = new TmxTuReader(channel(data, 0, 3), 0, 1 << 12)) {
+                TmxTuReader.Batch b;
+                while ((b = r.next(1, 1 << 20)) != null) offsets.add(b.endOffset());
+            }
+            assertEquals(tus.size(), offsets.size());
+            for (int k = 0; k < offsets.size(); k++) {
+                long off = offsets.get(k);
+                assertEquals(tus.subList(k + 1, tus.size()), readAll(data, off, 2, enc),
+                        enc.charset() + " offset=" + off);
+            }
+        }
+    }
+
+    // ===== Codificação =====
+
+    @Test
+    void utf16WithBom() throws IOException {
+        List<String> tus = List.of(tu(1), "<tu/>", "<tu><tuv xml:lang=\"ja\"><seg>日本語 😀</seg></tuv></tu>");
+        String text = "<?xml version=\"1.0\" encoding=\"UTF-16\"?><tmx><body>" + String.join("", tus) + "</body></tmx>";
+        for (TmxTuReader.Encoding enc : new TmxTuReader.Encoding[]{TmxTuReader.Encoding.UTF16LE, TmxTuReader.Encoding.UTF16BE}) {
+            byte[] data = withBom(text, enc);
+            assertEquals(tus, readAll(data, 0, 3, null), enc.charset().name());
+            assertEquals(enc, TmxTuReader.Encoding.detect(data, data.length));
+        }
+    }
+
+    @Test
+    void utf16WithoutBom() {
+        byte[] le = "<?xml version=\"1.0\"?><tmx/>".getBytes(StandardCharsets.UTF_16LE);
+        byte[] be = "<?xml version=\"1.0\"?><tmx/>".getBytes(StandardCharsets.UTF_16BE);
+        assertEquals(TmxTuReader.Encoding.UTF16LE, TmxTuReader.Encoding.detect(le, le.length));
+        assertEquals(TmxTuReader.Encoding.UTF16BE, TmxTuReader.Encoding.detect(be, be.length));
+    }
+
+    @Test
+    void declaredSingleByteEncoding() throws IOException {
+        String text = "<?xml version='1.0' encoding='ISO-8859-1'?><tmx><body><tu><tuv xml:lang=\"pt\"><seg>ação</seg></tuv></tu></body></tmx>";
+        byte[] data = text.getBytes(StandardCharsets.ISO_8859_1);
+        TmxTuReader.Encoding enc = TmxTuReader.Encoding.detect(data, data.length);
+        assertEquals(StandardCharsets.ISO_8859_1, enc.charset());
+        assertEquals(1, enc.unit());
+        try (TmxTuReader r = new TmxTuReader(channel(data, 0, 1 << 20), 0, 1 << 12)) {
+            TmxTuReader.Batch b = r.next(10, 1 << 20);
+            assertEquals(StandardCharsets.ISO_8859_1, b.charset());
+            assertEquals("<tu><tuv xml:lang=\"pt\"><seg>ação</seg></tuv></tu>",
+                    new String(b.data(), 0, b.length(), b.charset()));
+        }
+    }
+
+    @Test
+    void defaultsToUtf8() {
+        for (String head : new String[]{"<tmx><body>", "<?xml version=\"1.0\"?><tmx>", "﻿<?xml version=\"1.0\" encoding=\"utf-8\"?>", ""}) {
+            byte[] data = head.getBytes(StandardCharsets.UTF_8);
+            assertEquals(TmxTuReader.Encoding.UTF8, TmxTuReader.Encoding.detect(data, data.length), head);
+        }
+    }
+
+    @Test
+    void rejectsUnsupportedEncodings() {
+        byte[] utf32 = {0, 0, (byte) 0xFE, (byte) 0xFF, 0, 0, 0, '<'};
+        assertThrows(IllegalArgumentException.class, () -> TmxTuReader.Encoding.detect(utf32, utf32.length));
+        byte[] utf32le = {(byte) 0xFF, (byte) 0xFE, 0, 0, '<', 0, 0, 0};
+        assertThrows(IllegalArgumentException.class, () -> TmxTuReader.Encoding.detect(utf32le, utf32le.length));
+
+        byte[] unknown = "<?xml version=\"1.0\" encoding=\"x-nao-existe\"?><tmx/>".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IllegalArgumentException.class, () -> TmxTuReader.Encoding.detect(unknown, unknown.length));
+
+        // declara UTF-16 mas os bytes são ASCII: o recorte não acharia nada
+        byte[] lying = "<?xml version=\"1.0\" encoding=\"UTF-16\"?><tmx/>".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IllegalArgumentException.class, () -> TmxTuReader.Encoding.detect(lying, lying.length));
+
+        byte[] ebcdic = "<?xml version=\"1.0\" encoding=\"IBM037\"?><tmx/>".getBytes(StandardCharsets.US_ASCII);
+        if (Charset.isSupported("IBM037")) {
+            assertThrows(IllegalArgumentException.class, () -> TmxTuReader.Encoding.detect(ebcdic, ebcdic.length));
+        }
+    }
+
+    @Test
+    void resumeWithoutEncodingMustStartAtZero() {
+        assertThrows(IllegalArgumentException.class, () -> new TmxTuReader(channel(new byte[0], 0, 1), 10, 1 << 12));
+    }
+
+    // ===== Helpers =====
+
+    /** Um TU por lote, decodificado; {@code enc == null} = o reader detecta (só no offset 0). */
+    private static List<String> readAll(byte[] data, long from, int maxRead, TmxTuReader.Encoding enc) throws IOException {
+        List<String> out = new ArrayList<>();
+        try (TmxTuReader r = enc == null
+                ? new TmxTuReader(channel(data, (int) from, maxRead), from, 1 << 12)
+                : new TmxTuReader(channel(data, (int) from, maxRead), from, 1 << 12, enc)) {
+            TmxTuReader.Batch b;
+            while ((b = r.next(1, 1 << 20)) != null) {
+                assertEquals(1, b.tus());
+                out.add(new String(b.data(), 0, b.length(), b.charset()));
+            }
+        }
+        return out;
+    }
+
+    private static byte[] withBom(String text, TmxTuReader.Encoding enc) {
+        byte[] bom = enc == TmxTuReader.Encoding.UTF8 ? new byte[0]
+                : enc.bigEndian() ? new byte[]{(byte) 0xFE, (byte) 0xFF} : new byte[]{(byte) 0xFF, (byte) 0xFE};
+        byte[] body = text.getBytes(enc.charset());
+        byte[] all = new byte[bom.length + body.length];
+        System.arraycopy(bom, 0, all, 0, bom.length);
+        System.arraycopy(body, 0, all, bom.length, body.length);
+        return all;
+    }
+
+    /** Canal sobre {@code data[from..]} que entrega no máximo {@code maxRead} bytes por leitura. */
+    private static ReadableByteChannel channel(byte[] data, int from, int maxRead) {
+        return new ReadableByteChannel() {
+            private int p = from;
+            private boolean open = true;
+
+            @Override
+            public int read(ByteBuffer dst) {
+                if (p >= data.length) return -1;
+                int n = Math.min(Math.min(maxRead, dst.remaining()), data.length - p);
+                dst.put(data, p, n);
+                p += n;
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() { return open; }
+
+            @Override
+            public void close() { open = false; }
+        };
+    }
+}
@@ -0,0 +1,282 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Anel SPSC do CopyRingBuffer com um produtor e um consumidor de verdade (threads): bytes exatos
+ * dando várias voltas no anel, espera com o anel cheio/vazio e falhas de cada lado.
+ */
+class CopyRingBufferTest {
+
+    private static final long TIMEOUT_S = 10;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // ===== Transferência =====
+
+    @Test
+    void transfersExactBytesAcrossWrapAround() throws Exception {
+        for (int[] shape : new int[][]{{2, 1}, {2, 7}, {3, 100}, {8, 4096}}) {
+            CopyRingBuffer ring = new CopyRingBuffer(shape[0], shape[1]);
+            byte[] data = new byte[300_000];
+            new Random(shape[1]).nextBytes(data);
+
+            Future<?> producer = pool.submit(() -> {
+                Random rnd = new Random(1);
+                try (OutputStream out = ring.output()) {
+                    int p = 0;
+                    while (p < data.length) {
+                        switch (rnd.nextInt(4)) {
+                            case 0 -> out.write(data[p++]);
+                            case 1 -> out.flush();   // bloco parcial
+                            default -> {
+                                int n = Math.min(data.length - p, rnd.nextInt(3 * shape[1] + 10));
+                                out.write(data, p, n);
+                                p += n;
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+            Future<byte[]> consumer = pool.submit(() -> {
+                Random rnd = new Random(2);
+                ByteArrayOutputStream got = new ByteArrayOutputStream();
+                InputStream in = ring.input();
+                byte[] b = new byte[5000];
+                while (true) {
+                    if (rnd.nextBoolean()) {
+                        int c = in.read();
+                        if (c < 0) break;
+                        got.write(c);
+                    } else {
+                        int n = in.read(b, 0, 1 + rnd.nextInt(b.length));
+                        if (n < 0) break;
+                        got.write(b, 0, n);
+                    }
+                }
+                in.close();
+                return got.toByteArray();
+            });
+
+            producer.get(TIMEOUT_S, TimeUnit.SECONDS);
+            assertArrayEquals(data, consumer.get(TIMEOUT_S, TimeUnit.SECONDS), "anel " + shape[0] + "x" + shape[1]);
+        }
+    }
+
+    @Test
+    void emptyStreamAndZeroLengthRead() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        assertEquals(0, ring.input().read(new byte[4], 0, 0));
+        ring.output().close();
+        assertEquals(-1, ring.input().read());
+        assertEquals(-1, ring.input().read(new byte[4], 0, 4));
+    }
+
+    @Test
+    void fullRingBlocksProducerUntilConsumerReads() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        Future<?> producer = pool.submit(() -> {
+            OutputStream out = ring.output();
+            out.write(new byte[32]);   // os dois blocos publicados: anel cheio
+            out.write(7);              // precisa de um bloco livre
+            out.close();
+            return null;
+        });
+        assertStillRunning(producer);
+
+        InputStream in = ring.input();
+        assertEquals(16, in.read(new byte[16]));   // devolve um bloco
+        producer.get(TIMEOUT_S, TimeUnit.SECONDS);
+
+        assertEquals(16, in.read(new byte[64]));
+        assertEquals(7, in.read());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void emptyRingBlocksConsumerUntilProducerPublishes() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        Future<Integer> consumer = pool.submit(() -> ring.input().read());
+        assertStillRunning(consumer);
+
+        OutputStream out = ring.output();
+        out.write(42);
+        assertStillRunning(consumer);   // bloco parcial ainda não publicado
+        out.flush();
+        assertEquals(42, consumer.get(TIMEOUT_S, TimeUnit.SECONDS));
+    }
+
+    // ===== Falhas =====
+
+    @Test
+    void producerAbortFailsBlockedConsumer() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        Future<Integer> consumer = pool.submit(() -> ring.input().read());
+        assertStillRunning(consumer);
+
+        RuntimeException cause = new RuntimeException("parser quebrou");
+        ring.abort(cause);
+        IOException e = failure(consumer);
+        assertSame(cause, e.getCause());
+    }
+
+    @Test
+    void producerAbortFailsConsumerEvenWithDataPending() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        OutputStream out = ring.output();
+        out.write(new byte[20]);
+        ring.abort(new RuntimeException("parser quebrou"));
+        // o COPY tem que cancelar, não consumir o resto e commitar dados parciais
+        assertThrows(IOException.class, () -> ring.input().read(new byte[64]));
+    }
+
+    @Test
+    void consumerAbortFailsBlockedProducer() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        Future<?> producer = pool.submit(() -> {
+            ring.output().write(new byte[1000]);
+            return null;
+        });
+        assertStillRunning(producer);
+
+        RuntimeException cause = new RuntimeException("COPY falhou");
+        ring.abort(cause);
+        IOException e = failure(producer);
+        assertSame(cause, e.getCause());
+        assertThrows(IOException.class, () -> ring.output().close());
+    }
+
+    @Test
+    void abortWithoutCauseStillFails() {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        ring.abort(null);
+        assertThrows(IOException.class, () -> ring.input().read());
+        assertThrows(IOException.class, () -> ring.output().flush());
+    }
+
+    @Test
+    void consumerCloseBeforeEofFailsProducer() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        Future<?> producer = pool.submit(() -> {
+            ring.output().write(new byte[1000]);
+            return null;
+        });
+        assertStillRunning(producer);
+
+        ring.input().close();
+        IOException e = failure(producer);
+        assertTrue(e.getMessage().contains("fechou antes"), e.getMessage());
+    }
+
+    @Test
+    void consumerCloseFailsNextFlush() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(4, 16);
+        OutputStream out = ring.output();
+        out.write(1);
+        ring.input().close();
+        assertThrows(IOException.class, out::flush);
+    }
+
+    @Test
+    void consumerCloseAfterReadingEverythingIsNotAnError() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        OutputStream out = ring.output();
+        out.write(new byte[]{1, 2, 3});
+        out.flush();
+        InputStream in = ring.input();
+        assertEquals(3, in.read(new byte[8]));
+        in.close();
+        assertDoesNotThrow(out::close);
+    }
+
+    @Test
+    void writeAfterCloseFails() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        OutputStream out = ring.output();
+        out.close();
+        assertThrows(IOException.class, () -> out.write(1));
+    }
+
+    @Test
+    void interruptedConsumerGetsInterruptedIOException() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                ring.input().read();
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        consumer.start();
+        Thread.sleep(200);
+        consumer.interrupt();   // acorda a thread estacionada
+        consumer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_S));
+        assertInstanceOf(InterruptedIOException.class, thrown.get());
+    }
+
+    @Test
+    void interruptedProducerGetsInterruptedIOException() throws Exception {
+        CopyRingBuffer ring = new CopyRingBuffer(2, 16);
+        Thread t = Thread.currentThread();
+        ring.output().write(new byte[32]);
+        Future<?> interrupter = pool.submit(() -> {
+            Thread.sleep(200);
+            t.interrupt();
+            return null;
+        });
+        try {
+            assertThrows(InterruptedIOException.class, () -> ring.output().write(1));
+            assertTrue(Thread.interrupted());   // a flag é preservada (e limpa aqui)
+        } finally {
+            interrupter.get(TIMEOUT_S, TimeUnit.SECONDS);
+            Thread.interrupted();
+        }
+    }
+
+    // ===== Helpers =====
+
+    /** A tarefa continua bloqueada (estacionada) depois de um tempo. */
+    private static void assertStillRunning(Future<?> f) throws Exception {
+        try {
+            f.get(200, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException expected) {
+            return;
+        }
+        throw new AssertionError("deveria estar bloqueada");
+    }
+
+    private static IOException failure(Future<?> f) throws Exception {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(TIMEOUT_S, TimeUnit.SECONDS));
+        return assertInstanceOf(IOException.class, e.getCause());
+    }
+}
@@ -0,0 +1,172 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Colunas do DelimitedRecordParser: sem aspas tem que bater com {@code split(delim, -1)} (o que o
+ * importador fazia antes); com aspas, RFC-4180 limitada a uma linha.
+ */
+class DelimitedRecordParserTest {
+
+    // ===== Sem aspas: paridade com split(-1) =====
+
+    @Test
+    void splitParity() {
+        String[] lines = {
+                "", "a", "a\tb", "a\t", "\ta", "\t", "\t\t", "a\t\tb", "a\tb\t\t",
+                "\"a\"\tb", "ação\t日本語\t😀", " a \t b "
+        };
+        for (String line : lines) assertSplitParity("\t", line);
+    }
+
+    @Test
+    void splitParityRandom() {
+        Random rnd = new Random(42);
+        String alphabet = "ab\t\tç語😀\" ;,|";
+        for (String delim : new String[]{"\t", ",", ";", "|", "||", " ||| ", "→", "語語"}) {
+            for (int n = 0; n < 2000; n++) {
+                StringBuilder sb = new StringBuilder();
+                int len = rnd.nextInt(20);
+                for (int k = 0; k < len; k++) {
+                    if (rnd.nextInt(6) == 0) sb.append(delim);
+                    else sb.appendCodePoint(alphabet.codePointAt(alphabet.offsetByCodePoints(0, rnd.nextInt(alphabet.codePointCount(0, alphabet.length())))));
+                }
+                assertSplitParity(delim, sb.toString());
+            }
+        }
+    }
+
+    @Test
+    void multiByteAndMultiCharDelimiters() {
+        assertEquals(List.of("a", "b", "", "c"), parse("|||", false, "a|||b||||||c"));
+        assertEquals(List.of("a||b", "c"), parse("|||", false, "a||b|||c"));
+        assertEquals(List.of("um", "dois", ""), parse("→", false, "um→dois→"));
+        // delimitador "語" não casa dentro de outro caractere que compartilhe bytes de continuação
+        assertEquals(List.of("誤", "x"), parse("語", false, "誤語x"));
+        assertEquals(List.of("a", "b"), parse(" ||| ", false, "a ||| b"));
+    }
+
+    @Test
+    void slicesInsideLargerBuffer() {
+        byte[] buf = "lixo\na\tb\tc\nmais".getBytes(StandardCharsets.UTF_8);
+        DelimitedRecordParser p = new DelimitedRecordParser("\t", false);
+        p.parse(buf, 5, 5);
+        assertEquals(3, p.columns());
+        assertEquals("a", p.text(0));
+        assertEquals("c", p.text(2));
+        assertEquals(1, p.byteLength(2));
+    }
+
+    // ===== Aspas RFC-4180 =====
+
+    @Test
+    void quotedFields() {
+        assertEquals(List.of("a,b", "c"), parse(",", true, "\"a,b\",c"));
+        assertEquals(List.of("diz \"oi\"", "x"), parse(",", true, "\"diz \"\"oi\"\"\",x"));
+        assertEquals(List.of("\"", ""), parse(",", true, "\"\"\"\","));
+        assertEquals(List.of("", "b"), parse(",", true, "\"\",b"));
+        assertEquals(List.of("a;b", "c"), parse(";", true, "\"a;b\";c"));
+        // aspas só contam no início do campo
+        assertEquals(List.of("a\"b", "c"), parse(",", true, "a\"b,c"));
+        assertEquals(List.of(" \"a", "b\""), parse(",", true, " \"a,b\""));
+    }
+
+    @Test
+    void quotingOffKeepsQuotes() {
+        assertEquals(List.of("\"a", "b\""), parse(",", false, "\"a,b\""));
+    }
+
+    @Test
+    void unclosedQuoteRunsToEndOfLine() {
+        assertEquals(List.of("a,b,c"), parse(",", true, "\"a,b,c"));
+        assertEquals(List.of("x", "a\"b,c"), parse(",", true, "x,\"a\"\"b,c"));
+        assertEquals(List.of(""), parse(",", true, "\""));
+    }
+
+    @Test
+    void textAfterClosingQuoteIsKept() {
+        assertEquals(List.of("abcd", "x"), parse(",", true, "\"ab\"cd,x"));
+        assertEquals(List.of("a,b c\"d", "e"), parse(",", true, "\"a,b\" c\"d,e"));
+    }
+
+    @Test
+    void byteLengthIncludesQuotes() {
+        DelimitedRecordParser p = new DelimitedRecordParser(",", true);
+        byte[] b = "\"ab\",ç".getBytes(StandardCharsets.UTF_8);
+        p.parse(b, 0, b.length);
+        assertEquals(4, p.byteLength(0));
+        assertEquals(2, p.byteLength(1));
+    }
+
+    @Test
+    void quotingByDefault() {
+        assertTrue(DelimitedRecordParser.quotingByDefault(","));
+        assertTrue(DelimitedRecordParser.quotingByDefault(";"));
+        assertFalse(DelimitedRecordParser.quotingByDefault("\t"));
+        assertFalse(DelimitedRecordParser.quotingByDefault("|"));
+        assertFalse(DelimitedRecordParser.quotingByDefault(",,"));
+        assertFalse(DelimitedRecordParser.quotingByDefault(null));
+    }
+
+    // ===== Erros e reuso =====
+
+    @Test
+    void rejectsEmptyDelimiterAndOutOfRangeColumn() {
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedRecordParser("", false));
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedRecordParser(null, false));
+        DelimitedRecordParser p = new DelimitedRecordParser("\t", false);
+        byte[] b = "a\tb".getBytes(StandardCharsets.UTF_8);
+        p.parse(b, 0, b.length);
+        assertThrows(IndexOutOfBoundsException.class, () -> p.text(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> p.byteLength(-1));
+    }
+
+    @Test
+    void reuseAcrossLinesAndManyColumns() {
+        DelimitedRecordParser p = new DelimitedRecordParser(",", true);
+        String wide = String.join(",", Collections.nCopies(50, "\"x,\"\"y\""));
+        byte[] b = wide.getBytes(StandardCharsets.UTF_8);
+        p.parse(b, 0, b.length);
+        assertEquals(50, p.columns());
+        assertEquals("x,\"y", p.text(49));
+
+        b = "só,uma".getBytes(StandardCharsets.UTF_8);
+        p.parse(b, 0, b.length);
+        assertEquals(2, p.columns());
+        assertEquals("só", p.text(0));
+    }
+
+    // ===== Helpers =====
+
+    private static void assertSplitParity(String delim, String line) {
+        assertEquals(List.of(line.split(Pattern.quote(delim), -1)), parse(delim, false, line),
+                "delim='" + delim + "' line='" + line + "'");
+    }
+
+    private static List<String> parse(String delim, boolean quoting, String line) {
+        byte[] b = line.getBytes(StandardCharsets.UTF_8);
+        // bytes em volta: o parser só pode olhar a faixa informada
+        byte[] padded = new byte[b.length + 6];
+        System.arraycopy(b, 0, padded, 3, b.length);
+        padded[0] = padded[1] = padded[2] = '"';
+        padded[b.length + 3] = padded[b.length + 4] = padded[b.length + 5] = '"';
+
+        DelimitedRecordParser p = new DelimitedRecordParser(delim, quoting);
+        p.parse(padded, 3, b.length);
+        List<String> out = new ArrayList<>();
+        for (int c = 0; c < p.columns(); c++) out.add(p.text(c));
+        return out;
+    }
+}
@@ -0,0 +1,224 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inflate próprio do GzipSeekInputStream contra o conteúdo original (tudo que o Deflater do JDK gera:
+ * blocos sem compressão, fixos e dinâmicos; membros concatenados; flags de cabeçalho) e retomada
+ * pelos pontos de acesso gravados, inclusive recarregando o índice do disco.
+ */
+class GzipSeekInputStreamTest {
+
+    @TempDir
+    Path dir;
+
+    // ===== Leitura completa =====
+
+    @Test
+    void decodesAllLevels() throws IOException {
+        byte[] data = corpus(3 << 20, 1);
+        for (int level : new int[]{0, 1, 6, 9}) {
+            Path f = write("l" + level + ".gz", gzip(data, level));
+            assertArrayEquals(data, readAll(f, SeekIndex.ORIGIN, null), "nível " + level);
+        }
+    }
+
+    @Test
+    void decodesConcatenatedMembers() throws IOException {
+        byte[] a = corpus(400_000, 2), b = "oi\n".getBytes(StandardCharsets.UTF_8), c = corpus(300_000, 3);
+        Path f = write("multi.gz", concat(gzip(a, 6), gzip(new byte[0], 6), gzip(b, 9), gzip(c, 0)));
+        assertArrayEquals(concat(a, b, c), readAll(f, SeekIndex.ORIGIN, null));
+    }
+
+    @Test
+    void skipsOptionalHeaderFields() throws IOException {
+        byte[] data = corpus(100_000, 4);
+        byte[] raw = rawDeflate(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{0x1F, (byte) 0x8B, 8, 0x04 | 0x08 | 0x10 | 0x02, 0, 0, 0, 0, 0, 3});
+        out.write(new byte[]{5, 0, 'a', 'b', 'c', 'd', 'e'});               // FEXTRA
+        out.write("corpus.tsv\0".getBytes(StandardCharsets.ISO_8859_1));    // FNAME
+        out.write("comentário\0".getBytes(StandardCharsets.ISO_8859_1));    // FCOMMENT
+        out.write(new byte[]{0x12, 0x34});                                  // FHCRC (não conferido)
+        out.write(raw);
+        out.write(trailer(data));
+        Path f = write("flags.gz", out.toByteArray());
+        assertArrayEquals(data, readAll(f, SeekIndex.ORIGIN, null));
+    }
+
+    @Test
+    void ignoresTrailingGarbage() throws IOException {
+        byte[] data = corpus(50_000, 5);
+        Path f = write("lixo.gz", concat(gzip(data, 6), "lixo depois".getBytes(StandardCharsets.UTF_8)));
+        assertArrayEquals(data, readAll(f, SeekIndex.ORIGIN, null));
+    }
+
+    // ===== Erros =====
+
+    @Test
+    void truncatedFileFails() throws IOException {
+        byte[] gz = gzip(corpus(200_000, 6), 6);
+        for (int cut : new int[]{5, 10, 100, gz.length / 2, gz.length - 8, gz.length - 1}) {
+            Path f = write("cut" + cut + ".gz", Arrays.copyOf(gz, cut));
+            assertThrows(IOException.class, () -> readAll(f, SeekIndex.ORIGIN, null), "corte em " + cut);
+        }
+    }
+
+    @Test
+    void corruptTrailerFails() throws IOException {
+        byte[] gz = gzip(corpus(200_000, 7), 6);
+        gz[gz.length - 6] ^= 1;   // CRC32
+        Path f = write("crc.gz", gz);
+        assertThrows(IOException.class, () -> readAll(f, SeekIndex.ORIGIN, null));
+    }
+
+    @Test
+    void notGzipFails() throws IOException {
+        Path f = write("txt.gz", "não é gzip".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> readAll(f, SeekIndex.ORIGIN, null));
+    }
+
+    // ===== Pontos de acesso =====
+
+    @Test
+    void resumesFromRecordedPoints() throws IOException {
+        byte[] a = corpus(2 << 20, 8), b = corpus(1 << 20, 9);
+        byte[] data = concat(a, b);
+        Path f = write("seek.gz", concat(gzip(a, 6), gzip(b, 1)));
+        Path idxFile = dir.resolve("seek.idx");
+
+        SeekIndex index = SeekIndex.open(idxFile, f, CompressedInput.Codec.GZIP, 64 << 10);
+        assertArrayEquals(data, readAll(f, SeekIndex.ORIGIN, index));
+        assertTrue(index.size() > 10, "pontos gravados: " + index.size());
+
+        Random rnd = new Random(10);
+        for (int n = 0; n < 20; n++) assertResume(f, data, rnd.nextInt(data.length + 1), index);
+        assertResume(f, data, a.length, index);   // fronteira entre membros
+        assertResume(f, data, data.length, index);
+
+        // retomada a frio: índice relido do disco
+        SeekIndex cold = SeekIndex.open(idxFile, f, CompressedInput.Codec.GZIP, 64 << 10);
+        assertEquals(index.size(), cold.size());
+        for (int n = 0; n < 10; n++) assertResume(f, data, rnd.nextInt(data.length + 1), cold);
+    }
+
+    @Test
+    void pointFloorIsNearTheOffset() throws IOException {
+        byte[] data = corpus(2 << 20, 11);
+        Path f = write("floor.gz", gzip(data, 6));
+        SeekIndex index = SeekIndex.open(dir.resolve("floor.idx"), f, CompressedInput.Codec.GZIP, 64 << 10);
+        readAll(f, SeekIndex.ORIGIN, index);
+
+        long off = data.length - 1000;
+        SeekIndex.Point p = index.floor(off);
+        assertTrue(p.out() <= off && off - p.out() < (256 << 10), "ponto em " + p.out() + " para " + off);
+        assertTrue(p.in() > 0 && p.window().length == 32 << 10);
+        // o ponto sozinho (sem o índice) basta para decodificar o resto
+        assertArrayEquals(Arrays.copyOfRange(data, (int) p.out(), data.length), readAll(f, p, null));
+    }
+
+    // ===== Helpers =====
+
+    private static void assertResume(Path f, byte[] data, int off, SeekIndex index) throws IOException {
+        try (InputStream in = Channels.newInputStream(CompressedInput.openAt(f, CompressedInput.Codec.GZIP, off, index))) {
+            assertArrayEquals(Arrays.copyOfRange(data, off, data.length), in.readAllBytes(), "offset " + off);
+        }
+    }
+
+    private static byte[] readAll(Path f, SeekIndex.Point start, SeekIndex index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Random rnd = new Random(f.hashCode());
+        try (GzipSeekInputStream in = new GzipSeekInputStream(f, start, index)) {
+            byte[] b = new byte[100_000];
+            while (true) {
+                if (rnd.nextInt(10) == 0) {
+                    int c = in.read();
+                    if (c < 0) break;
+                    out.write(c);
+                } else {
+                    int n = in.read(b, 0, 1 + rnd.nextInt(b.length));
+                    if (n < 0) break;
+                    out.write(b, 0, n);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /** Linhas de TSV repetitivas (blocos dinâmicos) intercaladas com trechos aleatórios (incompressíveis). */
+    private static byte[] corpus(int size, long seed) {
+        Random rnd = new Random(seed);
+        String[] words = {"ação", "the", "tradução", "memory", "segmento", "日本語", "x", "corpus", "\t"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + 1000);
+        while (out.size() < size) {
+            if (rnd.nextInt(50) == 0) {
+                byte[] noise = new byte[rnd.nextInt(5000)];
+                rnd.nextBytes(noise);
+                out.writeBytes(noise);
+            } else {
+                StringBuilder sb = new StringBuilder();
+                for (int k = rnd.nextInt(20); k >= 0; k--) sb.append(words[rnd.nextInt(words.length)]).append(' ');
+                out.writeBytes(sb.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return Arrays.copyOf(out.toByteArray(), size);
+    }
+
+    private static byte[] gzip(byte[] data, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out) {{ def.setLevel(level); }}) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] rawDeflate(byte[] data) {
+        Deflater d = new Deflater(6, true);
+        d.setInput(data);
+        d.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1 << 16];
+        while (!d.finished()) out.write(buf, 0, d.deflate(buf));
+        d.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] trailer(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt((int) crc.getValue()).putInt(data.length).array();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] p : parts) out.writeBytes(p);
+        return out.toByteArray();
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        Path f = dir.resolve(name);
+        Files.write(f, content);
+        return f;
+    }
+}
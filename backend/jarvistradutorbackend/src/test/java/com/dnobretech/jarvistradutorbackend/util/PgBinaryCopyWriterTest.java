@@ -0,0 +1,167 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bytes exatos do PgBinaryCopyWriter: header, trailer e cada tipo de coluna no formato binário do
+ * COPY (big-endian, tamanho int32 antes do valor, -1 = NULL) e do pgvector (int16 dim, int16 0, float4[]).
+ */
+class PgBinaryCopyWriterTest {
+
+    private static final byte[] HEADER = {
+            'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0,   // assinatura
+            0, 0, 0, 0,                                                       // flags
+            0, 0, 0, 0                                                        // extensão do header
+    };
+    private static final byte[] TRAILER = {(byte) 0xFF, (byte) 0xFF};
+    private static final byte[] NULL = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+
+    // ===== Header e trailer =====
+
+    @Test
+    void emptyStreamIsHeaderPlusTrailer() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PgBinaryCopyWriter w = new PgBinaryCopyWriter(bos);
+        w.close();
+        assertArrayEquals(concat(HEADER, TRAILER), bos.toByteArray());
+        assertEquals(HEADER.length + TRAILER.length, w.bytesWritten());
+    }
+
+    @Test
+    void finishIsIdempotentAndDoesNotClose() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PgBinaryCopyWriter w = new PgBinaryCopyWriter(bos, 16);
+        w.finish();
+        w.finish();
+        w.close();
+        assertArrayEquals(concat(HEADER, TRAILER), bos.toByteArray());
+    }
+
+    @Test
+    void startRowWritesColumnCount() throws IOException {
+        assertArrayEquals(new byte[]{0, 3}, row(w -> w.startRow(3)));
+    }
+
+    // ===== Tipos =====
+
+    @Test
+    void text() throws IOException {
+        assertArrayEquals(new byte[]{0, 0, 0, 5, 'a', (byte) 0xC3, (byte) 0xA7, (byte) 0xC3, (byte) 0xA3},
+                row(w -> w.text("açã")));
+        assertArrayEquals(new byte[]{0, 0, 0, 0}, row(w -> w.text("")));
+        assertArrayEquals(NULL, row(w -> w.text(null)));
+    }
+
+    @Test
+    void textOrNull() throws IOException {
+        assertArrayEquals(NULL, row(w -> w.textOrNull("")));
+        assertArrayEquals(NULL, row(w -> w.textOrNull(" \t")));
+        assertArrayEquals(NULL, row(w -> w.textOrNull(null)));
+        assertArrayEquals(new byte[]{0, 0, 0, 2, ' ', 'x'}, row(w -> w.textOrNull(" x")));
+    }
+
+    @Test
+    void nullValue() throws IOException {
+        assertArrayEquals(NULL, row(PgBinaryCopyWriter::nullValue));
+    }
+
+    @Test
+    void int8() throws IOException {
+        assertArrayEquals(new byte[]{0, 0, 0, 8, 0, 0, 0, 0, 0, 0, 0x01, 0x02}, row(w -> w.int8(258L)));
+        assertArrayEquals(new byte[]{0, 0, 0, 8, -1, -1, -1, -1, -1, -1, -1, -1}, row(w -> w.int8(-1L)));
+        assertArrayEquals(new byte[]{0, 0, 0, 8, (byte) 0x80, 0, 0, 0, 0, 0, 0, 0}, row(w -> w.int8(Long.MIN_VALUE)));
+        assertArrayEquals(new byte[]{0, 0, 0, 8, 0, 0, 0, 0, 0, 0, 0, 7}, row(w -> w.int8(Long.valueOf(7))));
+        assertArrayEquals(NULL, row(w -> w.int8((Long) null)));
+    }
+
+    @Test
+    void float8() throws IOException {
+        // 1.5 = 0x3FF8000000000000; -2.0 = 0xC000000000000000
+        assertArrayEquals(new byte[]{0, 0, 0, 8, 0x3F, (byte) 0xF8, 0, 0, 0, 0, 0, 0}, row(w -> w.float8(1.5)));
+        assertArrayEquals(new byte[]{0, 0, 0, 8, (byte) 0xC0, 0, 0, 0, 0, 0, 0, 0}, row(w -> w.float8(Double.valueOf(-2.0))));
+        assertArrayEquals(NULL, row(w -> w.float8((Double) null)));
+    }
+
+    @Test
+    void vectorLayout() throws IOException {
+        // 1.0f = 0x3F800000; -0.5f = 0xBF000000
+        byte[] expected = {
+                0, 0, 0, 12,                    // tamanho: 4 + 4 * 2
+                0, 2,                           // dim
+                0, 0,                           // unused
+                0x3F, (byte) 0x80, 0, 0,
+                (byte) 0xBF, 0, 0, 0
+        };
+        assertArrayEquals(expected, row(w -> w.vector(new float[]{1.0f, -0.5f})));
+        assertArrayEquals(expected, row(w -> w.vector(new double[]{1.0, -0.5})));
+    }
+
+    @Test
+    void vectorDoubleIsNarrowedToFloat4() throws IOException {
+        double d = 0.1;   // não representável: vai o float mais próximo, 4 bytes
+        byte[] f = ByteBuffer.allocate(4).putFloat((float) d).array();
+        assertArrayEquals(concat(new byte[]{0, 0, 0, 8, 0, 1, 0, 0}, f), row(w -> w.vector(new double[]{d})));
+    }
+
+    @Test
+    void emptyAndNullVector() throws IOException {
+        assertArrayEquals(new byte[]{0, 0, 0, 4, 0, 0, 0, 0}, row(w -> w.vector(new float[0])));
+        assertArrayEquals(new byte[]{0, 0, 0, 4, 0, 0, 0, 0}, row(w -> w.vector(new double[0])));
+        assertArrayEquals(NULL, row(w -> w.vector((float[]) null)));
+        assertArrayEquals(NULL, row(w -> w.vector((double[]) null)));
+    }
+
+    // ===== Linha completa =====
+
+    @Test
+    void fullRowAndByteCount() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PgBinaryCopyWriter w = new PgBinaryCopyWriter(bos, 8);
+        w.startRow(3);
+        w.text("oi");
+        w.nullValue();
+        w.int8(1L);
+        w.close();
+        byte[] expected = concat(HEADER,
+                new byte[]{0, 3},
+                new byte[]{0, 0, 0, 2, 'o', 'i'},
+                NULL,
+                new byte[]{0, 0, 0, 8, 0, 0, 0, 0, 0, 0, 0, 1},
+                TRAILER);
+        assertArrayEquals(expected, bos.toByteArray());
+        assertEquals(expected.length, w.bytesWritten());
+    }
+
+    // ===== Helpers =====
+
+    private interface Body {
+        void write(PgBinaryCopyWriter w) throws IOException;
+    }
+
+    /** Só os bytes gerados por {@code body} (sem header e trailer). */
+    private static byte[] row(Body body) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (PgBinaryCopyWriter w = new PgBinaryCopyWriter(bos)) {
+            body.write(w);
+        }
+        byte[] all = bos.toByteArray();
+        assertArrayEquals(HEADER, Arrays.copyOf(all, HEADER.length));
+        assertArrayEquals(TRAILER, Arrays.copyOfRange(all, all.length - TRAILER.length, all.length));
+        return Arrays.copyOfRange(all, HEADER.length, all.length - TRAILER.length);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] p : parts) out.writeBytes(p);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,121 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Arquivo do SeekIndex: pontos sobrevivem ao reload com janela intacta, arquivo de origem alterado
+ * descarta o índice e um append interrompido no meio só perde o último ponto.
+ */
+class SeekIndexTest {
+
+    private static final CompressedInput.Codec GZ = CompressedInput.Codec.GZIP;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pointsSurviveReload() throws IOException {
+        Path src = source("a.gz");
+        Path file = dir.resolve("idx/a.idx");   // diretório criado no primeiro ponto
+        SeekIndex idx = SeekIndex.open(file, src, GZ, 100);
+        assertFalse(Files.exists(file));
+        assertSame(SeekIndex.ORIGIN, idx.floor(1_000));
+
+        byte[] w1 = window(1), w2 = window(2);
+        assertFalse(idx.wants(99));
+        assertTrue(idx.wants(100));
+        idx.add(new SeekIndex.Point(100, 40, 3, w1));
+        idx.add(new SeekIndex.Point(50, 20, 0, w1));      // fora de ordem: ignorado
+        idx.add(new SeekIndex.Point(250, 90, 7, w2));
+        assertFalse(idx.wants(349));
+        assertEquals(2, idx.size());
+
+        SeekIndex again = SeekIndex.open(file, src, GZ, 100);
+        assertEquals(2, again.size());
+        assertSame(SeekIndex.ORIGIN, again.floor(99));
+        SeekIndex.Point p = again.floor(249);
+        assertEquals(100, p.out());
+        assertEquals(40, p.in());
+        assertEquals(3, p.bits());
+        assertArrayEquals(w1, p.window());
+        p = again.floor(Long.MAX_VALUE);
+        assertEquals(7, p.bits());
+        assertArrayEquals(w2, p.window());
+
+        again.add(new SeekIndex.Point(400, 150, 0, new byte[0]));
+        assertEquals(3, SeekIndex.open(file, src, GZ, 100).size());
+    }
+
+    @Test
+    void changedSourceOrCodecDiscardsIndex() throws IOException {
+        Path src = source("b.gz");
+        Path file = dir.resolve("b.idx");
+        SeekIndex idx = SeekIndex.open(file, src, GZ, 1);
+        idx.add(new SeekIndex.Point(10, 5, 0, window(3)));
+        assertTrue(idx.matchesSource());
+
+        assertEquals(0, SeekIndex.open(file, src, CompressedInput.Codec.ZSTD, 1).size());
+        assertFalse(Files.exists(file));
+
+        idx = SeekIndex.open(file, src, GZ, 1);
+        idx.add(new SeekIndex.Point(10, 5, 0, window(3)));
+        Files.setLastModifiedTime(src, FileTime.fromMillis(Files.getLastModifiedTime(src).toMillis() - 60_000));
+        assertFalse(idx.matchesSource());
+        assertEquals(0, SeekIndex.open(file, src, GZ, 1).size());
+    }
+
+    @Test
+    void tornAppendIsTruncated() throws IOException {
+        Path src = source("c.gz");
+        Path file = dir.resolve("c.idx");
+        SeekIndex idx = SeekIndex.open(file, src, GZ, 1);
+        idx.add(new SeekIndex.Point(10, 5, 1, window(4)));
+        long good = Files.size(file);
+        idx.add(new SeekIndex.Point(20, 9, 2, window(5)));
+        long full = Files.size(file);
+
+        for (long cut = full - 1; cut > good; cut -= 97) {
+            try (FileChannel fc = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                fc.truncate(cut);
+            }
+            SeekIndex reloaded = SeekIndex.open(file, src, GZ, 1);
+            assertEquals(1, reloaded.size(), "corte em " + cut);
+            assertEquals(good, Files.size(file));
+            assertArrayEquals(window(4), reloaded.floor(100).window());
+
+            reloaded.add(new SeekIndex.Point(20, 9, 2, window(5)));   // append continua depois do corte
+            assertEquals(full, Files.size(file));
+        }
+    }
+
+    // ===== Helpers =====
+
+    private Path source(String name) throws IOException {
+        Path f = dir.resolve(name);
+        Files.write(f, new byte[]{0x1F, (byte) 0x8B, 8, 0});
+        return f;
+    }
+
+    /** Janela de 32 KB meio compressível, meio aleatória. */
+    private static byte[] window(long seed) {
+        byte[] w = new byte[32 << 10];
+        new Random(seed).nextBytes(w);
+        for (int i = 0; i < w.length / 2; i++) w[i] = (byte) ('a' + i % 7);
+        return w;
+    }
+}
@@ -0,0 +1,125 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Saída dourada do TextNormalizer: a versão em uma passada tem que produzir exatamente o que a
+ * versão com regex (copiada abaixo como referência) produzia.
+ */
+class TextNormalizerTest {
+
+    private final TextNormalizer norm = new TextNormalizer();
+
+    // ===== Referência: implementação anterior, sem alterações =====
+
+    private static String legacyNormalize(String s) {
+        if (s == null) return "";
+        String t = s.trim();
+        t = Normalizer.normalize(t, Normalizer.Form.NFKC);
+        t = t.replaceAll("\\s+", " ");
+        return t;
+    }
+
+    private static String legacyNormalizeDialogue(String s) {
+        if (s == null) return "";
+        String t = legacyNormalize(s);
+        t = t.replace('“','"').replace('”','"').replace('«','"').replace('»','"');
+        t = t.replace('’','\'').replace('‘','\'');
+        t = t.replace('—', '-');
+        t = t.replaceAll("^(\\-|—)\\s*", "");
+        t = t.replaceAll("\\s*\\.\\.\\.\\s*", " ... ");
+        t = t.replaceAll("\\s+", " ").trim();
+        return t;
+    }
+
+    // ===== Casos fixos =====
+
+    private static final String[][] GOLDEN_DIALOGUE = {
+            {"  — Olá,   mundo…  ", "Olá, mundo ..."},
+            {"- Oi... tudo bem?", "Oi ... tudo bem?"},
+            {"“Don’t go,” she said.", "\"Don't go,\" she said."},
+            {"«Não» disse ‘ele’", "\"Não\" disse 'ele'"},
+            {"--dupla", "-dupla"},
+            {"- - dupla", "- dupla"},
+            {"a....b", "a ... .b"},
+            {"....", "... ."},
+            {"...", "..."},
+            {"a... ...b", "a ... ... b"},
+            {"palavra—palavra", "palavra-palavra"},
+            {" — não é líder", "- não é líder"},
+            {"-\u0001 x", "x"},
+            {"a \u0001 b\u0001", "a \u0001 b"},
+            {"tab\tquebra\r\nfim\u000B\f", "tab quebra fim"},
+            {"ﬁm ＡＢＣ ①", "fim ABC 1"},
+            {"", ""},
+            {"   ", ""},
+            {"-", ""},
+            {"—", ""},
+    };
+
+    private static final String[][] GOLDEN_NORMALIZE = {
+            {"  a   b  ", "a b"},
+            {" abc ", " abc "},
+            {"x\t\ty\n z", "x y z"},
+            {"ﬁ ２", "fi 2"},
+            {"já normal", "já normal"},
+            {"\u0001a\u0001", "a"},
+    };
+
+    @Test
+    void goldenDialogue() {
+        for (String[] c : GOLDEN_DIALOGUE) {
+            assertEquals(c[1], legacyNormalizeDialogue(c[0]), "referência: " + c[0]);
+            assertEquals(c[1], norm.normalizeDialogue(c[0]), c[0]);
+        }
+    }
+
+    @Test
+    void goldenNormalize() {
+        for (String[] c : GOLDEN_NORMALIZE) {
+            assertEquals(c[1], legacyNormalize(c[0]), "referência: " + c[0]);
+            assertEquals(c[1], norm.normalize(c[0]), c[0]);
+        }
+    }
+
+    @Test
+    void nullViraVazio() {
+        assertEquals("", norm.normalize(null));
+        assertEquals("", norm.normalizeDialogue(null));
+    }
+
+    // ===== Equivalência em entradas aleatórias =====
+
+    /** alfabeto com tudo o que as regras tocam: espaços, controles, pontos, aspas, traços, compatibilidade */
+    private static final char[] ALPHABET = (
+            "ab Z.  ..-—–\t\n\r\u000B\f\u0001\u001F  　"
+                    + "“”«»’‘\"'…ﬁ①Ａé́ç,!?"
+    ).toCharArray();
+
+    @Test
+    void equivalenteAReferenciaEmEntradasAleatorias() {
+        Random rnd = new Random(20240601L);
+        for (int k = 0; k < 50_000; k++) {
+            int len = rnd.nextInt(24);
+            StringBuilder sb = new StringBuilder(len);
+            for (int i = 0; i < len; i++) sb.append(ALPHABET[rnd.nextInt(ALPHABET.length)]);
+            String in = sb.toString();
+            assertEquals(legacyNormalize(in), norm.normalize(in), () -> "normalize: " + escape(in));
+            assertEquals(legacyNormalizeDialogue(in), norm.normalizeDialogue(in), () -> "normalizeDialogue: " + escape(in));
+        }
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            if (c < 0x20 || c >= 0x7F) sb.append(String.format("\\u%04X", (int) c));
+            else sb.append(c);
+        }
+        return sb.toString();
+    }
+}
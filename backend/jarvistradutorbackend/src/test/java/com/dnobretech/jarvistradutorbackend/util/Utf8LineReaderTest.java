@@ -0,0 +1,223 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Linhas e offsets do Utf8LineReader contra uma referência byte a byte: {@code position()} depois de
+ * cada linha é o que vai para o checkpoint, então tem que bater exatamente, inclusive com o
+ * terminador partido entre duas leituras do canal.
+ */
+class Utf8LineReaderTest {
+
+    /** Buffer mínimo do reader. */
+    private static final int BUF = 8192;
+
+    @TempDir
+    Path dir;
+
+    // ===== Terminadores =====
+
+    @Test
+    void terminators() throws IOException {
+        assertLines("a\nb\r\nc\rd", 1 << 20);
+        assertLines("\n\n\r\r\n\r\n", 1 << 20);
+        assertLines("a\r\n\nb", 1 << 20);         // \r\n e depois linha vazia
+        assertLines("a\n\rb", 1 << 20);           // \n\r = dois terminadores
+        assertLines("", 1 << 20);
+        assertLines("só uma linha", 1 << 20);     // sem terminador no fim
+        assertLines("ação\n日本語\r\n😀", 1 << 20);
+    }
+
+    @Test
+    void terminatorSplitAcrossBufferBoundary() throws IOException {
+        // linha longa o bastante para o terminador cair em volta da fronteira de 8192 bytes
+        for (String term : new String[]{"\n", "\r", "\r\n"}) {
+            for (int len = BUF - 4; len <= BUF + 4; len++) {
+                String text = "x".repeat(len) + term + "y" + term + "z".repeat(BUF - 1) + term + "fim";
+                assertLines(text, 1 << 20);
+                assertLines(text, BUF);
+                assertLines(text, 1);
+            }
+        }
+    }
+
+    @Test
+    void crAtEndOfBufferFollowedByOtherByte() throws IOException {
+        // \r no último byte do buffer e a próxima leitura não começa com \n
+        String text = "x".repeat(BUF - 1) + "\r" + "y\r" + "\n";
+        assertLines(text, 1 << 20);
+        assertLines(text, BUF);
+        // \r no último byte do arquivo
+        assertLines("x".repeat(BUF - 1) + "\r", 1 << 20);
+    }
+
+    @Test
+    void lineLongerThanBuffer() throws IOException {
+        String big = "ç".repeat(3 * BUF + 5);   // 2 bytes por caractere
+        assertLines(big + "\r\n" + big + "\rz", 1 << 20);
+        assertLines(big, 7);
+    }
+
+    @Test
+    void randomAgainstReference() throws IOException {
+        Random rnd = new Random(7);
+        String[] pieces = {"\n", "\r", "\r\n", "a", "bb", "ç", "日", "😀", "\t", "x".repeat(BUF / 3)};
+        for (int n = 0; n < 200; n++) {
+            StringBuilder sb = new StringBuilder();
+            int k = rnd.nextInt(60);
+            for (int i = 0; i < k; i++) sb.append(pieces[rnd.nextInt(pieces.length)]);
+            assertLines(sb.toString(), 1 + rnd.nextInt(BUF * 2));
+        }
+    }
+
+    // ===== Retomada =====
+
+    @Test
+    void reopenAtEachPosition() throws IOException {
+        String text = "primeira\r\nsegunda\rterceira\n\nação " + "x".repeat(BUF) + "\r\núltima";
+        Path file = dir.resolve("in.txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        List<String> lines = reference(text.getBytes(StandardCharsets.UTF_8)).lines;
+
+        List<Long> positions = new ArrayList<>();
+        try (Utf8LineReader r = Utf8LineReader.open(file, 0)) {
+            while (r.readLine() != null) positions.add(r.position());
+        }
+        for (int k = 0; k < positions.size(); k++) {
+            try (Utf8LineReader r = Utf8LineReader.open(file, positions.get(k))) {
+                List<String> rest = new ArrayList<>();
+                String l;
+                while ((l = r.readLine()) != null) rest.add(l);
+                assertEquals(lines.subList(k + 1, lines.size()), rest, "offset=" + positions.get(k));
+                assertEquals(Files.size(file), r.position());
+            }
+        }
+    }
+
+    @Test
+    void startOffsetIsAddedToPosition() throws IOException {
+        byte[] data = "a\nbc\r\n".getBytes(StandardCharsets.UTF_8);
+        try (Utf8LineReader r = new Utf8LineReader(channel(data, 1), 1000, BUF)) {
+            assertEquals(1000, r.position());
+            assertEquals("a", r.readLine());
+            assertEquals(1002, r.position());
+            assertEquals("bc", r.readLine());
+            assertEquals(1006, r.position());
+            assertNull(r.readLine());
+            assertEquals(1006, r.position());
+        }
+    }
+
+    // ===== readRecord =====
+
+    @Test
+    void readRecordMatchesReadLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append("src ").append(i).append("\tação ").append(i).append(i % 7 == 0 ? "\t" : "")
+                    .append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        Ref ref = reference(data);
+
+        for (int maxRead : new int[]{1, 3, BUF - 1, 1 << 20}) {
+            DelimitedRecordParser p = new DelimitedRecordParser("\t", false);
+            try (Utf8LineReader r = new Utf8LineReader(channel(data, maxRead), 0, BUF)) {
+                for (int k = 0; k < ref.lines.size(); k++) {
+                    assertTrue(r.readRecord(p));
+                    String[] cols = ref.lines.get(k).split("\t", -1);
+                    assertEquals(cols.length, p.columns(), "linha " + k);
+                    for (int c = 0; c < cols.length; c++) assertEquals(cols[c], p.text(c), "linha " + k);
+                    assertEquals(ref.positions.get(k), r.position(), "linha " + k);
+                }
+                assertFalse(r.readRecord(p));
+            }
+        }
+    }
+
+    // ===== Helpers =====
+
+    /** Linhas e {@code position()} do reader iguais à referência, lendo no máximo {@code maxRead} bytes por vez. */
+    private static void assertLines(String text, int maxRead) throws IOException {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        Ref ref = reference(data);
+        List<String> lines = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        try (Utf8LineReader r = new Utf8LineReader(channel(data, maxRead), 0, BUF)) {
+            String l;
+            while ((l = r.readLine()) != null) {
+                lines.add(l);
+                positions.add(r.position());
+            }
+            assertEquals(data.length, r.position());
+        }
+        assertEquals(ref.lines, lines, "maxRead=" + maxRead);
+        assertEquals(ref.positions, positions, "maxRead=" + maxRead);
+    }
+
+    private record Ref(List<String> lines, List<Long> positions) {}
+
+    /** Referência ingênua: \n, \r\n ou \r isolado; a última linha sem terminador conta se não for vazia. */
+    private static Ref reference(byte[] data) {
+        List<String> lines = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < data.length) {
+            byte b = data[i];
+            if (b == '\n' || b == '\r') {
+                lines.add(new String(data, start, i - start, StandardCharsets.UTF_8));
+                i++;
+                if (b == '\r' && i < data.length && data[i] == '\n') i++;
+                positions.add((long) i);
+                start = i;
+            } else {
+                i++;
+            }
+        }
+        if (start < data.length) {
+            lines.add(new String(data, start, data.length - start, StandardCharsets.UTF_8));
+            positions.add((long) data.length);
+        }
+        return new Ref(lines, positions);
+    }
+
+    /** Canal que entrega no máximo {@code maxRead} bytes por leitura. */
+    private static ReadableByteChannel channel(byte[] data, int maxRead) {
+        return new ReadableByteChannel() {
+            private int p;
+            private boolean open = true;
+
+            @Override
+            public int read(ByteBuffer dst) {
+                if (p >= data.length) return -1;
+                int n = Math.min(Math.min(maxRead, dst.remaining()), data.length - p);
+                dst.put(data, p, n);
+                p += n;
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() { return open; }
+
+            @Override
+            public void close() { open = false; }
+        };
+    }
+}
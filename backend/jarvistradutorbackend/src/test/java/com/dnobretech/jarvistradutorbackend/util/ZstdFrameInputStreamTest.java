@@ -0,0 +1,134 @@
+package com.dnobretech.jarvistradutorbackend.util;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZstdFrameInputStream: quadros concatenados (com e sem checksum/tamanho no cabeçalho, skippable no
+ * meio) lidos por inteiro e retomados pelos inícios de quadro gravados no índice.
+ */
+class ZstdFrameInputStreamTest {
+
+    private static final int FRAME = 100_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsConcatenatedFramesAndSkipsSkippable() throws IOException {
+        byte[] data = corpus(1 << 20, 1);
+        Path f = write("multi.zst", frames(data, true));
+        assertArrayEquals(data, readAll(f, null));
+    }
+
+    @Test
+    void streamingFrameWithChecksum() throws IOException {
+        byte[] data = corpus(600_000, 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZstdOutputStream z = new ZstdOutputStream(out, 3)) {
+            z.setChecksum(true);
+            for (int p = 0; p < data.length; p += 7_000) z.write(data, p, Math.min(7_000, data.length - p));
+        }
+        Path f = write("stream.zst", out.toByteArray());
+        SeekIndex index = SeekIndex.open(dir.resolve("stream.idx"), f, CompressedInput.Codec.ZSTD, 1);
+        assertArrayEquals(data, readAll(f, index));
+        assertEquals(0, index.size());   // um quadro só: nenhum ponto além do início
+        assertResume(f, data, 123_456, index);
+    }
+
+    @Test
+    void resumesFromFrameStarts() throws IOException {
+        byte[] data = corpus(1 << 20, 3);
+        Path f = write("seek.zst", frames(data, true));
+        Path idxFile = dir.resolve("seek.idx");
+
+        SeekIndex index = SeekIndex.open(idxFile, f, CompressedInput.Codec.ZSTD, 250_000);
+        assertArrayEquals(data, readAll(f, index));
+        assertEquals(data.length / 300_000, index.size());   // primeiro quadro depois de cada 250 KB
+        SeekIndex.Point p = index.floor(data.length - 1);
+        assertEquals(0, p.out() % FRAME);
+        assertEquals(0, p.window().length);
+
+        Random rnd = new Random(4);
+        SeekIndex cold = SeekIndex.open(idxFile, f, CompressedInput.Codec.ZSTD, 250_000);
+        for (int n = 0; n < 20; n++) assertResume(f, data, rnd.nextInt(data.length + 1), cold);
+        assertResume(f, data, FRAME * 3, cold);
+    }
+
+    @Test
+    void truncatedOrInvalidFails() throws IOException {
+        byte[] zst = frames(corpus(300_000, 5), false);
+        for (int cut : new int[]{3, 10, zst.length / 2, zst.length - 1}) {
+            Path f = write("cut" + cut + ".zst", Arrays.copyOf(zst, cut));
+            assertThrows(IOException.class, () -> readAll(f, null), "corte em " + cut);
+        }
+        Path garbage = write("lixo.zst", concat(zst, "lixo".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, () -> readAll(garbage, null));
+    }
+
+    // ===== Helpers =====
+
+    private static void assertResume(Path f, byte[] data, int off, SeekIndex index) throws IOException {
+        try (InputStream in = Channels.newInputStream(CompressedInput.openAt(f, CompressedInput.Codec.ZSTD, off, index))) {
+            assertArrayEquals(Arrays.copyOfRange(data, off, data.length), in.readAllBytes(), "offset " + off);
+        }
+    }
+
+    private static byte[] readAll(Path f, SeekIndex index) throws IOException {
+        try (ZstdFrameInputStream in = new ZstdFrameInputStream(f, SeekIndex.ORIGIN, index)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** Um quadro a cada {@link #FRAME} bytes, com um quadro skippable depois do segundo. */
+    private static byte[] frames(byte[] data, boolean skippable) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int p = 0, k = 0; p < data.length; p += FRAME, k++) {
+            out.writeBytes(Zstd.compress(Arrays.copyOfRange(data, p, Math.min(data.length, p + FRAME)), 1 + k % 5));
+            if (skippable && k == 1) {
+                out.writeBytes(ByteBuffer.allocate(8 + 11).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(0x184D2A53).putInt(11).put("metadados!!".getBytes(StandardCharsets.US_ASCII)).array());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] corpus(int size, long seed) {
+        Random rnd = new Random(seed);
+        String[] words = {"ação", "the", "tradução", "memory", "日本語", "\t", "\n"};
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < size) sb.append(words[rnd.nextInt(words.length)]).append(rnd.nextInt(1000));
+        return Arrays.copyOf(sb.toString().getBytes(StandardCharsets.UTF_8), size);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] p : parts) out.writeBytes(p);
+        return out.toByteArray();
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        Path f = dir.resolve(name);
+        Files.write(f, content);
+        return f;
+    }
+}